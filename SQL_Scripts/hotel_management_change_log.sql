@@ -0,0 +1,106 @@
+-- Hotel Management System Change Log
+-- Triggers record which rows changed, so every terminal can pick up
+-- changes made by the others by polling change_log for sequence numbers
+-- above the last one it has seen. Run after hotel_management_db_setup.sql.
+
+USE hotel_management;
+
+-- Create change_log table
+CREATE TABLE IF NOT EXISTS change_log (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(32) NOT NULL,
+    row_id INT NOT NULL,
+    operation ENUM('insert', 'update') NOT NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_change_log_changed_at (changed_at)
+);
+
+-- ======= ROOM TRIGGERS =======
+
+DROP TRIGGER IF EXISTS trg_rooms_insert_change_log;
+CREATE TRIGGER trg_rooms_insert_change_log AFTER INSERT ON rooms
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('rooms', NEW.room_id, 'insert');
+
+-- Includes the room updates made by sp_update_room_status and at check-in and check-out
+DROP TRIGGER IF EXISTS trg_rooms_update_change_log;
+CREATE TRIGGER trg_rooms_update_change_log AFTER UPDATE ON rooms
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('rooms', NEW.room_id, 'update');
+
+-- ======= RESERVATION TRIGGERS =======
+
+DROP TRIGGER IF EXISTS trg_reservations_insert_change_log;
+CREATE TRIGGER trg_reservations_insert_change_log AFTER INSERT ON reservations
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('reservations', NEW.reservation_id, 'insert');
+
+DROP TRIGGER IF EXISTS trg_reservations_update_change_log;
+CREATE TRIGGER trg_reservations_update_change_log AFTER UPDATE ON reservations
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('reservations', NEW.reservation_id, 'update');
+
+-- A reservation's rooms are part of the reservation, so changes to them are
+-- logged as updates of the reservation that owns them
+DROP TRIGGER IF EXISTS trg_reservation_rooms_insert_change_log;
+CREATE TRIGGER trg_reservation_rooms_insert_change_log AFTER INSERT ON reservation_rooms
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('reservations', NEW.reservation_id, 'update');
+
+-- Includes room reassignments; a row moved to another reservation updates both
+DROP TRIGGER IF EXISTS trg_reservation_rooms_update_change_log;
+DELIMITER //
+CREATE TRIGGER trg_reservation_rooms_update_change_log AFTER UPDATE ON reservation_rooms
+FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, operation)
+        VALUES ('reservations', NEW.reservation_id, 'update');
+    IF OLD.reservation_id <> NEW.reservation_id THEN
+        INSERT INTO change_log (table_name, row_id, operation)
+            VALUES ('reservations', OLD.reservation_id, 'update');
+    END IF;
+END //
+DELIMITER ;
+
+-- Not fired by the cascade when a reservation itself is deleted
+DROP TRIGGER IF EXISTS trg_reservation_rooms_delete_change_log;
+CREATE TRIGGER trg_reservation_rooms_delete_change_log AFTER DELETE ON reservation_rooms
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('reservations', OLD.reservation_id, 'update');
+
+-- ======= BILLING TRIGGERS =======
+
+DROP TRIGGER IF EXISTS trg_billing_insert_change_log;
+CREATE TRIGGER trg_billing_insert_change_log AFTER INSERT ON billing
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('billing', NEW.bill_id, 'insert');
+
+DROP TRIGGER IF EXISTS trg_billing_update_change_log;
+CREATE TRIGGER trg_billing_update_change_log AFTER UPDATE ON billing
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('billing', NEW.bill_id, 'update');
+
+-- ======= INVENTORY TRIGGERS =======
+
+DROP TRIGGER IF EXISTS trg_inventory_items_insert_change_log;
+CREATE TRIGGER trg_inventory_items_insert_change_log AFTER INSERT ON inventory_items
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('inventory_items', NEW.item_id, 'insert');
+
+-- Includes the quantity changes made by sp_update_inventory
+DROP TRIGGER IF EXISTS trg_inventory_items_update_change_log;
+CREATE TRIGGER trg_inventory_items_update_change_log AFTER UPDATE ON inventory_items
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('inventory_items', NEW.item_id, 'update');
+
+-- Stock movements, recorded by sp_add_inventory_item and sp_update_inventory;
+-- the inventory usage report is summed from them
+DROP TRIGGER IF EXISTS trg_inventory_transactions_insert_change_log;
+CREATE TRIGGER trg_inventory_transactions_insert_change_log AFTER INSERT ON inventory_transactions
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('inventory_transactions', NEW.transaction_id, 'insert');
+
+DROP TRIGGER IF EXISTS trg_inventory_transactions_update_change_log;
+CREATE TRIGGER trg_inventory_transactions_update_change_log AFTER UPDATE ON inventory_transactions
+FOR EACH ROW INSERT INTO change_log (table_name, row_id, operation)
+    VALUES ('inventory_transactions', NEW.transaction_id, 'update');
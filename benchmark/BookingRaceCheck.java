@@ -0,0 +1,166 @@
+package benchmark;
+
+import database.DatabaseConnection;
+import logic.Reservation;
+import logic.ReservationManager;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks against real MySQL that a booking committed by another session
+ * while a booking waits for its room lock is seen once the lock is granted.
+ *
+ * Usage:
+ *   java -cp out:lib/mysql-connector-j-9.2.0.jar benchmark.BookingRaceCheck [-holdMillis 1000]
+ *
+ * A second connection locks the lowest available room of a type, books it
+ * for far-future dates and holds the transaction open. Meanwhile
+ * DatabaseConnection.createReservationInRoom (with a new guest, so it has
+ * guest lookups to do) and ReservationManager.createReservations ask for
+ * the same room and dates; both must wait, then leave the room alone.
+ * Writes real reservations, all cancelled afterwards; use a scratch database.
+ * Exits with status 1 if the room is booked twice.
+ */
+public class BookingRaceCheck {
+
+    public static void main(String[] args) throws Exception {
+        long holdMillis = 1000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-holdMillis": holdMillis = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Logger.getLogger("").setLevel(Level.WARNING);
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        ReservationManager reservationManager = new ReservationManager();
+
+        // Far-future dates, different on every run
+        LocalDate checkIn = LocalDate.of(2098, 1, 1).plusDays(System.currentTimeMillis() / 1000 % 3650);
+        Date checkInDate = Date.valueOf(checkIn);
+        Date checkOutDate = Date.valueOf(checkIn.plusDays(2));
+        String runId = Long.toString(System.currentTimeMillis());
+
+        boolean failed = false;
+        failed |= race(dbConnection, holdMillis, "createReservationInRoom", checkInDate, checkOutDate, runId,
+                room -> () -> new int[] {dbConnection.createReservationInRoom(0, "Race", "Single",
+                        "race-single-" + runId + "@example.com", "555-0100",
+                        checkInDate, checkOutDate, 1, room[0], null, 1), room[0]});
+        failed |= race(dbConnection, holdMillis, "createReservations", checkInDate, checkOutDate, runId,
+                room -> () -> {
+                    List<ReservationManager.BookingResult> results = reservationManager.createReservations(
+                            Collections.singletonList(new Reservation("Race", "Batch",
+                                    "race-batch-" + runId + "@example.com", "555-0100",
+                                    checkInDate, checkOutDate, room[1], 1)));
+                    return new int[] {results.get(0).getReservationId(), results.get(0).getRoomId()};
+                });
+
+        dbConnection.closeConnection();
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Hold a booking of a room open on one connection while the contender tries to book it.
+     *
+     * @param contender Given {room ID, type ID}; books and returns {reservation ID, room ID},
+     *                  with a reservation ID of 0 or less if it booked nothing
+     * @return True if the room was booked twice
+     */
+    private static boolean race(DatabaseConnection dbConnection, long holdMillis, String name,
+                                Date checkInDate, Date checkOutDate, String runId,
+                                Function<int[], Supplier<int[]>> contender) throws Exception {
+        int guestId = dbConnection.createGuest("Race", "Holder", "race-holder-" + name + "-" + runId + "@example.com",
+                "555-0100");
+        int heldReservationId;
+        int[] other;
+        int[] room;
+
+        try (Connection holder = dbConnection.getConnection()) {
+            holder.setAutoCommit(false);
+            try {
+                room = lockFirstAvailableRoom(holder);
+                if (room == null) {
+                    System.out.println(name + ": no available room; is the database loaded?");
+                    holder.rollback();
+                    return false;
+                }
+                heldReservationId = insertBooking(holder, guestId, room, checkInDate, checkOutDate);
+
+                CompletableFuture<int[]> booking = CompletableFuture.supplyAsync(contender.apply(room));
+                // Long enough for the contender to do its reads and block on the room lock
+                Thread.sleep(holdMillis);
+                if (booking.isDone()) {
+                    System.out.println(name + ": did not wait for the room lock");
+                }
+                holder.commit();
+                other = booking.get(holdMillis + 30000, TimeUnit.MILLISECONDS);
+            } finally {
+                holder.setAutoCommit(true);
+            }
+        }
+
+        dbConnection.updateReservationStatus(heldReservationId, "Cancelled");
+        if (other[0] > 0) {
+            dbConnection.updateReservationStatus(other[0], "Cancelled");
+        }
+        // Another room of the same type is fine; only the held room counts
+        boolean doubleBooked = other[0] > 0 && other[1] == room[0];
+        System.out.println(name + ": room " + room[0] + " " + checkInDate + " to " + checkOutDate
+                + (doubleBooked ? " DOUBLE BOOKED by reservation " + other[0] : " booked once"));
+        return doubleBooked;
+    }
+
+    /**
+     * @return {room ID, type ID} of the lowest available room of the first type, locked; null if none
+     */
+    private static int[] lockFirstAvailableRoom(Connection conn) throws SQLException {
+        String sql = "SELECT room_id, type_id FROM rooms WHERE status = 'Available' " +
+                "AND type_id = (SELECT MIN(type_id) FROM rooms WHERE status = 'Available') " +
+                "ORDER BY room_id LIMIT 1 FOR UPDATE";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? new int[] {rs.getInt(1), rs.getInt(2)} : null;
+        }
+    }
+
+    private static int insertBooking(Connection conn, int guestId, int[] room, Date checkInDate,
+                                     Date checkOutDate) throws SQLException {
+        int reservationId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO reservations (guest_id, check_in_date, check_out_date, status, total_guests, created_by) " +
+                "VALUES (?, ?, ?, 'Confirmed', 1, 1)", Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, guestId);
+            pstmt.setDate(2, checkInDate);
+            pstmt.setDate(3, checkOutDate);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                reservationId = keys.getInt(1);
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO reservation_rooms (reservation_id, room_id, rate_per_night) VALUES (?, ?, 100.00)")) {
+            pstmt.setInt(1, reservationId);
+            pstmt.setInt(2, room[0]);
+            pstmt.executeUpdate();
+        }
+        return reservationId;
+    }
+}
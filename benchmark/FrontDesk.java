@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.sql.Date;
+
+/**
+ * The front-desk operations driven by FrontDeskLoadHarness.
+ * Implemented over the real logic layer and by an in-memory stand-in.
+ * Implementations must be safe for use by many clerk threads at once.
+ */
+interface FrontDesk {
+
+    /**
+     * @return IDs of the room types clerks can book
+     */
+    int[] getRoomTypeIds();
+
+    /**
+     * @return IDs of the inventory items clerks can update
+     */
+    int[] getInventoryItemIds();
+
+    /**
+     * @return The new reservation ID, or -1 if no room was allocated
+     */
+    int createReservation(String email, Date checkIn, Date checkOut, int roomTypeId);
+
+    /**
+     * @return Number of free rooms
+     */
+    int getAvailableRooms(Date checkIn, Date checkOut, int roomTypeId);
+
+    boolean updateReservationStatus(int reservationId, String status);
+
+    boolean createBill(int reservationId);
+
+    boolean updateInventory(int itemId, int quantity, String transactionType);
+
+    /**
+     * Count pairs of active reservations that hold the same room on the same night.
+     *
+     * @return Number of double bookings, or -1 if they could not be counted
+     */
+    int countDoubleBookings();
+
+    /**
+     * @return Number of operations that failed on a deadlock or lock wait timeout so far
+     */
+    int getDeadlocks();
+
+    /**
+     * Release resources after the run.
+     */
+    void close();
+}
@@ -0,0 +1,344 @@
+package benchmark;
+
+import java.lang.reflect.Method;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays check-in rush traffic: N simulated clerks issue a mix of
+ * front-desk operations at the same time, then the harness reports
+ * throughput, latency percentiles per operation, double bookings and
+ * deadlocks.
+ *
+ * Usage:
+ *   java -cp out:lib/mysql-connector-j-9.2.0.jar benchmark.FrontDeskLoadHarness
+ *        [-backend memory|mysql] [-clerks 50] [-seconds 30]
+ *        [-mix create=40,available=30,status=20,bill=5,inventory=5]
+ *        [-days 7] [-seed 42] [-rooms 200] [-roomTypes 4] [-roundTripMicros 200]
+ *
+ * -backend          memory (default) runs against an in-process stand-in for the
+ *                   schema and stored procedures; mysql uses config/database.properties
+ * -clerks           Number of concurrent clerks, each on its own (virtual) thread
+ * -seconds          Length of the run
+ * -mix              Relative weights of the operations
+ * -days             Check-in dates are spread over this many days from today
+ * -seed             Seed for the clerks' random choices
+ * -rooms, -roomTypes, -roundTripMicros
+ *                   Size of the in-memory hotel and its simulated statement round trip
+ */
+public class FrontDeskLoadHarness {
+    private static final String[] OPERATIONS = {"create", "available", "status", "bill", "inventory"};
+    private static final int CREATE = 0;
+    private static final int AVAILABLE = 1;
+    private static final int STATUS = 2;
+    private static final int BILL = 3;
+    private static final int INVENTORY = 4;
+
+    // Guests are drawn from a fixed pool, so some bookings are by returning guests
+    private static final int GUEST_POOL = 5000;
+
+    private final FrontDesk frontDesk;
+    private final int[] weights;
+    private final int checkInDays;
+    private final int[] roomTypeIds;
+    private final int[] inventoryItemIds;
+
+    FrontDeskLoadHarness(FrontDesk frontDesk, int[] weights, int checkInDays) {
+        this.frontDesk = frontDesk;
+        this.weights = weights;
+        this.checkInDays = checkInDays;
+        this.roomTypeIds = frontDesk.getRoomTypeIds();
+        this.inventoryItemIds = frontDesk.getInventoryItemIds();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String backend = "memory";
+        int clerks = 50;
+        int seconds = 30;
+        String mix = "create=40,available=30,status=20,bill=5,inventory=5";
+        int checkInDays = 7;
+        long seed = 42;
+        int rooms = 200;
+        int roomTypes = 4;
+        long roundTripMicros = 200;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-backend": backend = args[++i]; break;
+                case "-clerks": clerks = Integer.parseInt(args[++i]); break;
+                case "-seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "-mix": mix = args[++i]; break;
+                case "-days": checkInDays = Integer.parseInt(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-rooms": rooms = Integer.parseInt(args[++i]); break;
+                case "-roomTypes": roomTypes = Integer.parseInt(args[++i]); break;
+                case "-roundTripMicros": roundTripMicros = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Per-call INFO logging would dominate the timings
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        FrontDesk frontDesk;
+        if ("mysql".equals(backend)) {
+            frontDesk = new LiveFrontDesk();
+        } else if ("memory".equals(backend)) {
+            frontDesk = new InMemoryFrontDesk(rooms, roomTypes, 20, roundTripMicros);
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+
+        try {
+            FrontDeskLoadHarness harness = new FrontDeskLoadHarness(frontDesk, parseMix(mix), checkInDays);
+            if (harness.roomTypeIds.length == 0) {
+                System.out.println("No room types found; is the database reachable?");
+                return;
+            }
+            System.out.printf(Locale.ROOT, "Backend %s, %d clerks, %d s, mix %s%n", backend, clerks, seconds, mix);
+            harness.run(clerks, seconds * 1000L, seed);
+        } finally {
+            frontDesk.close();
+        }
+    }
+
+    static int[] parseMix(String mix) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            int index = Arrays.asList(OPERATIONS).indexOf(pair[0].trim());
+            if (index < 0 || pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry: " + part);
+            }
+            weights[index] = Integer.parseInt(pair[1].trim());
+        }
+        if (Arrays.stream(weights).sum() <= 0) {
+            throw new IllegalArgumentException("Mix has no weight: " + mix);
+        }
+        return weights;
+    }
+
+    /**
+     * Run the clerks until the time is up and print the report.
+     */
+    void run(int clerks, long millis, long seed) throws Exception {
+        ExecutorService executor = createExecutor(clerks);
+        CountDownLatch start = new CountDownLatch(1);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<Clerk>> futures = new ArrayList<>();
+        long[] window = new long[2];
+
+        for (int c = 0; c < clerks; c++) {
+            Clerk clerk = new Clerk(c, seeds.split());
+            futures.add(executor.submit(() -> {
+                start.await();
+                clerk.work(window[1]);
+                return clerk;
+            }));
+        }
+
+        window[0] = System.nanoTime();
+        window[1] = window[0] + millis * 1_000_000L;
+        start.countDown();
+
+        List<Clerk> finished = new ArrayList<>();
+        for (Future<Clerk> future : futures) {
+            finished.add(future.get());
+        }
+        long elapsed = System.nanoTime() - window[0];
+        executor.shutdown();
+
+        report(finished, elapsed);
+    }
+
+    private void report(List<Clerk> clerks, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        long totalFailures = 0;
+
+        System.out.printf(Locale.ROOT, "%-10s %10s %10s %9s %12s %12s %12s %12s%n",
+                "operation", "count", "ops/s", "failed", "p50", "p99", "p99.9", "max");
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            int count = 0;
+            long failures = 0;
+            for (Clerk clerk : clerks) {
+                count += clerk.samples[op].size;
+                failures += clerk.failures[op];
+            }
+            if (count == 0) {
+                continue;
+            }
+            long[] latencies = new long[count];
+            int offset = 0;
+            for (Clerk clerk : clerks) {
+                System.arraycopy(clerk.samples[op].values, 0, latencies, offset, clerk.samples[op].size);
+                offset += clerk.samples[op].size;
+            }
+            Arrays.sort(latencies);
+
+            System.out.printf(Locale.ROOT, "%-10s %10d %10.1f %9d %12s %12s %12s %12s%n",
+                    OPERATIONS[op], count, count / seconds, failures,
+                    Microbenchmark.formatNanos(percentile(latencies, 0.50)),
+                    Microbenchmark.formatNanos(percentile(latencies, 0.99)),
+                    Microbenchmark.formatNanos(percentile(latencies, 0.999)),
+                    Microbenchmark.formatNanos(latencies[latencies.length - 1]));
+            total += count;
+            totalFailures += failures;
+        }
+
+        System.out.printf(Locale.ROOT, "Total %d operations in %.1f s (%.1f ops/s), %d failed%n",
+                total, seconds, total / seconds, totalFailures);
+        System.out.println("Deadlocks / lock wait timeouts: " + frontDesk.getDeadlocks());
+        int doubleBookings = frontDesk.countDoubleBookings();
+        System.out.println("Double bookings: " + (doubleBookings < 0 ? "could not be counted" : doubleBookings));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * One simulated terminal. Keeps its own latency samples, so clerks
+     * never contend on the harness itself, and remembers its own bookings
+     * so they move through Confirmed, Checked-in and Checked-out and are billed.
+     */
+    private final class Clerk {
+        private final int clerkId;
+        private final SplittableRandom random;
+        private final LongList[] samples = new LongList[OPERATIONS.length];
+        private final long[] failures = new long[OPERATIONS.length];
+        private final Deque<Integer> confirmed = new ArrayDeque<>();
+        private final Deque<Integer> checkedIn = new ArrayDeque<>();
+        private final Deque<Integer> checkedOut = new ArrayDeque<>();
+        private final LocalDate today = LocalDate.now();
+        private final int totalWeight = Arrays.stream(weights).sum();
+
+        Clerk(int clerkId, SplittableRandom random) {
+            this.clerkId = clerkId;
+            this.random = random;
+            for (int op = 0; op < samples.length; op++) {
+                samples[op] = new LongList();
+            }
+        }
+
+        void work(long deadline) {
+            while (System.nanoTime() < deadline) {
+                int op = pickOperation();
+                // Nothing to check in or bill yet: book instead, so early in a run creates lead the mix
+                if ((op == STATUS && confirmed.isEmpty() && checkedIn.isEmpty())
+                        || (op == BILL && checkedOut.isEmpty())) {
+                    op = CREATE;
+                }
+
+                long start = System.nanoTime();
+                boolean ok = perform(op);
+                samples[op].add(System.nanoTime() - start);
+                if (!ok) {
+                    failures[op]++;
+                }
+            }
+        }
+
+        private int pickOperation() {
+            int roll = random.nextInt(totalWeight);
+            for (int op = 0; op < weights.length; op++) {
+                roll -= weights[op];
+                if (roll < 0) {
+                    return op;
+                }
+            }
+            return CREATE;
+        }
+
+        private boolean perform(int op) {
+            switch (op) {
+                case CREATE: {
+                    LocalDate checkIn = today.plusDays(random.nextInt(checkInDays));
+                    LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+                    int reservationId = frontDesk.createReservation(
+                            "guest" + random.nextInt(GUEST_POOL) + "@loadtest.example",
+                            Date.valueOf(checkIn), Date.valueOf(checkOut), randomRoomType());
+                    if (reservationId > 0) {
+                        confirmed.add(reservationId);
+                    }
+                    return reservationId > 0;
+                }
+                case AVAILABLE: {
+                    LocalDate checkIn = today.plusDays(random.nextInt(checkInDays));
+                    return frontDesk.getAvailableRooms(Date.valueOf(checkIn),
+                            Date.valueOf(checkIn.plusDays(1 + random.nextInt(4))), randomRoomType()) >= 0;
+                }
+                case STATUS: {
+                    if (!checkedIn.isEmpty() && (confirmed.isEmpty() || random.nextBoolean())) {
+                        int reservationId = checkedIn.poll();
+                        checkedOut.add(reservationId);
+                        return frontDesk.updateReservationStatus(reservationId, "Checked-out");
+                    }
+                    int reservationId = confirmed.poll();
+                    checkedIn.add(reservationId);
+                    return frontDesk.updateReservationStatus(reservationId, "Checked-in");
+                }
+                case BILL:
+                    return frontDesk.createBill(checkedOut.poll());
+                case INVENTORY:
+                    if (inventoryItemIds.length == 0) {
+                        return false;
+                    }
+                    return frontDesk.updateInventory(inventoryItemIds[random.nextInt(inventoryItemIds.length)],
+                            1 + random.nextInt(5), random.nextInt(4) == 0 ? "In" : "Out");
+                default:
+                    throw new IllegalStateException("Clerk " + clerkId + ": unknown operation " + op);
+            }
+        }
+
+        private int randomRoomType() {
+            return roomTypeIds[random.nextInt(roomTypeIds.length)];
+        }
+    }
+
+    /**
+     * Growable array of latency samples, to avoid boxing millions of Longs.
+     */
+    private static final class LongList {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * One virtual thread per clerk when the JVM provides them (Java 21+),
+     * otherwise one platform thread per clerk.
+     */
+    private static ExecutorService createExecutor(int clerks) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(clerks, task -> {
+                Thread thread = new Thread(task, "clerk");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package benchmark;
+
+import database.DatabaseConnection;
+import logic.Report;
+import logic.ReportingEngine;
+import logic.Reservation;
+import logic.ReservationManager;
+import logic.RoomManager;
+import ui.BillingUIConnector;
+import ui.InventoryUIConnector;
+import ui.ReservationUIConnector;
+import ui.RoomUIConnector;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks for the logic and database hot paths.
+ * The logic benchmarks always run; the database ones run against the database
+ * configured in config/database.properties when it is reachable.
+ *
+ * Usage:
+ *   java -cp out:lib/mysql-connector-j-9.2.0.jar benchmark.HotPathBenchmarks
+ *        [filter] [-wi 3] [-i 5] [-t 1000] [-csv results.csv] [-writes]
+ *
+ * filter   Only run benchmarks whose name contains this text
+ * -wi      Warm-up iterations (default 3)
+ * -i       Measurement iterations (default 5)
+ * -t       Milliseconds per iteration (default 1000)
+ * -csv     Also write the results to a CSV file, for before/after comparisons
+ * -writes  Include benchmarks that insert reservations (each one is cancelled again)
+ */
+public class HotPathBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        Microbenchmark.Settings settings = new Microbenchmark.Settings();
+        String filter = "";
+        String csvFile = null;
+        boolean includeWrites = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi": settings.warmupIterations = Integer.parseInt(args[++i]); break;
+                case "-i": settings.measurementIterations = Integer.parseInt(args[++i]); break;
+                case "-t": settings.iterationMillis = Long.parseLong(args[++i]); break;
+                case "-csv": csvFile = args[++i]; break;
+                case "-writes": includeWrites = true; break;
+                default: filter = args[i];
+            }
+        }
+
+        // Per-call INFO logging would dominate the timings
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Map<String, Microbenchmark.Operation> benchmarks = new LinkedHashMap<>();
+        addLogicBenchmarks(benchmarks);
+        if (isDatabaseReachable()) {
+            addDatabaseBenchmarks(benchmarks, includeWrites);
+        } else {
+            System.out.println("Database not reachable; running logic benchmarks only");
+        }
+
+        List<Microbenchmark.Result> results = new ArrayList<>();
+        for (Map.Entry<String, Microbenchmark.Operation> entry : benchmarks.entrySet()) {
+            if (!entry.getKey().contains(filter)) {
+                continue;
+            }
+            Microbenchmark.Result result = Microbenchmark.run(entry.getKey(), settings, entry.getValue());
+            System.out.println(result);
+            results.add(result);
+        }
+
+        if (csvFile != null) {
+            writeCsv(csvFile, results);
+        }
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    private static void addLogicBenchmarks(Map<String, Microbenchmark.Operation> benchmarks) {
+        Reservation reservation = new Reservation("Bench", "Guest", "bench@example.com", "555-0100",
+                Date.valueOf("2025-03-08"), Date.valueOf("2025-03-15"), 1, 2);
+
+        benchmarks.put("Reservation.getNumberOfNights", reservation::getNumberOfNights);
+    }
+
+    private static void addDatabaseBenchmarks(Map<String, Microbenchmark.Operation> benchmarks, boolean includeWrites) {
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        RoomManager roomManager = new RoomManager();
+        ReservationManager reservationManager = new ReservationManager();
+        RoomUIConnector roomConnector = new RoomUIConnector();
+        InventoryUIConnector inventoryConnector = new InventoryUIConnector();
+        BillingUIConnector billingConnector = new BillingUIConnector();
+        ReservationUIConnector reservationConnector = new ReservationUIConnector();
+
+        Date today = Date.valueOf(LocalDate.now());
+        Date nextWeek = Date.valueOf(LocalDate.now().plusDays(7));
+        Date nextMonth = Date.valueOf(LocalDate.now().plusDays(30));
+
+        benchmarks.put("RoomManager.getAllRooms", roomManager::getAllRooms);
+        benchmarks.put("RoomManager.getAllRooms (status columns)",
+                () -> roomManager.getAllRooms("room_id", "room_number", "status"));
+        benchmarks.put("ReservationManager.getAvailableRooms",
+                () -> reservationManager.getAvailableRooms(today, nextWeek, null));
+        benchmarks.put("ReservationManager.isRoomTypeAvailable",
+                () -> reservationManager.isRoomTypeAvailable(today, nextWeek, 1));
+        benchmarks.put("ReservationManager.getReservationsByDateRange",
+                () -> reservationManager.getReservationsByDateRange(today, nextMonth));
+        benchmarks.put("RoomUIConnector.getRoomsTableData", roomConnector::getRoomsTableData);
+        benchmarks.put("InventoryUIConnector.getInventoryTableData", inventoryConnector::getInventoryTableData);
+        benchmarks.put("BillingUIConnector.getBillingTableData",
+                () -> billingConnector.getBillingTableData(0, 100));
+        benchmarks.put("ReservationUIConnector.getReservationsRowSource",
+                () -> reservationConnector.getReservationsRowSource(today, nextMonth).fetch(0, 100));
+        Date monthStart = Date.valueOf(LocalDate.now().withDayOfMonth(1));
+        Date monthEnd = Date.valueOf(LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth()));
+        benchmarks.put("ReportingEngine.computeReports (month)",
+                () -> ReportingEngine.getInstance().computeReports(monthStart, monthEnd,
+                        EnumSet.allOf(Report.Kind.class)));
+
+        if (includeWrites) {
+            // Far-future stays, cancelled straight away so the rooms never run out
+            int[] day = {0};
+            benchmarks.put("DatabaseConnection.createReservation (+cancel)", () -> {
+                LocalDate checkIn = LocalDate.of(2099, 1, 1).plusDays(day[0]++ % 3650);
+                int reservationId = dbConnection.createReservation("Bench", "Guest",
+                        "bench" + day[0] + "@example.com", "555-0100",
+                        Date.valueOf(checkIn), Date.valueOf(checkIn.plusDays(2)), 1, 1, null, 1);
+                if (reservationId > 0) {
+                    dbConnection.updateReservationStatus(reservationId, "Cancelled");
+                }
+                return reservationId;
+            });
+        }
+    }
+
+    private static boolean isDatabaseReachable() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            return conn.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void writeCsv(String csvFile, List<Microbenchmark.Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(csvFile))) {
+            out.println("benchmark,mean_ns,error_ns,min_ns,max_ns,operations");
+            for (Microbenchmark.Result result : results) {
+                out.println(String.format(Locale.ROOT, "\"%s\",%.1f,%.1f,%.1f,%.1f,%d",
+                        result.getName(), result.getMeanNanos(), result.getErrorNanos(),
+                        result.getMinNanos(), result.getMaxNanos(), result.getOperations()));
+            }
+        }
+        System.out.println("Results written to " + csvFile);
+    }
+}
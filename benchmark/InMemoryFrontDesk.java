@@ -0,0 +1,297 @@
+package benchmark;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process stand-in for the MySQL schema and stored procedures, so the
+ * load harness can run without a database server.
+ *
+ * It keeps what matters for concurrency: sp_create_reservation picks a
+ * free room with a plain (non-locking) SELECT and inserts the assignment
+ * later in the same transaction, so two clerks can pick the same room. Each
+ * simulated statement waits for a configurable round trip, and row locks
+ * are taken in the same order as the procedures with a lock wait timeout,
+ * like InnoDB's innodb_lock_wait_timeout.
+ */
+class InMemoryFrontDesk implements FrontDesk {
+    private static final long LOCK_WAIT_TIMEOUT_MS = 1000;
+
+    private final long roundTripNanos;
+    private final int[] roomTypeIds;
+    private final Room[] rooms;
+    private final Map<Integer, Booking> reservations = new ConcurrentHashMap<>();
+    private final Map<String, Integer> guestsByEmail = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> billsByReservation = new ConcurrentHashMap<>();
+    private final int[] inventoryItemIds;
+    private final ReentrantLock[] inventoryLocks;
+    private final int[] inventoryQuantities;
+    private final AtomicInteger nextReservationId = new AtomicInteger(1);
+    private final AtomicInteger nextGuestId = new AtomicInteger(1);
+    private final AtomicInteger nextBillId = new AtomicInteger(1);
+    private final AtomicInteger deadlocks = new AtomicInteger();
+
+    private static final class Room {
+        final int roomId;
+        final int typeId;
+        volatile String status = "Available";
+        final ReentrantLock lock = new ReentrantLock();
+        // Copy-on-write under lock, so unlocked readers see a consistent list like an MVCC snapshot
+        volatile List<Booking> bookings = new ArrayList<>();
+
+        Room(int roomId, int typeId) {
+            this.roomId = roomId;
+            this.typeId = typeId;
+        }
+    }
+
+    private static final class Booking {
+        final int reservationId;
+        final long checkInDay;
+        final long checkOutDay;
+        volatile String status = "Confirmed";
+        volatile Room room;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Booking(int reservationId, long checkInDay, long checkOutDay) {
+            this.reservationId = reservationId;
+            this.checkInDay = checkInDay;
+            this.checkOutDay = checkOutDay;
+        }
+
+        boolean isActive() {
+            return "Confirmed".equals(status) || "Checked-in".equals(status);
+        }
+
+        boolean overlaps(long inDay, long outDay) {
+            return checkInDay < outDay && inDay < checkOutDay;
+        }
+    }
+
+    /**
+     * @param roomCount       Number of rooms
+     * @param roomTypes       Number of room types; rooms are spread evenly over them
+     * @param inventoryItems  Number of inventory items
+     * @param roundTripMicros Simulated time of one statement round trip
+     */
+    InMemoryFrontDesk(int roomCount, int roomTypes, int inventoryItems, long roundTripMicros) {
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+
+        roomTypeIds = new int[roomTypes];
+        for (int t = 0; t < roomTypes; t++) {
+            roomTypeIds[t] = t + 1;
+        }
+        rooms = new Room[roomCount];
+        for (int r = 0; r < roomCount; r++) {
+            rooms[r] = new Room(r + 1, roomTypeIds[r % roomTypes]);
+        }
+
+        inventoryItemIds = new int[inventoryItems];
+        inventoryLocks = new ReentrantLock[inventoryItems];
+        inventoryQuantities = new int[inventoryItems];
+        for (int i = 0; i < inventoryItems; i++) {
+            inventoryItemIds[i] = i + 1;
+            inventoryLocks[i] = new ReentrantLock();
+            inventoryQuantities[i] = 1000;
+        }
+    }
+
+    @Override
+    public int[] getRoomTypeIds() {
+        return roomTypeIds.clone();
+    }
+
+    @Override
+    public int[] getInventoryItemIds() {
+        return inventoryItemIds.clone();
+    }
+
+    @Override
+    public int createReservation(String email, Date checkIn, Date checkOut, int roomTypeId) {
+        long inDay = checkIn.toLocalDate().toEpochDay();
+        long outDay = checkOut.toLocalDate().toEpochDay();
+
+        // SELECT guest_id ... / INSERT INTO guests
+        roundTrip();
+        guestsByEmail.computeIfAbsent(email, e -> nextGuestId.getAndIncrement());
+
+        // INSERT INTO reservations
+        roundTrip();
+        Booking booking = new Booking(nextReservationId.getAndIncrement(), inDay, outDay);
+
+        // SELECT r.room_id ... NOT IN (...) LIMIT 1: a consistent read that takes no locks
+        roundTrip();
+        Room chosen = null;
+        for (Room room : rooms) {
+            if (room.typeId == roomTypeId && "Available".equals(room.status) && isFree(room.bookings, inDay, outDay)) {
+                chosen = room;
+                break;
+            }
+        }
+        if (chosen == null) {
+            // ROLLBACK and SIGNAL 'No available room'
+            return -1;
+        }
+
+        // INSERT INTO reservation_rooms: the foreign key check locks the room row, nothing re-checks overlap
+        roundTrip();
+        if (!lock(chosen.lock)) {
+            return -1;
+        }
+        try {
+            List<Booking> updated = new ArrayList<>(chosen.bookings);
+            updated.add(booking);
+            chosen.bookings = updated;
+            booking.room = chosen;
+            reservations.put(booking.reservationId, booking);
+        } finally {
+            chosen.lock.unlock();
+        }
+        return booking.reservationId;
+    }
+
+    @Override
+    public int getAvailableRooms(Date checkIn, Date checkOut, int roomTypeId) {
+        long inDay = checkIn.toLocalDate().toEpochDay();
+        long outDay = checkOut.toLocalDate().toEpochDay();
+
+        roundTrip();
+        int free = 0;
+        for (Room room : rooms) {
+            if (room.typeId == roomTypeId && "Available".equals(room.status) && isFree(room.bookings, inDay, outDay)) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    @Override
+    public boolean updateReservationStatus(int reservationId, String status) {
+        Booking booking = reservations.get(reservationId);
+        if (booking == null) {
+            return false;
+        }
+
+        // UPDATE reservations, then UPDATE rooms JOIN reservation_rooms: reservation row first, then room row
+        roundTrip();
+        if (!lock(booking.lock)) {
+            return false;
+        }
+        try {
+            booking.status = status;
+            if ("Checked-in".equals(status) || "Checked-out".equals(status)) {
+                roundTrip();
+                Room room = booking.room;
+                if (!lock(room.lock)) {
+                    return false;
+                }
+                try {
+                    // The procedure sets 'Cleaning' on check-out; housekeeping is taken as instant here
+                    room.status = "Checked-in".equals(status) ? "Occupied" : "Available";
+                } finally {
+                    room.lock.unlock();
+                }
+            }
+            return true;
+        } finally {
+            booking.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean createBill(int reservationId) {
+        Booking booking = reservations.get(reservationId);
+        if (booking == null) {
+            return false;
+        }
+
+        // SELECT the room charges, INSERT INTO billing, INSERT INTO bill_items
+        roundTrip();
+        roundTrip();
+        roundTrip();
+        billsByReservation.put(reservationId, nextBillId.getAndIncrement());
+        return true;
+    }
+
+    @Override
+    public boolean updateInventory(int itemId, int quantity, String transactionType) {
+        int index = itemId - 1;
+        if (index < 0 || index >= inventoryItemIds.length) {
+            return false;
+        }
+
+        // UPDATE inventory_items and INSERT INTO inventory_transactions while holding the item row
+        roundTrip();
+        if (!lock(inventoryLocks[index])) {
+            return false;
+        }
+        try {
+            inventoryQuantities[index] += "In".equals(transactionType) ? quantity : -quantity;
+            roundTrip();
+            return true;
+        } finally {
+            inventoryLocks[index].unlock();
+        }
+    }
+
+    @Override
+    public int countDoubleBookings() {
+        int count = 0;
+        for (Room room : rooms) {
+            List<Booking> bookings = room.bookings;
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking a = bookings.get(i);
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    Booking b = bookings.get(j);
+                    if (a.isActive() && b.isActive() && a.overlaps(b.checkInDay, b.checkOutDay)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getDeadlocks() {
+        return deadlocks.get();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static boolean isFree(List<Booking> bookings, long inDay, long outDay) {
+        for (Booking booking : bookings) {
+            if (booking.isActive() && booking.overlaps(inDay, outDay)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean lock(ReentrantLock lock) {
+        try {
+            if (lock.tryLock(LOCK_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deadlocks.incrementAndGet();
+        return false;
+    }
+
+    private void roundTrip() {
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+}
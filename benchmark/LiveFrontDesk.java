@@ -0,0 +1,148 @@
+package benchmark;
+
+import database.DatabaseConnection;
+import logic.Reservation;
+import logic.ReservationManager;
+import logic.RoomType;
+import ui.BillingUIConnector;
+import ui.InventoryUIConnector;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Drives the real logic layer against the database in config/database.properties.
+ * The managers log and swallow SQL errors, so deadlocks are counted by a log
+ * handler that looks for MySQL's deadlock (1213) and lock wait timeout (1205) errors.
+ */
+class LiveFrontDesk implements FrontDesk {
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    private final ReservationManager reservationManager = new ReservationManager();
+    private final BillingUIConnector billingConnector = new BillingUIConnector();
+    private final InventoryUIConnector inventoryConnector = new InventoryUIConnector();
+    private final AtomicInteger deadlocks = new AtomicInteger();
+    private final Handler deadlockCounter = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            for (Throwable t = record.getThrown(); t != null; t = t.getCause()) {
+                if (t instanceof SQLException) {
+                    int code = ((SQLException) t).getErrorCode();
+                    if (code == ER_LOCK_DEADLOCK || code == ER_LOCK_WAIT_TIMEOUT) {
+                        deadlocks.incrementAndGet();
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final Handler[] consoleHandlers;
+    private final Level[] consoleLevels;
+
+    LiveFrontDesk() {
+        // Rejected bookings are counted by the harness; printing each stack trace would swamp the report
+        Logger root = Logger.getLogger("");
+        consoleHandlers = root.getHandlers();
+        consoleLevels = new Level[consoleHandlers.length];
+        for (int i = 0; i < consoleHandlers.length; i++) {
+            consoleLevels[i] = consoleHandlers[i].getLevel();
+            consoleHandlers[i].setLevel(Level.OFF);
+        }
+        root.addHandler(deadlockCounter);
+    }
+
+    @Override
+    public int[] getRoomTypeIds() {
+        List<RoomType> roomTypes = reservationManager.getAllRoomTypes();
+        return roomTypes.stream().mapToInt(RoomType::getId).toArray();
+    }
+
+    @Override
+    public int[] getInventoryItemIds() {
+        Object[][] items = inventoryConnector.getInventoryTableData();
+        int[] ids = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ids[i] = (Integer) items[i][0];
+        }
+        return ids;
+    }
+
+    @Override
+    public int createReservation(String email, Date checkIn, Date checkOut, int roomTypeId) {
+        Reservation reservation = new Reservation("Load", "Clerk", email, "555-0100", checkIn, checkOut, roomTypeId, 1);
+        return reservationManager.createReservation(reservation) ? reservation.getReservationId() : -1;
+    }
+
+    @Override
+    public int getAvailableRooms(Date checkIn, Date checkOut, int roomTypeId) {
+        return reservationManager.getAvailableRooms(checkIn, checkOut, roomTypeId).size();
+    }
+
+    @Override
+    public boolean updateReservationStatus(int reservationId, String status) {
+        return reservationManager.updateReservationStatus(reservationId, status);
+    }
+
+    @Override
+    public boolean createBill(int reservationId) {
+        return billingConnector.createBill(reservationId);
+    }
+
+    @Override
+    public boolean updateInventory(int itemId, int quantity, String transactionType) {
+        return inventoryConnector.updateInventory(itemId, quantity, transactionType, "Load test");
+    }
+
+    @Override
+    public int countDoubleBookings() {
+        String sql = "SELECT COUNT(*) FROM reservation_rooms a " +
+                "JOIN reservations ra ON a.reservation_id = ra.reservation_id " +
+                "JOIN reservation_rooms b ON a.room_id = b.room_id AND a.reservation_id < b.reservation_id " +
+                "JOIN reservations rb ON b.reservation_id = rb.reservation_id " +
+                "WHERE ra.status IN ('Confirmed', 'Checked-in') AND rb.status IN ('Confirmed', 'Checked-in') " +
+                "AND ra.check_in_date < rb.check_out_date AND rb.check_in_date < ra.check_out_date";
+
+        try {
+            return DatabaseConnection.getInstance().executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public int getDeadlocks() {
+        return deadlocks.get();
+    }
+
+    @Override
+    public void close() {
+        Logger.getLogger("").removeHandler(deadlockCounter);
+        for (int i = 0; i < consoleHandlers.length; i++) {
+            consoleHandlers[i].setLevel(consoleLevels[i]);
+        }
+        DatabaseConnection.getInstance().closeConnection();
+    }
+}
@@ -0,0 +1,146 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A small JMH-style measurement loop: warm-up iterations followed by timed
+ * iterations, each running the operation repeatedly for a fixed time.
+ * Results are fed to a sink so the JIT cannot remove the work.
+ */
+public final class Microbenchmark {
+
+    /**
+     * The code under measurement. Return the result so it is not optimised away.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Measurement settings.
+     */
+    public static final class Settings {
+        int warmupIterations = 3;
+        int measurementIterations = 5;
+        long iterationMillis = 1000;
+    }
+
+    /**
+     * Timings of one benchmark: average ns/op of each measurement iteration.
+     */
+    public static final class Result {
+        private final String name;
+        private final double[] nanosPerOp;
+        private final long operations;
+
+        Result(String name, double[] nanosPerOp, long operations) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.operations = operations;
+        }
+
+        public String getName() { return name; }
+        public long getOperations() { return operations; }
+
+        public double getMeanNanos() {
+            return Arrays.stream(nanosPerOp).average().orElse(0);
+        }
+
+        /**
+         * @return Half-width of a 99.9% confidence interval around the mean, as JMH reports it
+         */
+        public double getErrorNanos() {
+            int n = nanosPerOp.length;
+            if (n < 2) {
+                return 0;
+            }
+            double mean = getMeanNanos();
+            double sumSquares = 0;
+            for (double value : nanosPerOp) {
+                sumSquares += (value - mean) * (value - mean);
+            }
+            double stdDev = Math.sqrt(sumSquares / (n - 1));
+            // 3.29 is the two-sided z value for 99.9%; close enough to Student's t for a rough error bar
+            return 3.29 * stdDev / Math.sqrt(n);
+        }
+
+        public double getMinNanos() {
+            return Arrays.stream(nanosPerOp).min().orElse(0);
+        }
+
+        public double getMaxNanos() {
+            return Arrays.stream(nanosPerOp).max().orElse(0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-50s %14s +- %-12s (min %s, max %s, %d ops)",
+                    name, formatNanos(getMeanNanos()), formatNanos(getErrorNanos()),
+                    formatNanos(getMinNanos()), formatNanos(getMaxNanos()), operations);
+        }
+    }
+
+    // Written by every operation so results escape; read once at the end
+    private static volatile int sink;
+
+    private Microbenchmark() {
+    }
+
+    /**
+     * Measure one operation.
+     *
+     * @param name      Benchmark name for the report
+     * @param settings  Iteration counts and lengths
+     * @param operation The code to measure
+     * @return The measured result
+     * @throws Exception If the operation fails
+     */
+    public static Result run(String name, Settings settings, Operation operation) throws Exception {
+        for (int i = 0; i < settings.warmupIterations; i++) {
+            iterate(settings.iterationMillis, operation);
+        }
+
+        double[] nanosPerOp = new double[settings.measurementIterations];
+        long operations = 0;
+        for (int i = 0; i < settings.measurementIterations; i++) {
+            long[] timing = iterate(settings.iterationMillis, operation);
+            nanosPerOp[i] = (double) timing[0] / timing[1];
+            operations += timing[1];
+        }
+        return new Result(name, nanosPerOp, operations);
+    }
+
+    /**
+     * @return {elapsed nanos, operation count}
+     */
+    private static long[] iterate(long iterationMillis, Operation operation) throws Exception {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long start = System.nanoTime();
+        long count = 0;
+        long now;
+        int local = 0;
+        // Check the clock in small batches so fast operations are not dominated by nanoTime
+        do {
+            for (int i = 0; i < 16; i++) {
+                Object result = operation.run();
+                local += result == null ? 0 : result.hashCode();
+            }
+            count += 16;
+            now = System.nanoTime();
+        } while (now < deadline);
+        sink += local;
+        return new long[] {now - start, count};
+    }
+
+    static String formatNanos(double nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000);
+        }
+        if (nanos >= 1_000) {
+            return String.format(Locale.ROOT, "%.3f us", nanos / 1_000);
+        }
+        return String.format(Locale.ROOT, "%.1f ns", nanos);
+    }
+}
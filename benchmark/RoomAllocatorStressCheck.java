@@ -0,0 +1,228 @@
+package benchmark;
+
+import logic.Reservation;
+import logic.RoomAllocator;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs thousands of concurrent bookings through RoomAllocator and checks
+ * that no room ends up booked twice for the same night.
+ *
+ * Usage:
+ *   java -cp out:lib/mysql-connector-j-9.2.0.jar benchmark.RoomAllocatorStressCheck
+ *        [-backend memory|mysql] [-threads 64] [-bookings 5000] [-days 14]
+ *        [-rooms 400] [-roomTypes 4] [-roundTripMicros 500] [-seed 42]
+ *
+ * The memory backend writes each booking under a per-room lock, like the
+ * row lock taken by DatabaseConnection.createReservationInRoom, so lost races
+ * show up either as in-memory claim conflicts or as rejected writes.
+ * The mysql backend uses the default allocator and writes real reservations.
+ * Exits with status 1 if any overlap is found.
+ */
+public class RoomAllocatorStressCheck {
+
+    public static void main(String[] args) throws Exception {
+        String backend = "memory";
+        int threads = 64;
+        int bookings = 5000;
+        int days = 14;
+        int rooms = 400;
+        int roomTypes = 4;
+        long roundTripMicros = 500;
+        long seed = 42;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-backend": backend = args[++i]; break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-bookings": bookings = Integer.parseInt(args[++i]); break;
+                case "-days": days = Integer.parseInt(args[++i]); break;
+                case "-rooms": rooms = Integer.parseInt(args[++i]); break;
+                case "-roomTypes": roomTypes = Integer.parseInt(args[++i]); break;
+                case "-roundTripMicros": roundTripMicros = Long.parseLong(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        RoomAllocator allocator;
+        InMemoryHotel hotel = null;
+        LiveFrontDesk frontDesk = null;
+        int[] roomTypeIds;
+        if ("mysql".equals(backend)) {
+            allocator = RoomAllocator.getInstance();
+            frontDesk = new LiveFrontDesk();
+            roomTypeIds = frontDesk.getRoomTypeIds();
+            if (roomTypeIds.length == 0) {
+                System.out.println("No room types found; is the database reachable?");
+                frontDesk.close();
+                return;
+            }
+        } else if ("memory".equals(backend)) {
+            hotel = new InMemoryHotel(rooms, roomTypes, roundTripMicros);
+            allocator = new RoomAllocator(hotel, hotel);
+            roomTypeIds = new int[roomTypes];
+            for (int t = 0; t < roomTypes; t++) {
+                roomTypeIds[t] = t + 1;
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+
+        System.out.printf(Locale.ROOT, "Backend %s, %d threads, %d bookings over %d days%n",
+                backend, threads, bookings, days);
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        LocalDate today = LocalDate.now();
+        int bookingCount = bookings;
+        int checkInDays = days;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed + t);
+            futures.add(executor.submit(() -> {
+                int n;
+                while ((n = next.getAndIncrement()) < bookingCount) {
+                    LocalDate checkIn = today.plusDays(random.nextInt(checkInDays));
+                    Reservation reservation = new Reservation("Stress", "Guest" + n,
+                            "stress" + n + "@example.com", "555-0100",
+                            Date.valueOf(checkIn), Date.valueOf(checkIn.plusDays(1 + random.nextInt(3))),
+                            roomTypeIds[random.nextInt(roomTypeIds.length)], 1);
+                    if (allocator.allocate(reservation, 1) > 0) {
+                        booked.incrementAndGet();
+                    } else {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf(Locale.ROOT, "%d booked, %d refused (no room) in %.1f s, %.0f bookings/s%n",
+                booked.get(), refused.get(), seconds, bookings / seconds);
+        System.out.printf(Locale.ROOT, "%d lost races moved to another room%n", allocator.getConflicts());
+        int overlaps;
+        if (hotel != null) {
+            System.out.printf(Locale.ROOT, "%d of them rejected by the write, the rest by an in-memory claim%n",
+                    hotel.rejectedWrites.get());
+            overlaps = hotel.countOverlaps();
+        } else {
+            overlaps = frontDesk.countDoubleBookings();
+            frontDesk.close();
+        }
+        System.out.printf(Locale.ROOT, "%d overlapping bookings%n", overlaps);
+        if (overlaps > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Rooms and their committed bookings. Candidate rooms come from a
+     * snapshot read without locks, as the availability index would give them.
+     */
+    static final class InMemoryHotel implements RoomAllocator.Availability, RoomAllocator.BookingWriter {
+        private final int[] roomTypes;
+        private final List<List<long[]>> bookings;
+        private final long roundTripNanos;
+        private final AtomicInteger nextId = new AtomicInteger(1);
+        final AtomicLong rejectedWrites = new AtomicLong();
+
+        InMemoryHotel(int rooms, int types, long roundTripMicros) {
+            roomTypes = new int[rooms];
+            bookings = new ArrayList<>(rooms);
+            for (int r = 0; r < rooms; r++) {
+                roomTypes[r] = 1 + r % types;
+                bookings.add(new ArrayList<>());
+            }
+            roundTripNanos = roundTripMicros * 1000;
+        }
+
+        @Override
+        public List<Integer> findFreeRooms(Date checkInDate, Date checkOutDate, int roomTypeId) {
+            long in = checkInDate.toLocalDate().toEpochDay();
+            long out = checkOutDate.toLocalDate().toEpochDay();
+            List<Integer> free = new ArrayList<>();
+            for (int r = 0; r < roomTypes.length; r++) {
+                if (roomTypes[r] == roomTypeId) {
+                    synchronized (bookings.get(r)) {
+                        if (!overlaps(bookings.get(r), in, out)) {
+                            free.add(r + 1);
+                        }
+                    }
+                }
+            }
+            return free;
+        }
+
+        @Override
+        public void recordReservation(int reservationId, int roomId, Date checkInDate, Date checkOutDate) {
+            // Already visible: the write below adds to the same lists
+        }
+
+        @Override
+        public int createReservationInRoom(Reservation reservation, int roomId, int createdBy) {
+            long in = reservation.getCheckInDate().toLocalDate().toEpochDay();
+            long out = reservation.getCheckOutDate().toLocalDate().toEpochDay();
+            List<long[]> roomBookings = bookings.get(roomId - 1);
+            // Stands in for SELECT ... FOR UPDATE on the room row, the overlap check and the inserts
+            synchronized (roomBookings) {
+                LockSupport.parkNanos(roundTripNanos);
+                if (overlaps(roomBookings, in, out)) {
+                    rejectedWrites.incrementAndGet();
+                    return 0;
+                }
+                roomBookings.add(new long[] {in, out});
+            }
+            return nextId.getAndIncrement();
+        }
+
+        int countOverlaps() {
+            int overlaps = 0;
+            for (List<long[]> roomBookings : bookings) {
+                for (int i = 0; i < roomBookings.size(); i++) {
+                    for (int j = i + 1; j < roomBookings.size(); j++) {
+                        long[] a = roomBookings.get(i);
+                        long[] b = roomBookings.get(j);
+                        if (a[0] < b[1] && b[0] < a[1]) {
+                            overlaps++;
+                        }
+                    }
+                }
+            }
+            return overlaps;
+        }
+
+        private static boolean overlaps(List<long[]> roomBookings, long in, long out) {
+            for (long[] booking : roomBookings) {
+                if (booking[0] < out && in < booking[1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Work to run against a borrowed connection.
+ * Used with {@link DatabaseConnection#executeRead(ConnectionCallback)}.
+ *
+ * @param <T> The type of result produced
+ */
+@FunctionalInterface
+public interface ConnectionCallback<T> {
+
+    /**
+     * Run the work. The connection is returned to the pool afterwards,
+     * so it must not be kept beyond this call.
+     *
+     * @param conn A pooled connection
+     * @return The result of the work
+     * @throws SQLException if a database error occurs
+     */
+    T doInConnection(Connection conn) throws SQLException;
+}
@@ -0,0 +1,562 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections used by DatabaseConnection.
+ * Connections handed out by {@link #borrow()} are returned to the pool
+ * when the caller closes them, so callers simply use try-with-resources.
+ *
+ * Connections are not pinged on every borrow. A connection is only validated
+ * when it has been idle longer than the configured period, a background
+ * keep-alive task checks idle connections, and connection-level SQLExceptions
+ * raised by real queries mark the connection as broken so it is discarded.
+ *
+ * Each physical connection keeps its own {@link StatementCache}, so closing a
+ * prepared or callable statement returns it to that cache instead of
+ * discarding it.
+ *
+ * When the {@link SlowQueryLog} is enabled, every statement execution is
+ * timed and slow ones are written to it.
+ */
+final class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final String url;
+    private final Properties connectionProps;
+    private final Settings settings;
+
+    // Idle connections, most recently used first
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private final SlowQueryLog slowQueryLog;
+    private volatile boolean closed;
+
+    // Connections last validated before this time are re-validated on borrow
+    private volatile long suspectBefore;
+
+    // Statement cache counters across all connections
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Pool configuration, read from config/database.properties by DatabaseConnection.
+     */
+    static final class Settings {
+        int minSize = 2;
+        int maxSize = 10;
+        long acquireTimeoutMs = 5000;
+        long idleTimeoutMs = 600000;
+        long maxLifetimeMs = 1800000;
+        long validateAfterIdleMs = 30000;
+        long keepaliveIntervalMs = 120000;
+        int validationTimeoutSeconds = 5;
+        int statementCacheSize = 32;
+        final SlowQueryLog.Settings slowQueries = new SlowQueryLog.Settings();
+    }
+
+    /**
+     * Create the pool and open the minimum number of connections.
+     *
+     * @param url               JDBC URL
+     * @param connectionProps   Driver properties (user, password, ...)
+     * @param settings          Pool sizing, timeout and validation settings
+     */
+    ConnectionPool(String url, Properties connectionProps, Settings settings) {
+        this.url = url;
+        this.connectionProps = connectionProps;
+        this.settings = settings;
+        settings.maxSize = Math.max(1, settings.maxSize);
+        settings.minSize = Math.max(0, Math.min(settings.minSize, settings.maxSize));
+        this.permits = new Semaphore(settings.maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictPeriod = Math.max(1000, Math.min(settings.idleTimeoutMs, settings.maxLifetimeMs) / 2);
+        housekeeper.scheduleWithFixedDelay(this::evictIdleAndExpired, evictPeriod, evictPeriod, TimeUnit.MILLISECONDS);
+        if (settings.keepaliveIntervalMs > 0) {
+            housekeeper.scheduleWithFixedDelay(this::keepAlive, settings.keepaliveIntervalMs,
+                    settings.keepaliveIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        slowQueryLog = SlowQueryLog.open(settings.slowQueries, this::borrow);
+        fillToMinimum();
+    }
+
+    /**
+     * Borrow a connection from the pool, opening a new one if none is idle.
+     * Closing the returned connection hands it back to the pool.
+     *
+     * @return A pooled connection
+     * @throws SQLException if no connection becomes available within the acquire timeout
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + settings.acquireTimeoutMs
+                        + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                long now = System.currentTimeMillis();
+                if (isExpired(pooled, now) || (needsValidation(pooled, now) && !validate(pooled))) {
+                    destroy(pooled);
+                    continue;
+                }
+                return pooled.lease();
+            }
+            return open().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Check whether an exception means the underlying connection is unusable,
+     * as opposed to an error in the statement itself.
+     *
+     * @param e The exception raised by a JDBC call
+     * @return True if the connection should be discarded
+     */
+    static boolean isConnectionFailure(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            String state = current.getSQLState();
+            if (current instanceof SQLRecoverableException
+                    || current instanceof SQLNonTransientConnectionException
+                    || (state != null && state.startsWith("08"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discard a borrowed connection instead of returning it to the pool when
+     * it is closed, and re-validate idle connections before they are reused.
+     *
+     * @param connection A connection obtained from {@link #borrow()}
+     */
+    void markBroken(Connection connection) {
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof PooledConnection.Lease) {
+            ((PooledConnection.Lease) Proxy.getInvocationHandler(connection)).owner().broken = true;
+        }
+        // Whatever broke this connection (server restart, network drop) probably broke the idle ones too
+        suspectBefore = System.currentTimeMillis();
+    }
+
+    /**
+     * Return a connection to the pool. Called when a leased connection is closed.
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            if (closed || pooled.broken || isExpired(pooled, System.currentTimeMillis()) || pooled.raw.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+
+            // Leave the connection the way the next borrower expects it
+            if (!pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that could not be reset", e);
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close every connection and stop the housekeeping thread.
+     */
+    void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        if (slowQueryLog != null) {
+            slowQueryLog.close();
+        }
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        LOGGER.info("Connection pool closed");
+    }
+
+    int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    int getIdleConnections() {
+        return idle.size();
+    }
+
+    int getMaxSize() {
+        return settings.maxSize;
+    }
+
+    long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, connectionProps);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(raw);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        if (pooled.statementCache != null) {
+            pooled.statementCache.clear();
+        }
+        try {
+            pooled.raw.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return settings.maxLifetimeMs > 0 && now - pooled.createdAt >= settings.maxLifetimeMs;
+    }
+
+    /**
+     * A connection used recently is trusted; one that sat idle for a while, or
+     * that was idle when another connection failed, is pinged first.
+     */
+    private boolean needsValidation(PooledConnection pooled, long now) {
+        return now - pooled.lastValidated >= settings.validateAfterIdleMs
+                || pooled.lastValidated < suspectBefore;
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        try {
+            if (pooled.raw.isValid(settings.validationTimeoutSeconds)) {
+                pooled.lastValidated = System.currentTimeMillis();
+                return true;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Connection validation failed", e);
+        }
+        return false;
+    }
+
+    /**
+     * Retire idle connections that outlived their idle timeout or max lifetime,
+     * then top the pool back up to its minimum size.
+     */
+    private void evictIdleAndExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            boolean idleTooLong = settings.idleTimeoutMs > 0 && now - pooled.lastUsed >= settings.idleTimeoutMs
+                    && totalConnections.get() > settings.minSize;
+            if ((idleTooLong || isExpired(pooled, now)) && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+        fillToMinimum();
+    }
+
+    /**
+     * Ping idle connections that have not been validated recently so the
+     * server (and any firewall in between) does not drop them, and so dead
+     * ones are found here rather than by a borrower.
+     */
+    private void keepAlive() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> candidates = new ArrayList<>();
+        for (PooledConnection pooled : idle) {
+            if (now - pooled.lastValidated >= settings.keepaliveIntervalMs) {
+                candidates.add(pooled);
+            }
+        }
+
+        for (PooledConnection pooled : candidates) {
+            // Take it out of the idle list so no borrower gets it mid-check
+            if (!idle.remove(pooled)) {
+                continue;
+            }
+            if (validate(pooled)) {
+                idle.offerLast(pooled);
+            } else {
+                LOGGER.info("Discarding idle connection that failed keep-alive validation");
+                destroy(pooled);
+            }
+        }
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < settings.minSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(open());
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error connecting to the database", e);
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection raw;
+        private final long createdAt;
+        private volatile long lastUsed;
+        private volatile long lastValidated;
+        private volatile boolean broken;
+        private final StatementCache statementCache;
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+            this.lastValidated = createdAt;
+            this.statementCache = settings.statementCacheSize > 0
+                    ? new StatementCache(settings.statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+        }
+
+        /**
+         * Wrap the physical connection for one borrower.
+         */
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    new Lease());
+        }
+
+        /**
+         * Routes close() back to the pool, rejects use after close and
+         * watches statements for connection failures.
+         */
+        private final class Lease implements InvocationHandler {
+            private boolean returned;
+
+            PooledConnection owner() {
+                return PooledConnection.this;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            release(PooledConnection.this);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || raw.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled" + raw;
+                    default:
+                        break;
+                }
+
+                if (returned) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+
+                // prepareStatement(sql) / prepareCall(sql) are served from the statement cache
+                String name = method.getName();
+                if (statementCache != null && args != null && args.length == 1
+                        && ("prepareStatement".equals(name) || "prepareCall".equals(name))) {
+                    return prepareCached("prepareCall".equals(name), (String) args[0], method);
+                }
+
+                Object result = call(raw, method, args);
+                if (result instanceof Statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return watch((Statement) result, method.getReturnType(), null, sql);
+                }
+                return result;
+            }
+
+            private Object prepareCached(boolean callable, String sql, Method method) throws Throwable {
+                String key = StatementCache.key(callable, sql);
+                StatementCache.Entry entry = statementCache.checkOut(key);
+                if (entry != null) {
+                    return watch(entry.statement, method.getReturnType(), entry, sql);
+                }
+
+                PreparedStatement statement = (PreparedStatement) call(raw, method, new Object[] {sql});
+                return watch(statement, method.getReturnType(), statementCache.add(key, statement), sql);
+            }
+
+            /**
+             * Wrap a statement so failures from the real query mark this
+             * connection broken without an extra round-trip. Cached statements
+             * go back to the statement cache when closed. Executions are timed
+             * for the slow-query log.
+             *
+             * @param sql The SQL the statement was prepared with; null for a plain Statement
+             */
+            private Object watch(Statement statement, Class<?> type, StatementCache.Entry entry, String sql) {
+                Class<?> iface = CallableStatement.class.isAssignableFrom(type) ? CallableStatement.class
+                        : PreparedStatement.class.isAssignableFrom(type) ? PreparedStatement.class
+                        : Statement.class;
+                boolean[] closed = new boolean[1];
+                SlowQueryLog.Tracker tracker = slowQueryLog != null && !SlowQueryLog.isOwnStatement(sql)
+                        ? slowQueryLog.track(sql) : null;
+                return Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface},
+                        (stmtProxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "equals":
+                                    return stmtProxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(stmtProxy);
+                                case "isClosed":
+                                    return closed[0] || statement.isClosed();
+                                case "close":
+                                    if (!closed[0]) {
+                                        closed[0] = true;
+                                        if (tracker != null) {
+                                            tracker.finish();
+                                        }
+                                        if (entry != null && !broken) {
+                                            statementCache.checkIn(entry);
+                                        } else {
+                                            statement.close();
+                                        }
+                                    }
+                                    return null;
+                                default:
+                                    break;
+                            }
+                            if (closed[0]) {
+                                throw new SQLException("Statement has already been closed");
+                            }
+                            if (tracker != null) {
+                                return callTracked(tracker, statement, method, args);
+                            }
+                            return call(statement, method, args);
+                        });
+            }
+
+            /**
+             * Call a statement method, telling the tracker about bound
+             * parameters, executions and the rows read from their results.
+             */
+            private Object callTracked(SlowQueryLog.Tracker tracker, Statement statement,
+                                       Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.startsWith("execute")) {
+                    String adHocSql = args != null && args.length > 0 && args[0] instanceof String
+                            ? (String) args[0] : null;
+                    if (SlowQueryLog.isOwnStatement(adHocSql)) {
+                        return call(statement, method, args);
+                    }
+                    tracker.started(adHocSql);
+                    Object result = call(statement, method, args);
+                    tracker.executed(result);
+                    return result instanceof ResultSet ? countRows((ResultSet) result, tracker) : result;
+                }
+
+                if ("getResultSet".equals(name)) {
+                    Object result = call(statement, method, args);
+                    return result instanceof ResultSet ? countRows((ResultSet) result, tracker) : result;
+                } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    tracker.bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                } else if ("clearParameters".equals(name)) {
+                    tracker.clearParameters();
+                } else if ("addBatch".equals(name)) {
+                    tracker.addBatch();
+                }
+                return call(statement, method, args);
+            }
+
+            private ResultSet countRows(ResultSet resultSet, SlowQueryLog.Tracker tracker) {
+                return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, (rsProxy, method, args) -> {
+                            Object result = call(resultSet, method, args);
+                            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                                tracker.rowRead();
+                            }
+                            return result;
+                        });
+            }
+
+            private Object call(Object target, Method method, Object[] args) throws Throwable {
+                try {
+                    return invokeTarget(target, method, args);
+                } catch (SQLException e) {
+                    if (isConnectionFailure(e)) {
+                        broken = true;
+                        suspectBefore = System.currentTimeMillis();
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+}
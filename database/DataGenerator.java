@@ -0,0 +1,558 @@
+package database;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a large synthetic property for load and scale testing:
+ * room types, rooms, guests, several years of reservations with realistic
+ * stay lengths and lead times, cancellations and no-shows, bills with
+ * service items, and daily inventory transactions.
+ * Rows are written with batched inserts and explicit IDs that continue
+ * after the existing data, so it can be loaded on top of mock_data.sql.
+ * The same seed and settings always produce the same data.
+ *
+ * Usage:
+ *   java -cp out:lib/mysql-connector-j-9.2.0.jar database.DataGenerator
+ *        [-seed 42] [-rooms 1000] [-types 4] [-years 5] [-futureDays 365]
+ *        [-occupancy 0.75] [-cancellations 0.12] [-batch 1000]
+ */
+public class DataGenerator {
+    private static final Logger LOGGER = Logger.getLogger(DataGenerator.class.getName());
+
+    private static final String[] TYPE_NAMES = {"Standard", "Deluxe", "Suite", "Family", "Executive", "Penthouse"};
+    private static final double[] TYPE_PRICES = {100, 150, 250, 200, 300, 500};
+    private static final int[] TYPE_CAPACITIES = {2, 2, 4, 6, 2, 4};
+    // Share of rooms of each type; the cheaper types dominate a real property
+    private static final double[] TYPE_WEIGHTS = {0.45, 0.25, 0.08, 0.12, 0.07, 0.03};
+
+    private static final String[] FIRST_NAMES = {"Sarah", "Michael", "Emma", "David", "Olivia", "James", "Sophia",
+            "Daniel", "Ava", "Liam", "Mia", "Noah", "Isabella", "Ethan", "Amelia", "Lucas", "Harper", "Mason"};
+    private static final String[] LAST_NAMES = {"Johnson", "Chen", "Rodriguez", "Williams", "Taylor", "Smith",
+            "Brown", "Garcia", "Miller", "Davis", "Martinez", "Lopez", "Wilson", "Anderson", "Thomas", "Moore"};
+    private static final String[] PAYMENT_METHODS = {"Credit Card", "Debit Card", "Cash", "Bank Transfer"};
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.10");
+
+    /**
+     * Generator settings.
+     */
+    public static final class Settings {
+        long seed = 42;
+        int rooms = 1000;
+        int roomTypes = 4;
+        int historyYears = 5;
+        int futureDays = 365;
+        double occupancy = 0.75;
+        double cancellationRate = 0.12;
+        double noShowRate = 0.02;
+        double returningGuestRate = 0.3;
+        int batchSize = 1000;
+    }
+
+    private final Settings settings;
+    private final Random random;
+    private final DatabaseConnection dbConnection;
+    private final LocalDate today = LocalDate.now();
+
+    // Next free primary key of each table; IDs are assigned here so child rows can reference them
+    private int nextTypeId;
+    private int nextRoomId;
+    private int nextGuestId;
+    private int nextReservationId;
+    private int nextBillId;
+    private Integer createdBy;
+
+    // {service_id, price in cents} and the matching names
+    private final List<int[]> services = new ArrayList<>();
+    private final List<String> serviceNames = new ArrayList<>();
+    private final List<Integer> inventoryItems = new ArrayList<>();
+
+    public DataGenerator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed);
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Generate and load all data in one run.
+     *
+     * @throws SQLException If loading fails; rows of the current batch are rolled back
+     */
+    public void generate() throws SQLException {
+        long started = System.nanoTime();
+
+        try (Connection conn = dbConnection.getConnection()) {
+            loadExistingData(conn);
+            conn.setAutoCommit(false);
+
+            try {
+                int[][] roomsByType = generateRooms(conn);
+                long[] occupiedRoomNights = generateReservations(conn, roomsByType);
+                generateInventoryTransactions(conn, occupiedRoomNights);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        LOGGER.info(String.format("Data generated in %.1f s", (System.nanoTime() - started) / 1e9));
+    }
+
+    private void loadExistingData(Connection conn) throws SQLException {
+        nextTypeId = nextId(conn, "room_types", "type_id");
+        nextRoomId = nextId(conn, "rooms", "room_id");
+        nextGuestId = nextId(conn, "guests", "guest_id");
+        nextReservationId = nextId(conn, "reservations", "reservation_id");
+        nextBillId = nextId(conn, "billing", "bill_id");
+
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(user_id) FROM users")) {
+                rs.next();
+                int userId = rs.getInt(1);
+                createdBy = rs.wasNull() ? null : userId;
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT service_id, name, price FROM services ORDER BY service_id")) {
+                while (rs.next()) {
+                    services.add(new int[] {rs.getInt("service_id"), rs.getBigDecimal("price").movePointRight(2).intValue()});
+                    serviceNames.add(rs.getString("name"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT item_id FROM inventory_items ORDER BY item_id")) {
+                while (rs.next()) {
+                    inventoryItems.add(rs.getInt("item_id"));
+                }
+            }
+        }
+    }
+
+    private static int nextId(Connection conn, String table, String idColumn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * @return Room IDs grouped by index of their type, with the type's nightly price in cents as element 0
+     */
+    private int[][] generateRooms(Connection conn) throws SQLException {
+        int typeCount = Math.min(settings.roomTypes, TYPE_NAMES.length);
+        int[] typeIds = new int[typeCount];
+        double weightSum = 0;
+        for (int t = 0; t < typeCount; t++) {
+            weightSum += TYPE_WEIGHTS[t];
+        }
+
+        try (BatchWriter types = new BatchWriter(conn, "room_types",
+                "INSERT INTO room_types (type_id, name, description, base_price, capacity, amenities) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int t = 0; t < typeCount; t++) {
+                typeIds[t] = nextTypeId++;
+                PreparedStatement ps = types.statement;
+                ps.setInt(1, typeIds[t]);
+                // The type ID keeps names unique when the generator runs more than once
+                ps.setString(2, TYPE_NAMES[t] + " " + typeIds[t]);
+                ps.setString(3, "Generated " + TYPE_NAMES[t].toLowerCase() + " room");
+                ps.setBigDecimal(4, BigDecimal.valueOf(TYPE_PRICES[t]).setScale(2, RoundingMode.HALF_UP));
+                ps.setInt(5, TYPE_CAPACITIES[t]);
+                ps.setString(6, "WiFi, TV, AC");
+                types.add();
+            }
+        }
+
+        List<List<Integer>> grouped = new ArrayList<>();
+        for (int t = 0; t < typeCount; t++) {
+            grouped.add(new ArrayList<>());
+        }
+
+        try (BatchWriter rooms = new BatchWriter(conn, "rooms",
+                "INSERT INTO rooms (room_id, room_number, type_id, floor, status) VALUES (?, ?, ?, ?, 'Available')")) {
+            for (int r = 0; r < settings.rooms; r++) {
+                int type = pickType(typeCount, weightSum);
+                int roomId = nextRoomId++;
+                PreparedStatement ps = rooms.statement;
+                ps.setInt(1, roomId);
+                ps.setString(2, "G" + roomId);
+                ps.setInt(3, typeIds[type]);
+                ps.setInt(4, 1 + r / 50);
+                rooms.add();
+                grouped.get(type).add(roomId);
+            }
+        }
+
+        int[][] roomsByType = new int[typeCount][];
+        for (int t = 0; t < typeCount; t++) {
+            List<Integer> ids = grouped.get(t);
+            roomsByType[t] = new int[ids.size() + 1];
+            roomsByType[t][0] = (int) (TYPE_PRICES[t] * 100);
+            for (int i = 0; i < ids.size(); i++) {
+                roomsByType[t][i + 1] = ids.get(i);
+            }
+        }
+        return roomsByType;
+    }
+
+    private int pickType(int typeCount, double weightSum) {
+        double pick = random.nextDouble() * weightSum;
+        for (int t = 0; t < typeCount - 1; t++) {
+            pick -= TYPE_WEIGHTS[t];
+            if (pick < 0) {
+                return t;
+            }
+        }
+        return typeCount - 1;
+    }
+
+    /**
+     * Walk each room's calendar from the start of the history to the end of
+     * the booking horizon, placing back-to-back stays separated by random gaps.
+     *
+     * @return Occupied room-nights per day since the start of the history, for inventory usage
+     */
+    private long[] generateReservations(Connection conn, int[][] roomsByType) throws SQLException {
+        LocalDate historyStart = today.minusYears(settings.historyYears);
+        LocalDate horizon = today.plusDays(settings.futureDays);
+        int totalDays = (int) (horizon.toEpochDay() - historyStart.toEpochDay());
+        long[] occupied = new long[totalDays];
+
+        // Mean gap chosen so that stays fill the target share of nights
+        double meanStay = 3.2;
+        double meanGap = meanStay * (1 - settings.occupancy) / settings.occupancy;
+
+        try (BatchWriter guests = new BatchWriter(conn, "guests",
+                "INSERT INTO guests (guest_id, first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?, ?)");
+             BatchWriter reservations = new BatchWriter(conn, "reservations",
+                     "INSERT INTO reservations (reservation_id, guest_id, check_in_date, check_out_date, status, " +
+                     "total_guests, special_requests, created_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                     guests);
+             BatchWriter reservationRooms = new BatchWriter(conn, "reservation_rooms",
+                     "INSERT INTO reservation_rooms (reservation_id, room_id, rate_per_night) VALUES (?, ?, ?)",
+                     reservations);
+             BatchWriter bills = new BatchWriter(conn, "billing",
+                     "INSERT INTO billing (bill_id, reservation_id, total_amount, discount_amount, tax_amount, " +
+                     "grand_total, payment_status, payment_method, billing_date, created_by) " +
+                     "VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, ?)",
+                     reservations);
+             BatchWriter billItems = new BatchWriter(conn, "bill_items",
+                     "INSERT INTO bill_items (bill_id, item_type, description, quantity, unit_price, total_price, date_added) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                     bills)) {
+
+            int firstGuestId = nextGuestId;
+            LocalDateTime now = today.atTime(0, 0);
+            for (int type = 0; type < roomsByType.length; type++) {
+                int[] group = roomsByType[type];
+                int capacity = TYPE_CAPACITIES[type];
+
+                for (int i = 1; i < group.length; i++) {
+                    int roomId = group[i];
+                    LocalDate day = historyStart.plusDays((long) (random.nextDouble() * meanGap * 2));
+
+                    while (day.isBefore(horizon)) {
+                        int nights = stayLength();
+                        LocalDate checkOut = day.plusDays(nights);
+                        int rateCents = (int) Math.round(group[0] * (0.85 + random.nextDouble() * 0.3));
+
+                        // Returning guests are drawn from the guests generated so far
+                        int guestId;
+                        if (nextGuestId > firstGuestId && random.nextDouble() < settings.returningGuestRate) {
+                            guestId = firstGuestId + random.nextInt(nextGuestId - firstGuestId);
+                        } else {
+                            guestId = nextGuestId++;
+                            addGuest(guests, guestId);
+                        }
+
+                        String status = stayStatus(day, checkOut);
+                        int reservationId = nextReservationId++;
+                        LocalDateTime createdAt = day.minusDays(leadTimeDays()).atTime(8 + random.nextInt(12), random.nextInt(60));
+                        if (createdAt.isAfter(now)) {
+                            // Upcoming stays were all booked before today
+                            createdAt = now.minusMinutes(random.nextInt(60 * 24 * 30));
+                        }
+
+                        PreparedStatement ps = reservations.statement;
+                        ps.setInt(1, reservationId);
+                        ps.setInt(2, guestId);
+                        ps.setDate(3, Date.valueOf(day));
+                        ps.setDate(4, Date.valueOf(checkOut));
+                        ps.setString(5, status);
+                        ps.setInt(6, 1 + random.nextInt(capacity));
+                        ps.setString(7, random.nextDouble() < 0.1 ? "Late arrival" : null);
+                        setCreatedBy(ps, 8);
+                        ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+                        reservations.add();
+
+                        PreparedStatement rr = reservationRooms.statement;
+                        rr.setInt(1, reservationId);
+                        rr.setInt(2, roomId);
+                        rr.setBigDecimal(3, BigDecimal.valueOf(rateCents, 2));
+                        reservationRooms.add();
+
+                        if ("Checked-out".equals(status) || "Checked-in".equals(status)) {
+                            for (LocalDate night = day; night.isBefore(checkOut); night = night.plusDays(1)) {
+                                int index = (int) (night.toEpochDay() - historyStart.toEpochDay());
+                                if (index < totalDays) {
+                                    occupied[index]++;
+                                }
+                            }
+                        }
+                        if ("Checked-out".equals(status)) {
+                            addBill(bills, billItems, reservationId, nights, rateCents, checkOut);
+                        }
+
+                        day = checkOut.plusDays(gapDays(meanGap));
+                    }
+                }
+            }
+        }
+
+        return occupied;
+    }
+
+    private void addGuest(BatchWriter guests, int guestId) throws SQLException {
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        PreparedStatement ps = guests.statement;
+        ps.setInt(1, guestId);
+        ps.setString(2, firstName);
+        ps.setString(3, lastName);
+        // The guest ID keeps the email unique
+        ps.setString(4, firstName.toLowerCase() + "." + lastName.toLowerCase() + guestId + "@example.test");
+        ps.setString(5, String.format("555-%04d", random.nextInt(10000)));
+        ps.setString(6, (1 + random.nextInt(999)) + " Main St");
+        guests.add();
+    }
+
+    private void addBill(BatchWriter bills, BatchWriter billItems, int reservationId,
+                         int nights, int rateCents, LocalDate checkOut) throws SQLException {
+        int billId = nextBillId++;
+        Timestamp billedAt = Timestamp.valueOf(checkOut.atTime(11, random.nextInt(60)));
+
+        long totalCents = (long) nights * rateCents;
+        addBillItem(billItems, billId, "Room", "Room charge", nights, rateCents, billedAt);
+
+        // Zero to three services per stay, e.g. room service or laundry
+        int serviceCount = services.isEmpty() ? 0 : random.nextInt(4);
+        for (int s = 0; s < serviceCount; s++) {
+            int pick = random.nextInt(services.size());
+            int[] service = services.get(pick);
+            int quantity = 1 + random.nextInt(2);
+            addBillItem(billItems, billId, "Service", serviceNames.get(pick), quantity, service[1], billedAt);
+            totalCents += (long) quantity * service[1];
+        }
+
+        BigDecimal total = BigDecimal.valueOf(totalCents, 2);
+        BigDecimal tax = total.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+        double paid = random.nextDouble();
+
+        PreparedStatement ps = bills.statement;
+        ps.setInt(1, billId);
+        ps.setInt(2, reservationId);
+        ps.setBigDecimal(3, total);
+        ps.setBigDecimal(4, tax);
+        ps.setBigDecimal(5, total.add(tax));
+        ps.setString(6, paid < 0.92 ? "Paid" : paid < 0.97 ? "Partially Paid" : "Pending");
+        ps.setString(7, PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+        ps.setTimestamp(8, billedAt);
+        setCreatedBy(ps, 9);
+        bills.add();
+    }
+
+    private static void addBillItem(BatchWriter billItems, int billId, String itemType, String description,
+                                    int quantity, int unitCents, Timestamp addedAt) throws SQLException {
+        PreparedStatement ps = billItems.statement;
+        ps.setInt(1, billId);
+        ps.setString(2, itemType);
+        ps.setString(3, description);
+        ps.setInt(4, quantity);
+        ps.setBigDecimal(5, BigDecimal.valueOf(unitCents, 2));
+        ps.setBigDecimal(6, BigDecimal.valueOf((long) unitCents * quantity, 2));
+        ps.setTimestamp(7, addedAt);
+        billItems.add();
+    }
+
+    /**
+     * Daily consumption of every item, driven by occupancy, with a restock
+     * each week. Only past days get transactions.
+     */
+    private void generateInventoryTransactions(Connection conn, long[] occupiedRoomNights) throws SQLException {
+        if (inventoryItems.isEmpty()) {
+            LOGGER.warning("No inventory items found; skipping inventory transactions");
+            return;
+        }
+
+        LocalDate historyStart = today.minusYears(settings.historyYears);
+        int pastDays = (int) (today.toEpochDay() - historyStart.toEpochDay());
+
+        try (BatchWriter transactions = new BatchWriter(conn, "inventory_transactions",
+                "INSERT INTO inventory_transactions (item_id, quantity, transaction_type, related_to, notes, " +
+                "performed_by, transaction_date) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int d = 0; d < pastDays; d++) {
+                LocalDate day = historyStart.plusDays(d);
+                for (int itemId : inventoryItems) {
+                    // Roughly one unit per ten occupied rooms, with day-to-day noise
+                    int used = (int) Math.round(occupiedRoomNights[d] * (0.05 + random.nextDouble() * 0.1));
+                    if (used > 0) {
+                        addTransaction(transactions, itemId, used, "Out", "Daily usage", day.atTime(18, 0));
+                    }
+                    if (day.getDayOfWeek().getValue() == 1) {
+                        int restock = (int) Math.max(10, occupiedRoomNights[d] * 0.7);
+                        addTransaction(transactions, itemId, restock, "In", "Weekly restock", day.atTime(9, 0));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addTransaction(BatchWriter transactions, int itemId, int quantity, String type,
+                                String notes, LocalDateTime at) throws SQLException {
+        PreparedStatement ps = transactions.statement;
+        ps.setInt(1, itemId);
+        ps.setInt(2, quantity);
+        ps.setString(3, type);
+        ps.setString(4, "Generated");
+        ps.setString(5, notes);
+        setCreatedBy(ps, 6);
+        ps.setTimestamp(7, Timestamp.valueOf(at));
+        transactions.add();
+    }
+
+    private String stayStatus(LocalDate checkIn, LocalDate checkOut) {
+        double outcome = random.nextDouble();
+        if (outcome < settings.cancellationRate) {
+            return "Cancelled";
+        }
+        if (!checkIn.isAfter(today)) {
+            if (checkOut.isAfter(today)) {
+                return "Checked-in";
+            }
+            return outcome < settings.cancellationRate + settings.noShowRate ? "No-show" : "Checked-out";
+        }
+        return "Confirmed";
+    }
+
+    /**
+     * Stay length in nights: mostly one to four, with a long tail up to three weeks.
+     */
+    private int stayLength() {
+        double lognormal = Math.exp(0.9 + 0.6 * random.nextGaussian());
+        return (int) Math.max(1, Math.min(21, Math.round(lognormal)));
+    }
+
+    /**
+     * Days between booking and check-in: many short-notice bookings, some made months ahead.
+     */
+    private int leadTimeDays() {
+        return (int) Math.min(365, -Math.log(1 - random.nextDouble()) * 30);
+    }
+
+    private int gapDays(double meanGap) {
+        return (int) Math.round(-Math.log(1 - random.nextDouble()) * meanGap);
+    }
+
+    private void setCreatedBy(PreparedStatement ps, int index) throws SQLException {
+        if (createdBy == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, createdBy);
+        }
+    }
+
+    /**
+     * One INSERT statement that sends rows in batches and commits after each batch.
+     * Writers for parent tables are flushed first so foreign keys always resolve.
+     * Add "rewriteBatchedStatements=true" to the JDBC URL so Connector/J sends
+     * each batch as multi-row INSERTs.
+     */
+    private final class BatchWriter implements AutoCloseable {
+        final PreparedStatement statement;
+        private final Connection conn;
+        private final String table;
+        private final BatchWriter[] parents;
+        private int pending;
+        private long written;
+        private final long started = System.nanoTime();
+
+        BatchWriter(Connection conn, String table, String sql, BatchWriter... parents) throws SQLException {
+            this.conn = conn;
+            this.table = table;
+            this.parents = parents;
+            this.statement = conn.prepareStatement(sql);
+        }
+
+        void add() throws SQLException {
+            statement.addBatch();
+            if (++pending >= settings.batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            for (BatchWriter parent : parents) {
+                parent.flush();
+            }
+            statement.executeBatch();
+            conn.commit();
+            written += pending;
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                statement.close();
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            LOGGER.info(String.format("%s: %d rows (%.0f rows/s)", table, written, written / Math.max(seconds, 0.001)));
+        }
+    }
+
+    public static void main(String[] args) {
+        Settings settings = new Settings();
+        for (int i = 0; i < args.length - 1; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-seed": settings.seed = Long.parseLong(value); break;
+                case "-rooms": settings.rooms = Integer.parseInt(value); break;
+                case "-types": settings.roomTypes = Integer.parseInt(value); break;
+                case "-years": settings.historyYears = Integer.parseInt(value); break;
+                case "-futureDays": settings.futureDays = Integer.parseInt(value); break;
+                case "-occupancy": settings.occupancy = Double.parseDouble(value); break;
+                case "-cancellations": settings.cancellationRate = Double.parseDouble(value); break;
+                case "-batch": settings.batchSize = Integer.parseInt(value); break;
+                default: LOGGER.warning("Unknown option " + args[i]);
+            }
+        }
+
+        try {
+            new DataGenerator(settings).generate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error generating data", e);
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package database;
 
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.Date;
 import java.util.Properties;
@@ -17,17 +21,43 @@ import java.util.logging.Logger;
 /**
  * DatabaseConnection class implements the Singleton design pattern to manage
  * database connections for the Hotel Management System.
+ * Connections are served from a bounded pool; callers borrow one with
+ * getConnection() and return it by closing it (try-with-resources).
  */
 public class DatabaseConnection {
     private static final Logger LOGGER = Logger.getLogger(DatabaseConnection.class.getName());
+    private static final OperationMetrics GET_CONNECTION =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.getConnection");
+    private static final OperationMetrics EXECUTE_READ =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.executeRead");
+    private static final OperationMetrics CREATE_RESERVATION =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.createReservation");
+    private static final OperationMetrics CREATE_RESERVATION_IN_ROOM =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.createReservationInRoom");
+    private static final OperationMetrics CREATE_GUEST =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.createGuest");
+    private static final OperationMetrics UPDATE_RESERVATION_STATUS =
+            MetricsRegistry.getInstance().operation("DatabaseConnection.updateReservationStatus");
     private static DatabaseConnection instance;
-    private Connection connection;
+    private ConnectionPool pool;
 
     // Database configuration properties
     private String url;
     private String username;
     private String password;
 
+    // Connection pool configuration properties
+    private final ConnectionPool.Settings poolSettings = new ConnectionPool.Settings();
+    private int readRetries;
+    private boolean useServerPreparedStatements;
+
+    // Operation metrics dump configuration
+    private long metricsDumpIntervalSeconds;
+    private String metricsDumpFile;
+
+    // Where the availability index keeps its snapshot; empty for none
+    private String availabilitySnapshotFile;
+
     /**
      * Private constructor to prevent instantiation from outside the class.
      */
@@ -38,19 +68,27 @@ public class DatabaseConnection {
         try {
             // Load MySQL JDBC driver
             Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            LOGGER.log(Level.SEVERE, "Error loading the MySQL JDBC driver", e);
+        }
 
-            // Set connection properties
-            Properties connectionProps = new Properties();
-            connectionProps.put("user", username);
-            connectionProps.put("password", password);
-            connectionProps.put("serverTimezone", "UTC");
+        // Set connection properties
+        Properties connectionProps = new Properties();
+        connectionProps.put("user", username);
+        connectionProps.put("password", password);
+        connectionProps.put("serverTimezone", "UTC");
 
-            // Create connection
-            connection = DriverManager.getConnection(url, connectionProps);
-            LOGGER.info("Database connection established successfully");
-        } catch (ClassNotFoundException | SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error connecting to the database", e);
+        // Prepare statements on the server so cached statements skip re-parsing there too
+        if (useServerPreparedStatements) {
+            connectionProps.put("useServerPrepStmts", "true");
         }
+
+        // Create connection pool
+        pool = new ConnectionPool(url, connectionProps, poolSettings);
+        LOGGER.info("Database connection pool started with " + pool.getTotalConnections()
+                + " of max " + pool.getMaxSize() + " connections");
+
+        MetricsRegistry.getInstance().startPeriodicDump(metricsDumpIntervalSeconds, metricsDumpFile);
     }
 
     /**
@@ -60,20 +98,40 @@ public class DatabaseConnection {
         Properties props = new Properties();
         try (FileInputStream fis = new FileInputStream("config/database.properties")) {
             props.load(fis);
-
-            // Get properties
-            url = props.getProperty("url", "jdbc:mysql://localhost:3306/hotel_management");
-            username = props.getProperty("username", "root");
-            password = props.getProperty("password", "");
-
             LOGGER.info("Database properties loaded successfully");
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Could not load database.properties file, using defaults", e);
-            // Set defaults if file not found
-            url = "jdbc:mysql://localhost:3306/hotel_management";
-            username = "root";
-            password = "";
         }
+
+        // Get properties, falling back to defaults for anything missing
+        url = props.getProperty("url", "jdbc:mysql://localhost:3306/hotel_management");
+        username = props.getProperty("username", "root");
+        password = props.getProperty("password", "");
+
+        poolSettings.minSize = Integer.parseInt(props.getProperty("pool.minSize", "2"));
+        poolSettings.maxSize = Integer.parseInt(props.getProperty("pool.maxSize", "10"));
+        poolSettings.acquireTimeoutMs = Long.parseLong(props.getProperty("pool.acquireTimeoutMs", "5000"));
+        poolSettings.idleTimeoutMs = Long.parseLong(props.getProperty("pool.idleTimeoutMs", "600000"));
+        poolSettings.maxLifetimeMs = Long.parseLong(props.getProperty("pool.maxLifetimeMs", "1800000"));
+        poolSettings.validateAfterIdleMs = Long.parseLong(props.getProperty("pool.validateAfterIdleMs", "30000"));
+        poolSettings.keepaliveIntervalMs = Long.parseLong(props.getProperty("pool.keepaliveIntervalMs", "120000"));
+        readRetries = Integer.parseInt(props.getProperty("pool.readRetries", "1"));
+
+        poolSettings.statementCacheSize = Integer.parseInt(props.getProperty("statementCache.size", "32"));
+        useServerPreparedStatements = Boolean.parseBoolean(
+                props.getProperty("statementCache.serverPrepared", "true"));
+
+        SlowQueryLog.Settings slowQueries = poolSettings.slowQueries;
+        slowQueries.thresholdMs = Long.parseLong(props.getProperty("slowQuery.thresholdMs", "1000"));
+        slowQueries.file = props.getProperty("slowQuery.file", "logs/slow-queries.%g.log");
+        slowQueries.fileLimitBytes = Integer.parseInt(props.getProperty("slowQuery.fileLimitBytes", "10485760"));
+        slowQueries.fileCount = Integer.parseInt(props.getProperty("slowQuery.fileCount", "5"));
+        slowQueries.explain = Boolean.parseBoolean(props.getProperty("slowQuery.explain", "true"));
+
+        metricsDumpIntervalSeconds = Long.parseLong(props.getProperty("metrics.dumpIntervalSeconds", "300"));
+        metricsDumpFile = props.getProperty("metrics.dumpFile", "");
+
+        availabilitySnapshotFile = props.getProperty("availability.snapshotFile", "data/availability.snapshot");
     }
 
     /**
@@ -89,41 +147,103 @@ public class DatabaseConnection {
 
 
     /**
-     * Get the database connection.
+     * Borrow a database connection from the pool.
+     * The connection must be closed after use, which returns it to the pool.
+     *
      * @return The Connection object
+     * @throws SQLException if no connection could be obtained in time
      */
-    public Connection getConnection() {
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
         try {
-            // Check if connection is closed or invalid, and reconnect if necessary
-            if (connection == null || connection.isClosed() || !connection.isValid(5)) {
-                LOGGER.info("Reconnecting to database...");
-
-                Properties connectionProps = new Properties();
-                connectionProps.put("user", username);
-                connectionProps.put("password", password);
-                connectionProps.put("serverTimezone", "UTC");
+            return GET_CONNECTION.recordRow(start, pool.borrow());
+        } catch (SQLException e) {
+            GET_CONNECTION.recordError(start);
+            throw e;
+        }
+    }
 
-                connection = DriverManager.getConnection(url, connectionProps);
+    /**
+     * Run an idempotent read against a pooled connection.
+     * If the query fails because the connection itself is dead (server restart,
+     * dropped socket), the connection is discarded and the read is retried
+     * transparently on a fresh one. Must not be used for writes.
+     *
+     * @param work The read to perform
+     * @param <T>  The type of result produced
+     * @return The result of the read
+     * @throws SQLException if the read fails for any other reason, or keeps failing
+     */
+    public <T> T executeRead(ConnectionCallback<T> work) throws SQLException {
+        long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            Connection conn = getConnection();
+            try {
+                T result = work.doInConnection(conn);
+                // Rows are counted by the calling operation
+                EXECUTE_READ.record(start, 0);
+                return result;
+            } catch (SQLException e) {
+                if (!ConnectionPool.isConnectionFailure(e) || attempt >= readRetries) {
+                    EXECUTE_READ.recordError(start);
+                    throw e;
+                }
+                pool.markBroken(conn);
+                LOGGER.log(Level.WARNING, "Connection failed during read, retrying on a new connection", e);
+            } finally {
+                conn.close();
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking database connection", e);
         }
+    }
+
+    /**
+     * Bind markers for an IN list, e.g. "?, ?, ?" for three values.
+     *
+     * @param count Number of values
+     * @return The markers, comma separated
+     */
+    public static String placeholders(int count) {
+        StringBuilder marks = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            marks.append(i == 0 ? "?" : ", ?");
+        }
+        return marks.toString();
+    }
+
+    /**
+     * Get the number of prepared/callable statements served from the
+     * per-connection statement caches.
+     *
+     * @return Statement cache hits since startup
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    /**
+     * Get the number of prepared/callable statements that had to be parsed
+     * because they were not in the statement cache.
+     *
+     * @return Statement cache misses since startup
+     */
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
 
-        return connection;
+    /**
+     * Get the file the availability index keeps its memory-mapped snapshot in.
+     *
+     * @return The snapshot file path, or an empty string to keep the index in memory only
+     */
+    public String getAvailabilitySnapshotFile() {
+        return availabilitySnapshotFile;
     }
 
     /**
-     * Close the database connection.
+     * Close all pooled database connections.
      */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                LOGGER.info("Database connection closed");
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error closing database connection", e);
-        }
+        pool.close();
     }
 
     /**
@@ -162,11 +282,11 @@ public class DatabaseConnection {
     public int createReservation(String firstName, String lastName, String email, String phone,
                                  java.sql.Date checkInDate, java.sql.Date checkOutDate,
                                  int totalGuests, int roomTypeId, String specialRequests, int createdBy) {
-        CallableStatement callStmt = null;
+        long start = System.nanoTime();
         int reservationId = -1;
 
-        try {
-            callStmt = getConnection().prepareCall("{CALL sp_create_reservation(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)}");
+        try (Connection conn = getConnection();
+             CallableStatement callStmt = conn.prepareCall("{CALL sp_create_reservation(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)}")) {
 
             callStmt.setString(1, firstName);
             callStmt.setString(2, lastName);
@@ -187,17 +307,203 @@ public class DatabaseConnection {
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating reservation", e);
-        } finally {
+        }
+
+        CREATE_RESERVATION.record(start, reservationId > 0);
+        return reservationId;
+    }
+
+    /**
+     * Book one specific room in a single short transaction.
+     * Only the chosen room's row is locked, so bookings of other rooms run in
+     * parallel; under that lock the room is checked for overlapping active
+     * reservations before the reservation is inserted. Unlike
+     * sp_create_reservation, two callers can never both get the same room.
+     *
+     * @param guestId          The guest's ID if already known, or 0 to look the guest up by email
+     *                         and add them if they are new
+     * @param firstName        Guest's first name
+     * @param lastName         Guest's last name
+     * @param email            Guest's email
+     * @param phone            Guest's phone number
+     * @param checkInDate      Check-in date
+     * @param checkOutDate     Check-out date
+     * @param totalGuests      Number of guests
+     * @param roomId           The room to book
+     * @param specialRequests  Special requests
+     * @param createdBy        User ID of the creator
+     * @return                 The reservation ID if successful, 0 if the room is not available
+     *                         for those dates, -1 on error
+     */
+    public int createReservationInRoom(int guestId, String firstName, String lastName, String email, String phone,
+                                       java.sql.Date checkInDate, java.sql.Date checkOutDate,
+                                       int totalGuests, int roomId, String specialRequests, int createdBy) {
+        long start = System.nanoTime();
+
+        try (Connection conn = getConnection()) {
+            // Under REPEATABLE READ the first plain read would fix the snapshot, hiding
+            // bookings committed by others while this one waits for the room lock
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
             try {
-                if (callStmt != null) {
-                    callStmt.close();
+                // The room is locked before anything else is read
+                Double rate = lockAvailableRoom(conn, roomId);
+                if (rate == null || isRoomBooked(conn, roomId, checkInDate, checkOutDate)) {
+                    conn.rollback();
+                    CREATE_RESERVATION_IN_ROOM.record(start, 0);
+                    return 0;
+                }
+
+                if (guestId <= 0) {
+                    guestId = findOrCreateGuest(conn, firstName, lastName, email, phone);
+                }
+
+                int reservationId;
+                String reservationSql = "INSERT INTO reservations (guest_id, check_in_date, check_out_date, " +
+                        "status, total_guests, special_requests, created_by) VALUES (?, ?, ?, 'Confirmed', ?, ?, ?)";
+                try (PreparedStatement pstmt = conn.prepareStatement(reservationSql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setInt(1, guestId);
+                    pstmt.setDate(2, checkInDate);
+                    pstmt.setDate(3, checkOutDate);
+                    pstmt.setInt(4, totalGuests);
+                    pstmt.setString(5, specialRequests);
+                    pstmt.setInt(6, createdBy);
+                    pstmt.executeUpdate();
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        keys.next();
+                        reservationId = keys.getInt(1);
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO reservation_rooms (reservation_id, room_id, rate_per_night) VALUES (?, ?, ?)")) {
+                    pstmt.setInt(1, reservationId);
+                    pstmt.setInt(2, roomId);
+                    pstmt.setDouble(3, rate);
+                    pstmt.executeUpdate();
                 }
+
+                conn.commit();
+                LOGGER.info("Reservation created with ID: " + reservationId + " in room ID: " + roomId);
+                CREATE_RESERVATION_IN_ROOM.record(start, 1);
+                return reservationId;
             } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing CallableStatement", e);
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
             }
+        } catch (SQLException e) {
+            CREATE_RESERVATION_IN_ROOM.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error creating reservation in room " + roomId, e);
+            return -1;
         }
+    }
 
-        return reservationId;
+    /**
+     * Add a guest, or find the existing guest with the same email.
+     *
+     * @param firstName Guest's first name
+     * @param lastName  Guest's last name
+     * @param email     Guest's email
+     * @param phone     Guest's phone number
+     * @return The guest ID, or -1 on error
+     */
+    public int createGuest(String firstName, String lastName, String email, String phone) {
+        long start = System.nanoTime();
+        try (Connection conn = getConnection()) {
+            int guestId = findOrCreateGuest(conn, firstName, lastName, email, phone);
+            CREATE_GUEST.record(start, 1);
+            return guestId;
+        } catch (SQLException e) {
+            CREATE_GUEST.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error creating guest", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Look a guest up by email, adding them if they are new, as sp_create_reservation does.
+     */
+    private int findOrCreateGuest(Connection conn, String firstName, String lastName,
+                                  String email, String phone) throws SQLException {
+        Integer guestId = findGuestByEmail(conn, email);
+        if (guestId != null) {
+            return guestId;
+        }
+
+        String sql = "INSERT INTO guests (first_name, last_name, email, phone) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, firstName);
+            pstmt.setString(2, lastName);
+            pstmt.setString(3, email);
+            pstmt.setString(4, phone);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Another booking added the same guest a moment ago
+            guestId = findGuestByEmail(conn, email);
+            if (guestId == null) {
+                throw e;
+            }
+            return guestId;
+        }
+    }
+
+    private Integer findGuestByEmail(Connection conn, String email) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT guest_id FROM guests WHERE email = ? LIMIT 1")) {
+            pstmt.setString(1, email);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Lock the room's row until the transaction ends.
+     *
+     * @return The nightly rate, or null if the room is not 'Available'
+     */
+    private Double lockAvailableRoom(Connection conn, int roomId) throws SQLException {
+        // OF r: lock the room only, not the room type shared by every room of that type
+        String sql = "SELECT r.status, rt.base_price FROM rooms r " +
+                "JOIN room_types rt ON r.type_id = rt.type_id " +
+                "WHERE r.room_id = ? FOR UPDATE OF r";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, roomId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || !"Available".equals(rs.getString("status"))) {
+                    return null;
+                }
+                return rs.getDouble("base_price");
+            }
+        }
+    }
+
+    /**
+     * Check for an active reservation holding any night in [checkIn, checkOut).
+     * Must run while the room's row is locked, so no other booking can slip in,
+     * and read committed data rather than a snapshot from before the lock.
+     */
+    private boolean isRoomBooked(Connection conn, int roomId, java.sql.Date checkInDate,
+                                 java.sql.Date checkOutDate) throws SQLException {
+        String sql = "SELECT 1 FROM reservation_rooms rr " +
+                "JOIN reservations res ON rr.reservation_id = res.reservation_id " +
+                "WHERE rr.room_id = ? AND res.status IN ('Confirmed', 'Checked-in') " +
+                "AND res.check_in_date < ? AND res.check_out_date > ? LIMIT 1";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, roomId);
+            pstmt.setDate(2, checkOutDate);
+            pstmt.setDate(3, checkInDate);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
     }
 
     /**
@@ -208,10 +514,9 @@ public class DatabaseConnection {
      * @return               True if successful, false otherwise
      */
     public boolean updateReservationStatus(int reservationId, String status) {
-        CallableStatement callStmt = null;
-
-        try {
-            callStmt = getConnection().prepareCall("{CALL sp_update_reservation_status(?, ?)}");
+        long start = System.nanoTime();
+        try (Connection conn = getConnection();
+             CallableStatement callStmt = conn.prepareCall("{CALL sp_update_reservation_status(?, ?)}")) {
 
             callStmt.setInt(1, reservationId);
             callStmt.setString(2, status);
@@ -219,19 +524,12 @@ public class DatabaseConnection {
             callStmt.execute();
 
             LOGGER.info("Reservation status updated for ID: " + reservationId);
-            return true;
+            return UPDATE_RESERVATION_STATUS.record(start, true);
 
         } catch (SQLException e) {
+            UPDATE_RESERVATION_STATUS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error updating reservation status", e);
             return false;
-        } finally {
-            try {
-                if (callStmt != null) {
-                    callStmt.close();
-                }
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing CallableStatement", e);
-            }
         }
     }
 
@@ -0,0 +1,272 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Maps result set rows to objects by column position instead of column label.
+ *
+ * Reading a column by label makes the driver look the label up, ignoring
+ * case, for every cell of every row. A mapper is instead built once per query
+ * shape from a {@link Columns} definition: {@code select} picks the columns a
+ * query needs, in order, and gives the SELECT list to put at the start of the
+ * query, so each column is read straight from its position. For result sets
+ * whose columns the caller does not choose, such as a stored procedure's,
+ * {@code bind} looks each label up once per result set instead of once per row.
+ *
+ * Mappers are immutable and can be shared between threads.
+ *
+ * @param <T> The type each row is mapped to
+ */
+public final class RowMapper<T> {
+    private final IntFunction<T> factory;
+    private final ColumnReader<T>[] readers;
+    private final int[] positions;
+    private final String selectList;
+
+    /**
+     * Reads one column into the object being built.
+     */
+    @FunctionalInterface
+    public interface ColumnReader<T> {
+        void read(T target, ResultSet rs, int column) throws SQLException;
+    }
+
+    /**
+     * Reads one column as a table cell, e.g. {@code ResultSet::getString}.
+     */
+    @FunctionalInterface
+    public interface CellReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private RowMapper(IntFunction<T> factory, ColumnReader<T>[] readers, int[] positions, String selectList) {
+        this.factory = factory;
+        this.readers = readers;
+        this.positions = positions;
+        this.selectList = selectList;
+    }
+
+    /**
+     * Start defining the columns an object can be read from.
+     *
+     * @param factory Creates an empty object for each row
+     * @param <T>     The object type
+     * @return An empty column definition
+     */
+    public static <T> Columns<T> columns(Supplier<T> factory) {
+        return new Columns<>(width -> factory.get());
+    }
+
+    /**
+     * Start defining the columns of a table whose rows are Object arrays,
+     * one cell per selected column in selection order.
+     *
+     * @return An empty column definition
+     */
+    public static TableColumns tableColumns() {
+        return new TableColumns();
+    }
+
+    /**
+     * @return The SELECT list this mapper reads, e.g. "r.room_id, rt.name AS type_name";
+     *         null for a mapper from bind
+     */
+    public String selectList() {
+        return selectList;
+    }
+
+    /**
+     * Map the current row.
+     *
+     * @param rs A result set positioned on a row
+     * @return The mapped row
+     * @throws SQLException If a column cannot be read
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T target = factory.apply(readers.length);
+        for (int i = 0; i < readers.length; i++) {
+            readers[i].read(target, rs, positions[i]);
+        }
+        return target;
+    }
+
+    /**
+     * Map every remaining row.
+     *
+     * @param rs A result set
+     * @return The mapped rows
+     * @throws SQLException If a row cannot be read
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(map(rs));
+        }
+        return rows;
+    }
+
+    /**
+     * Map the next row, if there is one.
+     *
+     * @param rs A result set
+     * @return The mapped row, or null if there are no more rows
+     * @throws SQLException If the row cannot be read
+     */
+    public T mapFirst(ResultSet rs) throws SQLException {
+        return rs.next() ? map(rs) : null;
+    }
+
+    /**
+     * One column: the label it is selected as, its SELECT expression, and how
+     * to read it given the slot it takes in the projection.
+     */
+    private static final class Column<T> {
+        final String expression;
+        final IntFunction<ColumnReader<T>> readerForSlot;
+
+        Column(String expression, IntFunction<ColumnReader<T>> readerForSlot) {
+            this.expression = expression;
+            this.readerForSlot = readerForSlot;
+        }
+    }
+
+    /**
+     * The columns an object can be read from, by label. Define once, in a
+     * static field, and take mappers from it; each projection is built on
+     * first use and reused after that.
+     *
+     * @param <T> The object type
+     */
+    public static class Columns<T> {
+        private final IntFunction<T> factory;
+        private final Map<String, Column<T>> columns = new LinkedHashMap<>();
+        private final Map<List<String>, RowMapper<T>> projections = new ConcurrentHashMap<>();
+
+        Columns(IntFunction<T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Add a column. Call only while defining the columns.
+         *
+         * @param label      The column label, e.g. "type_name"
+         * @param expression The SELECT expression, e.g. "rt.name AS type_name"
+         * @param reader     Reads the column into the object
+         * @return This definition
+         */
+        public Columns<T> column(String label, String expression, ColumnReader<T> reader) {
+            return add(label, expression, slot -> reader);
+        }
+
+        Columns<T> add(String label, String expression, IntFunction<ColumnReader<T>> readerForSlot) {
+            if (columns.putIfAbsent(label, new Column<>(expression, readerForSlot)) != null) {
+                throw new IllegalArgumentException("Duplicate column " + label);
+            }
+            return this;
+        }
+
+        /**
+         * @return The mapper for every column, in the order they were added
+         */
+        public RowMapper<T> all() {
+            return select(columns.keySet().toArray(new String[0]));
+        }
+
+        /**
+         * Get the mapper for some of the columns. The query must start its
+         * SELECT list with the mapper's selectList().
+         *
+         * @param labels The columns to read, in SELECT order
+         * @return The mapper; the same one for the same labels
+         */
+        public RowMapper<T> select(String... labels) {
+            return projections.computeIfAbsent(Arrays.asList(labels.clone()), this::build);
+        }
+
+        /**
+         * Get a mapper for every column of a result set whose columns were
+         * not chosen through select, such as a stored procedure's.
+         *
+         * @param rs The result set
+         * @return The mapper, for that result set only
+         * @throws SQLException If a label is not in the result set
+         */
+        public RowMapper<T> bind(ResultSet rs) throws SQLException {
+            return bind(rs, columns.keySet().toArray(new String[0]));
+        }
+
+        /**
+         * Get a mapper for a result set whose columns were not chosen through
+         * select, looking each label up once. Use it for that result set only.
+         *
+         * @param rs     The result set
+         * @param labels The columns to read
+         * @return The mapper
+         * @throws SQLException If a label is not in the result set
+         */
+        public RowMapper<T> bind(ResultSet rs, String... labels) throws SQLException {
+            ColumnReader<T>[] readers = readers(Arrays.asList(labels));
+            int[] positions = new int[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                positions[i] = rs.findColumn(labels[i]);
+            }
+            return new RowMapper<>(factory, readers, positions, null);
+        }
+
+        private RowMapper<T> build(List<String> labels) {
+            ColumnReader<T>[] readers = readers(labels);
+            StringJoiner selectList = new StringJoiner(", ");
+            int[] positions = new int[labels.size()];
+            for (int i = 0; i < labels.size(); i++) {
+                selectList.add(columns.get(labels.get(i)).expression);
+                positions[i] = i + 1;
+            }
+            return new RowMapper<>(factory, readers, positions, selectList.toString());
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private ColumnReader<T>[] readers(List<String> labels) {
+            ColumnReader<T>[] readers = new ColumnReader[labels.size()];
+            for (int i = 0; i < labels.size(); i++) {
+                Column<T> column = columns.get(labels.get(i));
+                if (column == null) {
+                    throw new IllegalArgumentException("Unknown column " + labels.get(i));
+                }
+                readers[i] = column.readerForSlot.apply(i);
+            }
+            return readers;
+        }
+    }
+
+    /**
+     * The columns of a table whose rows are Object arrays.
+     */
+    public static final class TableColumns extends Columns<Object[]> {
+        TableColumns() {
+            super(Object[]::new);
+        }
+
+        /**
+         * Add a column read as a cell. Call only while defining the columns.
+         *
+         * @param label      The column label, e.g. "room_type"
+         * @param expression The SELECT expression, e.g. "rt.name AS room_type"
+         * @param reader     Reads the cell, e.g. ResultSet::getString
+         * @return This definition
+         */
+        public TableColumns cell(String label, String expression, CellReader reader) {
+            add(label, expression, slot -> (row, rs, column) -> row[slot] = reader.read(rs, column));
+            return this;
+        }
+    }
+}
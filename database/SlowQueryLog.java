@@ -0,0 +1,336 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Writes statement executions slower than a threshold to a rotating file,
+ * with the SQL, bind parameters, elapsed time and row count. SELECTs that
+ * were slow can also be run through EXPLAIN on a background thread, with
+ * the plan appended to the same file.
+ *
+ * The pool's statement wrappers report every execution through a
+ * {@link Tracker}; ad-hoc statements and stored-procedure calls alike.
+ */
+final class SlowQueryLog {
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    // Each distinct statement is explained at most once in this period
+    private static final long EXPLAIN_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final long thresholdNanos;
+    private final Logger fileLogger;
+    private final ThreadPoolExecutor explainer;
+    private final ConnectionSource connections;
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+
+    /**
+     * Where EXPLAIN borrows its connection from.
+     */
+    @FunctionalInterface
+    interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    /**
+     * Slow-query log configuration, read from config/database.properties by DatabaseConnection.
+     */
+    static final class Settings {
+        long thresholdMs = 1000;
+        String file = "logs/slow-queries.%g.log";
+        int fileLimitBytes = 10 * 1024 * 1024;
+        int fileCount = 5;
+        boolean explain = true;
+    }
+
+    private SlowQueryLog(Settings settings, FileHandler handler, ConnectionSource connections) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(settings.thresholdMs);
+        this.connections = connections;
+
+        fileLogger = Logger.getLogger(SlowQueryLog.class.getName() + ".file");
+        fileLogger.setUseParentHandlers(false);
+        fileLogger.addHandler(handler);
+
+        if (settings.explain) {
+            // One thread and a short queue: when the database is struggling, plans are skipped, not piled up
+            explainer = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(16), r -> {
+                Thread thread = new Thread(r, "db-slow-query-explain");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+            explainer.allowCoreThreadTimeOut(true);
+        } else {
+            explainer = null;
+        }
+    }
+
+    /**
+     * Open the slow-query log.
+     *
+     * @param settings    Threshold, file and EXPLAIN settings
+     * @param connections Source of connections for EXPLAIN
+     * @return The log, or null if it is disabled or the file cannot be opened
+     */
+    static SlowQueryLog open(Settings settings, ConnectionSource connections) {
+        if (settings.thresholdMs < 0) {
+            return null;
+        }
+        try {
+            File parent = new File(settings.file).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            FileHandler handler = new FileHandler(settings.file, settings.fileLimitBytes,
+                    Math.max(1, settings.fileCount), true);
+            handler.setFormatter(new EntryFormatter());
+            LOGGER.info("Logging statements slower than " + settings.thresholdMs + " ms to " + settings.file);
+            return new SlowQueryLog(settings, handler, connections);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the slow-query log " + settings.file + ", slow queries are not logged", e);
+            return null;
+        }
+    }
+
+    /**
+     * Start tracking the executions of one statement.
+     *
+     * @param sql The statement's SQL, or null for a plain Statement whose SQL comes with each execute
+     * @return A tracker used by the statement's wrapper
+     */
+    Tracker track(String sql) {
+        return new Tracker(sql);
+    }
+
+    /**
+     * Stop the EXPLAIN thread.
+     */
+    void close() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+        }
+    }
+
+    /**
+     * Follows one statement: the parameters bound to it and its current execution.
+     * An execution ends when the statement is executed again or closed, so the
+     * time spent fetching a result set counts towards it. Used by one thread at a time.
+     */
+    final class Tracker {
+        private final String preparedSql;
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private int batchSize;
+
+        // The execution in progress, if any
+        private String sql;
+        private Object[] executedParameters;
+        private long startNanos;
+        private long executeNanos;
+        private long rows;
+        private int executedBatchSize;
+        private boolean running;
+
+        private Tracker(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        /**
+         * Remember a bound parameter.
+         *
+         * @param index 1-based parameter index
+         * @param value The value, or null for setNull
+         */
+        void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        void clearParameters() {
+            Arrays.fill(parameters, 0, parameterCount, null);
+            parameterCount = 0;
+        }
+
+        void addBatch() {
+            batchSize++;
+        }
+
+        /**
+         * Called just before an execute method.
+         *
+         * @param adHocSql The SQL passed to execute, or null for a prepared statement
+         */
+        void started(String adHocSql) {
+            finish();
+            sql = adHocSql != null ? adHocSql : preparedSql;
+            executedParameters = adHocSql == null && parameterCount > 0
+                    ? Arrays.copyOf(parameters, parameterCount) : null;
+            executedBatchSize = batchSize;
+            rows = 0;
+            running = true;
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Called when the execute method returns.
+         *
+         * @param result Its return value: an update count, batch counts or a result set
+         */
+        void executed(Object result) {
+            executeNanos = System.nanoTime() - startNanos;
+            if (result instanceof Integer || result instanceof Long) {
+                rows += ((Number) result).longValue();
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                batchSize = 0;
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                batchSize = 0;
+            }
+        }
+
+        /**
+         * Called for every row read from one of the execution's result sets.
+         */
+        void rowRead() {
+            rows++;
+        }
+
+        /**
+         * End the current execution, logging it if it was slow.
+         */
+        void finish() {
+            if (!running) {
+                return;
+            }
+            running = false;
+            long elapsed = System.nanoTime() - startNanos;
+            if (elapsed >= thresholdNanos && sql != null) {
+                logSlow(sql, executedParameters, elapsed, executeNanos, rows, executedBatchSize);
+            }
+        }
+    }
+
+    private void logSlow(String sql, Object[] parameters, long elapsedNanos, long executeNanos,
+                         long rows, int batchSize) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format(Locale.ROOT, "%.1f ms (execute %.1f ms) | %d rows | ",
+                elapsedNanos / 1e6, executeNanos / 1e6, rows));
+        entry.append(sql.trim().replaceAll("\\s+", " "));
+        if (parameters != null) {
+            entry.append(" | params ").append(formatParameters(parameters));
+        }
+        if (batchSize > 0) {
+            entry.append(" | batch of ").append(batchSize);
+        }
+        fileLogger.info(entry.toString());
+
+        if (explainer != null && isExplainable(sql)) {
+            long now = System.currentTimeMillis();
+            Long previous = lastExplained.get(sql);
+            if (previous == null || now - previous >= EXPLAIN_INTERVAL_MS) {
+                lastExplained.put(sql, now);
+                explainer.execute(() -> explain(sql, parameters));
+            }
+        }
+    }
+
+    /**
+     * Only plain SELECTs are explained: EXPLAIN cannot look inside a CALL,
+     * and explaining a write would mean running it again.
+     */
+    static boolean isExplainable(String sql) {
+        return sql.trim().regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    /**
+     * @return True for statements the log issues itself, which must not be tracked
+     */
+    static boolean isOwnStatement(String sql) {
+        return sql != null && sql.regionMatches(true, 0, "EXPLAIN ", 0, 8);
+    }
+
+    private void explain(String sql, Object[] parameters) {
+        try (Connection conn = connections.get();
+             // The three-argument form bypasses the statement cache, which has no use for one-off plans
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (parameters != null) {
+                for (int i = 0; i < parameters.length; i++) {
+                    pstmt.setObject(i + 1, parameters[i]);
+                }
+            }
+
+            StringBuilder plan = new StringBuilder("EXPLAIN ").append(sql.trim().replaceAll("\\s+", " "));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    plan.append(System.lineSeparator()).append("    ");
+                    for (int c = 1; c <= meta.getColumnCount(); c++) {
+                        if (c > 1) {
+                            plan.append(", ");
+                        }
+                        plan.append(meta.getColumnLabel(c)).append('=').append(rs.getString(c));
+                    }
+                }
+            }
+            fileLogger.info(plan.toString());
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not EXPLAIN slow query", e);
+        }
+    }
+
+    private static String formatParameters(Object[] parameters) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object value = parameters[i];
+            text.append(i + 1).append('=');
+            text.append(value instanceof String ? "'" + value + "'" : String.valueOf(value));
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * One line per entry, prefixed with the time.
+     */
+    private static final class EntryFormatter extends Formatter {
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+        @Override
+        public synchronized String format(LogRecord record) {
+            return timeFormat.format(new Date(record.getMillis())) + " | " + record.getMessage()
+                    + System.lineSeparator();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded LRU cache of prepared and callable statements for one physical
+ * connection, keyed by SQL text. Statements are checked out while a caller
+ * uses them and checked back in when the caller closes them, so the same
+ * CALL or SELECT is parsed once per connection instead of once per use.
+ */
+final class StatementCache {
+    private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    // Access-ordered, so iteration starts at the least recently used statement
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * A cached statement, the settings it was prepared with, and whether a
+     * caller currently has it.
+     */
+    static final class Entry {
+        final String key;
+        final PreparedStatement statement;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        boolean inUse;
+
+        Entry(String key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        /**
+         * Undo whatever the last caller set, so the next one gets the statement as prepared.
+         */
+        void reset() throws SQLException {
+            statement.clearParameters();
+            statement.setFetchSize(fetchSize);
+            statement.setMaxRows(maxRows);
+            statement.setQueryTimeout(queryTimeout);
+        }
+    }
+
+    /**
+     * @param maxSize Maximum number of statements kept open on the connection
+     * @param hits    Pool-wide hit counter
+     * @param misses  Pool-wide miss counter
+     */
+    StatementCache(int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Build the cache key for a statement.
+     *
+     * @param callable True for prepareCall, false for prepareStatement
+     * @param sql      The SQL text
+     * @return The cache key
+     */
+    static String key(boolean callable, String sql) {
+        return (callable ? "C:" : "P:") + sql;
+    }
+
+    /**
+     * Check out a cached statement.
+     *
+     * @param key The cache key
+     * @return The entry, or null if the statement is not cached or already in use
+     */
+    synchronized Entry checkOut(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.inUse) {
+            misses.incrementAndGet();
+            return null;
+        }
+        entry.inUse = true;
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Add a freshly prepared statement to the cache, checked out to the caller.
+     * Evicts the least recently used idle statement if the cache is full.
+     *
+     * @param key       The cache key
+     * @param statement The new statement
+     * @return The new entry, or null if the key is taken by a statement in use
+     *         or the statement's settings could not be read
+     */
+    synchronized Entry add(String key, PreparedStatement statement) {
+        if (entries.containsKey(key)) {
+            // Same SQL prepared twice on one connection at once; leave the second one uncached
+            return null;
+        }
+
+        Entry entry;
+        try {
+            entry = new Entry(key, statement);
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error reading statement settings; leaving it uncached", e);
+            return null;
+        }
+        entry.inUse = true;
+        entries.put(key, entry);
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            if (!eldest.inUse) {
+                it.remove();
+                closeQuietly(eldest.statement);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Return a statement to the cache once the caller has closed it.
+     *
+     * @param entry The entry checked out earlier
+     */
+    synchronized void checkIn(Entry entry) {
+        try {
+            entry.reset();
+            entry.inUse = false;
+        } catch (SQLException e) {
+            // Unusable statement: drop it rather than hand it out again
+            entries.remove(entry.key);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Close every cached statement.
+     */
+    synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing cached statement", e);
+        }
+    }
+}
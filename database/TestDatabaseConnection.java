@@ -10,17 +10,15 @@ import java.sql.Statement;
 public class TestDatabaseConnection {
     public static void main(String[] args) {
         try {
-            // Get the database connection
+            // Borrow a connection from the pool; closing it returns it to the pool
             DatabaseConnection dbConn = DatabaseConnection.getInstance();
-            Connection conn = dbConn.getConnection();
 
-            if (conn != null) {
+            try (Connection conn = dbConn.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT * FROM room_types")) {
                 System.out.println("Database connection successful!");
 
                 // Test a simple query
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery("SELECT * FROM room_types");
-
                 System.out.println("\nRoom Types in the database:");
                 System.out.println("----------------------------");
                 while (rs.next()) {
@@ -29,15 +27,11 @@ public class TestDatabaseConnection {
                     double price = rs.getDouble("base_price");
                     System.out.println(id + ". " + name + " - $" + price + " per night");
                 }
-
-                // Close resources
-                rs.close();
-                stmt.close();
-                dbConn.closeConnection();
-                System.out.println("\nConnection closed successfully.");
-            } else {
-                System.out.println("Failed to establish database connection.");
             }
+
+            // Close the pool
+            dbConn.closeConnection();
+            System.out.println("\nConnection closed successfully.");
         } catch (Exception e) {
             System.out.println("Error testing database connection:");
             e.printStackTrace();
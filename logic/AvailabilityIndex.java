@@ -0,0 +1,973 @@
+package logic;
+
+import database.DatabaseConnection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * In-memory room-night availability index.
+ * Keeps a count of bookings per room per night so "free rooms of type X between
+ * d1 and d2" is answered without running sp_get_available_rooms.
+ * It follows the same rules as the stored procedure: a room is free when its
+ * status is 'Available' and no Confirmed or Checked-in reservation holds any
+ * night in [check-in, check-out). MySQL stays the source of truth; the index
+ * is kept current by ReservationManager and RoomManager as they change
+ * reservations and rooms, and by re-reading the reservations and rooms the
+ * ChangeBus reports changed at other terminals.
+ *
+ * Every change is also written through to an OccupancySnapshot file, which
+ * holds the booked nights as a count per room per night. At startup the index
+ * is loaded from that file rather than by scanning reservation_rooms, so it
+ * can answer within milliseconds; a background check then compares a
+ * checksum of the rooms and active bookings with one computed by MySQL, and
+ * reloads from the database if they differ.
+ */
+public class AvailabilityIndex {
+    private static final Logger LOGGER = Logger.getLogger(AvailabilityIndex.class.getName());
+    private static AvailabilityIndex instance;
+
+    // Nights further back than this are not tracked; they are in the past
+    private static final int HISTORY_DAYS = 366;
+    // Nights counted in the snapshot; later ones are checked against the room's bookings
+    private static final int WINDOW_DAYS = HISTORY_DAYS + 2 * 366;
+    private static final int MIN_BOOKING_CAPACITY = 1024;
+    // Reservations or rooms re-read per query
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    // Members of the rooms.status ENUM, stored in the snapshot by position
+    private static final List<String> ROOM_STATUSES = Arrays.asList("Available", "Occupied", "Maintenance", "Cleaning");
+
+    // Checksums MySQL computes the same way as fingerprint()
+    private static final String ROOMS_CHECKSUM_SQL = "SELECT COUNT(*), " +
+            "COALESCE(SUM(CRC32(CONCAT_WS(',', room_id, type_id, status))), 0) FROM rooms";
+    private static final String BOOKINGS_CHECKSUM_SQL = "SELECT COUNT(*), " +
+            "COALESCE(SUM(CRC32(CONCAT_WS(',', rr.reservation_id, rr.room_id, " +
+            "DATEDIFF(r.check_in_date, '1970-01-01'), DATEDIFF(r.check_out_date, '1970-01-01')))), 0) " +
+            "FROM reservation_rooms rr " +
+            "JOIN reservations r ON rr.reservation_id = r.reservation_id " +
+            "WHERE r.status IN ('Confirmed', 'Checked-in') " +
+            "AND r.check_out_date > ?";
+
+    private final DatabaseConnection dbConnection;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Night i of the snapshot is the night starting on epoch day (baseDay + i)
+    private long baseDay;
+    private final Map<Integer, RoomNights> rooms = new LinkedHashMap<>();
+    private final Map<Integer, RoomNights[]> roomsByType = new HashMap<>();
+    private final Map<Integer, Booking> bookings = new LinkedHashMap<>();
+    // The booking each record of the snapshot's bookings section belongs to
+    private final List<Booking> recordOwners = new ArrayList<>();
+    private OccupancySnapshot snapshot;
+    private volatile boolean loaded;
+
+    // One reload at a time; changes made while it reads the database are replayed after it
+    private final Object reloadLock = new Object();
+    private List<Runnable> changesDuringReload;
+    // Re-reads changed reservations and rooms off the publishing thread
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "availability-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Status and bookings of one room; its booked nights are in the snapshot.
+     */
+    private static final class RoomNights {
+        final int roomId;
+        final int typeId;
+        String status;
+        int slot;
+        final List<Booking> bookings = new ArrayList<>();
+
+        RoomNights(int roomId, int typeId, String status) {
+            this.roomId = roomId;
+            this.typeId = typeId;
+            this.status = status;
+        }
+    }
+
+    /**
+     * The rooms and nights held by one active reservation.
+     */
+    private static final class Booking {
+        final int reservationId;
+        final List<Integer> roomIds = new ArrayList<>();
+        // Snapshot booking records, one per room
+        final List<Integer> records = new ArrayList<>();
+        final long checkInDay;
+        final long checkOutDay;
+
+        Booking(int reservationId, long checkInDay, long checkOutDay) {
+            this.reservationId = reservationId;
+            this.checkInDay = checkInDay;
+            this.checkOutDay = checkOutDay;
+        }
+
+        /**
+         * @return A copy with no snapshot records, to add to another index state
+         */
+        Booking copy() {
+            Booking copy = new Booking(reservationId, checkInDay, checkOutDay);
+            copy.roomIds.addAll(roomIds);
+            return copy;
+        }
+    }
+
+    /**
+     * Private constructor loads the index from the snapshot file if it has
+     * one, and from the database otherwise.
+     */
+    private AvailabilityIndex() {
+        dbConnection = DatabaseConnection.getInstance();
+        snapshot = openSnapshot(dbConnection.getAvailabilitySnapshotFile());
+        if (loadSnapshot()) {
+            Thread check = new Thread(this::checkSnapshot, "availability-snapshot-check");
+            check.setDaemon(true);
+            check.start();
+        } else {
+            reload();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeSnapshot, "availability-snapshot-close"));
+
+        // Bookings and room changes made at other terminals
+        ChangeBus changeBus = ChangeBus.getInstance();
+        changeBus.addListener(ChangeBus.RESERVATIONS,
+                (table, rowIds, inserted) -> refresher.execute(() -> refreshReservations(rowIds)));
+        changeBus.addListener(ChangeBus.ROOMS,
+                (table, rowIds, inserted) -> refresher.execute(() -> refreshRooms(rowIds)));
+    }
+
+    /**
+     * Get the singleton instance of the availability index,
+     * loading it from the database on first use.
+     *
+     * @return The AvailabilityIndex instance
+     */
+    public static synchronized AvailabilityIndex getInstance() {
+        if (instance == null) {
+            instance = new AvailabilityIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether the index holds data it can answer from.
+     * When false (database unreachable at startup) callers should use the stored procedure.
+     *
+     * @return True if the index was loaded successfully
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Rebuild the index from the rooms, reservations and reservation_rooms tables.
+     * Changes recorded while the tables are read are applied again afterwards,
+     * as the read may have missed them.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            lock.writeLock().lock();
+            try {
+                changesDuringReload = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                load();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changesDuringReload = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private void load() {
+        long newBaseDay = LocalDate.now().toEpochDay() - HISTORY_DAYS;
+        Map<Integer, RoomNights> newRooms = new LinkedHashMap<>();
+        Map<Integer, Booking> newBookings = new HashMap<>();
+
+        String roomSql = "SELECT room_id, type_id, status FROM rooms ORDER BY room_id";
+        String bookingSql = "SELECT rr.reservation_id, rr.room_id, r.check_in_date, r.check_out_date " +
+                "FROM reservation_rooms rr " +
+                "JOIN reservations r ON rr.reservation_id = r.reservation_id " +
+                "WHERE r.status IN ('Confirmed', 'Checked-in') " +
+                "AND r.check_out_date > ?";
+
+        try (Connection conn = dbConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(roomSql)) {
+                while (rs.next()) {
+                    int roomId = rs.getInt("room_id");
+                    newRooms.put(roomId, new RoomNights(roomId, rs.getInt("type_id"), rs.getString("status")));
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(bookingSql)) {
+                pstmt.setDate(1, Date.valueOf(LocalDate.ofEpochDay(newBaseDay)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int reservationId = rs.getInt("reservation_id");
+                        long checkInDay = rs.getDate("check_in_date").toLocalDate().toEpochDay();
+                        long checkOutDay = rs.getDate("check_out_date").toLocalDate().toEpochDay();
+
+                        Booking booking = newBookings.computeIfAbsent(reservationId,
+                                id -> new Booking(id, checkInDay, checkOutDay));
+                        booking.roomIds.add(rs.getInt("room_id"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading availability index", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            baseDay = newBaseDay;
+            rooms.clear();
+            rooms.putAll(newRooms);
+            bookings.clear();
+            bookings.putAll(newBookings);
+            linkBookings();
+            writeSnapshot();
+            rebuildTypeIndex();
+            loaded = true;
+
+            List<Runnable> changes = changesDuringReload;
+            changesDuringReload = null;
+            for (Runnable change : changes) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOGGER.info("Availability index loaded: " + newRooms.size() + " rooms, "
+                + newBookings.size() + " active reservations");
+    }
+
+    /**
+     * Find rooms that are free for every night between the two dates.
+     *
+     * @param checkInDate  The check-in date
+     * @param checkOutDate The check-out date
+     * @param roomTypeId   The room type ID (or null for all types)
+     * @return IDs of the free rooms, in room ID order
+     */
+    public List<Integer> findFreeRooms(Date checkInDate, Date checkOutDate, Integer roomTypeId) {
+        List<Integer> free = new ArrayList<>();
+        long checkInDay = checkInDate.toLocalDate().toEpochDay();
+        long checkOutDay = checkOutDate.toLocalDate().toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            for (RoomNights room : candidates(roomTypeId)) {
+                if (isFree(room, checkInDay, checkOutDay)) {
+                    free.add(room.roomId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return free;
+    }
+
+    /**
+     * Check whether at least one room of a type is free between the two dates.
+     *
+     * @param checkInDate  The check-in date
+     * @param checkOutDate The check-out date
+     * @param roomTypeId   The room type ID (or null for any type)
+     * @return True if a room is available
+     */
+    public boolean hasFreeRoom(Date checkInDate, Date checkOutDate, Integer roomTypeId) {
+        long checkInDay = checkInDate.toLocalDate().toEpochDay();
+        long checkOutDay = checkOutDate.toLocalDate().toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            for (RoomNights room : candidates(roomTypeId)) {
+                if (isFree(room, checkInDay, checkOutDay)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the free rooms of each type for each night of a window, in one pass
+     * over the rooms. A room counts as free for a night when it would be returned
+     * by findFreeRooms for that single night.
+     *
+     * @param startDate The first night of the window
+     * @param days      Number of nights in the window
+     * @param typeIds   The room types to count, one result row per type
+     * @return counts[type][day] of free rooms
+     */
+    public int[][] countFreeRooms(Date startDate, int days, int[] typeIds) {
+        int[][] counts = new int[typeIds.length][days];
+        long startDay = startDate.toLocalDate().toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            int offset = (int) (startDay - baseDay);
+            for (int t = 0; t < typeIds.length; t++) {
+                for (RoomNights room : candidates(typeIds[t])) {
+                    if (!"Available".equals(room.status)) {
+                        continue;
+                    }
+                    int[] row = counts[t];
+                    for (int d = 0; d < days; d++) {
+                        // Nights before the tracked window are history and never block a booking
+                        int night = offset + d;
+                        if (night < 0 || !isBooked(room, night, night + 1)) {
+                            row[d]++;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return counts;
+    }
+
+    /**
+     * Load reservations' rooms and dates from the database into the index,
+     * dropping those no longer Confirmed or Checked-in.
+     * Called for reservations the ChangeBus reports changed.
+     *
+     * @param reservationIds The reservation IDs
+     */
+    public void refreshReservations(Collection<Integer> reservationIds) {
+        List<Integer> ids = new ArrayList<>(reservationIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            String sql = "SELECT rr.reservation_id, rr.room_id, r.check_in_date, r.check_out_date " +
+                    "FROM reservation_rooms rr " +
+                    "JOIN reservations r ON rr.reservation_id = r.reservation_id " +
+                    "WHERE r.reservation_id IN (" + DatabaseConnection.placeholders(chunk.size()) + ") " +
+                    "AND r.status IN ('Confirmed', 'Checked-in')";
+            Map<Integer, Booking> active;
+            try {
+                active = dbConnection.executeRead(conn -> {
+                    Map<Integer, Booking> read = new HashMap<>();
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setInt(i + 1, chunk.get(i));
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                long checkInDay = rs.getDate("check_in_date").toLocalDate().toEpochDay();
+                                long checkOutDay = rs.getDate("check_out_date").toLocalDate().toEpochDay();
+                                read.computeIfAbsent(rs.getInt("reservation_id"),
+                                        id -> new Booking(id, checkInDay, checkOutDay)).roomIds.add(rs.getInt("room_id"));
+                            }
+                        }
+                    }
+                    return read;
+                });
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error refreshing " + chunk.size() + " reservations in availability index", e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (int reservationId : chunk) {
+                    putBooking(reservationId, active.get(reservationId));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Load rooms' statuses from the database into the index.
+     * A room that was added, removed or given another type reloads the index.
+     * Called for rooms the ChangeBus reports changed.
+     *
+     * @param roomIds The room IDs
+     */
+    public void refreshRooms(Collection<Integer> roomIds) {
+        List<Integer> ids = new ArrayList<>(roomIds);
+        boolean reloadNeeded = false;
+        for (int from = 0; from < ids.size() && !reloadNeeded; from += REFRESH_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            String sql = "SELECT room_id, type_id, status FROM rooms " +
+                    "WHERE room_id IN (" + DatabaseConnection.placeholders(chunk.size()) + ")";
+            Map<Integer, RoomNights> read;
+            try {
+                read = dbConnection.executeRead(conn -> {
+                    Map<Integer, RoomNights> found = new HashMap<>();
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setInt(i + 1, chunk.get(i));
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                int roomId = rs.getInt("room_id");
+                                found.put(roomId, new RoomNights(roomId, rs.getInt("type_id"), rs.getString("status")));
+                            }
+                        }
+                    }
+                    return found;
+                });
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error refreshing " + chunk.size() + " rooms in availability index", e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (int roomId : chunk) {
+                    RoomNights current = read.get(roomId);
+                    RoomNights indexed = rooms.get(roomId);
+                    if (current == null && indexed == null) {
+                        continue;
+                    }
+                    if (current == null || indexed == null || current.typeId != indexed.typeId) {
+                        // Rooms have fixed slots in the snapshot; lay it out again
+                        reloadNeeded = true;
+                    } else {
+                        putRoomStatus(roomId, current.status);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (reloadNeeded) {
+            reload();
+        }
+    }
+
+    /**
+     * Add a reservation the caller has just written, without reading it back.
+     *
+     * @param reservationId The new reservation ID
+     * @param roomId        The room it holds
+     * @param checkInDate   The check-in date
+     * @param checkOutDate  The check-out date
+     */
+    public void recordReservation(int reservationId, int roomId, Date checkInDate, Date checkOutDate) {
+        Booking booking = new Booking(reservationId,
+                checkInDate.toLocalDate().toEpochDay(), checkOutDate.toLocalDate().toEpochDay());
+        booking.roomIds.add(roomId);
+
+        lock.writeLock().lock();
+        try {
+            putBooking(reservationId, booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Free the nights held by a reservation (cancelled, checked out or no-show).
+     *
+     * @param reservationId The reservation ID
+     */
+    public void releaseReservation(int reservationId) {
+        lock.writeLock().lock();
+        try {
+            putBooking(reservationId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Update the status of the rooms held by a reservation,
+     * mirroring what sp_update_reservation_status does to the rooms table.
+     *
+     * @param reservationId The reservation ID
+     * @param roomStatus    The new room status
+     * @return IDs of the rooms updated; empty if the reservation is not in the index
+     */
+    public List<Integer> setReservationRoomStatus(int reservationId, String roomStatus) {
+        List<Integer> updated = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Booking booking = bookings.get(reservationId);
+            if (booking != null) {
+                for (int roomId : booking.roomIds) {
+                    if (putRoomStatus(roomId, roomStatus)) {
+                        updated.add(roomId);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return updated;
+    }
+
+    /**
+     * Record a room status change.
+     *
+     * @param roomId The room ID
+     * @param status The new status
+     */
+    public void setRoomStatus(int roomId, String status) {
+        lock.writeLock().lock();
+        try {
+            putRoomStatus(roomId, status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace a reservation's booking, or remove it if booking is null.
+     * Called with the write lock held.
+     */
+    private void putBooking(int reservationId, Booking booking) {
+        Booking previous = booking == null ? bookings.remove(reservationId) : bookings.put(reservationId, booking);
+        if (previous != null) {
+            detach(previous);
+        }
+        if (booking != null) {
+            attach(booking);
+        }
+        if (changesDuringReload != null) {
+            Booking replay = booking == null ? null : booking.copy();
+            changesDuringReload.add(() -> putBooking(reservationId, replay == null ? null : replay.copy()));
+        }
+    }
+
+    /**
+     * Set a room's status. Called with the write lock held.
+     *
+     * @return False if the room is not in the index
+     */
+    private boolean putRoomStatus(int roomId, String status) {
+        if (changesDuringReload != null) {
+            changesDuringReload.add(() -> putRoomStatus(roomId, status));
+        }
+        RoomNights room = rooms.get(roomId);
+        if (room == null) {
+            return false;
+        }
+        setStatus(room, status);
+        return true;
+    }
+
+    private Iterable<RoomNights> candidates(Integer roomTypeId) {
+        if (roomTypeId == null) {
+            return rooms.values();
+        }
+        RoomNights[] ofType = roomsByType.get(roomTypeId);
+        return ofType != null ? Arrays.asList(ofType) : Collections.<RoomNights>emptyList();
+    }
+
+    private boolean isFree(RoomNights room, long checkInDay, long checkOutDay) {
+        if (!"Available".equals(room.status)) {
+            return false;
+        }
+        // Nights before the tracked window are history and never block a booking
+        long from = Math.max(0, checkInDay - baseDay);
+        long to = Math.max(0, checkOutDay - baseDay);
+        if (from >= to) {
+            return checkOutDay > checkInDay;
+        }
+        return !isBooked(room, from, to);
+    }
+
+    /**
+     * @param from First night, as an index from the base day; not negative
+     * @param to   Night after the last
+     * @return True if a booking holds the room on any night of the range
+     */
+    private boolean isBooked(RoomNights room, long from, long to) {
+        int days = snapshot.days();
+        if (from < days && snapshot.isBooked(room.slot, (int) from, (int) Math.min(to, days))) {
+            return true;
+        }
+        if (to > days) {
+            // Beyond the snapshot's window: look at the bookings themselves
+            long firstDay = baseDay + Math.max(from, days);
+            long lastDay = baseDay + to;
+            for (Booking booking : room.bookings) {
+                if (booking.checkInDay < lastDay && booking.checkOutDay > firstDay) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a booking's nights to its rooms and its records to the snapshot.
+     */
+    private void attach(Booking booking) {
+        if (!loaded) {
+            // Nothing is laid out yet; the next reload picks the booking up
+            return;
+        }
+        for (int roomId : booking.roomIds) {
+            RoomNights room = rooms.get(roomId);
+            if (room != null) {
+                room.bookings.add(booking);
+            }
+        }
+        int needed = snapshot.bookingCount() + booking.roomIds.size();
+        if (needed > snapshot.bookingCapacity()) {
+            try {
+                snapshot.growBookings(Math.max(needed, snapshot.bookingCapacity() * 3 / 2));
+            } catch (IOException e) {
+                // The rewrite puts in this booking along with the rest
+                snapshotFailed(e);
+                return;
+            }
+        }
+        for (int roomId : booking.roomIds) {
+            RoomNights room = rooms.get(roomId);
+            if (room != null) {
+                addNights(room, booking, 1);
+            }
+            addRecord(booking, roomId);
+        }
+    }
+
+    /**
+     * Take a booking's nights off its rooms and its records out of the snapshot.
+     * Nights another booking also holds (a double booking) stay booked.
+     */
+    private void detach(Booking booking) {
+        if (!loaded) {
+            return;
+        }
+        for (int roomId : booking.roomIds) {
+            RoomNights room = rooms.get(roomId);
+            if (room != null) {
+                room.bookings.remove(booking);
+                addNights(room, booking, -1);
+            }
+        }
+        while (!booking.records.isEmpty()) {
+            removeRecord(booking.records.remove(booking.records.size() - 1));
+        }
+    }
+
+    private void addNights(RoomNights room, Booking booking, int delta) {
+        int from = (int) Math.max(0, booking.checkInDay - baseDay);
+        int to = (int) Math.min(snapshot.days(), Math.max(0, booking.checkOutDay - baseDay));
+        if (from < to) {
+            snapshot.addNights(room.slot, from, to, delta);
+        }
+    }
+
+    /**
+     * Append a booking record; the caller has made sure there is room for it.
+     */
+    private void addRecord(Booking booking, int roomId) {
+        int record = snapshot.bookingCount();
+        snapshot.setBooking(record, booking.reservationId, roomId, booking.checkInDay, booking.checkOutDay);
+        snapshot.setBookingCount(record + 1);
+        booking.records.add(record);
+        recordOwners.add(booking);
+    }
+
+    /**
+     * Remove a booking record by moving the last record into its place.
+     * The caller has already taken it off its booking's records.
+     */
+    private void removeRecord(int record) {
+        int last = snapshot.bookingCount() - 1;
+        if (record != last) {
+            Booking owner = recordOwners.get(last);
+            snapshot.moveBooking(last, record);
+            owner.records.set(owner.records.indexOf(last), record);
+            recordOwners.set(record, owner);
+        }
+        recordOwners.remove(last);
+        snapshot.setBookingCount(last);
+    }
+
+    private void setStatus(RoomNights room, String status) {
+        room.status = status;
+        snapshot.setRoomStatusCode(room.slot, ROOM_STATUSES.indexOf(status));
+    }
+
+    /**
+     * Add each booking to the bookings lists of its rooms.
+     */
+    private void linkBookings() {
+        for (Booking booking : bookings.values()) {
+            for (int roomId : booking.roomIds) {
+                RoomNights room = rooms.get(roomId);
+                if (room != null) {
+                    room.bookings.add(booking);
+                }
+            }
+        }
+    }
+
+    private static OccupancySnapshot openSnapshot(String file) {
+        if (file == null || file.isEmpty()) {
+            return OccupancySnapshot.inMemory();
+        }
+        try {
+            return OccupancySnapshot.open(Paths.get(file));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot open availability snapshot " + file
+                    + "; the index will be kept in memory only", e);
+            return OccupancySnapshot.inMemory();
+        }
+    }
+
+    /**
+     * Load the index from the snapshot file, rewriting the file if it was not
+     * closed cleanly or its window has moved on since.
+     *
+     * @return False if there is no usable snapshot
+     */
+    private boolean loadSnapshot() {
+        if (!snapshot.isUsable()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        long newBaseDay = LocalDate.now().toEpochDay() - HISTORY_DAYS;
+
+        lock.writeLock().lock();
+        try {
+            rooms.clear();
+            for (int slot = 0; slot < snapshot.roomCount(); slot++) {
+                int code = snapshot.roomStatusCode(slot);
+                RoomNights room = new RoomNights(snapshot.roomId(slot), snapshot.roomTypeId(slot),
+                        code >= 0 && code < ROOM_STATUSES.size() ? ROOM_STATUSES.get(code) : null);
+                room.slot = slot;
+                rooms.put(room.roomId, room);
+            }
+
+            bookings.clear();
+            recordOwners.clear();
+            boolean dropped = false;
+            for (int record = 0; record < snapshot.bookingCount(); record++) {
+                int checkOutDay = snapshot.bookingCheckOutDay(record);
+                if (checkOutDay <= newBaseDay) {
+                    // Over and out of the window now; dropped by the rewrite below
+                    dropped = true;
+                    continue;
+                }
+                int checkInDay = snapshot.bookingCheckInDay(record);
+                Booking booking = bookings.computeIfAbsent(snapshot.bookingReservationId(record),
+                        id -> new Booking(id, checkInDay, checkOutDay));
+                booking.roomIds.add(snapshot.bookingRoomId(record));
+                booking.records.add(record);
+                recordOwners.add(booking);
+            }
+            linkBookings();
+
+            if (dropped || snapshot.baseDay() != newBaseDay || !snapshot.wasClosedCleanly()) {
+                baseDay = newBaseDay;
+                writeSnapshot();
+            } else {
+                baseDay = snapshot.baseDay();
+                snapshot.setState(OccupancySnapshot.OPEN);
+            }
+            rebuildTypeIndex();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        LOGGER.info("Availability index loaded from snapshot in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms: "
+                + rooms.size() + " rooms, " + bookings.size() + " active reservations");
+        return true;
+    }
+
+    /**
+     * Lay the snapshot out afresh from the index. Called with the write lock held.
+     */
+    private void writeSnapshot() {
+        int records = 0;
+        for (Booking booking : bookings.values()) {
+            records += booking.roomIds.size();
+        }
+        try {
+            snapshot.layOut(baseDay, WINDOW_DAYS, Math.max(1, rooms.size()),
+                    Math.max(MIN_BOOKING_CAPACITY, records + records / 2));
+        } catch (IOException e) {
+            snapshotFailed(e);
+            return;
+        }
+
+        int slot = 0;
+        for (RoomNights room : rooms.values()) {
+            room.slot = slot;
+            snapshot.setRoom(slot++, room.roomId, room.typeId, ROOM_STATUSES.indexOf(room.status));
+        }
+        snapshot.setRoomCount(rooms.size());
+
+        recordOwners.clear();
+        for (Booking booking : bookings.values()) {
+            booking.records.clear();
+            for (int roomId : booking.roomIds) {
+                RoomNights room = rooms.get(roomId);
+                if (room != null) {
+                    addNights(room, booking, 1);
+                }
+                addRecord(booking, roomId);
+            }
+        }
+        snapshot.setState(OccupancySnapshot.OPEN);
+    }
+
+    /**
+     * Give up on the snapshot file and keep the index in a heap buffer instead.
+     */
+    private void snapshotFailed(IOException e) {
+        LOGGER.log(Level.WARNING, "Availability snapshot could not be written; "
+                + "the index will be kept in memory only", e);
+        try {
+            snapshot.close();
+        } catch (IOException closeError) {
+            LOGGER.log(Level.FINE, "Error closing availability snapshot", closeError);
+        }
+        snapshot = OccupancySnapshot.inMemory();
+        writeSnapshot();
+    }
+
+    /**
+     * Compare the loaded snapshot with MySQL and reload if they differ,
+     * e.g. because another terminal made bookings while this one was closed.
+     */
+    private void checkSnapshot() {
+        long start = System.nanoTime();
+        long checkedBaseDay;
+        lock.readLock().lock();
+        try {
+            checkedBaseDay = baseDay;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long[] expected = new long[4];
+        try {
+            dbConnection.executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(ROOMS_CHECKSUM_SQL)) {
+                    rs.next();
+                    expected[0] = rs.getLong(1);
+                    expected[1] = rs.getLong(2);
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(BOOKINGS_CHECKSUM_SQL)) {
+                    pstmt.setDate(1, Date.valueOf(LocalDate.ofEpochDay(checkedBaseDay)));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        expected[2] = rs.getLong(1);
+                        expected[3] = rs.getLong(2);
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            // Keep answering from the snapshot; the database is not there to compare with
+            LOGGER.log(Level.WARNING, "Could not check the availability snapshot against the database", e);
+            return;
+        }
+
+        long[] actual;
+        lock.readLock().lock();
+        try {
+            actual = fingerprint(checkedBaseDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (Arrays.equals(expected, actual)) {
+            LOGGER.info("Availability snapshot matches the database (checked in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+        } else {
+            LOGGER.info("Availability snapshot differs from the database; reloading");
+            reload();
+        }
+    }
+
+    /**
+     * @return Count and CRC32 sum of the rooms, then of the booking records,
+     *         as ROOMS_CHECKSUM_SQL and BOOKINGS_CHECKSUM_SQL compute them
+     */
+    private long[] fingerprint(long checkedBaseDay) {
+        long[] fingerprint = new long[4];
+        CRC32 crc = new CRC32();
+        for (RoomNights room : rooms.values()) {
+            fingerprint[0]++;
+            fingerprint[1] += crc32(crc, room.roomId + "," + room.typeId + "," + room.status);
+        }
+        for (Booking booking : bookings.values()) {
+            if (booking.checkOutDay <= checkedBaseDay) {
+                continue;
+            }
+            for (int roomId : booking.roomIds) {
+                fingerprint[2]++;
+                fingerprint[3] += crc32(crc, booking.reservationId + "," + roomId + ","
+                        + booking.checkInDay + "," + booking.checkOutDay);
+            }
+        }
+        return fingerprint;
+    }
+
+    private static long crc32(CRC32 crc, String value) {
+        crc.reset();
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private void closeSnapshot() {
+        lock.writeLock().lock();
+        try {
+            snapshot.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing availability snapshot", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildTypeIndex() {
+        Map<Integer, List<RoomNights>> grouped = new HashMap<>();
+        for (RoomNights room : rooms.values()) {
+            grouped.computeIfAbsent(room.typeId, id -> new ArrayList<>()).add(room);
+        }
+        roomsByType.clear();
+        for (Map.Entry<Integer, List<RoomNights>> entry : grouped.entrySet()) {
+            roomsByType.put(entry.getKey(), entry.getValue().toArray(new RoomNights[0]));
+        }
+    }
+}
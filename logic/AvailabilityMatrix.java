@@ -0,0 +1,59 @@
+package logic;
+
+import java.sql.Date;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Free-room counts per room type per night for a window of days,
+ * as returned by ReservationManager.getAvailabilityMatrix.
+ */
+public class AvailabilityMatrix {
+    private final Date startDate;
+    private final int days;
+    private final List<RoomType> roomTypes;
+    private final int[][] freeRooms;
+
+    public AvailabilityMatrix(Date startDate, int days,
+                              List<RoomType> roomTypes, int[][] freeRooms) {
+        this.startDate = startDate;
+        this.days = days;
+        this.roomTypes = Collections.unmodifiableList(roomTypes);
+        this.freeRooms = freeRooms;
+    }
+
+    // Getters
+    public Date getStartDate() { return startDate; }
+    public int getDays() { return days; }
+
+    /**
+     * @return The room types, in the same order as the rows of the matrix
+     */
+    public List<RoomType> getRoomTypes() { return roomTypes; }
+
+    /**
+     * @return The matrix itself, indexed [room type][day]
+     */
+    public int[][] getFreeRooms() { return freeRooms; }
+
+    /**
+     * Get the date of one column of the matrix.
+     *
+     * @param day Day offset from the start date
+     * @return The date
+     */
+    public Date getDate(int day) {
+        return Date.valueOf(startDate.toLocalDate().plusDays(day));
+    }
+
+    /**
+     * Get the number of free rooms of a type on one night.
+     *
+     * @param typeIndex Row of the room type in getRoomTypes()
+     * @param day       Day offset from the start date
+     * @return Number of free rooms
+     */
+    public int getFreeRooms(int typeIndex, int day) {
+        return freeRooms[typeIndex][day];
+    }
+}
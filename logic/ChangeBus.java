@@ -0,0 +1,367 @@
+package logic;
+
+import database.DatabaseConnection;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process notifications of changed rows, by table and row ID.
+ *
+ * The managers publish their own writes as soon as they commit. Writes made
+ * by other terminals are picked up by polling the change_log table, which
+ * triggers fill (see hotel_management_change_log.sql); the poll reads only
+ * the sequence numbers above the last one seen, so it is cheap to run every
+ * couple of seconds. Sequence numbers are handed out when a trigger row is
+ * inserted but only become visible when its transaction commits, so a number
+ * skipped by a poll may still turn up: skipped numbers are looked for again
+ * on every poll until they appear or a grace period runs out. The log
+ * entries of a write published here are skipped by the poll, so listeners
+ * hear about it once; still, a change notification means "read these rows
+ * again", which must be safe to repeat.
+ */
+public class ChangeBus {
+    private static final Logger LOGGER = Logger.getLogger(ChangeBus.class.getName());
+    private static final OperationMetrics POLL =
+            MetricsRegistry.getInstance().operation("ChangeBus.poll");
+    private static ChangeBus instance;
+
+    public static final String ROOMS = "rooms";
+    public static final String RESERVATIONS = "reservations";
+    public static final String BILLING = "billing";
+    public static final String INVENTORY_ITEMS = "inventory_items";
+    public static final String INVENTORY_TRANSACTIONS = "inventory_transactions";
+
+    private static final long POLL_INTERVAL_MILLIS = 2000;
+    private static final int POLL_BATCH_SIZE = 1000;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int KEEP_DAYS = 1;
+    // How long a skipped sequence number is looked for; longer than any write transaction should take
+    private static final long GAP_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    // Beyond this many (e.g. after a huge rolled-back import) the oldest skipped numbers are given up
+    private static final int MAX_GAPS = 10000;
+    // How long the poll waits for the log entry of a write published here; a few polls
+    private static final long LOCAL_ECHO_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final DatabaseConnection dbConnection;
+    private final Map<String, List<ChangeListener>> listeners = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService poller;
+    // Writes published here whose log entries the poll should skip, keyed like "billing/insert/12", with when
+    private final Map<String, Long> localChanges = new ConcurrentHashMap<>();
+
+    // Only touched by the poller thread, and by markStart() before it starts
+    private long lastSeq = -1;
+    private long lastPruned;
+    // Skipped sequence numbers not yet seen, with when they were first skipped
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    /**
+     * Receives the IDs of rows that changed in one table.
+     */
+    public interface ChangeListener {
+        /**
+         * Called on the publishing thread or the poller thread, never the EDT.
+         *
+         * @param table    The table, e.g. ROOMS
+         * @param rowIds   IDs of the changed rows; unmodifiable
+         * @param inserted True if the rows are new, false if existing rows were updated
+         */
+        void changed(String table, Set<Integer> rowIds, boolean inserted);
+    }
+
+    private ChangeBus() {
+        dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Get the singleton instance of the change bus.
+     *
+     * @return The ChangeBus instance
+     */
+    public static synchronized ChangeBus getInstance() {
+        if (instance == null) {
+            instance = new ChangeBus();
+        }
+        return instance;
+    }
+
+    /**
+     * @param table    The table to hear about, e.g. ROOMS
+     * @param listener Told about every change to that table
+     */
+    public void addListener(String table, ChangeListener listener) {
+        listeners.computeIfAbsent(table, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void removeListener(String table, ChangeListener listener) {
+        List<ChangeListener> tableListeners = listeners.get(table);
+        if (tableListeners != null) {
+            tableListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Tell listeners that existing rows of a table were updated.
+     *
+     * @param table  The table, e.g. ROOMS
+     * @param rowIds IDs of the updated rows
+     */
+    public void publish(String table, Collection<Integer> rowIds) {
+        publish(table, rowIds, false);
+    }
+
+    public void publish(String table, int rowId) {
+        publish(table, Collections.singleton(rowId), false);
+    }
+
+    /**
+     * Tell listeners that rows were added to a table.
+     *
+     * @param table  The table, e.g. RESERVATIONS
+     * @param rowIds IDs of the new rows
+     */
+    public void publishInserted(String table, Collection<Integer> rowIds) {
+        publish(table, rowIds, true);
+    }
+
+    public void publishInserted(String table, int rowId) {
+        publish(table, Collections.singleton(rowId), true);
+    }
+
+    private void publish(String table, Collection<Integer> rowIds, boolean inserted) {
+        if (poller != null) {
+            long now = System.currentTimeMillis();
+            String prefix = table + "/" + (inserted ? "insert" : "update") + "/";
+            for (Integer rowId : rowIds) {
+                localChanges.put(prefix + rowId, now);
+            }
+            if (inserted && RESERVATIONS.equals(table)) {
+                // Booking its rooms logs an update of the new reservation as well
+                for (Integer rowId : rowIds) {
+                    localChanges.put(RESERVATIONS + "/update/" + rowId, now);
+                }
+            }
+        }
+        deliver(table, rowIds, inserted);
+    }
+
+    private void deliver(String table, Collection<Integer> rowIds, boolean inserted) {
+        List<ChangeListener> tableListeners = listeners.get(table);
+        if (tableListeners == null || tableListeners.isEmpty() || rowIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = Collections.unmodifiableSet(new LinkedHashSet<>(rowIds));
+        for (ChangeListener listener : tableListeners) {
+            try {
+                listener.changed(table, ids, inserted);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Change listener for " + table + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Note where the change log ends, so that polling started later delivers
+     * every change made from now on. Call before loading the data the changes
+     * would update; otherwise the first poll only finds where the log ends,
+     * and changes made in between are missed. Does nothing once polling has started.
+     */
+    public synchronized void markStart() {
+        if (poller != null || lastSeq >= 0) {
+            return;
+        }
+        try {
+            lastSeq = dbConnection.executeRead(ChangeBus::readLastSeq);
+        } catch (SQLException e) {
+            // Left to the first poll, which also reports a missing table
+            LOGGER.log(Level.FINE, "Error reading the end of the change log", e);
+        }
+    }
+
+    /**
+     * Start polling change_log for writes made by other terminals.
+     * Does nothing if polling has already started.
+     */
+    public synchronized void startPolling() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-log-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPolling() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Read the log entries added since the last poll, and any skipped earlier
+     * that have committed since, and publish them grouped by table and
+     * operation. The first poll only finds where the log ends, unless
+     * markStart() already has.
+     */
+    private void poll() {
+        long start = System.nanoTime();
+        // Keyed by table name and operation, e.g. "billing/insert"
+        Map<String, Set<Integer>> changes = new LinkedHashMap<>();
+        int entries;
+        try {
+            if (lastSeq < 0) {
+                lastSeq = dbConnection.executeRead(ChangeBus::readLastSeq);
+                POLL.record(start, 0);
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            entries = dbConnection.executeRead(conn -> {
+                int read = 0;
+                if (!gaps.isEmpty()) {
+                    List<Long> missing = new ArrayList<>(POLL_BATCH_SIZE);
+                    for (Long seq : gaps.keySet()) {
+                        if (missing.size() == POLL_BATCH_SIZE) {
+                            break;
+                        }
+                        missing.add(seq);
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement("SELECT seq, table_name, row_id, operation " +
+                            "FROM change_log WHERE seq IN (" + DatabaseConnection.placeholders(missing.size()) + ")")) {
+                        for (int i = 0; i < missing.size(); i++) {
+                            pstmt.setLong(i + 1, missing.get(i));
+                        }
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                gaps.remove(rs.getLong("seq"));
+                                addChange(changes, rs);
+                                read++;
+                            }
+                        }
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT seq, table_name, row_id, operation " +
+                        "FROM change_log WHERE seq > ? ORDER BY seq LIMIT " + POLL_BATCH_SIZE)) {
+                    pstmt.setLong(1, lastSeq);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            long seq = rs.getLong("seq");
+                            for (long skipped = Math.max(lastSeq + 1, seq - MAX_GAPS); skipped < seq; skipped++) {
+                                gaps.put(skipped, now);
+                            }
+                            lastSeq = seq;
+                            addChange(changes, rs);
+                            read++;
+                        }
+                    }
+                }
+                return read;
+            });
+            expireGaps(now);
+            localChanges.values().removeIf(publishedAt -> now - publishedAt > LOCAL_ECHO_MILLIS);
+            POLL.record(start, entries);
+        } catch (SQLException e) {
+            POLL.recordError(start);
+            if (isMissingTable(e)) {
+                // The change log script has not been run; local changes are still published
+                LOGGER.warning("change_log table not found; changes from other terminals will not be shown");
+                stopPolling();
+            } else {
+                LOGGER.log(Level.WARNING, "Error polling change log", e);
+            }
+            return;
+        }
+
+        for (Map.Entry<String, Set<Integer>> change : changes.entrySet()) {
+            String[] tableAndOperation = change.getKey().split("/");
+            deliver(tableAndOperation[0], change.getValue(), "insert".equals(tableAndOperation[1]));
+        }
+        pruneIfDue();
+    }
+
+    private static long readLastSeq(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM change_log")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Add a log entry to the changes to publish, unless it is the entry of a
+     * write already published here.
+     */
+    private void addChange(Map<String, Set<Integer>> changes, ResultSet rs) throws SQLException {
+        String key = rs.getString("table_name") + "/" + rs.getString("operation");
+        int rowId = rs.getInt("row_id");
+        if (localChanges.remove(key + "/" + rowId) != null) {
+            return;
+        }
+        changes.computeIfAbsent(key, t -> new LinkedHashSet<>()).add(rowId);
+    }
+
+    /**
+     * Stop looking for skipped sequence numbers that are past the grace period,
+     * most likely taken by transactions that rolled back.
+     */
+    private void expireGaps(long now) {
+        gaps.values().removeIf(skippedAt -> now - skippedAt > GAP_GRACE_MILLIS);
+        if (gaps.size() > MAX_GAPS) {
+            LOGGER.warning("Too many skipped change log entries; giving up on the "
+                    + (gaps.size() - MAX_GAPS) + " oldest");
+            while (gaps.size() > MAX_GAPS) {
+                gaps.pollFirstEntry();
+            }
+        }
+    }
+
+    /**
+     * Delete log entries older than every terminal can still need.
+     * Any terminal may do it; the others just find nothing to delete.
+     */
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruned < PRUNE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPruned = now;
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? DAY")) {
+            pstmt.setInt(1, KEEP_DAYS);
+            int deleted = pstmt.executeUpdate();
+            if (deleted > 0) {
+                LOGGER.info("Pruned " + deleted + " change log entries");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error pruning change log", e);
+        }
+    }
+
+    private static boolean isMissingTable(SQLException e) {
+        // ER_NO_SUCH_TABLE
+        return e.getErrorCode() == 1146;
+    }
+}
@@ -0,0 +1,87 @@
+package logic;
+
+/**
+ * Represents a hotel guest.
+ * This class contains the contact details kept in the guests table.
+ */
+public class Guest {
+    private int guestId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+
+    /**
+     * Default constructor
+     */
+    public Guest() {
+    }
+
+    /**
+     * Constructor with all guest details
+     *
+     * @param guestId Guest ID
+     * @param firstName Guest's first name
+     * @param lastName Guest's last name
+     * @param email Guest's email
+     * @param phone Guest's phone number
+     */
+    public Guest(int guestId, String firstName, String lastName, String email, String phone) {
+        this.guestId = guestId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    // Getters and Setters
+
+    public int getGuestId() {
+        return guestId;
+    }
+
+    public void setGuestId(int guestId) {
+        this.guestId = guestId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    @Override
+    public String toString() {
+        return getFullName() + (email != null ? " <" + email + ">" : "");
+    }
+}
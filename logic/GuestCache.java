@@ -0,0 +1,319 @@
+package logic;
+
+import database.DatabaseConnection;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded cache of guests in front of the guests table, indexed by
+ * guest_id, email and normalized phone number. Most bookings are by
+ * returning guests, so their lookups are answered here instead of with a
+ * query.
+ *
+ * Entries are loaded on read and on insert, dropped when the guest is
+ * updated, expire after a fixed time and are evicted least recently used
+ * first once the cache is full. Guests are copied in and out, so callers
+ * can change what they get without affecting the cache.
+ */
+public class GuestCache {
+    private static final Logger LOGGER = Logger.getLogger(GuestCache.class.getName());
+    private static final OperationMetrics LOAD_GUEST =
+            MetricsRegistry.getInstance().operation("GuestCache.loadGuest");
+    private static GuestCache instance;
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final String GUEST_SELECT = "SELECT guest_id, first_name, last_name, email, phone FROM guests ";
+
+    private final DatabaseConnection dbConnection;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Guarded by this; byId is in access order, so its first entry is the least recently used
+    private final LinkedHashMap<Integer, Entry> byId = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> byEmail = new HashMap<>();
+    private final Map<String, Integer> byPhone = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Entry {
+        final Guest guest;
+        final long expiresAt;
+
+        Entry(Guest guest, long expiresAt) {
+            this.guest = guest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param dbConnection Source of guests that are not cached
+     * @param maxSize      Most guests kept
+     * @param ttlMillis    How long a guest is kept after it was loaded
+     */
+    public GuestCache(DatabaseConnection dbConnection, int maxSize, long ttlMillis) {
+        this.dbConnection = dbConnection;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Get the singleton instance of the guest cache.
+     *
+     * @return The GuestCache instance
+     */
+    public static synchronized GuestCache getInstance() {
+        if (instance == null) {
+            instance = new GuestCache(DatabaseConnection.getInstance(), DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Get a guest by ID, reading it from the database if it is not cached.
+     *
+     * @param guestId The guest ID
+     * @return The guest, or null if there is none or it could not be read
+     */
+    public Guest getById(int guestId) {
+        Guest guest;
+        synchronized (this) {
+            guest = lookup(guestId);
+        }
+        if (guest != null) {
+            hits.incrementAndGet();
+            return guest;
+        }
+        misses.incrementAndGet();
+        return load("WHERE guest_id = ?", guestId);
+    }
+
+    /**
+     * Get a guest by email, reading it from the database if it is not cached.
+     *
+     * @param email The email, in any letter case
+     * @return The guest, or null if there is none or it could not be read
+     */
+    public Guest getByEmail(String email) {
+        Guest guest = getCachedByEmail(email);
+        if (guest != null || normalizeEmail(email) == null) {
+            return guest;
+        }
+        return load("WHERE email = ? LIMIT 1", email.trim());
+    }
+
+    /**
+     * Get a guest by email only if it is cached, for callers that look many guests up in one query.
+     *
+     * @param email The email, in any letter case
+     * @return The guest, or null if it is not cached
+     */
+    public Guest getCachedByEmail(String email) {
+        String key = normalizeEmail(email);
+        if (key == null) {
+            return null;
+        }
+        Guest guest;
+        synchronized (this) {
+            Integer guestId = byEmail.get(key);
+            guest = guestId == null ? null : lookup(guestId);
+        }
+        (guest != null ? hits : misses).incrementAndGet();
+        return guest;
+    }
+
+    /**
+     * Get a cached guest by phone number. Phone numbers are stored as typed,
+     * so they are only matched, ignoring punctuation, against cached guests.
+     *
+     * @param phone The phone number in any format
+     * @return The guest, or null if no cached guest has that number
+     */
+    public Guest getCachedByPhone(String phone) {
+        String key = normalizePhone(phone);
+        if (key == null) {
+            return null;
+        }
+        Guest guest;
+        synchronized (this) {
+            Integer guestId = byPhone.get(key);
+            guest = guestId == null ? null : lookup(guestId);
+        }
+        (guest != null ? hits : misses).incrementAndGet();
+        return guest;
+    }
+
+    /**
+     * Add or replace a guest, e.g. right after inserting it.
+     *
+     * @param guest The guest; must have its ID
+     */
+    public synchronized void put(Guest guest) {
+        if (guest.getGuestId() <= 0) {
+            return;
+        }
+        remove(guest.getGuestId());
+        Guest copy = copy(guest);
+        byId.put(copy.getGuestId(), new Entry(copy, System.currentTimeMillis() + ttlMillis));
+        String email = normalizeEmail(copy.getEmail());
+        if (email != null) {
+            byEmail.put(email, copy.getGuestId());
+        }
+        String phone = normalizePhone(copy.getPhone());
+        if (phone != null) {
+            byPhone.put(phone, copy.getGuestId());
+        }
+
+        Iterator<Map.Entry<Integer, Entry>> eldest = byId.entrySet().iterator();
+        while (byId.size() > maxSize) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            removeIndexes(evicted.guest);
+        }
+    }
+
+    /**
+     * Drop a guest whose details changed.
+     *
+     * @param guestId The guest ID
+     */
+    public synchronized void invalidate(int guestId) {
+        remove(guestId);
+    }
+
+    /**
+     * Drop every cached guest.
+     */
+    public synchronized void clear() {
+        byId.clear();
+        byEmail.clear();
+        byPhone.clear();
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return Lookups answered from the cache since startup
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Lookups that had to go to the database, or found nothing, since startup
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Lower-cased and trimmed, as guests are matched by email regardless of case.
+     *
+     * @return The key, or null for a blank email
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Digits only, keeping a leading +, so "(555) 010-0100" and "555.010.0100" match.
+     *
+     * @return The key, or null if the number has no digits
+     */
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.length() == 0) {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 || (digits.length() == 1 && digits.charAt(0) == '+') ? null : digits.toString();
+    }
+
+    /**
+     * @return A copy of the live entry for the guest, or null if it is missing or expired
+     */
+    private Guest lookup(int guestId) {
+        Entry entry = byId.get(guestId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(guestId);
+            return null;
+        }
+        return copy(entry.guest);
+    }
+
+    private void remove(int guestId) {
+        Entry entry = byId.remove(guestId);
+        if (entry != null) {
+            removeIndexes(entry.guest);
+        }
+    }
+
+    private void removeIndexes(Guest guest) {
+        String email = normalizeEmail(guest.getEmail());
+        if (email != null) {
+            byEmail.remove(email, guest.getGuestId());
+        }
+        String phone = normalizePhone(guest.getPhone());
+        if (phone != null) {
+            byPhone.remove(phone, guest.getGuestId());
+        }
+    }
+
+    private Guest load(String where, Object key) {
+        long start = System.nanoTime();
+        try {
+            Guest guest = LOAD_GUEST.recordRow(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(GUEST_SELECT + where)) {
+                    pstmt.setObject(1, key);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            return null;
+                        }
+                        return new Guest(rs.getInt("guest_id"), rs.getString("first_name"),
+                                rs.getString("last_name"), rs.getString("email"), rs.getString("phone"));
+                    }
+                }
+            }));
+            if (guest != null) {
+                put(guest);
+            }
+            return guest;
+        } catch (SQLException e) {
+            LOAD_GUEST.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error retrieving guest", e);
+            return null;
+        }
+    }
+
+    private static Guest copy(Guest guest) {
+        return new Guest(guest.getGuestId(), guest.getFirstName(), guest.getLastName(),
+                guest.getEmail(), guest.getPhone());
+    }
+}
@@ -0,0 +1,355 @@
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The availability index's rooms, room nights and active bookings, held in a
+ * memory-mapped file so the next start can pick them up in milliseconds
+ * instead of scanning reservation_rooms again.
+ *
+ * Layout, in the buffer's byte order:
+ * <pre>
+ *   header    64 bytes: magic, version, base day (long), days, room capacity,
+ *             room count, booking capacity, booking count, state
+ *   rooms     room capacity x (room ID, type ID, status code)
+ *   nights    room capacity x days shorts: how many active bookings hold the
+ *             room on the night of epoch day (base day + i)
+ *   bookings  booking capacity x (reservation ID, room ID, check-in day, check-out day)
+ * </pre>
+ * Bookings come last so that section can grow by extending the file.
+ *
+ * This class only stores; AvailabilityIndex decides what goes in and checks
+ * it against MySQL. Without a file the same layout is kept in a heap buffer.
+ * Not thread-safe; AvailabilityIndex calls it under its lock.
+ */
+final class OccupancySnapshot {
+    private static final int MAGIC = 0x484D4F53;
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int ROOM_BYTES = 12;
+    private static final int BOOKING_BYTES = 16;
+
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int BASE_DAY_AT = 8;
+    private static final int DAYS_AT = 16;
+    private static final int ROOM_CAPACITY_AT = 20;
+    private static final int ROOM_COUNT_AT = 24;
+    private static final int BOOKING_CAPACITY_AT = 28;
+    private static final int BOOKING_COUNT_AT = 32;
+    private static final int STATE_AT = 36;
+
+    // Values of the state field
+    static final int WRITING = 0; // Being laid out; the contents mean nothing
+    static final int OPEN = 1;    // In use; a crash may have cut a change short
+    static final int CLOSED = 2;  // Closed cleanly
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private int stateAtOpen = WRITING;
+
+    // Section offsets, from the header
+    private int nightsAt;
+    private int bookingsAt;
+    private int days;
+
+    private OccupancySnapshot(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Open a snapshot file, creating it if it does not exist.
+     * An empty or unreadable file gives a snapshot that is not usable until laid out.
+     *
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    static OccupancySnapshot open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OccupancySnapshot snapshot = new OccupancySnapshot(channel);
+        try {
+            long size = channel.size();
+            if (size >= HEADER_BYTES && size <= Integer.MAX_VALUE) {
+                snapshot.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                if (snapshot.hasValidLayout(size)) {
+                    snapshot.readOffsets();
+                    snapshot.stateAtOpen = snapshot.buffer.getInt(STATE_AT);
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return A snapshot kept in a heap buffer, not usable until laid out
+     */
+    static OccupancySnapshot inMemory() {
+        return new OccupancySnapshot(null);
+    }
+
+    /**
+     * @return True if the snapshot held a complete layout when opened
+     */
+    boolean isUsable() {
+        return stateAtOpen != WRITING;
+    }
+
+    /**
+     * @return True if the snapshot was closed cleanly, so its nights match its bookings
+     */
+    boolean wasClosedCleanly() {
+        return stateAtOpen == CLOSED;
+    }
+
+    boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Start over with an empty layout of the given size, in the WRITING state.
+     *
+     * @param baseDay         Epoch day of the first night tracked
+     * @param days            Number of nights tracked per room
+     * @param roomCapacity    Number of room slots
+     * @param bookingCapacity Number of booking slots
+     * @throws IOException If the file cannot be extended or mapped
+     */
+    void layOut(long baseDay, int days, int roomCapacity, int bookingCapacity) throws IOException {
+        long nights = HEADER_BYTES + (long) roomCapacity * ROOM_BYTES;
+        long bookings = nights + (long) roomCapacity * days * 2;
+        long size = bookings + (long) bookingCapacity * BOOKING_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Availability snapshot would be too large: " + size + " bytes");
+        }
+
+        if (channel == null) {
+            buffer = ByteBuffer.allocate((int) size);
+        } else {
+            // A larger file is left as it is; only the mapped part is used
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(STATE_AT, WRITING);
+            int i = 0;
+            for (; i + 8 <= size; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            for (; i < size; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        buffer.putInt(MAGIC_AT, MAGIC);
+        buffer.putInt(VERSION_AT, VERSION);
+        buffer.putLong(BASE_DAY_AT, baseDay);
+        buffer.putInt(DAYS_AT, days);
+        buffer.putInt(ROOM_CAPACITY_AT, roomCapacity);
+        buffer.putInt(BOOKING_CAPACITY_AT, bookingCapacity);
+        readOffsets();
+    }
+
+    /**
+     * Make room for more bookings by extending the file.
+     *
+     * @param bookingCapacity The new number of booking slots
+     * @throws IOException If the file cannot be extended or mapped
+     */
+    void growBookings(int bookingCapacity) throws IOException {
+        long size = bookingsAt + (long) bookingCapacity * BOOKING_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Availability snapshot would be too large: " + size + " bytes");
+        }
+        if (channel == null) {
+            ByteBuffer larger = ByteBuffer.allocate((int) size);
+            buffer.rewind();
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(BOOKING_CAPACITY_AT, bookingCapacity);
+    }
+
+    void setState(int state) {
+        buffer.putInt(STATE_AT, state);
+    }
+
+    /**
+     * Mark the snapshot closed cleanly, write it out and close the file.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    void close() throws IOException {
+        if (buffer != null && buffer.getInt(STATE_AT) == OPEN) {
+            setState(CLOSED);
+        }
+        if (channel != null) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+            channel.close();
+        }
+    }
+
+    long baseDay() {
+        return buffer.getLong(BASE_DAY_AT);
+    }
+
+    int days() {
+        return days;
+    }
+
+    int roomCount() {
+        return buffer.getInt(ROOM_COUNT_AT);
+    }
+
+    void setRoomCount(int count) {
+        buffer.putInt(ROOM_COUNT_AT, count);
+    }
+
+    int roomId(int slot) {
+        return buffer.getInt(roomAt(slot));
+    }
+
+    int roomTypeId(int slot) {
+        return buffer.getInt(roomAt(slot) + 4);
+    }
+
+    int roomStatusCode(int slot) {
+        return buffer.getInt(roomAt(slot) + 8);
+    }
+
+    void setRoom(int slot, int roomId, int typeId, int statusCode) {
+        int at = roomAt(slot);
+        buffer.putInt(at, roomId);
+        buffer.putInt(at + 4, typeId);
+        buffer.putInt(at + 8, statusCode);
+    }
+
+    void setRoomStatusCode(int slot, int statusCode) {
+        buffer.putInt(roomAt(slot) + 8, statusCode);
+    }
+
+    /**
+     * Add to the number of bookings holding a room on each night of a range.
+     *
+     * @param slot  The room's slot
+     * @param from  First night, as an index from the base day
+     * @param to    Night after the last, as an index from the base day
+     * @param delta 1 to book the nights, -1 to release them
+     */
+    void addNights(int slot, int from, int to, int delta) {
+        int at = nightsAt + slot * days * 2;
+        for (int night = from; night < to; night++) {
+            int index = at + night * 2;
+            buffer.putShort(index, (short) (buffer.getShort(index) + delta));
+        }
+    }
+
+    /**
+     * @param slot The room's slot
+     * @param from First night, as an index from the base day
+     * @param to   Night after the last, as an index from the base day
+     * @return True if any booking holds the room on a night of the range
+     */
+    boolean isBooked(int slot, int from, int to) {
+        int at = nightsAt + slot * days * 2;
+        for (int night = from; night < to; night++) {
+            if (buffer.getShort(at + night * 2) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int bookingCapacity() {
+        return buffer.getInt(BOOKING_CAPACITY_AT);
+    }
+
+    int bookingCount() {
+        return buffer.getInt(BOOKING_COUNT_AT);
+    }
+
+    void setBookingCount(int count) {
+        buffer.putInt(BOOKING_COUNT_AT, count);
+    }
+
+    int bookingReservationId(int index) {
+        return buffer.getInt(bookingAt(index));
+    }
+
+    int bookingRoomId(int index) {
+        return buffer.getInt(bookingAt(index) + 4);
+    }
+
+    int bookingCheckInDay(int index) {
+        return buffer.getInt(bookingAt(index) + 8);
+    }
+
+    int bookingCheckOutDay(int index) {
+        return buffer.getInt(bookingAt(index) + 12);
+    }
+
+    void setBooking(int index, int reservationId, int roomId, long checkInDay, long checkOutDay) {
+        int at = bookingAt(index);
+        buffer.putInt(at, reservationId);
+        buffer.putInt(at + 4, roomId);
+        buffer.putInt(at + 8, (int) checkInDay);
+        buffer.putInt(at + 12, (int) checkOutDay);
+    }
+
+    /**
+     * Copy one booking slot over another, e.g. the last over one being removed.
+     */
+    void moveBooking(int from, int to) {
+        setBooking(to, bookingReservationId(from), bookingRoomId(from),
+                bookingCheckInDay(from), bookingCheckOutDay(from));
+    }
+
+    private int roomAt(int slot) {
+        return HEADER_BYTES + slot * ROOM_BYTES;
+    }
+
+    private int bookingAt(int index) {
+        return bookingsAt + index * BOOKING_BYTES;
+    }
+
+    private void readOffsets() {
+        days = buffer.getInt(DAYS_AT);
+        int roomCapacity = buffer.getInt(ROOM_CAPACITY_AT);
+        nightsAt = HEADER_BYTES + roomCapacity * ROOM_BYTES;
+        bookingsAt = nightsAt + roomCapacity * days * 2;
+    }
+
+    private boolean hasValidLayout(long size) {
+        if (buffer.getInt(MAGIC_AT) != MAGIC || buffer.getInt(VERSION_AT) != VERSION) {
+            return false;
+        }
+        long days = buffer.getInt(DAYS_AT);
+        long roomCapacity = buffer.getInt(ROOM_CAPACITY_AT);
+        long roomCount = buffer.getInt(ROOM_COUNT_AT);
+        long bookingCapacity = buffer.getInt(BOOKING_CAPACITY_AT);
+        long bookingCount = buffer.getInt(BOOKING_COUNT_AT);
+        if (days <= 0 || roomCount < 0 || roomCount > roomCapacity
+                || bookingCount < 0 || bookingCount > bookingCapacity) {
+            return false;
+        }
+        long required = HEADER_BYTES + roomCapacity * ROOM_BYTES + roomCapacity * days * 2
+                + bookingCapacity * BOOKING_BYTES;
+        return size >= required;
+    }
+}
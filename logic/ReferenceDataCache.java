@@ -0,0 +1,263 @@
+package logic;
+
+import database.DatabaseConnection;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared cache of the reference tables that change maybe once a month:
+ * room_types, services and inventory_categories.
+ *
+ * The tables are loaded together into an immutable snapshot that every
+ * consumer reads, so combo boxes and lookups never query them. A
+ * background check compares CHECKSUM TABLE results (the tables have no
+ * updated_at column) and loads a new snapshot when they change; refresh()
+ * does the same on demand, e.g. after an admin edits a room type.
+ */
+public class ReferenceDataCache {
+    private static final Logger LOGGER = Logger.getLogger(ReferenceDataCache.class.getName());
+    private static final OperationMetrics LOAD =
+            MetricsRegistry.getInstance().operation("ReferenceDataCache.load");
+    private static final OperationMetrics CHECK_VERSION =
+            MetricsRegistry.getInstance().operation("ReferenceDataCache.checkVersion");
+    private static ReferenceDataCache instance;
+
+    private static final long CHECK_INTERVAL_SECONDS = 60;
+    private static final String VERSION_SQL = "CHECKSUM TABLE room_types, services, inventory_categories";
+
+    private final DatabaseConnection dbConnection;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService versionChecker;
+
+    // Null until the first successful load
+    private volatile Snapshot snapshot;
+
+    /**
+     * One consistent load of all reference tables.
+     */
+    private static final class Snapshot {
+        final String version;
+        final List<RoomType> roomTypes;
+        final Map<Integer, RoomType> roomTypesById;
+        final List<String> services;
+        final List<String> inventoryCategories;
+
+        Snapshot(String version, List<RoomType> roomTypes, List<String> services, List<String> inventoryCategories) {
+            this.version = version;
+            this.roomTypes = Collections.unmodifiableList(roomTypes);
+            Map<Integer, RoomType> byId = new HashMap<>();
+            for (RoomType roomType : roomTypes) {
+                byId.put(roomType.getId(), roomType);
+            }
+            this.roomTypesById = byId;
+            this.services = Collections.unmodifiableList(services);
+            this.inventoryCategories = Collections.unmodifiableList(inventoryCategories);
+        }
+    }
+
+    private ReferenceDataCache() {
+        dbConnection = DatabaseConnection.getInstance();
+    }
+
+    /**
+     * Get the singleton instance of the reference data cache.
+     * The first call loads the tables and starts the periodic version check.
+     *
+     * @return The ReferenceDataCache instance
+     */
+    public static synchronized ReferenceDataCache getInstance() {
+        if (instance == null) {
+            instance = new ReferenceDataCache();
+            instance.load();
+            instance.startVersionCheck(CHECK_INTERVAL_SECONDS);
+        }
+        return instance;
+    }
+
+    /**
+     * @return All room types in ID order; the same instances for every caller until the data changes
+     */
+    public List<RoomType> getRoomTypes() {
+        Snapshot current = current();
+        return current == null ? Collections.emptyList() : current.roomTypes;
+    }
+
+    /**
+     * @param typeId Room type ID
+     * @return The room type, or null if there is none with that ID
+     */
+    public RoomType getRoomType(int typeId) {
+        Snapshot current = current();
+        return current == null ? null : current.roomTypesById.get(typeId);
+    }
+
+    /**
+     * @return Names of all billable services, alphabetically
+     */
+    public List<String> getServices() {
+        Snapshot current = current();
+        return current == null ? Collections.emptyList() : current.services;
+    }
+
+    /**
+     * @return Names of all inventory categories, alphabetically
+     */
+    public List<String> getInventoryCategories() {
+        Snapshot current = current();
+        return current == null ? Collections.emptyList() : current.inventoryCategories;
+    }
+
+    /**
+     * Reload the tables now, e.g. after room types, services or categories were edited.
+     * Change listeners are told if anything changed.
+     */
+    public void refresh() {
+        Snapshot previous = snapshot;
+        Snapshot loaded = load();
+        if (loaded != null && (previous == null || !loaded.version.equals(previous.version))) {
+            fireChanged();
+        }
+    }
+
+    /**
+     * Be told, on the version-check thread, after a refresh brought new data.
+     *
+     * @param listener Called after the new snapshot is in place
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * The loaded snapshot; tries to load again if the database was unreachable so far.
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    /**
+     * Load every table into a new snapshot and publish it.
+     *
+     * @return The new snapshot, or null if loading failed (the previous one stays)
+     */
+    private synchronized Snapshot load() {
+        long start = System.nanoTime();
+        try {
+            Snapshot loaded = dbConnection.executeRead(conn -> {
+                // The version is read first: a change made while loading triggers another refresh
+                String version = readVersion(conn);
+
+                List<RoomType> roomTypes = new ArrayList<>();
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT type_id, name, description, base_price, capacity, " +
+                             "amenities FROM room_types ORDER BY type_id")) {
+                    while (rs.next()) {
+                        roomTypes.add(new RoomType(rs.getInt("type_id"), rs.getString("name"),
+                                rs.getString("description"), rs.getDouble("base_price"),
+                                rs.getInt("capacity"), rs.getString("amenities")));
+                    }
+                }
+
+                return new Snapshot(version, roomTypes,
+                        readNames(conn, "SELECT name FROM services ORDER BY name"),
+                        readNames(conn, "SELECT name FROM inventory_categories ORDER BY name"));
+            });
+            snapshot = loaded;
+            LOAD.record(start, loaded.roomTypes.size() + loaded.services.size() + loaded.inventoryCategories.size());
+            LOGGER.info("Reference data loaded: " + loaded.roomTypes.size() + " room types, "
+                    + loaded.services.size() + " services, " + loaded.inventoryCategories.size() + " categories");
+            return loaded;
+        } catch (SQLException e) {
+            LOAD.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error loading reference data", e);
+            return null;
+        }
+    }
+
+    private static List<String> readNames(Connection conn, String sql) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString("name"));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return The tables' checksums joined into one string
+     */
+    private static String readVersion(Connection conn) throws SQLException {
+        StringBuilder version = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(VERSION_SQL)) {
+            while (rs.next()) {
+                version.append(rs.getString("Table")).append('=').append(rs.getString("Checksum")).append(';');
+            }
+        }
+        return version.toString();
+    }
+
+    /**
+     * Compare the tables' checksums with the snapshot's and reload if they differ.
+     */
+    private void checkVersion() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            return;
+        }
+
+        long start = System.nanoTime();
+        String version;
+        try {
+            version = dbConnection.executeRead(ReferenceDataCache::readVersion);
+            CHECK_VERSION.record(start, 1);
+        } catch (SQLException e) {
+            CHECK_VERSION.recordError(start);
+            LOGGER.log(Level.WARNING, "Error checking reference data version", e);
+            return;
+        }
+        if (!version.equals(current.version)) {
+            LOGGER.info("Reference data changed, reloading");
+            refresh();
+        }
+    }
+
+    private synchronized void startVersionCheck(long intervalSeconds) {
+        versionChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reference-data-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        versionChecker.scheduleWithFixedDelay(this::checkVersion, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Reference data change listener failed", e);
+            }
+        }
+    }
+}
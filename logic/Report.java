@@ -0,0 +1,94 @@
+package logic;
+
+import java.sql.Date;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The output of one report over a date range: a table of rows under named
+ * columns, plus summary figures for the whole range. Values are Strings,
+ * Dates, Integers, Longs or Doubles, ready for a table model. Immutable.
+ */
+public final class Report {
+    /**
+     * The reports ReportingEngine computes.
+     */
+    public enum Kind {
+        OCCUPANCY("Occupancy"),
+        REVENUE_BY_ROOM_TYPE("Revenue by Room Type"),
+        INVENTORY_USAGE("Inventory Usage");
+
+        private final String title;
+
+        Kind(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String toString() {
+            return title;
+        }
+    }
+
+    private final Kind kind;
+    private final Date startDate;
+    private final Date endDate;
+    private final String[] columns;
+    private final List<Object[]> rows;
+    private final Map<String, Object> summary;
+    private final long computedAtMillis;
+
+    Report(Kind kind, Date startDate, Date endDate, String[] columns, List<Object[]> rows,
+           LinkedHashMap<String, Object> summary) {
+        this.kind = kind;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.columns = columns;
+        this.rows = Collections.unmodifiableList(rows);
+        this.summary = Collections.unmodifiableMap(summary);
+        this.computedAtMillis = System.currentTimeMillis();
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * @return The last date covered; the range includes it
+     */
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * @return The rows; callers must not change the arrays
+     */
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * @return Summary figures by label, in display order
+     */
+    public Map<String, Object> getSummary() {
+        return summary;
+    }
+
+    public long getComputedAtMillis() {
+        return computedAtMillis;
+    }
+}
@@ -0,0 +1,691 @@
+package logic;
+
+import database.DatabaseConnection;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Computes the management reports over a date range: occupancy, ADR and
+ * RevPAR per night, revenue by room type, and inventory usage.
+ *
+ * The base facts for a range (the rooms, the room nights sold in it and the
+ * inventory transactions) are fetched from MySQL once, into primitive
+ * arrays, and the reports are summed from them in parallel on the fork/join
+ * common pool. Results are cached per report and date range until the
+ * ChangeBus reports a change to the tables behind them; only the most
+ * recently used few dozen are kept.
+ *
+ * Unlike sp_get_occupancy_report, which counts the reservation_rooms rows
+ * touching the range, room nights and revenue are counted night by night
+ * inside the range, so a stay across month-end is split between the months.
+ */
+public class ReportingEngine {
+    private static final Logger LOGGER = Logger.getLogger(ReportingEngine.class.getName());
+    private static final OperationMetrics LOAD_FACTS =
+            MetricsRegistry.getInstance().operation("ReportingEngine.loadFacts");
+    private static final OperationMetrics COMPUTE_REPORTS =
+            MetricsRegistry.getInstance().operation("ReportingEngine.computeReports");
+    private static ReportingEngine instance;
+
+    // Stays or transactions fewer than this are summed by one task instead of split further
+    private static final int SPLIT_THRESHOLD = 4096;
+    // Reports kept, least recently used dropped first; each kind over a dozen ranges
+    private static final int MAX_CACHED_REPORTS = 36;
+
+    private static final String ROOMS_SQL = "SELECT r.room_id, r.type_id, rt.name " +
+            "FROM rooms r " +
+            "JOIN room_types rt ON r.type_id = rt.type_id " +
+            "ORDER BY r.type_id, r.room_id";
+    private static final String STAYS_SQL = "SELECT rr.room_id, r.check_in_date, r.check_out_date, rr.rate_per_night " +
+            "FROM reservation_rooms rr " +
+            "JOIN reservations r ON rr.reservation_id = r.reservation_id " +
+            "WHERE r.status IN ('Confirmed', 'Checked-in', 'Checked-out') " +
+            "AND r.check_in_date <= ? AND r.check_out_date > ?";
+    private static final String ITEMS_SQL = "SELECT i.item_id, i.name, ic.name AS category, " +
+            "i.current_quantity, i.unit, i.cost_per_unit " +
+            "FROM inventory_items i " +
+            "JOIN inventory_categories ic ON i.category_id = ic.category_id " +
+            "ORDER BY i.item_id";
+    private static final String TRANSACTIONS_SQL = "SELECT item_id, quantity, transaction_type " +
+            "FROM inventory_transactions " +
+            "WHERE transaction_date >= ? AND transaction_date < ?";
+
+    private final DatabaseConnection dbConnection;
+    // Access-ordered, so guarded by its own lock even for reads
+    private final Map<CacheKey, Report> cache = new LinkedHashMap<CacheKey, Report>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Report> eldest) {
+            return size() > MAX_CACHED_REPORTS;
+        }
+    };
+    // Bumped on every invalidation, so a computation that raced one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Identifies one report over one date range.
+     */
+    private static final class CacheKey {
+        final Report.Kind kind;
+        final long startDay;
+        final long endDay;
+
+        CacheKey(Report.Kind kind, long startDay, long endDay) {
+            this.kind = kind;
+            this.startDay = startDay;
+            this.endDay = endDay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return kind == other.kind && startDay == other.startDay && endDay == other.endDay;
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind.hashCode() * 31 + Long.hashCode(startDay)) * 31 + Long.hashCode(endDay);
+        }
+    }
+
+    /**
+     * The base facts of a date range. Stays are held as nights [from, to) counted
+     * from the first day of the range, already cut to the range.
+     */
+    private static final class Facts {
+        final long startDay;
+        final int days;
+
+        int roomCount;
+        final List<String> typeNames = new ArrayList<>();
+        int[] roomsPerType = new int[8];
+
+        int stayCount;
+        int[] stayTypes = new int[256];
+        int[] stayFrom = new int[256];
+        int[] stayTo = new int[256];
+        long[] stayRateCents = new long[256];
+
+        final List<String> itemNames = new ArrayList<>();
+        final List<String> itemCategories = new ArrayList<>();
+        final List<String> itemUnits = new ArrayList<>();
+        int[] itemStock = new int[64];
+        long[] itemCostCents = new long[64];
+
+        int transactionCount;
+        int[] transactionItems = new int[256];
+        int[] transactionQuantities = new int[256];
+        boolean[] transactionOut = new boolean[256];
+
+        Facts(long startDay, int days) {
+            this.startDay = startDay;
+            this.days = days;
+        }
+
+        int typeCount() {
+            return typeNames.size();
+        }
+
+        int itemCount() {
+            return itemNames.size();
+        }
+
+        void addStay(int type, long checkInDay, long checkOutDay, long rateCents) {
+            if (stayCount == stayTypes.length) {
+                int capacity = stayCount * 2;
+                stayTypes = Arrays.copyOf(stayTypes, capacity);
+                stayFrom = Arrays.copyOf(stayFrom, capacity);
+                stayTo = Arrays.copyOf(stayTo, capacity);
+                stayRateCents = Arrays.copyOf(stayRateCents, capacity);
+            }
+            stayTypes[stayCount] = type;
+            stayFrom[stayCount] = (int) Math.max(0, checkInDay - startDay);
+            stayTo[stayCount] = (int) Math.min(days, checkOutDay - startDay);
+            stayRateCents[stayCount] = rateCents;
+            stayCount++;
+        }
+
+        void addTransaction(int item, int quantity, boolean out) {
+            if (transactionCount == transactionItems.length) {
+                int capacity = transactionCount * 2;
+                transactionItems = Arrays.copyOf(transactionItems, capacity);
+                transactionQuantities = Arrays.copyOf(transactionQuantities, capacity);
+                transactionOut = Arrays.copyOf(transactionOut, capacity);
+            }
+            transactionItems[transactionCount] = item;
+            transactionQuantities[transactionCount] = quantity;
+            transactionOut[transactionCount] = out;
+            transactionCount++;
+        }
+    }
+
+    /**
+     * Room nights sold and room revenue, per night of the range and per room type.
+     */
+    private static final class StayTotals {
+        final long[] nightsByDay;
+        final long[] revenueByDay;
+        final long[] nightsByType;
+        final long[] revenueByType;
+
+        StayTotals(int days, int types) {
+            nightsByDay = new long[days];
+            revenueByDay = new long[days];
+            nightsByType = new long[types];
+            revenueByType = new long[types];
+        }
+
+        void add(StayTotals other) {
+            addTo(nightsByDay, other.nightsByDay);
+            addTo(revenueByDay, other.revenueByDay);
+            addTo(nightsByType, other.nightsByType);
+            addTo(revenueByType, other.revenueByType);
+        }
+    }
+
+    /**
+     * Sums the stays in [lo, hi), splitting the range in half until it is small.
+     */
+    private static final class StayTask extends RecursiveTask<StayTotals> {
+        private static final long serialVersionUID = 1L;
+
+        private final Facts facts;
+        private final int lo;
+        private final int hi;
+
+        StayTask(Facts facts, int lo, int hi) {
+            this.facts = facts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected StayTotals compute() {
+            if (hi - lo > SPLIT_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                StayTask left = new StayTask(facts, lo, mid);
+                left.fork();
+                StayTotals totals = new StayTask(facts, mid, hi).compute();
+                totals.add(left.join());
+                return totals;
+            }
+
+            StayTotals totals = new StayTotals(facts.days, facts.typeCount());
+            for (int i = lo; i < hi; i++) {
+                long rate = facts.stayRateCents[i];
+                for (int night = facts.stayFrom[i]; night < facts.stayTo[i]; night++) {
+                    totals.nightsByDay[night]++;
+                    totals.revenueByDay[night] += rate;
+                }
+                int nights = Math.max(0, facts.stayTo[i] - facts.stayFrom[i]);
+                totals.nightsByType[facts.stayTypes[i]] += nights;
+                totals.revenueByType[facts.stayTypes[i]] += nights * rate;
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Sums the quantities in and out per item over the transactions in [lo, hi).
+     * The result is {in, out}, each indexed by item.
+     */
+    private static final class UsageTask extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Facts facts;
+        private final int lo;
+        private final int hi;
+
+        UsageTask(Facts facts, int lo, int hi) {
+            this.facts = facts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (hi - lo > SPLIT_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                UsageTask left = new UsageTask(facts, lo, mid);
+                left.fork();
+                long[][] usage = new UsageTask(facts, mid, hi).compute();
+                long[][] leftUsage = left.join();
+                addTo(usage[0], leftUsage[0]);
+                addTo(usage[1], leftUsage[1]);
+                return usage;
+            }
+
+            long[][] usage = new long[2][facts.itemCount()];
+            for (int i = lo; i < hi; i++) {
+                usage[facts.transactionOut[i] ? 1 : 0][facts.transactionItems[i]] += facts.transactionQuantities[i];
+            }
+            return usage;
+        }
+    }
+
+    /**
+     * Private constructor registers for the changes that make cached reports stale.
+     */
+    private ReportingEngine() {
+        dbConnection = DatabaseConnection.getInstance();
+        ChangeBus changeBus = ChangeBus.getInstance();
+        changeBus.addListener(ChangeBus.RESERVATIONS, (table, rowIds, inserted) ->
+                invalidate(EnumSet.of(Report.Kind.OCCUPANCY, Report.Kind.REVENUE_BY_ROOM_TYPE)));
+        changeBus.addListener(ChangeBus.ROOMS, (table, rowIds, inserted) ->
+                invalidate(EnumSet.of(Report.Kind.OCCUPANCY, Report.Kind.REVENUE_BY_ROOM_TYPE)));
+        changeBus.addListener(ChangeBus.INVENTORY_ITEMS, (table, rowIds, inserted) ->
+                invalidate(EnumSet.of(Report.Kind.INVENTORY_USAGE)));
+        // Stock movements usually come with an item change, but not when made in SQL directly
+        changeBus.addListener(ChangeBus.INVENTORY_TRANSACTIONS, (table, rowIds, inserted) ->
+                invalidate(EnumSet.of(Report.Kind.INVENTORY_USAGE)));
+    }
+
+    /**
+     * Get the singleton instance of the reporting engine.
+     *
+     * @return The ReportingEngine instance
+     */
+    public static synchronized ReportingEngine getInstance() {
+        if (instance == null) {
+            instance = new ReportingEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Get one report over a date range, from the cache if it is there.
+     *
+     * @param kind      The report
+     * @param startDate The first date of the range
+     * @param endDate   The last date of the range, included
+     * @return The report, or null on error
+     */
+    public Report getReport(Report.Kind kind, Date startDate, Date endDate) {
+        Map<Report.Kind, Report> reports = getReports(startDate, endDate);
+        return reports == null ? null : reports.get(kind);
+    }
+
+    /**
+     * Get every report over a date range. Those not cached are computed
+     * together, from one fetch of the base facts.
+     *
+     * @param startDate The first date of the range
+     * @param endDate   The last date of the range, included
+     * @return The reports by kind, or null on error
+     */
+    public Map<Report.Kind, Report> getReports(Date startDate, Date endDate) {
+        long startDay = startDate.toLocalDate().toEpochDay();
+        long endDay = endDate.toLocalDate().toEpochDay();
+
+        Map<Report.Kind, Report> reports = new EnumMap<>(Report.Kind.class);
+        Set<Report.Kind> missing = cached(startDay, endDay, reports);
+        if (missing.isEmpty()) {
+            return reports;
+        }
+
+        // One computation at a time; the work inside it is spread over the pool
+        synchronized (this) {
+            missing = cached(startDay, endDay, reports);
+            if (missing.isEmpty()) {
+                return reports;
+            }
+            long computedGeneration = generation.get();
+            Map<Report.Kind, Report> computed = computeReports(startDate, endDate, missing);
+            if (computed == null) {
+                return null;
+            }
+            synchronized (cache) {
+                if (computedGeneration == generation.get()) {
+                    for (Map.Entry<Report.Kind, Report> entry : computed.entrySet()) {
+                        cache.put(new CacheKey(entry.getKey(), startDay, endDay), entry.getValue());
+                    }
+                }
+            }
+            reports.putAll(computed);
+        }
+        return reports;
+    }
+
+    /**
+     * Compute reports from the database, bypassing the cache.
+     *
+     * @param startDate The first date of the range
+     * @param endDate   The last date of the range, included
+     * @param kinds     The reports to compute; only the facts they need are fetched
+     * @return The reports by kind, or null on error
+     */
+    public Map<Report.Kind, Report> computeReports(Date startDate, Date endDate, Set<Report.Kind> kinds) {
+        long startDay = startDate.toLocalDate().toEpochDay();
+        long endDay = endDate.toLocalDate().toEpochDay();
+        if (endDay < startDay) {
+            LOGGER.warning("Report range ends before it starts: " + startDate + " to " + endDate);
+            return null;
+        }
+        boolean needStays = kinds.contains(Report.Kind.OCCUPANCY) || kinds.contains(Report.Kind.REVENUE_BY_ROOM_TYPE);
+        boolean needUsage = kinds.contains(Report.Kind.INVENTORY_USAGE);
+
+        Facts facts = loadFacts(startDay, (int) (endDay - startDay + 1), needStays, needUsage);
+        if (facts == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        ForkJoinTask<StayTotals> stays = needStays ? pool.submit(new StayTask(facts, 0, facts.stayCount)) : null;
+        ForkJoinTask<long[][]> usage = needUsage ? pool.submit(new UsageTask(facts, 0, facts.transactionCount)) : null;
+
+        Map<Report.Kind, Report> reports = new EnumMap<>(Report.Kind.class);
+        if (stays != null) {
+            StayTotals totals = stays.join();
+            if (kinds.contains(Report.Kind.OCCUPANCY)) {
+                reports.put(Report.Kind.OCCUPANCY, occupancyReport(facts, totals, startDate, endDate));
+            }
+            if (kinds.contains(Report.Kind.REVENUE_BY_ROOM_TYPE)) {
+                reports.put(Report.Kind.REVENUE_BY_ROOM_TYPE, revenueByRoomTypeReport(facts, totals, startDate, endDate));
+            }
+        }
+        if (usage != null) {
+            reports.put(Report.Kind.INVENTORY_USAGE, inventoryUsageReport(facts, usage.join(), startDate, endDate));
+        }
+
+        long rows = 0;
+        for (Report report : reports.values()) {
+            rows += report.getRows().size();
+        }
+        COMPUTE_REPORTS.record(start, rows);
+        return reports;
+    }
+
+    /**
+     * Drop every cached report, e.g. for a refresh after changes made outside the application.
+     */
+    public void invalidate() {
+        invalidate(EnumSet.allOf(Report.Kind.class));
+    }
+
+    private void invalidate(Set<Report.Kind> kinds) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            cache.keySet().removeIf(key -> kinds.contains(key.kind));
+        }
+    }
+
+    /**
+     * Copy the cached reports of a range into reports.
+     *
+     * @return The kinds not cached
+     */
+    private Set<Report.Kind> cached(long startDay, long endDay, Map<Report.Kind, Report> reports) {
+        Set<Report.Kind> missing = EnumSet.noneOf(Report.Kind.class);
+        for (Report.Kind kind : Report.Kind.values()) {
+            Report report;
+            synchronized (cache) {
+                report = cache.get(new CacheKey(kind, startDay, endDay));
+            }
+            if (report != null) {
+                reports.put(kind, report);
+            } else {
+                missing.add(kind);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return The facts of the range, or null on error
+     */
+    private Facts loadFacts(long startDay, int days, boolean needStays, boolean needUsage) {
+        long start = System.nanoTime();
+        try {
+            Facts facts = dbConnection.executeRead(conn -> {
+                Facts loaded = new Facts(startDay, days);
+                if (needStays) {
+                    loadStays(conn, loaded);
+                }
+                if (needUsage) {
+                    loadUsage(conn, loaded);
+                }
+                return loaded;
+            });
+            LOAD_FACTS.record(start, facts.roomCount + facts.stayCount + facts.itemCount() + facts.transactionCount);
+            return facts;
+        } catch (SQLException e) {
+            LOAD_FACTS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error loading report data", e);
+            return null;
+        }
+    }
+
+    private void loadStays(Connection conn, Facts facts) throws SQLException {
+        Map<Integer, Integer> roomTypes = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ROOMS_SQL)) {
+            int lastTypeId = -1;
+            while (rs.next()) {
+                int typeId = rs.getInt(2);
+                if (facts.typeCount() == 0 || typeId != lastTypeId) {
+                    if (facts.typeCount() == facts.roomsPerType.length) {
+                        facts.roomsPerType = Arrays.copyOf(facts.roomsPerType, facts.typeCount() * 2);
+                    }
+                    facts.typeNames.add(rs.getString(3));
+                    lastTypeId = typeId;
+                }
+                int type = facts.typeCount() - 1;
+                facts.roomsPerType[type]++;
+                facts.roomCount++;
+                roomTypes.put(rs.getInt(1), type);
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(STAYS_SQL)) {
+            pstmt.setDate(1, Date.valueOf(LocalDate.ofEpochDay(facts.startDay + facts.days - 1)));
+            pstmt.setDate(2, Date.valueOf(LocalDate.ofEpochDay(facts.startDay)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Integer type = roomTypes.get(rs.getInt(1));
+                    if (type != null) {
+                        facts.addStay(type, rs.getDate(2).toLocalDate().toEpochDay(),
+                                rs.getDate(3).toLocalDate().toEpochDay(), cents(rs.getBigDecimal(4)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void loadUsage(Connection conn, Facts facts) throws SQLException {
+        Map<Integer, Integer> items = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ITEMS_SQL)) {
+            while (rs.next()) {
+                int item = facts.itemCount();
+                if (item == facts.itemStock.length) {
+                    facts.itemStock = Arrays.copyOf(facts.itemStock, item * 2);
+                    facts.itemCostCents = Arrays.copyOf(facts.itemCostCents, item * 2);
+                }
+                items.put(rs.getInt(1), item);
+                facts.itemNames.add(rs.getString(2));
+                facts.itemCategories.add(rs.getString(3));
+                facts.itemStock[item] = rs.getInt(4);
+                facts.itemUnits.add(rs.getString(5));
+                facts.itemCostCents[item] = cents(rs.getBigDecimal(6));
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(TRANSACTIONS_SQL)) {
+            pstmt.setDate(1, Date.valueOf(LocalDate.ofEpochDay(facts.startDay)));
+            pstmt.setDate(2, Date.valueOf(LocalDate.ofEpochDay(facts.startDay + facts.days)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Integer item = items.get(rs.getInt(1));
+                    if (item != null) {
+                        facts.addTransaction(item, rs.getInt(2), "Out".equals(rs.getString(3)));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Report occupancyReport(Facts facts, StayTotals totals, Date startDate, Date endDate) {
+        String[] columns = {"Date", "Rooms Sold", "Rooms Available", "Occupancy %", "Room Revenue", "ADR", "RevPAR"};
+        List<Object[]> rows = new ArrayList<>(facts.days);
+        long nightsSold = 0;
+        long revenue = 0;
+        for (int d = 0; d < facts.days; d++) {
+            long sold = totals.nightsByDay[d];
+            long dayRevenue = totals.revenueByDay[d];
+            rows.add(new Object[] {
+                    Date.valueOf(LocalDate.ofEpochDay(facts.startDay + d)),
+                    sold,
+                    facts.roomCount,
+                    percent(sold, facts.roomCount),
+                    amount(dayRevenue),
+                    average(dayRevenue, sold),
+                    average(dayRevenue, facts.roomCount)
+            });
+            nightsSold += sold;
+            revenue += dayRevenue;
+        }
+
+        long nightsAvailable = (long) facts.roomCount * facts.days;
+        LinkedHashMap<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Room nights available", nightsAvailable);
+        summary.put("Room nights sold", nightsSold);
+        summary.put("Occupancy %", percent(nightsSold, nightsAvailable));
+        summary.put("Room revenue", amount(revenue));
+        summary.put("ADR", average(revenue, nightsSold));
+        summary.put("RevPAR", average(revenue, nightsAvailable));
+        return new Report(Report.Kind.OCCUPANCY, startDate, endDate, columns, rows, summary);
+    }
+
+    private static Report revenueByRoomTypeReport(Facts facts, StayTotals totals, Date startDate, Date endDate) {
+        String[] columns = {"Room Type", "Rooms", "Room Nights Sold", "Occupancy %", "Room Revenue",
+                "ADR", "RevPAR", "Revenue Share %"};
+        long revenue = 0;
+        for (long typeRevenue : totals.revenueByType) {
+            revenue += typeRevenue;
+        }
+
+        // Highest revenue first, as sp_get_revenue_by_room_type orders them
+        Integer[] order = new Integer[facts.typeCount()];
+        for (int t = 0; t < order.length; t++) {
+            order[t] = t;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(totals.revenueByType[b], totals.revenueByType[a]));
+
+        List<Object[]> rows = new ArrayList<>(order.length);
+        for (int t : order) {
+            long nightsAvailable = (long) facts.roomsPerType[t] * facts.days;
+            long sold = totals.nightsByType[t];
+            long typeRevenue = totals.revenueByType[t];
+            rows.add(new Object[] {
+                    facts.typeNames.get(t),
+                    facts.roomsPerType[t],
+                    sold,
+                    percent(sold, nightsAvailable),
+                    amount(typeRevenue),
+                    average(typeRevenue, sold),
+                    average(typeRevenue, nightsAvailable),
+                    percent(typeRevenue, revenue)
+            });
+        }
+
+        LinkedHashMap<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Room types", facts.typeCount());
+        summary.put("Room revenue", amount(revenue));
+        return new Report(Report.Kind.REVENUE_BY_ROOM_TYPE, startDate, endDate, columns, rows, summary);
+    }
+
+    private static Report inventoryUsageReport(Facts facts, long[][] usage, Date startDate, Date endDate) {
+        String[] columns = {"Item", "Category", "Total In", "Total Out", "Current Stock", "Unit", "Cost of Usage"};
+        long[] costs = new long[facts.itemCount()];
+        long totalCost = 0;
+        int itemsUsed = 0;
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = usage[1][i] * facts.itemCostCents[i];
+            totalCost += costs[i];
+            if (usage[1][i] > 0) {
+                itemsUsed++;
+            }
+        }
+
+        // Costliest first, as sp_get_inventory_usage_report orders them
+        Integer[] order = new Integer[costs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(costs[b], costs[a]));
+
+        List<Object[]> rows = new ArrayList<>(order.length);
+        for (int i : order) {
+            rows.add(new Object[] {
+                    facts.itemNames.get(i),
+                    facts.itemCategories.get(i),
+                    usage[0][i],
+                    usage[1][i],
+                    facts.itemStock[i],
+                    facts.itemUnits.get(i),
+                    amount(costs[i])
+            });
+        }
+
+        LinkedHashMap<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Items used", itemsUsed);
+        summary.put("Cost of usage", amount(totalCost));
+        return new Report(Report.Kind.INVENTORY_USAGE, startDate, endDate, columns, rows, summary);
+    }
+
+    private static void addTo(long[] sums, long[] values) {
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] += values[i];
+        }
+    }
+
+    private static long cents(BigDecimal value) {
+        return value == null ? 0 : value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static double amount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * @return cents / count as an amount rounded to the cent; 0 when count is 0
+     */
+    private static double average(long cents, long count) {
+        return count == 0 ? 0 : Math.round((double) cents / count) / 100.0;
+    }
+
+    /**
+     * @return part / whole as a percentage rounded to two places; 0 when whole is 0
+     */
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : Math.round(part * 10000.0 / whole) / 100.0;
+    }
+}
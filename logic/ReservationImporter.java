@@ -0,0 +1,789 @@
+package logic;
+
+import database.DatabaseConnection;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Imports booking dumps from channel managers.
+ *
+ * The file is streamed in chunks. Each chunk is parsed and validated on a
+ * fork/join pool while the previous one is written, and written through
+ * ReservationManager.createReservations, so every chunk is one transaction
+ * of batched inserts with guests de-duplicated by email.
+ * After each chunk the line reached is saved to a checkpoint file next to
+ * the input; importing the same file again resumes after that line.
+ *
+ * Accepted formats, by file extension:
+ * <ul>
+ *   <li>.csv: a header row, then one reservation per line; fields may be quoted, but not span lines</li>
+ *   <li>.json, .jsonl, .ndjson: one flat JSON object per line</li>
+ * </ul>
+ * Both use the fields first_name, last_name, email, phone, check_in and
+ * check_out (yyyy-MM-dd), room_type (ID or name), guests and special_requests.
+ */
+public class ReservationImporter {
+    private static final Logger LOGGER = Logger.getLogger(ReservationImporter.class.getName());
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    // Rows below this are parsed by one fork/join task rather than split further
+    private static final int PARSE_THRESHOLD = 128;
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    private static final String[] REQUIRED_FIELDS = {"first_name", "last_name", "check_in", "check_out", "room_type"};
+
+    private final ReservationManager reservationManager;
+    private final ForkJoinPool parsePool;
+    private final int chunkSize;
+
+    /**
+     * Receives the running totals after each chunk is written.
+     */
+    public interface ProgressListener {
+        void progress(Summary summary);
+    }
+
+    /**
+     * Create an importer that parses on the common fork/join pool.
+     *
+     * @param reservationManager Writes the reservations
+     */
+    public ReservationImporter(ReservationManager reservationManager) {
+        this(reservationManager, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param reservationManager Writes the reservations
+     * @param parsePool          Pool the rows are parsed and validated on
+     * @param chunkSize          Rows per transaction and per checkpoint
+     */
+    public ReservationImporter(ReservationManager reservationManager, ForkJoinPool parsePool, int chunkSize) {
+        this.reservationManager = reservationManager;
+        this.parsePool = parsePool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Get the checkpoint file kept for an input file.
+     *
+     * @param file The file being imported
+     * @return The checkpoint file; it only exists while an import is unfinished
+     */
+    public static File getCheckpointFile(File file) {
+        return new File(file.getPath() + ".checkpoint");
+    }
+
+    /**
+     * Import a file, resuming from its checkpoint if an earlier import stopped part way.
+     *
+     * @param file     CSV or JSON-lines file
+     * @param listener Told about progress after each chunk; may be null
+     * @return The totals; see Summary.isComplete
+     * @throws IOException if the file cannot be read or has no usable CSV header
+     */
+    public Summary importFile(File file, ProgressListener listener) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        boolean csv = name.endsWith(".csv");
+
+        Summary summary = new Summary(file);
+        File checkpointFile = getCheckpointFile(file);
+        long resumeAfterLine = readCheckpoint(file, checkpointFile, summary);
+
+        Map<String, Integer> roomTypeIds = loadRoomTypeIds();
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            LineSource source = new LineSource(reader);
+            String[] header = null;
+            if (csv) {
+                String headerLine = source.next();
+                if (headerLine == null) {
+                    throw new IOException("Empty file: " + file);
+                }
+                header = parseHeader(headerLine);
+            }
+            source.skipTo(resumeAfterLine);
+
+            RowParser parser = new RowParser(header, roomTypeIds);
+            RawChunk current = source.readChunk(chunkSize);
+            ForkJoinTask<ParsedRow[]> parsing = current == null ? null : parsePool.submit(parser.task(current));
+            boolean firstChunk = true;
+
+            while (parsing != null) {
+                ParsedRow[] rows = parsing.join();
+                RawChunk written = current;
+
+                // The next chunk is parsed while this one is written
+                current = source.readChunk(chunkSize);
+                parsing = current == null ? null : parsePool.submit(parser.task(current));
+
+                if (!writeChunk(rows, firstChunk && resumeAfterLine > 0, summary)) {
+                    summary.stopReason = "Database error near line " + rows[0].lineNumber
+                            + "; import the file again to resume";
+                    if (parsing != null) {
+                        parsing.cancel(false);
+                    }
+                    break;
+                }
+                firstChunk = false;
+                summary.lastLine = written.lastLine;
+                summary.elapsedNanos = System.nanoTime() - start;
+                writeCheckpoint(file, checkpointFile, summary);
+                if (listener != null) {
+                    listener.progress(summary);
+                }
+            }
+        }
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        if (summary.isComplete()) {
+            Files.deleteIfExists(checkpointFile.toPath());
+        }
+        LOGGER.info(summary.toString());
+        return summary;
+    }
+
+    /**
+     * Write one parsed chunk.
+     *
+     * @return False if the database failed and the chunk was rolled back
+     */
+    private boolean writeChunk(ParsedRow[] rows, boolean resumed, Summary summary) {
+        List<ParsedRow> valid = new ArrayList<>(rows.length);
+        List<String> errors = new ArrayList<>();
+        for (ParsedRow row : rows) {
+            if (row.error != null) {
+                errors.add("Line " + row.lineNumber + ": " + row.error);
+            } else {
+                valid.add(row);
+            }
+        }
+        long rejected = errors.size();
+
+        long alreadyImported = 0;
+        if (resumed) {
+            // The checkpoint is written after the commit, so a crash between the two may have left this chunk booked
+            Set<String> existing = findExistingBookings(valid);
+            int before = valid.size();
+            valid.removeIf(row -> existing.contains(bookingKey(row.reservation)));
+            alreadyImported = before - valid.size();
+        }
+
+        long imported = 0;
+        if (!valid.isEmpty()) {
+            List<Reservation> reservations = new ArrayList<>(valid.size());
+            for (ParsedRow row : valid) {
+                reservations.add(row.reservation);
+            }
+            List<ReservationManager.BookingResult> results = reservationManager.createReservations(reservations);
+            for (int i = 0; i < results.size(); i++) {
+                ReservationManager.BookingResult result = results.get(i);
+                if (result.isDatabaseError()) {
+                    return false;
+                }
+                if (result.isSuccess()) {
+                    imported++;
+                } else {
+                    errors.add("Line " + valid.get(i).lineNumber + ": " + result.getError());
+                }
+            }
+        }
+
+        summary.rowsRead += rows.length;
+        summary.rejected += rejected;
+        summary.alreadyImported += alreadyImported;
+        summary.imported += imported;
+        summary.failed += errors.size() - rejected;
+        for (String error : errors) {
+            if (summary.errors.size() < MAX_REPORTED_ERRORS) {
+                summary.errors.add(error);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Keys of the rows' bookings that are already in the database
+     */
+    private Set<String> findExistingBookings(List<ParsedRow> rows) {
+        Set<String> emails = new HashSet<>();
+        for (ParsedRow row : rows) {
+            if (row.reservation.getEmail() != null) {
+                emails.add(row.reservation.getEmail());
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        if (emails.isEmpty()) {
+            return existing;
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT g.email, r.check_in_date, r.check_out_date FROM reservations r " +
+                "JOIN guests g ON r.guest_id = g.guest_id WHERE r.status <> 'Cancelled' AND g.email IN (");
+        for (int i = 0; i < emails.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        try {
+            DatabaseConnection.getInstance().executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                    int index = 1;
+                    for (String email : emails) {
+                        pstmt.setString(index++, email);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            existing.add(rs.getString("email").toLowerCase(Locale.ROOT) + '|'
+                                    + rs.getDate("check_in_date") + '|' + rs.getDate("check_out_date"));
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking for bookings already imported", e);
+        }
+        return existing;
+    }
+
+    private static String bookingKey(Reservation reservation) {
+        return reservation.getEmail() + '|' + reservation.getCheckInDate() + '|' + reservation.getCheckOutDate();
+    }
+
+    /**
+     * @return Room type IDs by ID and by lower-cased name
+     */
+    private Map<String, Integer> loadRoomTypeIds() {
+        Map<String, Integer> ids = new HashMap<>();
+        for (RoomType roomType : reservationManager.getAllRoomTypes()) {
+            ids.put(String.valueOf(roomType.getId()), roomType.getId());
+            ids.put(roomType.getName().toLowerCase(Locale.ROOT), roomType.getId());
+        }
+        return ids;
+    }
+
+    private static String[] parseHeader(String line) throws IOException {
+        List<String> columns = parseCsvLine(line);
+        String[] header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = columns.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+        List<String> names = Arrays.asList(header);
+        for (String field : REQUIRED_FIELDS) {
+            if (!names.contains(field)) {
+                throw new IOException("CSV header has no " + field + " column");
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Read the checkpoint left by an unfinished import of the same file.
+     *
+     * @return The last line already imported, or 0 to start from the beginning
+     */
+    private static long readCheckpoint(File file, File checkpointFile, Summary summary) {
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read " + checkpointFile + ", importing from the start", e);
+            return 0;
+        }
+
+        if (Long.parseLong(checkpoint.getProperty("fileSize", "-1")) != file.length()
+                || Long.parseLong(checkpoint.getProperty("fileModified", "-1")) != file.lastModified()) {
+            LOGGER.warning(file + " changed since its checkpoint was written, importing from the start");
+            return 0;
+        }
+
+        summary.resumedAfterLine = Long.parseLong(checkpoint.getProperty("lastLine", "0"));
+        summary.lastLine = summary.resumedAfterLine;
+        summary.rowsRead = Long.parseLong(checkpoint.getProperty("rowsRead", "0"));
+        summary.rowsReadBeforeResume = summary.rowsRead;
+        summary.imported = Long.parseLong(checkpoint.getProperty("imported", "0"));
+        summary.rejected = Long.parseLong(checkpoint.getProperty("rejected", "0"));
+        summary.failed = Long.parseLong(checkpoint.getProperty("failed", "0"));
+        LOGGER.info("Resuming import of " + file + " after line " + summary.resumedAfterLine);
+        return summary.resumedAfterLine;
+    }
+
+    private static void writeCheckpoint(File file, File checkpointFile, Summary summary) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("fileSize", String.valueOf(file.length()));
+        checkpoint.setProperty("fileModified", String.valueOf(file.lastModified()));
+        checkpoint.setProperty("lastLine", String.valueOf(summary.lastLine));
+        checkpoint.setProperty("rowsRead", String.valueOf(summary.rowsRead));
+        checkpoint.setProperty("imported", String.valueOf(summary.imported));
+        checkpoint.setProperty("rejected", String.valueOf(summary.rejected));
+        checkpoint.setProperty("failed", String.valueOf(summary.failed));
+
+        // Written aside and moved into place, so a crash never leaves half a checkpoint
+        File temp = new File(checkpointFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            checkpoint.store(out, "Import progress for " + file.getName());
+        }
+        Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Totals of one import.
+     */
+    public static class Summary {
+        private final File file;
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private long failed;
+        private long alreadyImported;
+        private long resumedAfterLine;
+        private long rowsReadBeforeResume;
+        private long lastLine;
+        private long elapsedNanos;
+        private String stopReason;
+        private final List<String> errors = new ArrayList<>();
+
+        Summary(File file) {
+            this.file = file;
+        }
+
+        public File getFile() { return file; }
+
+        /** @return Data rows read, including those of earlier runs resumed from */
+        public long getRowsRead() { return rowsRead; }
+
+        public long getImported() { return imported; }
+
+        /** @return Rows that failed validation */
+        public long getRejected() { return rejected; }
+
+        /** @return Valid rows that could not be booked, e.g. because no room was free */
+        public long getFailed() { return failed; }
+
+        /** @return Rows skipped on resume because they were booked before a crash */
+        public long getAlreadyImported() { return alreadyImported; }
+
+        /** @return The line this run resumed after, or 0 */
+        public long getResumedAfterLine() { return resumedAfterLine; }
+
+        public long getLastLine() { return lastLine; }
+
+        /** @return The first rejected or failed rows, with their line numbers */
+        public List<String> getErrors() { return errors; }
+
+        /** @return True unless the import stopped on a database error */
+        public boolean isComplete() { return stopReason == null; }
+
+        public String getStopReason() { return stopReason; }
+
+        /** @return Rows processed per second by this run */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (rowsRead - rowsReadBeforeResume) / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s: %d rows, %d imported, %d rejected, %d not booked, %d already imported, %.0f rows/s%s",
+                    file.getName(), rowsRead, imported, rejected, failed, alreadyImported, getRowsPerSecond(),
+                    stopReason == null ? "" : " - stopped: " + stopReason);
+        }
+    }
+
+    /**
+     * Reads physical lines, numbered from 1, skipping blank ones.
+     */
+    private static final class LineSource {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        LineSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        String next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.trim().isEmpty()) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        void skipTo(long lastLine) throws IOException {
+            while (lineNumber < lastLine && reader.readLine() != null) {
+                lineNumber++;
+            }
+        }
+
+        RawChunk readChunk(int size) throws IOException {
+            List<String> lines = new ArrayList<>(size);
+            long[] numbers = new long[size];
+            String line;
+            while (lines.size() < size && (line = next()) != null) {
+                numbers[lines.size()] = lineNumber;
+                lines.add(line);
+            }
+            return lines.isEmpty() ? null : new RawChunk(lines.toArray(new String[0]), numbers, lineNumber);
+        }
+    }
+
+    private static final class RawChunk {
+        final String[] lines;
+        final long[] lineNumbers;
+        final long lastLine;
+
+        RawChunk(String[] lines, long[] lineNumbers, long lastLine) {
+            this.lines = lines;
+            this.lineNumbers = lineNumbers;
+            this.lastLine = lastLine;
+        }
+    }
+
+    private static final class ParsedRow {
+        final long lineNumber;
+        final Reservation reservation;
+        final String error;
+
+        ParsedRow(long lineNumber, Reservation reservation, String error) {
+            this.lineNumber = lineNumber;
+            this.reservation = reservation;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Turns raw lines into validated reservations. Stateless, so one
+     * instance is shared by all fork/join tasks.
+     */
+    private static final class RowParser {
+        private final String[] header;
+        private final Map<String, Integer> roomTypeIds;
+
+        RowParser(String[] header, Map<String, Integer> roomTypeIds) {
+            this.header = header;
+            this.roomTypeIds = roomTypeIds;
+        }
+
+        ForkJoinTask<ParsedRow[]> task(RawChunk chunk) {
+            ParsedRow[] rows = new ParsedRow[chunk.lines.length];
+            RecursiveAction action = new ParseTask(chunk, rows, 0, rows.length);
+            return ForkJoinTask.adapt(() -> {
+                action.invoke();
+                return rows;
+            });
+        }
+
+        private final class ParseTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final RawChunk chunk;
+            private final ParsedRow[] rows;
+            private final int from;
+            private final int to;
+
+            ParseTask(RawChunk chunk, ParsedRow[] rows, int from, int to) {
+                this.chunk = chunk;
+                this.rows = rows;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= PARSE_THRESHOLD) {
+                    for (int i = from; i < to; i++) {
+                        rows[i] = parse(chunk.lines[i], chunk.lineNumbers[i]);
+                    }
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(chunk, rows, from, middle), new ParseTask(chunk, rows, middle, to));
+            }
+        }
+
+        ParsedRow parse(String line, long lineNumber) {
+            try {
+                Map<String, String> fields = header != null ? csvFields(line) : parseJsonObject(line);
+                return new ParsedRow(lineNumber, toReservation(fields), null);
+            } catch (IllegalArgumentException e) {
+                return new ParsedRow(lineNumber, null, e.getMessage());
+            }
+        }
+
+        private Map<String, String> csvFields(String line) {
+            List<String> values = parseCsvLine(line);
+            if (values.size() > header.length) {
+                throw new IllegalArgumentException("Expected " + header.length + " fields, found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header[i], values.get(i));
+            }
+            return fields;
+        }
+
+        private Reservation toReservation(Map<String, String> fields) {
+            for (String field : REQUIRED_FIELDS) {
+                String value = fields.get(field);
+                if (value == null || value.trim().isEmpty()) {
+                    throw new IllegalArgumentException("Missing " + field);
+                }
+            }
+
+            Date checkIn = parseDate(fields.get("check_in"), "check_in");
+            Date checkOut = parseDate(fields.get("check_out"), "check_out");
+            if (!checkOut.after(checkIn)) {
+                throw new IllegalArgumentException("check_out must be after check_in");
+            }
+
+            Integer roomTypeId = roomTypeIds.get(fields.get("room_type").trim().toLowerCase(Locale.ROOT));
+            if (roomTypeId == null) {
+                throw new IllegalArgumentException("Unknown room_type " + fields.get("room_type"));
+            }
+
+            int guests = 1;
+            String guestsValue = fields.get("guests");
+            if (guestsValue != null && !guestsValue.trim().isEmpty()) {
+                try {
+                    guests = Integer.parseInt(guestsValue.trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("guests is not a number: " + guestsValue);
+                }
+                if (guests < 1) {
+                    throw new IllegalArgumentException("guests must be at least 1");
+                }
+            }
+
+            // Lower-cased so the same guest in different spellings is one guest
+            String email = trimToNull(fields.get("email"));
+            if (email != null) {
+                if (email.indexOf('@') < 1) {
+                    throw new IllegalArgumentException("Invalid email " + email);
+                }
+                email = email.toLowerCase(Locale.ROOT);
+            }
+
+            Reservation reservation = new Reservation(fields.get("first_name").trim(), fields.get("last_name").trim(),
+                    email, trimToNull(fields.get("phone")), checkIn, checkOut, roomTypeId, guests);
+            reservation.setSpecialRequests(trimToNull(fields.get("special_requests")));
+            return reservation;
+        }
+
+        private static Date parseDate(String value, String field) {
+            try {
+                return Date.valueOf(value.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(field + " is not a yyyy-MM-dd date: " + value);
+            }
+        }
+
+        private static String trimToNull(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            return value.trim();
+        }
+    }
+
+    /**
+     * Split one CSV line; quoted fields may contain commas and doubled quotes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Parse one flat JSON object; nested values are not supported.
+     *
+     * @return Field values as text, lower-cased keys; JSON null becomes a missing field
+     */
+    static Map<String, String> parseJsonObject(String line) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int[] pos = {skipSpace(line, 0)};
+        expect(line, pos, '{');
+        if (peek(line, pos) == '}') {
+            return fields;
+        }
+        while (true) {
+            pos[0] = skipSpace(line, pos[0]);
+            String key = readJsonString(line, pos);
+            expect(line, pos, ':');
+            pos[0] = skipSpace(line, pos[0]);
+            String value;
+            if (pos[0] < line.length() && line.charAt(pos[0]) == '"') {
+                value = readJsonString(line, pos);
+            } else {
+                int end = pos[0];
+                while (end < line.length() && ",} \t".indexOf(line.charAt(end)) < 0) {
+                    end++;
+                }
+                value = line.substring(pos[0], end);
+                if (value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[') {
+                    throw new IllegalArgumentException("Unsupported JSON value for " + key);
+                }
+                pos[0] = end;
+                if ("null".equals(value)) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                fields.put(key.toLowerCase(Locale.ROOT), value);
+            }
+            char next = peek(line, pos);
+            pos[0]++;
+            if (next == '}') {
+                return fields;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Malformed JSON object");
+            }
+        }
+    }
+
+    private static String readJsonString(String line, int[] pos) {
+        expect(line, pos, '"');
+        StringBuilder text = new StringBuilder();
+        int i = pos[0];
+        while (i < line.length()) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                pos[0] = i;
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            if (i >= line.length()) {
+                break;
+            }
+            char escaped = line.charAt(i++);
+            switch (escaped) {
+                case 'n': text.append('\n'); break;
+                case 't': text.append('\t'); break;
+                case 'r': text.append('\r'); break;
+                case 'b': text.append('\b'); break;
+                case 'f': text.append('\f'); break;
+                case 'u':
+                    if (i + 4 > line.length()) {
+                        throw new IllegalArgumentException("Malformed JSON escape");
+                    }
+                    text.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                    i += 4;
+                    break;
+                default: text.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private static void expect(String line, int[] pos, char expected) {
+        if (peek(line, pos) != expected) {
+            throw new IllegalArgumentException("Malformed JSON: expected '" + expected + "' at column " + (pos[0] + 1));
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String line, int[] pos) {
+        pos[0] = skipSpace(line, pos[0]);
+        return pos[0] < line.length() ? line.charAt(pos[0]) : 0;
+    }
+
+    private static int skipSpace(String line, int pos) {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Import a file from the command line, e.g. from the nightly job that fetches the dumps.
+     *
+     * Usage: java -cp out:lib/mysql-connector-j-9.2.0.jar logic.ReservationImporter [-chunk 1000] file...
+     */
+    public static void main(String[] args) throws IOException {
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-chunk".equals(args[i])) {
+                chunkSize = Integer.parseInt(args[++i]);
+            } else {
+                files.add(new File(args[i]));
+            }
+        }
+
+        ReservationImporter importer = new ReservationImporter(new ReservationManager(),
+                ForkJoinPool.commonPool(), chunkSize);
+        boolean complete = true;
+        for (File file : files) {
+            Summary summary = importer.importFile(file, progress -> System.out.printf(Locale.ROOT,
+                    "  line %d: %d imported, %.0f rows/s%n",
+                    progress.getLastLine(), progress.getImported(), progress.getRowsPerSecond()));
+            System.out.println(summary);
+            for (String error : summary.getErrors()) {
+                System.out.println("  " + error);
+            }
+            complete &= summary.isComplete();
+        }
+        DatabaseConnection.getInstance().closeConnection();
+        System.exit(complete ? 0 : 1);
+    }
+}
@@ -1,9 +1,21 @@
 package logic;
 
 import database.DatabaseConnection;
+import database.RowMapper;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,7 +25,97 @@ import java.util.logging.Logger;
  */
 public class ReservationManager {
     private static final Logger LOGGER = Logger.getLogger(ReservationManager.class.getName());
+    private static final OperationMetrics CREATE_RESERVATION =
+            MetricsRegistry.getInstance().operation("ReservationManager.createReservation");
+    private static final OperationMetrics CREATE_RESERVATIONS =
+            MetricsRegistry.getInstance().operation("ReservationManager.createReservations");
+    private static final OperationMetrics UPDATE_RESERVATION_STATUS =
+            MetricsRegistry.getInstance().operation("ReservationManager.updateReservationStatus");
+    private static final OperationMetrics CANCEL_RESERVATION =
+            MetricsRegistry.getInstance().operation("ReservationManager.cancelReservation");
+    private static final OperationMetrics GET_ALL_ROOM_TYPES =
+            MetricsRegistry.getInstance().operation("ReservationManager.getAllRoomTypes");
+    private static final OperationMetrics IS_ROOM_TYPE_AVAILABLE =
+            MetricsRegistry.getInstance().operation("ReservationManager.isRoomTypeAvailable");
+    private static final OperationMetrics GET_AVAILABILITY_MATRIX =
+            MetricsRegistry.getInstance().operation("ReservationManager.getAvailabilityMatrix");
+    private static final OperationMetrics GET_AVAILABLE_ROOMS =
+            MetricsRegistry.getInstance().operation("ReservationManager.getAvailableRooms");
+    private static final OperationMetrics FOR_EACH_RESERVATION =
+            MetricsRegistry.getInstance().operation("ReservationManager.forEachReservation");
+    private static final OperationMetrics COUNT_RESERVATIONS_BY_DATE_RANGE =
+            MetricsRegistry.getInstance().operation("ReservationManager.countReservationsByDateRange");
+    private static final OperationMetrics GET_RESERVATIONS_PAGE =
+            MetricsRegistry.getInstance().operation("ReservationManager.getReservationsPage");
+    private static final OperationMetrics GET_RESERVATIONS_BY_IDS =
+            MetricsRegistry.getInstance().operation("ReservationManager.getReservationsByIds");
+    private static final OperationMetrics GET_RESERVATION_BY_ID =
+            MetricsRegistry.getInstance().operation("ReservationManager.getReservationById");
+    private static final OperationMetrics UPDATE_GUEST =
+            MetricsRegistry.getInstance().operation("ReservationManager.updateGuest");
+
+    // Same rows as sp_get_reservations_by_date_range
+    private static final RowMapper<Reservation> RESERVATION_ROW = RowMapper.columns(Reservation::new)
+            .column("reservation_id", "r.reservation_id", (res, rs, i) -> res.setReservationId(rs.getInt(i)))
+            .column("guest_id", "r.guest_id", (res, rs, i) -> res.setGuestId(rs.getInt(i)))
+            .column("guest_name", "CONCAT(g.first_name, ' ', g.last_name) AS guest_name", (res, rs, i) -> {
+                // Split the full name into first and last name
+                String[] nameParts = rs.getString(i).split(" ", 2);
+                res.setFirstName(nameParts[0]);
+                res.setLastName(nameParts.length > 1 ? nameParts[1] : "");
+            })
+            .column("email", "g.email", (res, rs, i) -> res.setEmail(rs.getString(i)))
+            .column("phone", "g.phone", (res, rs, i) -> res.setPhone(rs.getString(i)))
+            .column("check_in_date", "r.check_in_date", (res, rs, i) -> res.setCheckInDate(rs.getDate(i)))
+            .column("check_out_date", "r.check_out_date", (res, rs, i) -> res.setCheckOutDate(rs.getDate(i)))
+            .column("status", "r.status", (res, rs, i) -> res.setStatus(rs.getString(i)))
+            .column("total_guests", "r.total_guests", (res, rs, i) -> res.setTotalGuests(rs.getInt(i)))
+            .column("rooms", "GROUP_CONCAT(rm.room_number) AS rooms", (res, rs, i) -> res.setRoomNumber(rs.getString(i)))
+            .column("special_requests", "r.special_requests", (res, rs, i) -> res.setSpecialRequests(rs.getString(i)))
+            .column("created_at", "r.created_at", (res, rs, i) -> res.setCreatedAt(rs.getTimestamp(i)))
+            .all();
+    private static final String RESERVATION_ROW_SELECT = "SELECT " + RESERVATION_ROW.selectList() + " " +
+            "FROM reservations r " +
+            "JOIN guests g ON r.guest_id = g.guest_id " +
+            "JOIN reservation_rooms rr ON r.reservation_id = rr.reservation_id " +
+            "JOIN rooms rm ON rr.room_id = rm.room_id ";
+    // Takes start, end, start, end, start
+    private static final String DATE_RANGE_SELECT = RESERVATION_ROW_SELECT +
+            "WHERE (r.check_in_date BETWEEN ? AND ?) " +
+            "OR (r.check_out_date BETWEEN ? AND ?) " +
+            "OR (? BETWEEN r.check_in_date AND r.check_out_date) " +
+            "GROUP BY r.reservation_id ";
+    private static final String DATE_RANGE_ORDER = "ORDER BY r.check_in_date, r.reservation_id";
+
+    // One row per room of the reservation; guest details come from the guest cache
+    private static final RowMapper<Reservation> RESERVATION_DETAIL = RowMapper.columns(Reservation::new)
+            .column("reservation_id", "r.reservation_id", (res, rs, i) -> res.setReservationId(rs.getInt(i)))
+            .column("guest_id", "r.guest_id", (res, rs, i) -> res.setGuestId(rs.getInt(i)))
+            .column("check_in_date", "r.check_in_date", (res, rs, i) -> res.setCheckInDate(rs.getDate(i)))
+            .column("check_out_date", "r.check_out_date", (res, rs, i) -> res.setCheckOutDate(rs.getDate(i)))
+            .column("status", "r.status", (res, rs, i) -> res.setStatus(rs.getString(i)))
+            .column("total_guests", "r.total_guests", (res, rs, i) -> res.setTotalGuests(rs.getInt(i)))
+            .column("special_requests", "r.special_requests", (res, rs, i) -> res.setSpecialRequests(rs.getString(i)))
+            .column("room_number", "rm.room_number", (res, rs, i) -> res.setRoomNumber(rs.getString(i)))
+            .column("room_type", "rt.name AS room_type", (res, rs, i) -> res.setRoomTypeName(rs.getString(i)))
+            .column("rate_per_night", "rr.rate_per_night", (res, rs, i) -> res.setRatePerNight(rs.getDouble(i)))
+            .column("created_by", "r.created_by", (res, rs, i) -> res.setCreatedBy(rs.getInt(i)))
+            .column("created_at", "r.created_at", (res, rs, i) -> res.setCreatedAt(rs.getTimestamp(i)))
+            .column("updated_at", "r.updated_at", (res, rs, i) -> res.setUpdatedAt(rs.getTimestamp(i)))
+            .all();
+
+    // The rows of sp_get_available_rooms, whose columns are looked up once per call
+    private static final RowMapper.Columns<Room> AVAILABLE_ROOM_COLUMNS = RowMapper.columns(Room::new)
+            .column("room_id", "room_id", (room, rs, i) -> room.setRoomId(rs.getInt(i)))
+            .column("room_number", "room_number", (room, rs, i) -> room.setRoomNumber(rs.getString(i)))
+            .column("room_type", "room_type", (room, rs, i) -> room.setRoomType(rs.getString(i)))
+            .column("base_price", "base_price", (room, rs, i) -> room.setBasePrice(rs.getDouble(i)))
+            .column("capacity", "capacity", (room, rs, i) -> room.setCapacity(rs.getInt(i)));
+
+    // Emails per IN list when looking up the guests of a batch
+    private static final int BATCH_IN_LIST_SIZE = 500;
     private final DatabaseConnection dbConnection;
+    private final GuestCache guestCache;
 
     // Current user ID (would be set after login in a real system)
     private int currentUserId = 1; // Default to admin for this example
@@ -23,6 +125,7 @@ public class ReservationManager {
      */
     public ReservationManager() {
         dbConnection = DatabaseConnection.getInstance();
+        guestCache = GuestCache.getInstance();
     }
 
     /**
@@ -32,26 +135,397 @@ public class ReservationManager {
      * @return True if creation was successful, false otherwise
      */
     public boolean createReservation(Reservation reservation) {
-        int reservationId = dbConnection.createReservation(
-                reservation.getFirstName(),
-                reservation.getLastName(),
-                reservation.getEmail(),
-                reservation.getPhone(),
-                reservation.getCheckInDate(),
-                reservation.getCheckOutDate(),
-                reservation.getTotalGuests(),
-                reservation.getRoomTypeId(),
-                reservation.getSpecialRequests(),
-                currentUserId
-        );
+        long start = System.nanoTime();
+        reservation.setGuestId(resolveGuestId(reservation));
+
+        // The allocator picks the room and records the booking in the availability index
+        int reservationId = RoomAllocator.getInstance().allocate(reservation, currentUserId);
 
         if (reservationId > 0) {
             reservation.setReservationId(reservationId);
+            ChangeBus.getInstance().publishInserted(ChangeBus.RESERVATIONS, reservationId);
             LOGGER.info("Reservation created successfully with ID: " + reservationId);
-            return true;
+            return CREATE_RESERVATION.record(start, true);
         } else {
             LOGGER.warning("Failed to create reservation");
-            return false;
+            return CREATE_RESERVATION.record(start, false);
+        }
+    }
+
+    /**
+     * Find the reservation's guest if they already exist: by email through the
+     * guest cache, or without an email by phone among cached guests, so the
+     * booking itself skips the lookup. A new guest is not added here but by
+     * the booking transaction once it has claimed a room, so a booking that
+     * finds no room leaves no guest behind.
+     *
+     * @return The guest ID, or 0 to leave it to the booking transaction
+     */
+    private int resolveGuestId(Reservation reservation) {
+        Guest guest = GuestCache.normalizeEmail(reservation.getEmail()) != null
+                ? guestCache.getByEmail(reservation.getEmail())
+                : cachedGuestByPhone(reservation);
+        return guest != null ? guest.getGuestId() : 0;
+    }
+
+    /**
+     * Find a cached guest for a reservation without an email: one with the
+     * same phone number and name, so a returning guest is not added again.
+     *
+     * @return The guest, or null if none is cached
+     */
+    private Guest cachedGuestByPhone(Reservation reservation) {
+        Guest guest = guestCache.getCachedByPhone(reservation.getPhone());
+        if (guest == null || reservation.getFirstName() == null || reservation.getLastName() == null) {
+            return null;
+        }
+        // A shared number, e.g. a family's, is not enough on its own
+        return reservation.getFirstName().trim().equalsIgnoreCase(guest.getFirstName())
+                && reservation.getLastName().trim().equalsIgnoreCase(guest.getLastName()) ? guest : null;
+    }
+
+    /**
+     * Creates a block of reservations, e.g. a wedding block or an OTA import,
+     * in one transaction: guests are looked up and added in bulk, rooms for
+     * all items are chosen in one pass, and the reservations are inserted
+     * with batched statements.
+     * Items that are invalid or find no free room are reported and skipped;
+     * the rest are still booked. If the database fails, nothing is booked.
+     *
+     * @param reservations The reservations to create, each with a room type
+     * @return One result per reservation, in the same order
+     */
+    public List<BookingResult> createReservations(List<Reservation> reservations) {
+        long start = System.nanoTime();
+        List<BookingResult> results = new ArrayList<>(reservations.size());
+        List<BookingResult> pending = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            BookingResult result = new BookingResult(reservation);
+            results.add(result);
+            if (reservation.getCheckInDate() == null || reservation.getCheckOutDate() == null
+                    || !reservation.getCheckOutDate().after(reservation.getCheckInDate())) {
+                result.error = "Check-out must be after check-in";
+            } else if (reservation.getFirstName() == null || reservation.getLastName() == null) {
+                result.error = "Guest name is required";
+            } else {
+                pending.add(result);
+            }
+        }
+        if (pending.isEmpty()) {
+            CREATE_RESERVATIONS.record(start, 0);
+            return results;
+        }
+
+        List<BookingResult> allocated;
+        List<Guest> guests;
+        try (Connection conn = dbConnection.getConnection()) {
+            // Under REPEATABLE READ the first plain read would fix the snapshot, hiding
+            // bookings committed by others while this batch waits for its room locks
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            conn.setAutoCommit(false);
+            try {
+                // Rooms are locked before anything else is read
+                allocated = allocateRooms(conn, pending);
+                guests = resolveGuests(conn, pending);
+                insertReservations(conn, allocated);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error creating " + pending.size() + " reservations, none were booked", e);
+            for (BookingResult result : pending) {
+                result.reservationId = 0;
+                result.roomId = 0;
+                result.error = "Database error: " + e.getMessage();
+                result.databaseError = true;
+            }
+            CREATE_RESERVATIONS.recordError(start);
+            return results;
+        }
+
+        for (Guest guest : guests) {
+            guestCache.put(guest);
+        }
+        List<Integer> reservationIds = new ArrayList<>(allocated.size());
+        for (BookingResult result : allocated) {
+            Reservation reservation = result.reservation;
+            reservation.setGuestId(result.guestId);
+            reservation.setReservationId(result.reservationId);
+            availabilityIndex().recordReservation(result.reservationId, result.roomId,
+                    reservation.getCheckInDate(), reservation.getCheckOutDate());
+            reservationIds.add(result.reservationId);
+        }
+        ChangeBus.getInstance().publishInserted(ChangeBus.RESERVATIONS, reservationIds);
+        LOGGER.info("Created " + allocated.size() + " of " + reservations.size() + " reservations in one batch");
+        CREATE_RESERVATIONS.record(start, allocated.size());
+        return results;
+    }
+
+    /**
+     * Find the guests of a batch by email and add the ones that are new.
+     * Guests already in the guest cache are not looked up again.
+     * Guests without an email are matched by phone and name against the
+     * guest cache, and otherwise added, as sp_create_reservation does.
+     * Sets BookingResult.guestId on every item.
+     *
+     * @return Guests read or added here, to be cached once the batch commits
+     */
+    private List<Guest> resolveGuests(Connection conn, List<BookingResult> pending) throws SQLException {
+        Map<String, Reservation> byEmail = new LinkedHashMap<>();
+        List<BookingResult> withoutEmail = new ArrayList<>();
+        for (BookingResult result : pending) {
+            String email = GuestCache.normalizeEmail(result.reservation.getEmail());
+            if (email == null) {
+                Guest cached = cachedGuestByPhone(result.reservation);
+                if (cached != null) {
+                    result.guestId = cached.getGuestId();
+                } else {
+                    withoutEmail.add(result);
+                }
+            } else {
+                byEmail.putIfAbsent(email, result.reservation);
+            }
+        }
+
+        Map<String, Integer> guestIds = new HashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String email : byEmail.keySet()) {
+            Guest cached = guestCache.getCachedByEmail(email);
+            if (cached != null) {
+                guestIds.put(email, cached.getGuestId());
+            } else {
+                uncached.add(email);
+            }
+        }
+
+        List<Guest> loaded = findGuests(conn, uncached);
+        for (Guest guest : loaded) {
+            guestIds.put(GuestCache.normalizeEmail(guest.getEmail()), guest.getGuestId());
+        }
+        List<Reservation> newGuests = new ArrayList<>();
+        for (String email : uncached) {
+            if (!guestIds.containsKey(email)) {
+                newGuests.add(byEmail.get(email));
+            }
+        }
+
+        if (!newGuests.isEmpty()) {
+            // A guest added by a concurrent booking is left as it is and picked up by the lookup below
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO guests (first_name, last_name, email, phone) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE guest_id = guest_id")) {
+                for (Reservation reservation : newGuests) {
+                    setGuest(pstmt, reservation, reservation.getEmail().trim());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            Set<String> emails = new LinkedHashSet<>();
+            for (Reservation reservation : newGuests) {
+                emails.add(GuestCache.normalizeEmail(reservation.getEmail()));
+            }
+            for (Guest guest : findGuests(conn, emails)) {
+                guestIds.put(GuestCache.normalizeEmail(guest.getEmail()), guest.getGuestId());
+                loaded.add(guest);
+            }
+        }
+
+        if (!withoutEmail.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO guests (first_name, last_name, email, phone) VALUES (?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (BookingResult result : withoutEmail) {
+                    setGuest(pstmt, result.reservation, null);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    for (BookingResult result : withoutEmail) {
+                        keys.next();
+                        result.guestId = keys.getInt(1);
+                        Reservation reservation = result.reservation;
+                        loaded.add(new Guest(result.guestId, reservation.getFirstName(), reservation.getLastName(),
+                                null, reservation.getPhone()));
+                    }
+                }
+            }
+        }
+
+        for (BookingResult result : pending) {
+            String email = GuestCache.normalizeEmail(result.reservation.getEmail());
+            if (email != null) {
+                result.guestId = guestIds.get(email);
+            }
+        }
+        return loaded;
+    }
+
+    private static void setGuest(PreparedStatement pstmt, Reservation reservation, String email) throws SQLException {
+        pstmt.setString(1, reservation.getFirstName());
+        pstmt.setString(2, reservation.getLastName());
+        pstmt.setString(3, email);
+        pstmt.setString(4, reservation.getPhone());
+    }
+
+    private List<Guest> findGuests(Connection conn, Collection<String> emails) throws SQLException {
+        List<Guest> guests = new ArrayList<>();
+        List<String> remaining = new ArrayList<>(emails);
+        for (int from = 0; from < remaining.size(); from += BATCH_IN_LIST_SIZE) {
+            List<String> chunk = remaining.subList(from, Math.min(from + BATCH_IN_LIST_SIZE, remaining.size()));
+            String sql = "SELECT guest_id, first_name, last_name, email, phone FROM guests " +
+                    "WHERE email IN (" + DatabaseConnection.placeholders(chunk.size()) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        guests.add(new Guest(rs.getInt("guest_id"), rs.getString("first_name"),
+                                rs.getString("last_name"), rs.getString("email"), rs.getString("phone")));
+                    }
+                }
+            }
+        }
+        return guests;
+    }
+
+    /**
+     * Choose a room for every item in one pass. All available rooms of the
+     * batch's room types are locked first, in room order so concurrent
+     * batches cannot deadlock, then their bookings over the batch's dates are
+     * read once and the items are fitted around them in order.
+     * Must be the first read of a READ COMMITTED transaction, so the bookings
+     * read include any committed while waiting for the locks.
+     *
+     * @return The items that got a room; the others have an error set
+     */
+    private List<BookingResult> allocateRooms(Connection conn, List<BookingResult> pending) throws SQLException {
+        Set<Integer> typeIds = new TreeSet<>();
+        long firstNight = Long.MAX_VALUE;
+        long lastCheckOut = Long.MIN_VALUE;
+        for (BookingResult result : pending) {
+            typeIds.add(result.reservation.getRoomTypeId());
+            firstNight = Math.min(firstNight, result.reservation.getCheckInDate().toLocalDate().toEpochDay());
+            lastCheckOut = Math.max(lastCheckOut, result.reservation.getCheckOutDate().toLocalDate().toEpochDay());
+        }
+        String typeList = DatabaseConnection.placeholders(typeIds.size());
+
+        Map<Integer, List<Integer>> roomsByType = new HashMap<>();
+        Map<Integer, Double> rates = new HashMap<>();
+        String lockSql = "SELECT r.room_id, r.type_id, rt.base_price FROM rooms r " +
+                "JOIN room_types rt ON r.type_id = rt.type_id " +
+                "WHERE r.type_id IN (" + typeList + ") AND r.status = 'Available' " +
+                "ORDER BY r.room_id FOR UPDATE OF r";
+        try (PreparedStatement pstmt = conn.prepareStatement(lockSql)) {
+            int index = 1;
+            for (int typeId : typeIds) {
+                pstmt.setInt(index++, typeId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int roomId = rs.getInt("room_id");
+                    roomsByType.computeIfAbsent(rs.getInt("type_id"), t -> new ArrayList<>()).add(roomId);
+                    rates.put(roomId, rs.getDouble("base_price"));
+                }
+            }
+        }
+
+        // Nights already taken, per room, as check-in/check-out day pairs
+        Map<Integer, List<long[]>> booked = new HashMap<>();
+        String bookedSql = "SELECT rr.room_id, res.check_in_date, res.check_out_date FROM reservation_rooms rr " +
+                "JOIN reservations res ON rr.reservation_id = res.reservation_id " +
+                "JOIN rooms r ON rr.room_id = r.room_id " +
+                "WHERE r.type_id IN (" + typeList + ") AND res.status IN ('Confirmed', 'Checked-in') " +
+                "AND res.check_in_date < ? AND res.check_out_date > ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(bookedSql)) {
+            int index = 1;
+            for (int typeId : typeIds) {
+                pstmt.setInt(index++, typeId);
+            }
+            pstmt.setDate(index++, Date.valueOf(java.time.LocalDate.ofEpochDay(lastCheckOut)));
+            pstmt.setDate(index, Date.valueOf(java.time.LocalDate.ofEpochDay(firstNight)));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    booked.computeIfAbsent(rs.getInt("room_id"), r -> new ArrayList<>()).add(new long[] {
+                            rs.getDate("check_in_date").toLocalDate().toEpochDay(),
+                            rs.getDate("check_out_date").toLocalDate().toEpochDay()});
+                }
+            }
+        }
+
+        List<BookingResult> allocated = new ArrayList<>();
+        for (BookingResult result : pending) {
+            long checkIn = result.reservation.getCheckInDate().toLocalDate().toEpochDay();
+            long checkOut = result.reservation.getCheckOutDate().toLocalDate().toEpochDay();
+            for (int roomId : roomsByType.getOrDefault(result.reservation.getRoomTypeId(), new ArrayList<>())) {
+                List<long[]> nights = booked.computeIfAbsent(roomId, r -> new ArrayList<>());
+                if (isFree(nights, checkIn, checkOut)) {
+                    nights.add(new long[] {checkIn, checkOut});
+                    result.roomId = roomId;
+                    result.ratePerNight = rates.get(roomId);
+                    allocated.add(result);
+                    break;
+                }
+            }
+            if (result.roomId == 0) {
+                result.error = "No room of this type available for these dates";
+            }
+        }
+        return allocated;
+    }
+
+    private static boolean isFree(List<long[]> nights, long checkIn, long checkOut) {
+        for (long[] stay : nights) {
+            if (stay[0] < checkOut && checkIn < stay[1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insertReservations(Connection conn, List<BookingResult> allocated) throws SQLException {
+        if (allocated.isEmpty()) {
+            return;
+        }
+
+        String reservationSql = "INSERT INTO reservations (guest_id, check_in_date, check_out_date, " +
+                "status, total_guests, special_requests, created_by) VALUES (?, ?, ?, 'Confirmed', ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(reservationSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (BookingResult result : allocated) {
+                Reservation reservation = result.reservation;
+                pstmt.setInt(1, result.guestId);
+                pstmt.setDate(2, reservation.getCheckInDate());
+                pstmt.setDate(3, reservation.getCheckOutDate());
+                pstmt.setInt(4, reservation.getTotalGuests());
+                pstmt.setString(5, reservation.getSpecialRequests());
+                pstmt.setInt(6, currentUserId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            // Keys come back in batch order
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                for (BookingResult result : allocated) {
+                    keys.next();
+                    result.reservationId = keys.getInt(1);
+                }
+            }
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO reservation_rooms (reservation_id, room_id, rate_per_night) VALUES (?, ?, ?)")) {
+            for (BookingResult result : allocated) {
+                pstmt.setInt(1, result.reservationId);
+                pstmt.setInt(2, result.roomId);
+                pstmt.setDouble(3, result.ratePerNight);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
         }
     }
 
@@ -63,7 +537,28 @@ public class ReservationManager {
      * @return True if update was successful, false otherwise
      */
     public boolean updateReservationStatus(int reservationId, String newStatus) {
-        return dbConnection.updateReservationStatus(reservationId, newStatus);
+        long start = System.nanoTime();
+        boolean success = dbConnection.updateReservationStatus(reservationId, newStatus);
+
+        if (success) {
+            // Mirror what sp_update_reservation_status does to the rooms
+            AvailabilityIndex index = availabilityIndex();
+            List<Integer> changedRooms = Collections.emptyList();
+            if ("Checked-in".equals(newStatus)) {
+                changedRooms = index.setReservationRoomStatus(reservationId, "Occupied");
+            } else if ("Checked-out".equals(newStatus)) {
+                changedRooms = index.setReservationRoomStatus(reservationId, "Cleaning");
+                index.releaseReservation(reservationId);
+            } else if (!"Confirmed".equals(newStatus)) {
+                index.releaseReservation(reservationId);
+            }
+
+            ChangeBus changeBus = ChangeBus.getInstance();
+            changeBus.publish(ChangeBus.RESERVATIONS, reservationId);
+            changeBus.publish(ChangeBus.ROOMS, changedRooms);
+        }
+
+        return UPDATE_RESERVATION_STATUS.record(start, success);
     }
 
     /**
@@ -73,69 +568,87 @@ public class ReservationManager {
      * @return True if cancellation was successful, false otherwise
      */
     public boolean cancelReservation(int reservationId) {
-        Connection conn = null;
-        CallableStatement callStmt = null;
+        long start = System.nanoTime();
         boolean success = false;
 
-        try {
-            conn = dbConnection.getConnection();
-            callStmt = conn.prepareCall("{CALL sp_cancel_reservation(?)}");
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement callStmt = conn.prepareCall("{CALL sp_cancel_reservation(?)}")) {
             callStmt.setInt(1, reservationId);
 
             callStmt.execute();
             success = true;
+            availabilityIndex().releaseReservation(reservationId);
+            ChangeBus.getInstance().publish(ChangeBus.RESERVATIONS, reservationId);
 
             LOGGER.info("Reservation cancelled: " + reservationId);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error cancelling reservation", e);
-        } finally {
-            try {
-                if (callStmt != null) callStmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
 
-        return success;
+        return CANCEL_RESERVATION.record(start, success);
     }
 
     /**
-     * Gets a list of all room types available in the system
+     * Gets a list of all room types available in the system, from the reference data cache
      *
-     * @return List of room types with ID and name
+     * @return List of room types; shared and unmodifiable
      */
     public List<RoomType> getAllRoomTypes() {
-        List<RoomType> roomTypes = new ArrayList<>();
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
+        long start = System.nanoTime();
+        return GET_ALL_ROOM_TYPES.recordRows(start, ReferenceDataCache.getInstance().getRoomTypes());
+    }
 
-        try {
-            conn = dbConnection.getConnection();
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery("SELECT type_id, name, base_price, capacity FROM room_types");
-
-            while (rs.next()) {
-                RoomType roomType = new RoomType();
-                roomType.setId(rs.getInt("type_id"));
-                roomType.setName(rs.getString("name"));
-                roomType.setBasePrice(rs.getDouble("base_price"));
-                roomType.setCapacity(rs.getInt("capacity"));
-
-                roomTypes.add(roomType);
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving room types", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
+    /**
+     * Checks whether any room of a type is free for a date range.
+     * Answered from the in-memory availability index; falls back to
+     * sp_get_available_rooms if the index could not be loaded.
+     *
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @param roomTypeId The room type ID (or null for any type)
+     * @return True if at least one room is available
+     */
+    public boolean isRoomTypeAvailable(Date checkInDate, Date checkOutDate, Integer roomTypeId) {
+        long start = System.nanoTime();
+        boolean available;
+        AvailabilityIndex index = availabilityIndex();
+        if (index.isLoaded()) {
+            available = index.hasFreeRoom(checkInDate, checkOutDate, roomTypeId);
+        } else {
+            available = !getAvailableRooms(checkInDate, checkOutDate, roomTypeId).isEmpty();
+        }
+        IS_ROOM_TYPE_AVAILABLE.record(start, available ? 1 : 0);
+        return available;
+    }
+
+    /**
+     * Gets the number of free rooms of every type for each night of a window,
+     * computed in one pass over the availability index instead of one
+     * sp_get_available_rooms call per type and day.
+     *
+     * @param startDate The first night of the window
+     * @param days Number of nights to cover
+     * @return The availability matrix, or null if availability could not be loaded
+     */
+    public AvailabilityMatrix getAvailabilityMatrix(Date startDate, int days) {
+        long start = System.nanoTime();
+        AvailabilityIndex index = availabilityIndex();
+        if (!index.isLoaded()) {
+            index.reload();
+            if (!index.isLoaded()) {
+                GET_AVAILABILITY_MATRIX.recordError(start);
+                return null;
             }
         }
 
-        return roomTypes;
+        List<RoomType> roomTypes = getAllRoomTypes();
+        int[] typeIds = new int[roomTypes.size()];
+        for (int i = 0; i < typeIds.length; i++) {
+            typeIds[i] = roomTypes.get(i).getId();
+        }
+
+        int[][] freeRooms = index.countFreeRooms(startDate, days, typeIds);
+        return GET_AVAILABILITY_MATRIX.recordRow(start, new AvailabilityMatrix(startDate, days, roomTypes, freeRooms));
     }
 
     /**
@@ -147,51 +660,35 @@ public class ReservationManager {
      * @return List of available rooms
      */
     public List<Room> getAvailableRooms(Date checkInDate, Date checkOutDate, Integer roomTypeId) {
-        List<Room> availableRooms = new ArrayList<>();
-        Connection conn = null;
-        CallableStatement callStmt = null;
-        ResultSet rs = null;
-
+        long start = System.nanoTime();
         try {
-            conn = dbConnection.getConnection();
-            callStmt = conn.prepareCall("{CALL sp_get_available_rooms(?, ?, ?)}");
+            return GET_AVAILABLE_ROOMS.recordRows(start, dbConnection.executeRead(conn -> {
+                List<Room> availableRooms = new ArrayList<>();
+                try (CallableStatement callStmt = conn.prepareCall("{CALL sp_get_available_rooms(?, ?, ?)}")) {
 
-            callStmt.setDate(1, checkInDate);
-            callStmt.setDate(2, checkOutDate);
-
-            if (roomTypeId != null) {
-                callStmt.setInt(3, roomTypeId);
-            } else {
-                callStmt.setNull(3, Types.INTEGER);
-            }
+                    callStmt.setDate(1, checkInDate);
+                    callStmt.setDate(2, checkOutDate);
 
-            boolean hasResults = callStmt.execute();
-            if (hasResults) {
-                rs = callStmt.getResultSet();
+                    if (roomTypeId != null) {
+                        callStmt.setInt(3, roomTypeId);
+                    } else {
+                        callStmt.setNull(3, Types.INTEGER);
+                    }
 
-                while (rs.next()) {
-                    Room room = new Room();
-                    room.setRoomId(rs.getInt("room_id"));
-                    room.setRoomNumber(rs.getString("room_number"));
-                    room.setRoomType(rs.getString("room_type"));
-                    room.setBasePrice(rs.getDouble("base_price"));
-                    room.setCapacity(rs.getInt("capacity"));
-
-                    availableRooms.add(room);
+                    boolean hasResults = callStmt.execute();
+                    if (hasResults) {
+                        try (ResultSet rs = callStmt.getResultSet()) {
+                            availableRooms.addAll(AVAILABLE_ROOM_COLUMNS.bind(rs).mapAll(rs));
+                        }
+                    }
                 }
-            }
+                return availableRooms;
+            }));
         } catch (SQLException e) {
+            GET_AVAILABLE_ROOMS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error getting available rooms", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (callStmt != null) callStmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new ArrayList<>();
         }
-
-        return availableRooms;
     }
 
     /**
@@ -203,56 +700,176 @@ public class ReservationManager {
      */
     public List<Reservation> getReservationsByDateRange(Date startDate, Date endDate) {
         List<Reservation> reservations = new ArrayList<>();
-        Connection conn = null;
-        CallableStatement callStmt = null;
-        ResultSet rs = null;
+        forEachReservation(startDate, endDate, reservations::add);
+        return reservations;
+    }
 
-        try {
-            conn = dbConnection.getConnection();
-            callStmt = conn.prepareCall("{CALL sp_get_reservations_by_date_range(?, ?)}");
+    /**
+     * Streams the reservations within a date range to a consumer, one at a time.
+     * Rows are read from a forward-only, read-only result set that the driver
+     * streams from the server, so the range is never held in memory as a whole.
+     * Selects the same rows as sp_get_reservations_by_date_range.
+     * The consumer runs while the connection is held and should not block.
+     *
+     * @param startDate Start date for the search
+     * @param endDate End date for the search
+     * @param consumer Receives each reservation, ordered by check-in date
+     * @return Number of reservations delivered, or -1 if reading failed
+     */
+    public int forEachReservation(Date startDate, Date endDate, Consumer<Reservation> consumer) {
+        String sql = DATE_RANGE_SELECT + DATE_RANGE_ORDER;
+        long start = System.nanoTime();
+        int count = 0;
 
-            callStmt.setDate(1, startDate);
-            callStmt.setDate(2, endDate);
+        // Not retried through executeRead: rows already handed to the consumer cannot be taken back
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
 
-            boolean hasResults = callStmt.execute();
-            if (hasResults) {
-                rs = callStmt.getResultSet();
+            // Connector/J streams a forward-only, read-only result row by row with this fetch size
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            setDateRange(pstmt, startDate, endDate);
 
+            try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Reservation reservation = new Reservation();
-                    reservation.setReservationId(rs.getInt("reservation_id"));
-
-                    // Split the full name into first and last name
-                    String fullName = rs.getString("guest_name");
-                    String[] nameParts = fullName.split(" ", 2);
-                    reservation.setFirstName(nameParts[0]);
-                    reservation.setLastName(nameParts.length > 1 ? nameParts[1] : "");
-
-                    reservation.setEmail(rs.getString("email"));
-                    reservation.setPhone(rs.getString("phone"));
-                    reservation.setCheckInDate(rs.getDate("check_in_date"));
-                    reservation.setCheckOutDate(rs.getDate("check_out_date"));
-                    reservation.setStatus(rs.getString("status"));
-                    reservation.setTotalGuests(rs.getInt("total_guests"));
-                    reservation.setRoomNumber(rs.getString("rooms"));
-                    reservation.setSpecialRequests(rs.getString("special_requests"));
-                    reservation.setCreatedAt(rs.getTimestamp("created_at"));
-
-                    reservations.add(reservation);
+                    consumer.accept(RESERVATION_ROW.map(rs));
+                    count++;
                 }
             }
         } catch (SQLException e) {
+            FOR_EACH_RESERVATION.recordError(start);
             LOGGER.log(Level.SEVERE, "Error getting reservations by date range", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (callStmt != null) callStmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return -1;
         }
 
-        return reservations;
+        FOR_EACH_RESERVATION.record(start, count);
+        return count;
+    }
+
+    /**
+     * Loads the reservations within a date range into a compact
+     * ReservationStore, e.g. a year of them for reporting. Rows are streamed
+     * as in forEachReservation and copied into the store one at a time.
+     *
+     * @param startDate Start date for the search
+     * @param endDate End date for the search
+     * @return The reservations, ordered by check-in date, or null if reading failed
+     */
+    public ReservationStore loadReservationStore(Date startDate, Date endDate) {
+        ReservationStore store = new ReservationStore();
+        if (forEachReservation(startDate, endDate, store::add) < 0) {
+            return null;
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Counts the reservations within a date range
+     *
+     * @param startDate Start date for the search
+     * @param endDate End date for the search
+     * @return Number of reservations, or -1 on error
+     */
+    public int countReservationsByDateRange(Date startDate, Date endDate) {
+        String sql = "SELECT COUNT(DISTINCT r.reservation_id) " +
+                "FROM reservations r " +
+                "JOIN reservation_rooms rr ON r.reservation_id = rr.reservation_id " +
+                "WHERE (r.check_in_date BETWEEN ? AND ?) " +
+                "OR (r.check_out_date BETWEEN ? AND ?) " +
+                "OR (? BETWEEN r.check_in_date AND r.check_out_date)";
+
+        long start = System.nanoTime();
+        try {
+            return COUNT_RESERVATIONS_BY_DATE_RANGE.recordRow(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    setDateRange(pstmt, startDate, endDate);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            COUNT_RESERVATIONS_BY_DATE_RANGE.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error counting reservations by date range", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Gets one page of the reservations within a date range,
+     * in the same order as forEachReservation
+     *
+     * @param startDate Start date for the search
+     * @param endDate End date for the search
+     * @param offset Index of the first reservation to return
+     * @param limit Maximum number of reservations to return
+     * @return List of reservations
+     */
+    public List<Reservation> getReservationsPage(Date startDate, Date endDate, int offset, int limit) {
+        String sql = DATE_RANGE_SELECT + DATE_RANGE_ORDER + " LIMIT ? OFFSET ?";
+
+        long start = System.nanoTime();
+        try {
+            return GET_RESERVATIONS_PAGE.recordRows(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    setDateRange(pstmt, startDate, endDate);
+                    pstmt.setInt(6, limit);
+                    pstmt.setInt(7, offset);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return RESERVATION_ROW.mapAll(rs);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_RESERVATIONS_PAGE.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error getting reservations page", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static void setDateRange(PreparedStatement pstmt, Date startDate, Date endDate) throws SQLException {
+        pstmt.setDate(1, startDate);
+        pstmt.setDate(2, endDate);
+        pstmt.setDate(3, startDate);
+        pstmt.setDate(4, endDate);
+        pstmt.setDate(5, startDate);
+    }
+
+    /**
+     * Gets a few reservations in the same form as getReservationsPage,
+     * e.g. to update a reservation list after they changed.
+     *
+     * @param reservationIds IDs of the reservations
+     * @return The reservations that exist, or null on error
+     */
+    public List<Reservation> getReservationsByIds(Collection<Integer> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = RESERVATION_ROW_SELECT +
+                "WHERE r.reservation_id IN (" + DatabaseConnection.placeholders(reservationIds.size()) + ") " +
+                "GROUP BY r.reservation_id";
+
+        long start = System.nanoTime();
+        try {
+            return GET_RESERVATIONS_BY_IDS.recordRows(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (int reservationId : reservationIds) {
+                        pstmt.setInt(index++, reservationId);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return RESERVATION_ROW.mapAll(rs);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_RESERVATIONS_BY_IDS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error getting reservations by ID", e);
+            return null;
+        }
     }
 
     /**
@@ -262,61 +879,76 @@ public class ReservationManager {
      * @return The reservation object, or null if not found
      */
     public Reservation getReservationById(int reservationId) {
-        Reservation reservation = null;
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+        // Guest details come from the guest cache rather than a join on guests
+        String sql = "SELECT " + RESERVATION_DETAIL.selectList() + " " +
+                "FROM reservations r " +
+                "JOIN reservation_rooms rr ON r.reservation_id = rr.reservation_id " +
+                "JOIN rooms rm ON rr.room_id = rm.room_id " +
+                "JOIN room_types rt ON rm.type_id = rt.type_id " +
+                "WHERE r.reservation_id = ?";
 
+        long start = System.nanoTime();
+        Reservation found;
         try {
-            conn = dbConnection.getConnection();
-            String sql = "SELECT r.reservation_id, g.guest_id, g.first_name, g.last_name, " +
-                    "g.email, g.phone, r.check_in_date, r.check_out_date, r.status, " +
-                    "r.total_guests, r.special_requests, rm.room_number, rt.name as room_type, " +
-                    "rr.rate_per_night, r.created_by, r.created_at, r.updated_at " +
-                    "FROM reservations r " +
-                    "JOIN guests g ON r.guest_id = g.guest_id " +
-                    "JOIN reservation_rooms rr ON r.reservation_id = rr.reservation_id " +
-                    "JOIN rooms rm ON rr.room_id = rm.room_id " +
-                    "JOIN room_types rt ON rm.type_id = rt.type_id " +
-                    "WHERE r.reservation_id = ?";
-
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, reservationId);
-
-            rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                reservation = new Reservation();
-                reservation.setReservationId(rs.getInt("reservation_id"));
-                reservation.setGuestId(rs.getInt("guest_id"));
-                reservation.setFirstName(rs.getString("first_name"));
-                reservation.setLastName(rs.getString("last_name"));
-                reservation.setEmail(rs.getString("email"));
-                reservation.setPhone(rs.getString("phone"));
-                reservation.setCheckInDate(rs.getDate("check_in_date"));
-                reservation.setCheckOutDate(rs.getDate("check_out_date"));
-                reservation.setStatus(rs.getString("status"));
-                reservation.setTotalGuests(rs.getInt("total_guests"));
-                reservation.setSpecialRequests(rs.getString("special_requests"));
-                reservation.setRoomNumber(rs.getString("room_number"));
-                reservation.setRoomTypeName(rs.getString("room_type"));
-                reservation.setRatePerNight(rs.getDouble("rate_per_night"));
-                reservation.setCreatedBy(rs.getInt("created_by"));
-                reservation.setCreatedAt(rs.getTimestamp("created_at"));
-                reservation.setUpdatedAt(rs.getTimestamp("updated_at"));
-            }
+            found = dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, reservationId);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return RESERVATION_DETAIL.mapFirst(rs);
+                    }
+                }
+            });
         } catch (SQLException e) {
+            GET_RESERVATION_BY_ID.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving reservation by ID", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
+            return null;
+        }
+
+        if (found != null) {
+            Guest guest = guestCache.getById(found.getGuestId());
+            if (guest == null) {
+                // The reservation exists, so its guest does too; the read failed
+                GET_RESERVATION_BY_ID.recordError(start);
+                return null;
             }
+            found.setFirstName(guest.getFirstName());
+            found.setLastName(guest.getLastName());
+            found.setEmail(guest.getEmail());
+            found.setPhone(guest.getPhone());
         }
+        return GET_RESERVATION_BY_ID.recordRow(start, found);
+    }
+
+    /**
+     * Updates a guest's contact details
+     *
+     * @param guest The guest, with its ID and the new details
+     * @return True if the update was successful, false otherwise
+     */
+    public boolean updateGuest(Guest guest) {
+        long start = System.nanoTime();
+        String sql = "UPDATE guests SET first_name = ?, last_name = ?, email = ?, phone = ? WHERE guest_id = ?";
 
-        return reservation;
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, guest.getFirstName());
+            pstmt.setString(2, guest.getLastName());
+            pstmt.setString(3, guest.getEmail());
+            pstmt.setString(4, guest.getPhone());
+            pstmt.setInt(5, guest.getGuestId());
+
+            boolean updated = pstmt.executeUpdate() > 0;
+            LOGGER.info("Guest updated: " + guest.getGuestId());
+            return UPDATE_GUEST.record(start, updated);
+        } catch (SQLException e) {
+            UPDATE_GUEST.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error updating guest", e);
+            return false;
+        } finally {
+            // Also on failure: the row may or may not have changed
+            guestCache.invalidate(guest.getGuestId());
+        }
     }
 
     /**
@@ -338,31 +970,46 @@ public class ReservationManager {
     }
 
     /**
-     * Inner class to represent a Room Type
+     * Looked up when needed rather than in the constructor, so listing and
+     * counting reservations never waits for the index to load.
      */
-    public static class RoomType {
-        private int id;
-        private String name;
-        private double basePrice;
-        private int capacity;
+    private static AvailabilityIndex availabilityIndex() {
+        return AvailabilityIndex.getInstance();
+    }
 
-        // Getters and setters
-        public int getId() { return id; }
-        public void setId(int id) { this.id = id; }
+    /**
+     * Outcome of one reservation in a batch from createReservations
+     */
+    public static class BookingResult {
+        private final Reservation reservation;
+        private int reservationId;
+        private int roomId;
+        private String error;
+        private boolean databaseError;
 
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
+        // Filled in while the batch is written
+        private int guestId;
+        private double ratePerNight;
 
-        public double getBasePrice() { return basePrice; }
-        public void setBasePrice(double basePrice) { this.basePrice = basePrice; }
+        BookingResult(Reservation reservation) {
+            this.reservation = reservation;
+        }
 
-        public int getCapacity() { return capacity; }
-        public void setCapacity(int capacity) { this.capacity = capacity; }
+        public Reservation getReservation() { return reservation; }
 
-        @Override
-        public String toString() {
-            return name + " ($" + basePrice + ")";
-        }
+        /** @return The new reservation ID, or 0 if it was not booked */
+        public int getReservationId() { return reservationId; }
+
+        /** @return The booked room's ID, or 0 if it was not booked */
+        public int getRoomId() { return roomId; }
+
+        /** @return Why it was not booked, or null if it was */
+        public String getError() { return error; }
+
+        /** @return True if the whole batch was rolled back, so retrying it may succeed */
+        public boolean isDatabaseError() { return databaseError; }
+
+        public boolean isSuccess() { return reservationId > 0; }
     }
 
     /**
@@ -0,0 +1,541 @@
+package logic;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A compact, column-per-field store of many reservations, for keeping a
+ * year or more of them in memory without one Reservation bean per row.
+ *
+ * Each field is a primitive array indexed by position: dates as epoch days,
+ * timestamps as epoch milliseconds, money as cents, the status as a byte
+ * code for the reservations.status ENUM. Values that repeat across rows are
+ * held once and referred to by a small code: room number lists in a
+ * dictionary, and room types, creators and guests' names and contact
+ * details in tables of their own. A reservation takes about 55 bytes, where
+ * a Reservation bean read from the database takes several hundred.
+ *
+ * Rows are read through views: Reservations whose getters read the arrays.
+ * get() returns a view of one row; forEach() moves a single view along all
+ * of them. Views are read-only; their setters throw.
+ *
+ * A store is filled by one thread with add() and trimToSize(), and is
+ * read-only from then on, when it may be shared between threads.
+ */
+public class ReservationStore {
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Members of the reservations.status ENUM, so they take codes 0-4
+    private final StringDictionary statuses =
+            new StringDictionary("Confirmed", "Checked-in", "Checked-out", "Cancelled", "No-show");
+    private final StringDictionary roomTypeNames = new StringDictionary();
+    private final StringDictionary roomNumbers = new StringDictionary();
+
+    // Room type ID and name pairs; the date range queries give neither, details give only the name
+    private int[] roomTypeIds = new int[8];
+    private int[] roomTypeNameCodes = new int[8];
+    private int roomTypeCount;
+
+    // Users who created reservations
+    private final Map<Integer, Integer> creatorIndexes = new HashMap<>();
+    private int[] creatorIds = new int[8];
+
+    // Guest details, once per guest
+    private final Map<Integer, Integer> guestIndexes = new HashMap<>();
+    private int[] guestIds = new int[16];
+    private String[] guestFirstNames = new String[16];
+    private String[] guestLastNames = new String[16];
+    private String[] guestEmails = new String[16];
+    private String[] guestPhones = new String[16];
+    private int guestCount;
+
+    private int size;
+    private int[] reservationIds;
+    private int[] guests;
+    private int[] checkInDays;
+    private int[] checkOutDays;
+    private byte[] statusCodes;
+    private short[] totalGuests;
+    private short[] roomTypes;
+    private int[] roomNumberCodes;
+    private long[] rateCents;
+    private String[] specialRequests;
+    private short[] creators;
+    private long[] createdAt;
+    private long[] updatedAt;
+
+    // Reservation IDs in order, and the row of each; built on first lookup
+    private int[] sortedIds;
+    private int[] sortedRows;
+
+    public ReservationStore() {
+        this(64);
+    }
+
+    /**
+     * @param capacity The number of reservations expected
+     */
+    public ReservationStore(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Copy a reservation into the store.
+     *
+     * @param reservation The reservation, e.g. one streamed by ReservationManager.forEachReservation
+     * @return The row it was stored at
+     */
+    public int add(Reservation reservation) {
+        if (size == reservationIds.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+        int row = size++;
+        reservationIds[row] = reservation.getReservationId();
+        guests[row] = guestIndex(reservation);
+        checkInDays[row] = toDay(reservation.getCheckInDate());
+        checkOutDays[row] = toDay(reservation.getCheckOutDate());
+        statusCodes[row] = toByteCode(statuses.code(reservation.getStatus()));
+        totalGuests[row] = (short) reservation.getTotalGuests();
+        roomTypes[row] = roomTypeIndex(reservation.getRoomTypeId(), roomTypeNames.code(reservation.getRoomTypeName()));
+        roomNumberCodes[row] = roomNumbers.code(reservation.getRoomNumber());
+        rateCents[row] = Math.round(reservation.getRatePerNight() * 100);
+        specialRequests[row] = reservation.getSpecialRequests();
+        creators[row] = creatorIndex(reservation.getCreatedBy());
+        createdAt[row] = toTime(reservation.getCreatedAt());
+        updatedAt[row] = toTime(reservation.getUpdatedAt());
+        sortedIds = null;
+        return row;
+    }
+
+    /**
+     * Release the spare capacity left after loading.
+     */
+    public void trimToSize() {
+        if (size < reservationIds.length) {
+            allocate(size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row A row from 0 to size() - 1
+     * @return A new view of the row
+     */
+    public Reservation get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new View(row);
+    }
+
+    /**
+     * @param reservationId A reservation ID
+     * @return The row holding that reservation, or -1 if it is not in the store
+     */
+    public int indexOf(int reservationId) {
+        if (sortedIds == null) {
+            sortById();
+        }
+        int found = Arrays.binarySearch(sortedIds, reservationId);
+        return found >= 0 ? sortedRows[found] : -1;
+    }
+
+    /**
+     * Pass every reservation to a consumer, in row order. The same view is
+     * moved from row to row, so the consumer must copy anything it keeps.
+     *
+     * @param consumer Receives each reservation
+     */
+    public void forEach(Consumer<Reservation> consumer) {
+        View view = new View(0);
+        for (int row = 0; row < size; row++) {
+            view.row = row;
+            consumer.accept(view);
+        }
+    }
+
+    // Direct access to the columns, for code that scans many rows
+
+    public int getCheckInDay(int row) {
+        return checkInDays[row];
+    }
+
+    public int getCheckOutDay(int row) {
+        return checkOutDays[row];
+    }
+
+    public String getStatus(int row) {
+        return statuses.value(statusCodes[row]);
+    }
+
+    public long getRateCents(int row) {
+        return rateCents[row];
+    }
+
+    public int getRoomTypeId(int row) {
+        return roomTypeIds[roomTypes[row]];
+    }
+
+    private void allocate(int capacity) {
+        reservationIds = resize(reservationIds, capacity);
+        guests = resize(guests, capacity);
+        checkInDays = resize(checkInDays, capacity);
+        checkOutDays = resize(checkOutDays, capacity);
+        statusCodes = statusCodes == null ? new byte[capacity] : Arrays.copyOf(statusCodes, capacity);
+        totalGuests = resize(totalGuests, capacity);
+        roomTypes = resize(roomTypes, capacity);
+        roomNumberCodes = resize(roomNumberCodes, capacity);
+        rateCents = rateCents == null ? new long[capacity] : Arrays.copyOf(rateCents, capacity);
+        specialRequests = specialRequests == null ? new String[capacity] : Arrays.copyOf(specialRequests, capacity);
+        creators = resize(creators, capacity);
+        createdAt = createdAt == null ? new long[capacity] : Arrays.copyOf(createdAt, capacity);
+        updatedAt = updatedAt == null ? new long[capacity] : Arrays.copyOf(updatedAt, capacity);
+    }
+
+    private static int[] resize(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static short[] resize(short[] array, int capacity) {
+        return array == null ? new short[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * @return The index of the room type, storing it if it is new
+     */
+    private short roomTypeIndex(int roomTypeId, int nameCode) {
+        // There are only a handful of room types
+        for (int i = 0; i < roomTypeCount; i++) {
+            if (roomTypeIds[i] == roomTypeId && roomTypeNameCodes[i] == nameCode) {
+                return (short) i;
+            }
+        }
+        if (roomTypeCount == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many room types");
+        }
+        if (roomTypeCount == roomTypeIds.length) {
+            roomTypeIds = Arrays.copyOf(roomTypeIds, roomTypeCount * 2);
+            roomTypeNameCodes = Arrays.copyOf(roomTypeNameCodes, roomTypeCount * 2);
+        }
+        roomTypeIds[roomTypeCount] = roomTypeId;
+        roomTypeNameCodes[roomTypeCount] = nameCode;
+        return (short) roomTypeCount++;
+    }
+
+    /**
+     * @return The index of the creating user, storing it if it is new
+     */
+    private short creatorIndex(int userId) {
+        Integer index = creatorIndexes.get(userId);
+        if (index != null) {
+            return index.shortValue();
+        }
+        int newIndex = creatorIndexes.size();
+        if (newIndex == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many creating users");
+        }
+        if (newIndex == creatorIds.length) {
+            creatorIds = Arrays.copyOf(creatorIds, newIndex * 2);
+        }
+        creatorIds[newIndex] = userId;
+        creatorIndexes.put(userId, newIndex);
+        return (short) newIndex;
+    }
+
+    /**
+     * @return The index of the reservation's guest details, storing them if the guest is new
+     */
+    private int guestIndex(Reservation reservation) {
+        int guestId = reservation.getGuestId();
+        Integer index = guestId != 0 ? guestIndexes.get(guestId) : null;
+        if (index != null) {
+            return index;
+        }
+
+        if (guestCount == guestFirstNames.length) {
+            int capacity = guestCount * 2;
+            guestIds = Arrays.copyOf(guestIds, capacity);
+            guestFirstNames = Arrays.copyOf(guestFirstNames, capacity);
+            guestLastNames = Arrays.copyOf(guestLastNames, capacity);
+            guestEmails = Arrays.copyOf(guestEmails, capacity);
+            guestPhones = Arrays.copyOf(guestPhones, capacity);
+        }
+        int newIndex = guestCount++;
+        guestIds[newIndex] = guestId;
+        guestFirstNames[newIndex] = reservation.getFirstName();
+        guestLastNames[newIndex] = reservation.getLastName();
+        guestEmails[newIndex] = reservation.getEmail();
+        guestPhones[newIndex] = reservation.getPhone();
+        // A reservation built without a guest ID gets details of its own
+        if (guestId != 0) {
+            guestIndexes.put(guestId, newIndex);
+        }
+        return newIndex;
+    }
+
+    private void sortById() {
+        long[] pairs = new long[size];
+        for (int row = 0; row < size; row++) {
+            pairs[row] = ((long) reservationIds[row] << 32) | row;
+        }
+        Arrays.sort(pairs);
+        int[] ids = new int[size];
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = (int) (pairs[i] >> 32);
+            rows[i] = (int) pairs[i];
+        }
+        sortedRows = rows;
+        sortedIds = ids;
+    }
+
+    private static byte toByteCode(int code) {
+        if (code > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct statuses");
+        }
+        return (byte) code;
+    }
+
+    private static int toDay(java.util.Date date) {
+        if (date == null) {
+            return NO_DAY;
+        }
+        // java.sql.Date converts without a time zone shift; other dates are taken in the local zone
+        return (int) (date instanceof Date ? ((Date) date).toLocalDate().toEpochDay()
+                : new Date(date.getTime()).toLocalDate().toEpochDay());
+    }
+
+    private static Date fromDay(int day) {
+        return day == NO_DAY ? null : Date.valueOf(LocalDate.ofEpochDay(day));
+    }
+
+    private static long toTime(java.util.Date date) {
+        return date == null ? NO_TIME : date.getTime();
+    }
+
+    private static Timestamp fromTime(long time) {
+        return time == NO_TIME ? null : new Timestamp(time);
+    }
+
+    /**
+     * A Reservation that reads one row of the store.
+     */
+    private final class View extends Reservation {
+        int row;
+
+        View(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int getReservationId() {
+            return reservationIds[row];
+        }
+
+        @Override
+        public int getGuestId() {
+            return guestIds[guests[row]];
+        }
+
+        @Override
+        public String getFirstName() {
+            return guestFirstNames[guests[row]];
+        }
+
+        @Override
+        public String getLastName() {
+            return guestLastNames[guests[row]];
+        }
+
+        @Override
+        public String getFullName() {
+            return getFirstName() + " " + getLastName();
+        }
+
+        @Override
+        public String getEmail() {
+            return guestEmails[guests[row]];
+        }
+
+        @Override
+        public String getPhone() {
+            return guestPhones[guests[row]];
+        }
+
+        @Override
+        public Date getCheckInDate() {
+            return fromDay(checkInDays[row]);
+        }
+
+        @Override
+        public Date getCheckOutDate() {
+            return fromDay(checkOutDays[row]);
+        }
+
+        @Override
+        public String getStatus() {
+            return statuses.value(statusCodes[row]);
+        }
+
+        @Override
+        public int getTotalGuests() {
+            return totalGuests[row];
+        }
+
+        @Override
+        public int getRoomTypeId() {
+            return roomTypeIds[roomTypes[row]];
+        }
+
+        @Override
+        public String getRoomTypeName() {
+            return roomTypeNames.value(roomTypeNameCodes[roomTypes[row]]);
+        }
+
+        @Override
+        public String getRoomNumber() {
+            return roomNumbers.value(roomNumberCodes[row]);
+        }
+
+        @Override
+        public double getRatePerNight() {
+            return rateCents[row] / 100.0;
+        }
+
+        @Override
+        public String getSpecialRequests() {
+            return specialRequests[row];
+        }
+
+        @Override
+        public int getCreatedBy() {
+            return creatorIds[creators[row]];
+        }
+
+        @Override
+        public java.util.Date getCreatedAt() {
+            return fromTime(createdAt[row]);
+        }
+
+        @Override
+        public java.util.Date getUpdatedAt() {
+            return fromTime(updatedAt[row]);
+        }
+
+        @Override
+        public int getNumberOfNights() {
+            int checkIn = checkInDays[row];
+            int checkOut = checkOutDays[row];
+            return checkIn == NO_DAY || checkOut == NO_DAY ? 0 : checkOut - checkIn;
+        }
+
+        @Override
+        public String toString() {
+            return "Reservation #" + getReservationId() + ": " + getFullName() +
+                    " (" + getCheckInDate() + " to " + getCheckOutDate() + ")";
+        }
+
+        @Override
+        public void setReservationId(int reservationId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setGuestId(int guestId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setFirstName(String firstName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastName(String lastName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setEmail(String email) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPhone(String phone) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCheckInDate(Date checkInDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCheckOutDate(Date checkOutDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStatus(String status) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setTotalGuests(int totalGuests) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRoomTypeId(int roomTypeId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRoomTypeName(String roomTypeName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRoomNumber(String roomNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRatePerNight(double ratePerNight) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setSpecialRequests(String specialRequests) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCreatedBy(int createdBy) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCreatedAt(java.util.Date createdAt) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setUpdatedAt(java.util.Date updatedAt) {
+            throw readOnly();
+        }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Reservations in a ReservationStore are read-only");
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package logic;
+
+import database.DatabaseConnection;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Assigns rooms to new reservations without double-booking them.
+ *
+ * sp_create_reservation picks a room with a plain SELECT, so two concurrent
+ * bookings can get the same room. Here each booking first claims its
+ * room-nights in memory with a compare-and-set on the room's set of
+ * in-flight claims; a booking that loses the race moves on to the next
+ * candidate room instead of waiting. Only the winner writes, in one short
+ * transaction that locks just that room's row and re-checks it for overlaps,
+ * which also covers bookings made outside this process.
+ */
+public class RoomAllocator {
+    private static final Logger LOGGER = Logger.getLogger(RoomAllocator.class.getName());
+    private static RoomAllocator instance;
+
+    private static final long[] NO_CLAIMS = new long[0];
+
+    private final Availability availability;
+    private final BookingWriter writer;
+
+    // Per room: check-in/check-out day pairs of bookings being written right now; never mutated, only replaced
+    private final ConcurrentHashMap<Integer, AtomicReference<long[]>> claims = new ConcurrentHashMap<>();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    /**
+     * Where candidate rooms come from and where new bookings are recorded.
+     */
+    public interface Availability {
+        /**
+         * @return IDs of rooms believed free for every night, in preference order
+         */
+        List<Integer> findFreeRooms(Date checkInDate, Date checkOutDate, int roomTypeId);
+
+        /**
+         * Called once a booking is committed, before its claim is released.
+         */
+        void recordReservation(int reservationId, int roomId, Date checkInDate, Date checkOutDate);
+    }
+
+    /**
+     * Writes a reservation for one specific room.
+     */
+    public interface BookingWriter {
+        /**
+         * @return The reservation ID, 0 if the room turned out to be taken, or -1 on error
+         */
+        int createReservationInRoom(Reservation reservation, int roomId, int createdBy);
+    }
+
+    /**
+     * Create an allocator over any availability source and writer.
+     *
+     * @param availability Source of candidate rooms
+     * @param writer       Writes the chosen room's reservation
+     */
+    public RoomAllocator(Availability availability, BookingWriter writer) {
+        this.availability = availability;
+        this.writer = writer;
+    }
+
+    /**
+     * Get the allocator backed by the availability index and the database.
+     *
+     * @return The RoomAllocator instance
+     */
+    public static synchronized RoomAllocator getInstance() {
+        if (instance == null) {
+            DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+            instance = new RoomAllocator(new IndexAvailability(dbConnection, AvailabilityIndex.getInstance()),
+                    (reservation, roomId, createdBy) -> dbConnection.createReservationInRoom(
+                            reservation.getGuestId(),
+                            reservation.getFirstName(),
+                            reservation.getLastName(),
+                            reservation.getEmail(),
+                            reservation.getPhone(),
+                            reservation.getCheckInDate(),
+                            reservation.getCheckOutDate(),
+                            reservation.getTotalGuests(),
+                            roomId,
+                            reservation.getSpecialRequests(),
+                            createdBy));
+        }
+        return instance;
+    }
+
+    /**
+     * Book a room of the reservation's type for its dates.
+     *
+     * @param reservation The reservation to book
+     * @param createdBy   User ID of the creator
+     * @return The new reservation ID, or -1 if no room was free or the write failed
+     */
+    public int allocate(Reservation reservation, int createdBy) {
+        Date checkIn = reservation.getCheckInDate();
+        Date checkOut = reservation.getCheckOutDate();
+        long checkInDay = checkIn.toLocalDate().toEpochDay();
+        long checkOutDay = checkOut.toLocalDate().toEpochDay();
+        if (checkOutDay <= checkInDay) {
+            LOGGER.warning("Check-out must be after check-in");
+            return -1;
+        }
+
+        for (int roomId : availability.findFreeRooms(checkIn, checkOut, reservation.getRoomTypeId())) {
+            if (!claim(roomId, checkInDay, checkOutDay)) {
+                // Another booking is writing this room for overlapping nights; try the next one
+                conflicts.incrementAndGet();
+                continue;
+            }
+            try {
+                int reservationId = writer.createReservationInRoom(reservation, roomId, createdBy);
+                if (reservationId > 0) {
+                    availability.recordReservation(reservationId, roomId, checkIn, checkOut);
+                    return reservationId;
+                }
+                if (reservationId < 0) {
+                    return -1;
+                }
+                // Booked outside this process since the availability was read
+                conflicts.incrementAndGet();
+            } finally {
+                release(roomId, checkInDay, checkOutDay);
+            }
+        }
+
+        LOGGER.info("No available room of type " + reservation.getRoomTypeId() + " for " + checkIn + " to " + checkOut);
+        return -1;
+    }
+
+    /**
+     * @return Number of times a booking lost a room to a concurrent one and moved on
+     */
+    public long getConflicts() {
+        return conflicts.get();
+    }
+
+    private boolean claim(int roomId, long checkInDay, long checkOutDay) {
+        AtomicReference<long[]> ref = claims.computeIfAbsent(roomId, id -> new AtomicReference<>(NO_CLAIMS));
+        while (true) {
+            long[] current = ref.get();
+            for (int i = 0; i < current.length; i += 2) {
+                if (current[i] < checkOutDay && checkInDay < current[i + 1]) {
+                    return false;
+                }
+            }
+            long[] updated = Arrays.copyOf(current, current.length + 2);
+            updated[current.length] = checkInDay;
+            updated[current.length + 1] = checkOutDay;
+            if (ref.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(int roomId, long checkInDay, long checkOutDay) {
+        AtomicReference<long[]> ref = claims.get(roomId);
+        while (true) {
+            long[] current = ref.get();
+            int index = -1;
+            for (int i = 0; i < current.length; i += 2) {
+                if (current[i] == checkInDay && current[i + 1] == checkOutDay) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            long[] updated = NO_CLAIMS;
+            if (current.length > 2) {
+                updated = new long[current.length - 2];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 2, updated, index, current.length - index - 2);
+            }
+            if (ref.compareAndSet(current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Candidates from the availability index, or from the rooms table when
+     * the index could not be loaded; the booking transaction re-checks them either way.
+     */
+    private static final class IndexAvailability implements Availability {
+        private final DatabaseConnection dbConnection;
+        private final AvailabilityIndex index;
+
+        IndexAvailability(DatabaseConnection dbConnection, AvailabilityIndex index) {
+            this.dbConnection = dbConnection;
+            this.index = index;
+        }
+
+        @Override
+        public List<Integer> findFreeRooms(Date checkInDate, Date checkOutDate, int roomTypeId) {
+            if (index.isLoaded()) {
+                return index.findFreeRooms(checkInDate, checkOutDate, roomTypeId);
+            }
+
+            String sql = "SELECT room_id FROM rooms WHERE type_id = ? AND status = 'Available' ORDER BY room_id";
+            try {
+                return dbConnection.executeRead(conn -> {
+                    List<Integer> roomIds = new ArrayList<>();
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        pstmt.setInt(1, roomTypeId);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                roomIds.add(rs.getInt("room_id"));
+                            }
+                        }
+                    }
+                    return roomIds;
+                });
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error retrieving candidate rooms", e);
+                return new ArrayList<>();
+            }
+        }
+
+        @Override
+        public void recordReservation(int reservationId, int roomId, Date checkInDate, Date checkOutDate) {
+            index.recordReservation(reservationId, roomId, checkInDate, checkOutDate);
+        }
+    }
+}
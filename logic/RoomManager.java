@@ -1,8 +1,12 @@
 package logic;
 
 import database.DatabaseConnection;
+import database.RowMapper;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,6 +17,35 @@ import java.util.logging.Logger;
  */
 public class RoomManager {
     private static final Logger LOGGER = Logger.getLogger(RoomManager.class.getName());
+    private static final OperationMetrics GET_ALL_ROOMS =
+            MetricsRegistry.getInstance().operation("RoomManager.getAllRooms");
+    private static final OperationMetrics LOAD_ROOM_STORE =
+            MetricsRegistry.getInstance().operation("RoomManager.loadRoomStore");
+    private static final OperationMetrics GET_ROOMS_BY_STATUS =
+            MetricsRegistry.getInstance().operation("RoomManager.getRoomsByStatus");
+    private static final OperationMetrics GET_ROOM_BY_ID =
+            MetricsRegistry.getInstance().operation("RoomManager.getRoomById");
+    private static final OperationMetrics UPDATE_ROOM_STATUS =
+            MetricsRegistry.getInstance().operation("RoomManager.updateRoomStatus");
+    private static final OperationMetrics CREATE_HOUSEKEEPING_TASK =
+            MetricsRegistry.getInstance().operation("RoomManager.createHousekeepingTask");
+    private static final OperationMetrics GET_ROOM_TYPES =
+            MetricsRegistry.getInstance().operation("RoomManager.getRoomTypes");
+
+    // Every column a Room is read from, by label
+    private static final RowMapper.Columns<Room> ROOM_COLUMNS = RowMapper.columns(Room::new)
+            .column("room_id", "r.room_id", (room, rs, i) -> room.setRoomId(rs.getInt(i)))
+            .column("room_number", "r.room_number", (room, rs, i) -> room.setRoomNumber(rs.getString(i)))
+            .column("type_id", "r.type_id", (room, rs, i) -> room.setTypeId(rs.getInt(i)))
+            .column("type_name", "rt.name AS type_name", (room, rs, i) -> room.setTypeName(rs.getString(i)))
+            .column("floor", "r.floor", (room, rs, i) -> room.setFloor(rs.getInt(i)))
+            .column("status", "r.status", (room, rs, i) -> room.setStatus(rs.getString(i)))
+            .column("last_cleaned", "r.last_cleaned", (room, rs, i) -> room.setLastCleaned(rs.getTimestamp(i)))
+            .column("notes", "r.notes", (room, rs, i) -> room.setNotes(rs.getString(i)))
+            .column("base_price", "rt.base_price", (room, rs, i) -> room.setBasePrice(rs.getDouble(i)))
+            .column("capacity", "rt.capacity", (room, rs, i) -> room.setCapacity(rs.getInt(i)))
+            .column("amenities", "rt.amenities", (room, rs, i) -> room.setAmenities(rs.getString(i)));
+    private static final String ROOMS_FROM = " FROM rooms r JOIN room_types rt ON r.type_id = rt.type_id ";
     private final DatabaseConnection dbConnection;
 
     /**
@@ -28,51 +61,68 @@ public class RoomManager {
      * @return List of all rooms
      */
     public List<Room> getAllRooms() {
-        List<Room> rooms = new ArrayList<>();
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            conn = dbConnection.getConnection();
-
-            String sql = "SELECT r.room_id, r.room_number, r.type_id, rt.name as type_name, " +
-                    "r.floor, r.status, r.last_cleaned, r.notes, rt.base_price, rt.capacity, rt.amenities " +
-                    "FROM rooms r " +
-                    "JOIN room_types rt ON r.type_id = rt.type_id " +
-                    "ORDER BY r.room_number";
+        return getAllRooms(ROOM_COLUMNS.all());
+    }
 
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
+    /**
+     * Gets all rooms, reading only some of their columns, e.g. for a list
+     * that never shows notes or amenities. The other fields keep their defaults.
+     *
+     * @param columns Labels of the columns to read, e.g. "room_id", "status"
+     * @return List of all rooms
+     */
+    public List<Room> getAllRooms(String... columns) {
+        return getAllRooms(ROOM_COLUMNS.select(columns));
+    }
 
-            while (rs.next()) {
-                Room room = new Room();
-                room.setRoomId(rs.getInt("room_id"));
-                room.setRoomNumber(rs.getString("room_number"));
-                room.setTypeId(rs.getInt("type_id"));
-                room.setTypeName(rs.getString("type_name"));
-                room.setFloor(rs.getInt("floor"));
-                room.setStatus(rs.getString("status"));
-                room.setLastCleaned(rs.getTimestamp("last_cleaned"));
-                room.setNotes(rs.getString("notes"));
-                room.setBasePrice(rs.getDouble("base_price"));
-                room.setCapacity(rs.getInt("capacity"));
-                room.setAmenities(rs.getString("amenities"));
+    private List<Room> getAllRooms(RowMapper<Room> mapper) {
+        String sql = "SELECT " + mapper.selectList() + ROOMS_FROM + "ORDER BY r.room_number";
 
-                rooms.add(room);
-            }
+        long start = System.nanoTime();
+        try {
+            return GET_ALL_ROOMS.recordRows(start, dbConnection.executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    return mapper.mapAll(rs);
+                }
+            }));
         } catch (SQLException e) {
+            GET_ALL_ROOMS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving rooms", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new ArrayList<>();
         }
+    }
+
+    /**
+     * Loads every room into a compact RoomStore, for keeping all of them in
+     * memory; no Room bean is kept per row.
+     *
+     * @return The rooms, ordered by room number, or null on error
+     */
+    public RoomStore loadRoomStore() {
+        RowMapper<Room> mapper = ROOM_COLUMNS.all();
+        String sql = "SELECT " + mapper.selectList() + ROOMS_FROM + "ORDER BY r.room_number";
 
-        return rooms;
+        long start = System.nanoTime();
+        try {
+            RoomStore store = dbConnection.executeRead(conn -> {
+                RoomStore rooms = new RoomStore();
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        rooms.add(mapper.map(rs));
+                    }
+                }
+                rooms.trimToSize();
+                return rooms;
+            });
+            LOAD_ROOM_STORE.record(start, store.size());
+            return store;
+        } catch (SQLException e) {
+            LOAD_ROOM_STORE.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error loading room store", e);
+            return null;
+        }
     }
 
     /**
@@ -82,54 +132,27 @@ public class RoomManager {
      * @return List of rooms with the specified status
      */
     public List<Room> getRoomsByStatus(String status) {
-        List<Room> rooms = new ArrayList<>();
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+        RowMapper<Room> mapper = ROOM_COLUMNS.all();
+        String sql = "SELECT " + mapper.selectList() + ROOMS_FROM +
+                "WHERE r.status = ? " +
+                "ORDER BY r.room_number";
 
+        long start = System.nanoTime();
         try {
-            conn = dbConnection.getConnection();
-
-            String sql = "SELECT r.room_id, r.room_number, r.type_id, rt.name as type_name, " +
-                    "r.floor, r.status, r.last_cleaned, r.notes, rt.base_price, rt.capacity, rt.amenities " +
-                    "FROM rooms r " +
-                    "JOIN room_types rt ON r.type_id = rt.type_id " +
-                    "WHERE r.status = ? " +
-                    "ORDER BY r.room_number";
-
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, status);
-
-            rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Room room = new Room();
-                room.setRoomId(rs.getInt("room_id"));
-                room.setRoomNumber(rs.getString("room_number"));
-                room.setTypeId(rs.getInt("type_id"));
-                room.setTypeName(rs.getString("type_name"));
-                room.setFloor(rs.getInt("floor"));
-                room.setStatus(rs.getString("status"));
-                room.setLastCleaned(rs.getTimestamp("last_cleaned"));
-                room.setNotes(rs.getString("notes"));
-                room.setBasePrice(rs.getDouble("base_price"));
-                room.setCapacity(rs.getInt("capacity"));
-                room.setAmenities(rs.getString("amenities"));
-
-                rooms.add(room);
-            }
+            return GET_ROOMS_BY_STATUS.recordRows(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, status);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return mapper.mapAll(rs);
+                    }
+                }
+            }));
         } catch (SQLException e) {
+            GET_ROOMS_BY_STATUS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving rooms by status", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new ArrayList<>();
         }
-
-        return rooms;
     }
 
     /**
@@ -139,51 +162,25 @@ public class RoomManager {
      * @return The room object, or null if not found
      */
     public Room getRoomById(int roomId) {
-        Room room = null;
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+        RowMapper<Room> mapper = ROOM_COLUMNS.all();
+        String sql = "SELECT " + mapper.selectList() + ROOMS_FROM + "WHERE r.room_id = ?";
 
+        long start = System.nanoTime();
         try {
-            conn = dbConnection.getConnection();
-
-            String sql = "SELECT r.room_id, r.room_number, r.type_id, rt.name as type_name, " +
-                    "r.floor, r.status, r.last_cleaned, r.notes, rt.base_price, rt.capacity, rt.amenities " +
-                    "FROM rooms r " +
-                    "JOIN room_types rt ON r.type_id = rt.type_id " +
-                    "WHERE r.room_id = ?";
-
-            pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, roomId);
-
-            rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                room = new Room();
-                room.setRoomId(rs.getInt("room_id"));
-                room.setRoomNumber(rs.getString("room_number"));
-                room.setTypeId(rs.getInt("type_id"));
-                room.setTypeName(rs.getString("type_name"));
-                room.setFloor(rs.getInt("floor"));
-                room.setStatus(rs.getString("status"));
-                room.setLastCleaned(rs.getTimestamp("last_cleaned"));
-                room.setNotes(rs.getString("notes"));
-                room.setBasePrice(rs.getDouble("base_price"));
-                room.setCapacity(rs.getInt("capacity"));
-                room.setAmenities(rs.getString("amenities"));
-            }
+            return GET_ROOM_BY_ID.recordRow(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, roomId);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return mapper.mapFirst(rs);
+                    }
+                }
+            }));
         } catch (SQLException e) {
+            GET_ROOM_BY_ID.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving room by ID", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return null;
         }
-
-        return room;
     }
 
     /**
@@ -194,32 +191,26 @@ public class RoomManager {
      * @return True if update was successful, false otherwise
      */
     public boolean updateRoomStatus(int roomId, String status) {
-        Connection conn = null;
-        CallableStatement callStmt = null;
+        long start = System.nanoTime();
         boolean success = false;
 
-        try {
-            conn = dbConnection.getConnection();
-            callStmt = conn.prepareCall("{CALL sp_update_room_status(?, ?)}");
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement callStmt = conn.prepareCall("{CALL sp_update_room_status(?, ?)}")) {
 
             callStmt.setInt(1, roomId);
             callStmt.setString(2, status);
 
             callStmt.execute();
             success = true;
+            AvailabilityIndex.getInstance().setRoomStatus(roomId, status);
+            ChangeBus.getInstance().publish(ChangeBus.ROOMS, roomId);
 
             LOGGER.info("Room status updated for ID: " + roomId);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating room status", e);
-        } finally {
-            try {
-                if (callStmt != null) callStmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
 
-        return success;
+        return UPDATE_ROOM_STATUS.record(start, success);
     }
 
     /**
@@ -236,18 +227,14 @@ public class RoomManager {
     public boolean createHousekeepingTask(int roomId, String taskType,
                                           java.sql.Timestamp scheduledDate,
                                           Integer assignedTo, String notes, int createdBy) {
-        Connection conn = null;
-        PreparedStatement pstmt = null;
+        long start = System.nanoTime();
         boolean success = false;
+        String sql = "INSERT INTO housekeeping_tasks " +
+                "(room_id, task_type, status, assigned_to, scheduled_date, notes, created_by) " +
+                "VALUES (?, ?, 'Pending', ?, ?, ?, ?)";
 
-        try {
-            conn = dbConnection.getConnection();
-
-            String sql = "INSERT INTO housekeeping_tasks " +
-                    "(room_id, task_type, status, assigned_to, scheduled_date, notes, created_by) " +
-                    "VALUES (?, ?, 'Pending', ?, ?, ?, ?)";
-
-            pstmt = conn.prepareStatement(sql);
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, roomId);
             pstmt.setString(2, taskType);
 
@@ -267,95 +254,20 @@ public class RoomManager {
             LOGGER.info("Housekeeping task created for room ID: " + roomId);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating housekeeping task", e);
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
 
-        return success;
+        return CREATE_HOUSEKEEPING_TASK.record(start, success);
     }
 
     /**
-     * Gets room types with their details
+     * Gets room types with their details, cheapest first, from the reference data cache
      *
      * @return List of room types
      */
     public List<RoomType> getRoomTypes() {
-        List<RoomType> roomTypes = new ArrayList<>();
-        Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            conn = dbConnection.getConnection();
-            stmt = conn.createStatement();
-
-            String sql = "SELECT type_id, name, description, base_price, capacity, amenities " +
-                    "FROM room_types ORDER BY base_price";
-
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                RoomType roomType = new RoomType();
-                roomType.setId(rs.getInt("type_id"));
-                roomType.setName(rs.getString("name"));
-                roomType.setDescription(rs.getString("description"));
-                roomType.setBasePrice(rs.getDouble("base_price"));
-                roomType.setCapacity(rs.getInt("capacity"));
-                roomType.setAmenities(rs.getString("amenities"));
-
-                roomTypes.add(roomType);
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving room types", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
-        }
-
-        return roomTypes;
-    }
-
-    /**
-     * Inner class to represent a Room Type
-     */
-    public static class RoomType {
-        private int id;
-        private String name;
-        private String description;
-        private double basePrice;
-        private int capacity;
-        private String amenities;
-
-        // Getters and Setters
-        public int getId() { return id; }
-        public void setId(int id) { this.id = id; }
-
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-
-        public String getDescription() { return description; }
-        public void setDescription(String description) { this.description = description; }
-
-        public double getBasePrice() { return basePrice; }
-        public void setBasePrice(double basePrice) { this.basePrice = basePrice; }
-
-        public int getCapacity() { return capacity; }
-        public void setCapacity(int capacity) { this.capacity = capacity; }
-
-        public String getAmenities() { return amenities; }
-        public void setAmenities(String amenities) { this.amenities = amenities; }
-
-        @Override
-        public String toString() {
-            return name + " ($" + basePrice + " per night)";
-        }
+        long start = System.nanoTime();
+        List<RoomType> roomTypes = new ArrayList<>(ReferenceDataCache.getInstance().getRoomTypes());
+        roomTypes.sort(Comparator.comparingDouble(RoomType::getBasePrice));
+        return GET_ROOM_TYPES.recordRows(start, roomTypes);
     }
 }
\ No newline at end of file
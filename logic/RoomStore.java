@@ -0,0 +1,307 @@
+package logic;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A compact, column-per-field store of rooms, the room counterpart of
+ * ReservationStore.
+ *
+ * The per-room fields are primitive arrays, with the status as a byte code
+ * for the rooms.status ENUM and last_cleaned as epoch milliseconds. The
+ * room type's name, base price (in cents), capacity and amenities are held
+ * once per type rather than once per room, with names and amenity lists in
+ * dictionaries.
+ *
+ * Rows are read through read-only Room views, as in ReservationStore. A
+ * store is filled by one thread and is read-only once shared.
+ */
+public class RoomStore {
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Members of the rooms.status ENUM, so they take codes 0-3
+    private final StringDictionary statuses =
+            new StringDictionary("Available", "Occupied", "Maintenance", "Cleaning");
+    private final StringDictionary typeNames = new StringDictionary();
+    private final StringDictionary amenities = new StringDictionary();
+
+    // Room type details, once per type
+    private final Map<Integer, Integer> typeIndexes = new HashMap<>();
+    private int[] typeNameCodes = new int[8];
+    private long[] typeBasePriceCents = new long[8];
+    private short[] typeCapacities = new short[8];
+    private int[] typeAmenityCodes = new int[8];
+    private int typeCount;
+
+    private int size;
+    private int[] roomIds;
+    private String[] roomNumbers;
+    private int[] typeIds;
+    private short[] types;
+    private short[] floors;
+    private byte[] statusCodes;
+    private long[] lastCleaned;
+    private String[] notes;
+
+    public RoomStore() {
+        this(64);
+    }
+
+    /**
+     * @param capacity The number of rooms expected
+     */
+    public RoomStore(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Copy a room into the store. The first room of each type sets the
+     * type's name, price, capacity and amenities.
+     *
+     * @param room The room, e.g. one from RoomManager.getAllRooms
+     * @return The row it was stored at
+     */
+    public int add(Room room) {
+        if (size == roomIds.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+        int row = size++;
+        roomIds[row] = room.getRoomId();
+        roomNumbers[row] = room.getRoomNumber();
+        typeIds[row] = room.getTypeId();
+        types[row] = (short) typeIndex(room);
+        floors[row] = (short) room.getFloor();
+        int statusCode = statuses.code(room.getStatus());
+        if (statusCode > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct statuses");
+        }
+        statusCodes[row] = (byte) statusCode;
+        lastCleaned[row] = room.getLastCleaned() == null ? NO_TIME : room.getLastCleaned().getTime();
+        notes[row] = room.getNotes();
+        return row;
+    }
+
+    /**
+     * Release the spare capacity left after loading.
+     */
+    public void trimToSize() {
+        if (size < roomIds.length) {
+            allocate(size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row A row from 0 to size() - 1
+     * @return A new view of the row
+     */
+    public Room get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new View(row);
+    }
+
+    /**
+     * Pass every room to a consumer, in row order. The same view is moved
+     * from row to row, so the consumer must copy anything it keeps.
+     *
+     * @param consumer Receives each room
+     */
+    public void forEach(Consumer<Room> consumer) {
+        View view = new View(0);
+        for (int row = 0; row < size; row++) {
+            view.row = row;
+            consumer.accept(view);
+        }
+    }
+
+    private void allocate(int capacity) {
+        roomIds = roomIds == null ? new int[capacity] : Arrays.copyOf(roomIds, capacity);
+        roomNumbers = roomNumbers == null ? new String[capacity] : Arrays.copyOf(roomNumbers, capacity);
+        typeIds = typeIds == null ? new int[capacity] : Arrays.copyOf(typeIds, capacity);
+        types = types == null ? new short[capacity] : Arrays.copyOf(types, capacity);
+        floors = floors == null ? new short[capacity] : Arrays.copyOf(floors, capacity);
+        statusCodes = statusCodes == null ? new byte[capacity] : Arrays.copyOf(statusCodes, capacity);
+        lastCleaned = lastCleaned == null ? new long[capacity] : Arrays.copyOf(lastCleaned, capacity);
+        notes = notes == null ? new String[capacity] : Arrays.copyOf(notes, capacity);
+    }
+
+    /**
+     * @return The index of the room's type details, storing them if the type is new
+     */
+    private int typeIndex(Room room) {
+        Integer index = typeIndexes.get(room.getTypeId());
+        if (index != null) {
+            return index;
+        }
+        if (typeCount == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many room types");
+        }
+        if (typeCount == typeNameCodes.length) {
+            int capacity = typeCount * 2;
+            typeNameCodes = Arrays.copyOf(typeNameCodes, capacity);
+            typeBasePriceCents = Arrays.copyOf(typeBasePriceCents, capacity);
+            typeCapacities = Arrays.copyOf(typeCapacities, capacity);
+            typeAmenityCodes = Arrays.copyOf(typeAmenityCodes, capacity);
+        }
+        int newIndex = typeCount++;
+        typeNameCodes[newIndex] = typeNames.code(room.getTypeName());
+        typeBasePriceCents[newIndex] = Math.round(room.getBasePrice() * 100);
+        typeCapacities[newIndex] = (short) room.getCapacity();
+        typeAmenityCodes[newIndex] = amenities.code(room.getAmenities());
+        typeIndexes.put(room.getTypeId(), newIndex);
+        return newIndex;
+    }
+
+    /**
+     * A Room that reads one row of the store.
+     */
+    private final class View extends Room {
+        int row;
+
+        View(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int getRoomId() {
+            return roomIds[row];
+        }
+
+        @Override
+        public String getRoomNumber() {
+            return roomNumbers[row];
+        }
+
+        @Override
+        public int getTypeId() {
+            return typeIds[row];
+        }
+
+        @Override
+        public String getTypeName() {
+            return typeNames.value(typeNameCodes[types[row]]);
+        }
+
+        @Override
+        public int getFloor() {
+            return floors[row];
+        }
+
+        @Override
+        public String getStatus() {
+            return statuses.value(statusCodes[row]);
+        }
+
+        @Override
+        public java.util.Date getLastCleaned() {
+            return lastCleaned[row] == NO_TIME ? null : new Timestamp(lastCleaned[row]);
+        }
+
+        @Override
+        public String getNotes() {
+            return notes[row];
+        }
+
+        @Override
+        public double getBasePrice() {
+            return typeBasePriceCents[types[row]] / 100.0;
+        }
+
+        @Override
+        public int getCapacity() {
+            return typeCapacities[types[row]];
+        }
+
+        @Override
+        public String getAmenities() {
+            return amenities.value(typeAmenityCodes[types[row]]);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return "Available".equals(getStatus());
+        }
+
+        @Override
+        public boolean needsCleaning() {
+            return "Cleaning".equals(getStatus());
+        }
+
+        @Override
+        public String getFormattedRoomNumber() {
+            return "Room " + getRoomNumber() + " (Floor " + getFloor() + ")";
+        }
+
+        @Override
+        public String toString() {
+            return getFormattedRoomNumber() + " - " + getTypeName();
+        }
+
+        @Override
+        public void setRoomId(int roomId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setRoomNumber(String roomNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setTypeId(int typeId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setTypeName(String typeName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setFloor(int floor) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStatus(String status) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setLastCleaned(java.util.Date lastCleaned) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setNotes(String notes) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setBasePrice(double basePrice) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCapacity(int capacity) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAmenities(String amenities) {
+            throw readOnly();
+        }
+
+        private UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Rooms in a RoomStore are read-only");
+        }
+    }
+}
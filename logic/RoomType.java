@@ -0,0 +1,63 @@
+package logic;
+
+/**
+ * Represents a type of room, e.g. Standard or Suite, with its nightly rate.
+ * Instances are shared through ReferenceDataCache and never change; a
+ * changed room type arrives as a new instance on the next refresh.
+ */
+public final class RoomType {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final double basePrice;
+    private final int capacity;
+    private final String amenities;
+
+    /**
+     * @param id Room type ID
+     * @param name Room type name
+     * @param description Description shown to staff
+     * @param basePrice Nightly rate
+     * @param capacity Most guests per room
+     * @param amenities Amenities included
+     */
+    public RoomType(int id, String name, String description, double basePrice, int capacity, String amenities) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.basePrice = basePrice;
+        this.capacity = capacity;
+        this.amenities = amenities;
+    }
+
+    // Getters
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public String getAmenities() {
+        return amenities;
+    }
+
+    @Override
+    public String toString() {
+        return name + " ($" + basePrice + ")";
+    }
+}
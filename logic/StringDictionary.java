@@ -0,0 +1,55 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each distinct string a small integer code, so that a store holds
+ * a repeated value such as a status or room type name once, however many
+ * records share it. Codes are handed out in order from 0; null is -1.
+ * Not thread-safe; the stores only add to it while loading.
+ */
+final class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * @param seed Values to give the first codes, e.g. the members of a MySQL ENUM
+     */
+    StringDictionary(String... seed) {
+        for (String value : seed) {
+            code(value);
+        }
+    }
+
+    /**
+     * @param value A string, or null
+     * @return Its code, adding it if it is new; -1 for null
+     */
+    int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * @param code A code from code(), or -1
+     * @return The string, or null for -1
+     */
+    String value(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
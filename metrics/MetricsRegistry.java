@@ -0,0 +1,161 @@
+package metrics;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process registry of per-operation metrics.
+ * Instrumented classes look their operations up once, into static fields,
+ * and record every call against them. The registry can dump a report
+ * periodically to the log or to a file.
+ */
+public final class MetricsRegistry {
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    private static MetricsRegistry instance;
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Get the singleton instance of the registry.
+     *
+     * @return The MetricsRegistry instance
+     */
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the metrics for an operation, creating them on first use.
+     *
+     * @param name Operation name, by convention ClassName.methodName
+     * @return The metrics for the operation
+     */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    /**
+     * @return All operations that have been called at least once, by name
+     */
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> called = new ArrayList<>();
+        for (OperationMetrics metrics : operations.values()) {
+            if (metrics.getCalls() > 0) {
+                called.add(metrics);
+            }
+        }
+        called.sort(Comparator.comparing(OperationMetrics::getName));
+        return called;
+    }
+
+    /**
+     * Clear the counters and histograms of every operation.
+     */
+    public void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Format all called operations as a plain-text table.
+     *
+     * @return The report
+     */
+    public String formatReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%-52s %9s %7s %10s %10s %10s %10s %10s %9s%n",
+                "operation", "calls", "errors", "mean", "p50", "p99", "p99.9", "max", "rows/call"));
+        for (OperationMetrics metrics : getOperations()) {
+            LatencyHistogram latency = metrics.getLatency();
+            report.append(String.format(Locale.ROOT, "%-52s %9d %7d %10s %10s %10s %10s %10s %9.1f%n",
+                    metrics.getName(), metrics.getCalls(), metrics.getErrors(),
+                    formatNanos((long) latency.getMeanNanos()),
+                    formatNanos(latency.getValueAtPercentile(50)),
+                    formatNanos(latency.getValueAtPercentile(99)),
+                    formatNanos(latency.getValueAtPercentile(99.9)),
+                    formatNanos(latency.getMaxNanos()),
+                    (double) metrics.getRows() / metrics.getCalls()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Dump the report every interval, appended to a file or, without one, logged at INFO.
+     * Replaces any dump started earlier.
+     *
+     * @param intervalSeconds Seconds between dumps; 0 or less stops dumping
+     * @param file            File to append to, or null to log
+     */
+    public synchronized void startPeriodicDump(long intervalSeconds, String file) {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+        if (intervalSeconds <= 0) {
+            return;
+        }
+
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void dump(String file) {
+        if (getOperations().isEmpty()) {
+            return;
+        }
+        if (file == null || file.isEmpty()) {
+            LOGGER.info("Operation metrics:\n" + formatReport());
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println("# " + new java.util.Date());
+            out.print(formatReport());
+            out.println();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error writing metrics to " + file, e);
+        }
+    }
+
+    /**
+     * Format a duration with a unit that keeps it readable.
+     *
+     * @param nanos Duration in nanoseconds
+     * @return e.g. "850 ns", "12.4 us", "3.20 ms" or "1.50 s"
+     */
+    public static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+        }
+        if (nanos >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+        }
+        if (nanos >= 1_000L) {
+            return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+        }
+        return nanos + " ns";
+    }
+}
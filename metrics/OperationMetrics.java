@@ -0,0 +1,126 @@
+package metrics;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call, error and row counters plus a latency histogram for one operation.
+ * Callers take System.nanoTime() before the work and pass it to one of the
+ * record methods afterwards; nothing is allocated on that path, so the
+ * metrics can stay on in production.
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * try {
+ *     return METRICS.recordRows(start, dbConnection.executeRead(...));
+ * } catch (SQLException e) {
+ *     METRICS.recordError(start);
+ *     ...
+ * }
+ * </pre>
+ */
+public final class OperationMetrics {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a successful call.
+     *
+     * @param startNanos System.nanoTime() taken when the call started
+     * @param rowCount   Rows returned or affected
+     */
+    public void record(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        rows.add(rowCount);
+    }
+
+    /**
+     * Record a failed call.
+     *
+     * @param startNanos System.nanoTime() taken when the call started
+     */
+    public void recordError(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        calls.increment();
+        errors.increment();
+    }
+
+    /**
+     * Record a call that reports success as a boolean; false counts as an error.
+     *
+     * @return The success flag, so it can be returned directly
+     */
+    public boolean record(long startNanos, boolean success) {
+        if (success) {
+            record(startNanos, 1);
+        } else {
+            recordError(startNanos);
+        }
+        return success;
+    }
+
+    /**
+     * Record a successful call that returned a collection of rows.
+     *
+     * @return The rows, so they can be returned directly
+     */
+    public <T extends Collection<?>> T recordRows(long startNanos, T result) {
+        record(startNanos, result == null ? 0 : result.size());
+        return result;
+    }
+
+    /**
+     * Record a successful call that returned table data.
+     *
+     * @return The rows, so they can be returned directly
+     */
+    public Object[][] recordTable(long startNanos, Object[][] result) {
+        record(startNanos, result == null ? 0 : result.length);
+        return result;
+    }
+
+    /**
+     * Record a successful call that returned a single row, or null if there was none.
+     *
+     * @return The row, so it can be returned directly
+     */
+    public <T> T recordRow(long startNanos, T result) {
+        record(startNanos, result == null ? 0 : 1);
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,138 @@
+package ui;
+
+import logic.AvailabilityMatrix;
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+
+/**
+ * Calendar grid of free rooms per room type per night.
+ */
+public class AvailabilityCalendarPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private ReservationUIConnector reservationConnector;
+    private JTable calendarTable;
+    private DefaultTableModel calendarTableModel;
+    private JTextField startDateField;
+    private JComboBox<Integer> daysComboBox;
+    private JButton refreshButton;
+
+    public AvailabilityCalendarPanel() {
+        reservationConnector = new ReservationUIConnector();
+        initComponents();
+        loadData();
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Create control panel
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("Start Date (yyyy-mm-dd):"));
+
+        startDateField = new JTextField(new SimpleDateFormat("yyyy-MM-dd").format(Calendar.getInstance().getTime()), 10);
+        controlPanel.add(startDateField);
+
+        controlPanel.add(new JLabel("Days:"));
+        daysComboBox = new JComboBox<>(new Integer[] {30, 60, 90});
+        controlPanel.add(daysComboBox);
+
+        refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                loadData();
+            }
+        });
+        controlPanel.add(refreshButton);
+
+        add(controlPanel, BorderLayout.NORTH);
+
+        // Create table model and table; one row per room type, one column per night
+        calendarTableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        calendarTable = new JTable(calendarTableModel);
+        calendarTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        calendarTable.getTableHeader().setReorderingAllowed(false);
+        calendarTable.setDefaultRenderer(Object.class, new FreeRoomsRenderer());
+
+        JScrollPane scrollPane = new JScrollPane(calendarTable);
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    private void loadData() {
+        int days = (Integer) daysComboBox.getSelectedItem();
+        String startDate = startDateField.getText();
+
+        // A newer refresh supersedes one still loading
+        BackgroundTaskRunner.getInstance().submit(this, "Loading availability",
+                () -> reservationConnector.getAvailabilityMatrix(startDate, days),
+                this::showMatrix);
+    }
+
+    private void showMatrix(AvailabilityMatrix matrix) {
+        if (matrix == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Error loading availability. Check the start date format (yyyy-mm-dd).",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Build the whole grid, then hand it to the model in one call
+        SimpleDateFormat headerFormat = new SimpleDateFormat("EEE MM-dd");
+        int days = matrix.getDays();
+        Object[] columns = new Object[days + 1];
+        columns[0] = "Room Type";
+        for (int d = 0; d < days; d++) {
+            columns[d + 1] = headerFormat.format(matrix.getDate(d));
+        }
+
+        Object[][] data = new Object[matrix.getRoomTypes().size()][days + 1];
+        for (int t = 0; t < data.length; t++) {
+            data[t][0] = matrix.getRoomTypes().get(t).getName();
+            for (int d = 0; d < days; d++) {
+                data[t][d + 1] = matrix.getFreeRooms(t, d);
+            }
+        }
+
+        calendarTableModel.setDataVector(data, columns);
+
+        calendarTable.getColumnModel().getColumn(0).setPreferredWidth(120);
+        for (int d = 1; d <= days; d++) {
+            calendarTable.getColumnModel().getColumn(d).setPreferredWidth(75);
+        }
+    }
+
+    /**
+     * Highlights nights with no free rooms left.
+     */
+    private static class FreeRoomsRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        private static final Color SOLD_OUT = new Color(255, 205, 205);
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            setHorizontalAlignment(column == 0 ? LEFT : CENTER);
+            if (!isSelected) {
+                boolean soldOut = value instanceof Integer && (Integer) value == 0;
+                c.setBackground(soldOut ? SOLD_OUT : table.getBackground());
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ui;
+
+import javax.swing.*;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs database work off the Event Dispatch Thread.
+ * Tasks are SwingWorkers executed on a bounded executor (virtual threads
+ * when the JVM has them), so their results and published batches come back
+ * on the EDT. A task submitted under a key supersedes the unfinished task
+ * with the same key, e.g. a table refresh replaces the one still loading.
+ * Busy listeners are told how many tasks are running, for status bars.
+ */
+public final class BackgroundTaskRunner {
+    private static final Logger LOGGER = Logger.getLogger(BackgroundTaskRunner.class.getName());
+    private static BackgroundTaskRunner instance;
+
+    // Kept below the connection pool size so UI work never starves other callers
+    private static final int MAX_CONCURRENT_TASKS = 8;
+
+    private final Executor executor;
+    private final Map<Object, SwingWorker<?, ?>> keyedTasks = new HashMap<>();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final List<BusyListener> busyListeners = new CopyOnWriteArrayList<>();
+    private volatile String lastDescription = "";
+
+    /**
+     * Receives busy state changes, always on the EDT.
+     */
+    public interface BusyListener {
+        /**
+         * @param runningTasks Number of tasks not yet finished
+         * @param description  Description of the most recently started task
+         */
+        void busyChanged(int runningTasks, String description);
+    }
+
+    private BackgroundTaskRunner() {
+        executor = createExecutor(MAX_CONCURRENT_TASKS);
+    }
+
+    /**
+     * Get the singleton instance of the task runner.
+     *
+     * @return The BackgroundTaskRunner instance
+     */
+    public static synchronized BackgroundTaskRunner getInstance() {
+        if (instance == null) {
+            instance = new BackgroundTaskRunner();
+        }
+        return instance;
+    }
+
+    public void addBusyListener(BusyListener listener) {
+        busyListeners.add(listener);
+    }
+
+    public void removeBusyListener(BusyListener listener) {
+        busyListeners.remove(listener);
+    }
+
+    /**
+     * Run work in the background and hand its result to the EDT.
+     * If the work throws, the error is logged and onSuccess is not called.
+     *
+     * @param key         Supersedes an unfinished task with the same key; null for none
+     * @param description Shown by busy indicators while the task runs
+     * @param work        The background work
+     * @param onSuccess   Receives the result on the EDT; not called if superseded
+     * @param <T>         The result type
+     * @return The worker running the task
+     */
+    public <T> SwingWorker<T, Void> submit(Object key, String description,
+                                           Callable<T> work, Consumer<T> onSuccess) {
+        return submit(key, description, work, onSuccess, error -> { });
+    }
+
+    /**
+     * Run work in the background and hand its result, or the error it threw, to the EDT.
+     * The error is logged either way.
+     *
+     * @param key         Supersedes an unfinished task with the same key; null for none
+     * @param description Shown by busy indicators while the task runs
+     * @param work        The background work
+     * @param onSuccess   Receives the result on the EDT; not called if superseded
+     * @param onFailure   Receives the error on the EDT if the work throws; not called if superseded
+     * @param <T>         The result type
+     * @return The worker running the task
+     */
+    public <T> SwingWorker<T, Void> submit(Object key, String description, Callable<T> work,
+                                           Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return work.call();
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    onSuccess.accept(get());
+                } catch (InterruptedException | CancellationException e) {
+                    // Superseded; nothing to show
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Background task failed: " + description, e.getCause());
+                    onFailure.accept(e.getCause());
+                }
+            }
+        };
+        submit(key, description, worker);
+        return worker;
+    }
+
+    /**
+     * Run a SwingWorker on the shared executor.
+     * Workers that publish intermediate results get them delivered to
+     * process() on the EDT in batches, as SwingWorker coalesces them.
+     *
+     * @param key         Supersedes an unfinished task with the same key; null for none
+     * @param description Shown by busy indicators while the task runs
+     * @param worker      The worker to run
+     */
+    public void submit(Object key, String description, SwingWorker<?, ?> worker) {
+        if (key != null) {
+            SwingWorker<?, ?> previous;
+            synchronized (keyedTasks) {
+                previous = keyedTasks.put(key, worker);
+            }
+            if (previous != null) {
+                // Not interrupted: interrupting a thread inside a JDBC call can break the connection
+                previous.cancel(false);
+            }
+        }
+
+        worker.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                if (key != null) {
+                    synchronized (keyedTasks) {
+                        keyedTasks.remove(key, worker);
+                    }
+                }
+                fireBusyChanged(runningTasks.decrementAndGet());
+            }
+        });
+
+        lastDescription = description;
+        fireBusyChanged(runningTasks.incrementAndGet());
+        executor.execute(worker);
+    }
+
+    /**
+     * @return Number of tasks submitted and not yet finished
+     */
+    public int getRunningTasks() {
+        return runningTasks.get();
+    }
+
+    private void fireBusyChanged(int running) {
+        String description = lastDescription;
+        Runnable notify = () -> {
+            for (BusyListener listener : busyListeners) {
+                listener.busyChanged(running, description);
+            }
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            notify.run();
+        } else {
+            SwingUtilities.invokeLater(notify);
+        }
+    }
+
+    /**
+     * Use virtual threads when the JVM provides them (Java 21+), limited by a
+     * semaphore; otherwise a fixed pool of daemon platform threads.
+     */
+    private static Executor createExecutor(int maxConcurrent) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService virtualThreads = (ExecutorService) factory.invoke(null);
+            Semaphore permits = new Semaphore(maxConcurrent);
+            LOGGER.info("Background tasks run on virtual threads");
+            return task -> virtualThreads.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = new Thread(task, "ui-background-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
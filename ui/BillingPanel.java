@@ -1,7 +1,8 @@
 package ui;
 
+import logic.ChangeBus;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,7 +10,7 @@ import java.awt.event.ActionListener;
 public class BillingPanel extends JPanel {
     private BillingUIConnector billingConnector;
     private JTable billingTable;
-    private DefaultTableModel billingTableModel;
+    private LazyTableModel billingTableModel;
     private JTextField reservationIdField;
     private JButton createBillButton;
     private JComboBox<String> paymentStatusComboBox;
@@ -21,6 +22,8 @@ public class BillingPanel extends JPanel {
         billingConnector = new BillingUIConnector();
         initComponents();
         loadData();
+        // Changed bills are updated in place, so actions do not reload the table
+        new TableSync(ChangeBus.BILLING, billingTableModel, 0, billingConnector::getBillingTableRows, this::loadData);
     }
 
     private void initComponents() {
@@ -28,14 +31,12 @@ public class BillingPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Create table model and table
-        billingTableModel = new DefaultTableModel();
-        for (String columnName : billingConnector.getBillingTableColumns()) {
-            billingTableModel.addColumn(columnName);
-        }
+        billingTableModel = new LazyTableModel(billingConnector.getBillingTableColumns(),
+                billingConnector.getBillingRowSource());
 
+        // No row sorter: sorting would read every row. Bills are listed newest first.
         billingTable = new JTable(billingTableModel);
         billingTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        billingTable.setAutoCreateRowSorter(true);
 
         JScrollPane scrollPane = new JScrollPane(billingTable);
         add(scrollPane, BorderLayout.CENTER);
@@ -94,33 +95,28 @@ public class BillingPanel extends JPanel {
     }
 
     private void loadData() {
-        // Clear table
-        billingTableModel.setRowCount(0);
-
-        // Get billing data
-        Object[][] data = billingConnector.getBillingTableData();
-
-        // Add data to table model
-        for (Object[] row : data) {
-            billingTableModel.addRow(row);
-        }
+        // Re-count the bills; rows are fetched as the table scrolls to them
+        billingTableModel.refresh();
     }
 
     private void createBill() {
         try {
             int reservationId = Integer.parseInt(reservationIdField.getText());
 
-            if (billingConnector.createBill(reservationId)) {
-                JOptionPane.showMessageDialog(this,
-                        "Bill created successfully!",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadData();
-                reservationIdField.setText("");
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error creating bill. The reservation may not exist or already has a bill.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            BackgroundTaskRunner.getInstance().submit(null, "Creating bill",
+                    () -> billingConnector.createBill(reservationId),
+                    success -> {
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Bill created successfully!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                            reservationIdField.setText("");
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error creating bill. The reservation may not exist or already has a bill.",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this,
                     "Please enter a valid reservation ID.",
@@ -131,21 +127,31 @@ public class BillingPanel extends JPanel {
     private void updatePayment() {
         int selectedRow = billingTable.getSelectedRow();
         if (selectedRow >= 0) {
-            selectedRow = billingTable.convertRowIndexToModel(selectedRow);
-            int billId = (int) billingTableModel.getValueAt(selectedRow, 0);
+            Object key = billingTableModel.getValueAt(selectedRow, 0);
+            if (key == null) {
+                // Its block is still being fetched
+                JOptionPane.showMessageDialog(this,
+                        "The selected bill is still loading. Please try again in a moment.",
+                        "Loading", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            int billId = (int) key;
             String status = (String) paymentStatusComboBox.getSelectedItem();
             String method = (String) paymentMethodComboBox.getSelectedItem();
 
-            if (billingConnector.updatePaymentStatus(billId, status, method)) {
-                JOptionPane.showMessageDialog(this,
-                        "Payment status updated successfully!",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadData();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error updating payment status.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            BackgroundTaskRunner.getInstance().submit(null, "Updating payment",
+                    () -> billingConnector.updatePaymentStatus(billId, status, method),
+                    success -> {
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Payment status updated successfully!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error updating payment status.",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         } else {
             JOptionPane.showMessageDialog(this,
                     "Please select a bill to update.",
@@ -1,18 +1,49 @@
 package ui;
 
 import database.DatabaseConnection;
+import database.RowMapper;
+import logic.ChangeBus;
+import logic.ReferenceDataCache;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import java.sql.*;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class BillingUIConnector {
     private static final Logger LOGGER = Logger.getLogger(BillingUIConnector.class.getName());
-    private final Connection connection;
+    private static final OperationMetrics COUNT_BILLS =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.countBills");
+    private static final OperationMetrics GET_BILLING_TABLE_DATA =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.getBillingTableData");
+    private static final OperationMetrics GET_BILLING_TABLE_ROWS =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.getBillingTableRows");
+    private static final OperationMetrics CREATE_BILL =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.createBill");
+    private static final OperationMetrics ADD_SERVICE_TO_BILL =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.addServiceToBill");
+    private static final OperationMetrics UPDATE_PAYMENT_STATUS =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.updatePaymentStatus");
+    private static final OperationMetrics GET_SERVICES =
+            MetricsRegistry.getInstance().operation("BillingUIConnector.getServices");
+    private static final RowMapper<Object[]> BILLING_TABLE_ROW = RowMapper.tableColumns()
+            .cell("bill_id", "b.bill_id", ResultSet::getInt)
+            .cell("reservation_id", "b.reservation_id", ResultSet::getInt)
+            .cell("guest_name", "CONCAT(g.first_name, ' ', g.last_name) AS guest_name", ResultSet::getString)
+            .cell("grand_total", "b.grand_total", ResultSet::getDouble)
+            .cell("payment_status", "b.payment_status", ResultSet::getString)
+            .cell("billing_date", "b.billing_date", ResultSet::getTimestamp)
+            .all();
+    private static final String BILLING_TABLE_SELECT = "SELECT " + BILLING_TABLE_ROW.selectList() + " " +
+            "FROM billing b " +
+            "JOIN reservations r ON b.reservation_id = r.reservation_id " +
+            "JOIN guests g ON r.guest_id = g.guest_id ";
+    private final DatabaseConnection dbConnection;
 
     public BillingUIConnector() {
-        connection = DatabaseConnection.getInstance().getConnection();
+        dbConnection = DatabaseConnection.getInstance();
     }
 
     public String[] getBillingTableColumns() {
@@ -21,144 +52,161 @@ public class BillingUIConnector {
         };
     }
 
-    public Object[][] getBillingTableData() {
-        List<Object[]> data = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
+    /**
+     * Billing history as a paged row source, newest bills first.
+     * Only the pages the table scrolls to are read from the database.
+     *
+     * @return The row source for the billing table
+     */
+    public RowSource getBillingRowSource() {
+        return new RowSource() {
+            @Override
+            public int count() {
+                return countBills();
+            }
 
-        try {
-            String sql = "SELECT b.bill_id, b.reservation_id, CONCAT(g.first_name, ' ', g.last_name) AS guest_name, " +
-                    "b.grand_total, b.payment_status, b.billing_date " +
-                    "FROM billing b " +
-                    "JOIN reservations r ON b.reservation_id = r.reservation_id " +
-                    "JOIN guests g ON r.guest_id = g.guest_id " +
-                    "ORDER BY b.billing_date DESC";
-
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("bill_id"),
-                        rs.getInt("reservation_id"),
-                        rs.getString("guest_name"),
-                        rs.getDouble("grand_total"),
-                        rs.getString("payment_status"),
-                        rs.getTimestamp("billing_date")
-                };
-                data.add(row);
+            @Override
+            public Object[][] fetch(int offset, int limit) {
+                return getBillingTableData(offset, limit);
             }
+        };
+    }
+
+    public int countBills() {
+        long start = System.nanoTime();
+        try {
+            return COUNT_BILLS.recordRow(start, dbConnection.executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM billing")) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }));
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving billing data", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            COUNT_BILLS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error counting bills", e);
+            return 0;
         }
+    }
+
+    public Object[][] getBillingTableData(int offset, int limit) {
+        // bill_id breaks ties so pages do not overlap when bills share a billing date
+        String sql = BILLING_TABLE_SELECT +
+                "ORDER BY b.billing_date DESC, b.bill_id DESC " +
+                "LIMIT ? OFFSET ?";
 
-        return data.toArray(new Object[0][0]);
+        long start = System.nanoTime();
+        try {
+            return GET_BILLING_TABLE_DATA.recordTable(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, limit);
+                    pstmt.setInt(2, offset);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return BILLING_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_BILLING_TABLE_DATA.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error retrieving billing data", e);
+            return new Object[0][0];
+        }
     }
 
-    public boolean createBill(int reservationId) {
-        CallableStatement cstmt = null;
+    /**
+     * Read the rows of a few bills, to update the billing table after they changed.
+     *
+     * @param billIds IDs of the bills
+     * @return Rows for the bills that still exist; null on error
+     */
+    public Object[][] getBillingTableRows(Collection<Integer> billIds) {
+        if (billIds.isEmpty()) {
+            return new Object[0][0];
+        }
+        String sql = BILLING_TABLE_SELECT + "WHERE b.bill_id IN (" + DatabaseConnection.placeholders(billIds.size()) + ")";
 
+        long start = System.nanoTime();
         try {
-            cstmt = connection.prepareCall("{CALL sp_create_bill(?, ?, ?)}");
+            return GET_BILLING_TABLE_ROWS.recordTable(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (int billId : billIds) {
+                        pstmt.setInt(index++, billId);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return BILLING_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_BILLING_TABLE_ROWS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error retrieving changed bills", e);
+            return null;
+        }
+    }
+
+    public boolean createBill(int reservationId) {
+        long start = System.nanoTime();
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall("{CALL sp_create_bill(?, ?, ?)}")) {
             cstmt.setInt(1, reservationId);
             cstmt.setInt(2, 1); // Default admin user
             cstmt.registerOutParameter(3, Types.INTEGER);
 
             cstmt.execute();
             int billId = cstmt.getInt(3);
+            if (billId > 0) {
+                ChangeBus.getInstance().publishInserted(ChangeBus.BILLING, billId);
+            }
 
-            return billId > 0;
+            return CREATE_BILL.record(start, billId > 0);
         } catch (SQLException e) {
+            CREATE_BILL.recordError(start);
             LOGGER.log(Level.SEVERE, "Error creating bill", e);
             return false;
-        } finally {
-            try {
-                if (cstmt != null) cstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
     }
 
     public boolean addServiceToBill(int billId, int serviceId, int quantity, String notes) {
-        CallableStatement cstmt = null;
-
-        try {
-            cstmt = connection.prepareCall("{CALL sp_add_service_to_bill(?, ?, ?, ?)}");
+        long start = System.nanoTime();
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall("{CALL sp_add_service_to_bill(?, ?, ?, ?)}")) {
             cstmt.setInt(1, billId);
             cstmt.setInt(2, serviceId);
             cstmt.setInt(3, quantity);
             cstmt.setString(4, notes);
 
             cstmt.execute();
-            return true;
+            ChangeBus.getInstance().publish(ChangeBus.BILLING, billId);
+            return ADD_SERVICE_TO_BILL.record(start, true);
         } catch (SQLException e) {
+            ADD_SERVICE_TO_BILL.recordError(start);
             LOGGER.log(Level.SEVERE, "Error adding service to bill", e);
             return false;
-        } finally {
-            try {
-                if (cstmt != null) cstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
     }
 
     public boolean updatePaymentStatus(int billId, String status, String paymentMethod) {
-        CallableStatement cstmt = null;
-
-        try {
-            cstmt = connection.prepareCall("{CALL sp_update_payment_status(?, ?, ?, ?)}");
+        long start = System.nanoTime();
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall("{CALL sp_update_payment_status(?, ?, ?, ?)}")) {
             cstmt.setInt(1, billId);
             cstmt.setString(2, status);
             cstmt.setString(3, paymentMethod);
             cstmt.setString(4, null); // notes
 
             cstmt.execute();
-            return true;
+            ChangeBus.getInstance().publish(ChangeBus.BILLING, billId);
+            return UPDATE_PAYMENT_STATUS.record(start, true);
         } catch (SQLException e) {
+            UPDATE_PAYMENT_STATUS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error updating payment status", e);
             return false;
-        } finally {
-            try {
-                if (cstmt != null) cstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
     }
 
     public List<String> getServices() {
-        List<String> services = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            String sql = "SELECT name FROM services ORDER BY name";
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                services.add(rs.getString("name"));
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving services", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
-        }
-
-        return services;
+        long start = System.nanoTime();
+        return GET_SERVICES.recordRows(start, ReferenceDataCache.getInstance().getServices());
     }
 }
@@ -0,0 +1,123 @@
+package ui;
+
+import database.DatabaseConnection;
+import logic.GuestCache;
+import logic.ReferenceDataCache;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Live view of the per-operation metrics: calls, errors, latency percentiles
+ * and rows per call. Refreshes itself every few seconds while it is visible.
+ */
+public class DiagnosticsPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int REFRESH_MILLIS = 2000;
+
+    private JTable metricsTable;
+    private DefaultTableModel metricsTableModel;
+    private JLabel statementCacheLabel;
+    private JButton refreshButton;
+    private JButton resetButton;
+    private JButton reloadReferenceDataButton;
+    private Timer refreshTimer;
+
+    public DiagnosticsPanel() {
+        initComponents();
+        loadData();
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Create table model and table
+        String[] columns = {"Operation", "Calls", "Errors", "Mean", "p50", "p99", "p99.9", "Max", "Rows/Call"};
+        metricsTableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        metricsTable = new JTable(metricsTableModel);
+        metricsTable.getColumnModel().getColumn(0).setPreferredWidth(260);
+
+        JScrollPane scrollPane = new JScrollPane(metricsTable);
+        add(scrollPane, BorderLayout.CENTER);
+
+        // Create control panel
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> loadData());
+        controlPanel.add(refreshButton);
+
+        resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            MetricsRegistry.getInstance().reset();
+            loadData();
+        });
+        controlPanel.add(resetButton);
+
+        // For after room types, services or categories were edited outside the application
+        reloadReferenceDataButton = new JButton("Reload Reference Data");
+        reloadReferenceDataButton.addActionListener(e -> {
+            reloadReferenceDataButton.setEnabled(false);
+            BackgroundTaskRunner.getInstance().submit(null, "Reloading reference data", () -> {
+                ReferenceDataCache.getInstance().refresh();
+                return null;
+            }, ignored -> reloadReferenceDataButton.setEnabled(true));
+        });
+        controlPanel.add(reloadReferenceDataButton);
+
+        statementCacheLabel = new JLabel();
+        controlPanel.add(statementCacheLabel);
+
+        add(controlPanel, BorderLayout.NORTH);
+
+        // Reading the counters is cheap, so the timer works on the EDT; it skips work while hidden
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+            if (isShowing()) {
+                loadData();
+            }
+        });
+        refreshTimer.start();
+    }
+
+    private void loadData() {
+        List<OperationMetrics> operations = MetricsRegistry.getInstance().getOperations();
+        metricsTableModel.setRowCount(0);
+
+        for (OperationMetrics metrics : operations) {
+            LatencyHistogram latency = metrics.getLatency();
+            // Read once: a reset between reads could leave it zero
+            long calls = metrics.getCalls();
+            metricsTableModel.addRow(new Object[] {
+                    metrics.getName(),
+                    calls,
+                    metrics.getErrors(),
+                    MetricsRegistry.formatNanos((long) latency.getMeanNanos()),
+                    MetricsRegistry.formatNanos(latency.getValueAtPercentile(50)),
+                    MetricsRegistry.formatNanos(latency.getValueAtPercentile(99)),
+                    MetricsRegistry.formatNanos(latency.getValueAtPercentile(99.9)),
+                    MetricsRegistry.formatNanos(latency.getMaxNanos()),
+                    calls > 0 ? String.format("%.1f", (double) metrics.getRows() / calls) : ""
+            });
+        }
+
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        GuestCache guestCache = GuestCache.getInstance();
+        statementCacheLabel.setText("Statement cache hits: " + dbConnection.getStatementCacheHits()
+                + ", misses: " + dbConnection.getStatementCacheMisses()
+                + "   Guest cache hits: " + guestCache.getHits() + ", misses: " + guestCache.getMisses()
+                + ", size: " + guestCache.size());
+    }
+}
@@ -1,20 +1,30 @@
 package ui;
 
+import logic.ChangeBus;
+import logic.ReferenceDataCache;
 import logic.Reservation;
-import logic.ReservationManager;
+import logic.ReservationImporter;
+import logic.RoomType;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.Date;
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 /**
  * Main GUI class for the Hotel Management System.
  */
 public class HotelManagementGUI extends JFrame {
+    private static final Logger LOGGER = Logger.getLogger(HotelManagementGUI.class.getName());
     private ReservationUIConnector reservationConnector;
 
     // UI Components
@@ -23,7 +33,9 @@ public class HotelManagementGUI extends JFrame {
     private JPanel roomPanel;
     private JPanel inventoryPanel;
     private JPanel billingPanel;
-    private JPanel reportingPanel;
+    private JPanel availabilityPanel;
+    private ReportingPanel reportingPanel;
+    private JPanel diagnosticsPanel;
 
     // Reservation Form Components
     private JTextField guestNameField;
@@ -31,18 +43,28 @@ public class HotelManagementGUI extends JFrame {
     private JTextField phoneField;
     private JTextField checkInField;
     private JTextField checkOutField;
-    private JComboBox<ReservationManager.RoomType> roomTypeComboBox;
+    private JComboBox<RoomType> roomTypeComboBox;
     private JTextField guestsField;
     private JTextArea specialRequestsArea;
     private JButton addReservationButton;
 
     // Reservation List Components
     private JTable reservationsTable;
-    private DefaultTableModel reservationsTableModel;
+    private LazyTableModel reservationsTableModel;
     private JButton viewReservationButton;
     private JButton checkInButton;
     private JButton checkOutButton;
     private JButton cancelReservationButton;
+    private JButton importReservationsButton;
+
+    // Status Bar Components
+    private JLabel statusLabel;
+    private JProgressBar busyIndicator;
+
+    private final BackgroundTaskRunner taskRunner = BackgroundTaskRunner.getInstance();
+
+    // Placeholders of tabs not built yet, with the factories that build them
+    private final Map<Component, Supplier<JPanel>> pendingTabs = new HashMap<>();
 
     /**
      * Constructor initializes the UI
@@ -66,22 +88,55 @@ public class HotelManagementGUI extends JFrame {
         // Create tabbed pane
         tabbedPane = new JTabbedPane();
 
-        // Create panels for each tab
+        // The first tab is built now; the others when they are first selected
         createReservationPanel();
-        createRoomPanel();
-        createInventoryPanel();
-        createBillingPanel();
-        createReportingPanel();
-
-        // Add panels to tabbed pane
         tabbedPane.addTab("Reservations", reservationPanel);
-        tabbedPane.addTab("Rooms", roomPanel);
-        tabbedPane.addTab("Inventory", inventoryPanel);
-        tabbedPane.addTab("Billing", billingPanel);
-        tabbedPane.addTab("Reports", reportingPanel);
+        addLazyTab("Rooms", () -> {
+            createRoomPanel();
+            return roomPanel;
+        });
+        addLazyTab("Inventory", () -> {
+            createInventoryPanel();
+            // Opened, so the low-stock count set by loadData has been seen
+            tabbedPane.setTitleAt(tabbedPane.getSelectedIndex(), "Inventory");
+            return inventoryPanel;
+        });
+        addLazyTab("Billing", () -> {
+            createBillingPanel();
+            return billingPanel;
+        });
+        addLazyTab("Availability", () -> {
+            createAvailabilityPanel();
+            return availabilityPanel;
+        });
+        addLazyTab("Reports", () -> {
+            createReportingPanel();
+            return reportingPanel;
+        });
+        addLazyTab("Diagnostics", () -> {
+            createDiagnosticsPanel();
+            return diagnosticsPanel;
+        });
+        tabbedPane.addChangeListener(e -> buildSelectedTab());
 
         // Add tabbed pane to frame
-        getContentPane().add(tabbedPane);
+        getContentPane().add(tabbedPane, BorderLayout.CENTER);
+
+        // Status bar shows when database work is running in the background
+        JPanel statusBar = new JPanel(new BorderLayout(10, 0));
+        statusBar.setBorder(BorderFactory.createEmptyBorder(2, 10, 2, 10));
+        statusLabel = new JLabel("Ready");
+        busyIndicator = new JProgressBar();
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setVisible(false);
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        statusBar.add(busyIndicator, BorderLayout.EAST);
+        getContentPane().add(statusBar, BorderLayout.SOUTH);
+
+        taskRunner.addBusyListener((runningTasks, description) -> {
+            busyIndicator.setVisible(runningTasks > 0);
+            statusLabel.setText(runningTasks > 0 ? description + "..." : "Ready");
+        });
     }
 
     /**
@@ -207,10 +262,8 @@ public class HotelManagementGUI extends JFrame {
         listPanel.setBorder(BorderFactory.createTitledBorder("Reservations"));
 
         // Create table model and table
-        reservationsTableModel = new DefaultTableModel();
-        for (String columnName : reservationConnector.getReservationsTableColumns()) {
-            reservationsTableModel.addColumn(columnName);
-        }
+        reservationsTableModel = new LazyTableModel(reservationConnector.getReservationsTableColumns(),
+                RowSource.snapshot(() -> new Object[0][]));
 
         reservationsTable = new JTable(reservationsTableModel);
         reservationsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -223,11 +276,13 @@ public class HotelManagementGUI extends JFrame {
         checkInButton = new JButton("Check-In");
         checkOutButton = new JButton("Check-Out");
         cancelReservationButton = new JButton("Cancel");
+        importReservationsButton = new JButton("Import...");
 
         buttonPanel.add(viewReservationButton);
         buttonPanel.add(checkInButton);
         buttonPanel.add(checkOutButton);
         buttonPanel.add(cancelReservationButton);
+        buttonPanel.add(importReservationsButton);
 
         listPanel.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -260,12 +315,35 @@ public class HotelManagementGUI extends JFrame {
             }
         });
 
+        importReservationsButton.addActionListener(e -> importReservations());
+
         // Add form and list panels to main panel
         JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, formPanel, listPanel);
         splitPane.setDividerLocation(350);
         reservationPanel.add(splitPane);
     }
 
+    /**
+     * Add a tab whose panel is created the first time the tab is selected.
+     */
+    private void addLazyTab(String title, Supplier<JPanel> factory) {
+        JPanel placeholder = new JPanel(new BorderLayout());
+        pendingTabs.put(placeholder, factory);
+        tabbedPane.addTab(title, placeholder);
+    }
+
+    private void buildSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        Supplier<JPanel> factory = index < 0 ? null : pendingTabs.remove(tabbedPane.getComponentAt(index));
+        if (factory == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        tabbedPane.setComponentAt(index, factory.get());
+        LOGGER.info(tabbedPane.getTitleAt(index) + " tab built in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
     private void createRoomPanel() {
         roomPanel = new RoomPanel();
     }
@@ -278,17 +356,29 @@ public class HotelManagementGUI extends JFrame {
         billingPanel = new BillingPanel();
     }
 
+    private void createAvailabilityPanel() {
+        availabilityPanel = new AvailabilityCalendarPanel();
+    }
+
     private void createReportingPanel() {
-        reportingPanel = new JPanel();
-        reportingPanel.setLayout(new BorderLayout());
-        reportingPanel.add(new JLabel("Reporting features coming soon...", JLabel.CENTER));
+        reportingPanel = new ReportingPanel();
+    }
+
+    private void createDiagnosticsPanel() {
+        diagnosticsPanel = new DiagnosticsPanel();
     }
     /**
      * Load initial data
      */
     private void loadData() {
         // Populate room type combo box
-        reservationConnector.populateRoomTypeComboBox(roomTypeComboBox);
+        // and again whenever the reference data is reloaded
+        taskRunner.submit("roomTypes", "Loading room types", () -> {
+            ReferenceDataCache.getInstance().addChangeListener(() -> SwingUtilities.invokeLater(() ->
+                    reservationConnector.populateRoomTypeComboBox(roomTypeComboBox, reservationConnector.getRoomTypes())));
+            return StartupOrchestrator.getInstance().<List<RoomType>>take(StartupOrchestrator.ROOM_TYPES,
+                    reservationConnector::getRoomTypes);
+        }, roomTypes -> reservationConnector.populateRoomTypeComboBox(roomTypeComboBox, roomTypes));
 
         // Set default dates
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
@@ -298,51 +388,79 @@ public class HotelManagementGUI extends JFrame {
         calendar.add(Calendar.DAY_OF_MONTH, 1);
         checkOutField.setText(dateFormat.format(calendar.getTime()));
 
-        // Load reservations for the next 30 days
+        // Load reservations for the next 30 days and follow changes to them,
+        // including the ones made here, which no longer reload the table
         loadReservations();
+        new TableSync(ChangeBus.RESERVATIONS, reservationsTableModel, 0,
+                reservationConnector::getReservationsTableRows, this::loadReservations);
+
+        taskRunner.submit(null, "Checking stock levels",
+                () -> StartupOrchestrator.getInstance().take(StartupOrchestrator.LOW_STOCK_ITEMS,
+                        () -> new InventoryUIConnector().getLowStockItems()),
+                this::showLowStockCount);
+    }
+
+    /**
+     * Show how many items are low on stock on the Inventory tab until it is first opened
+     */
+    private void showLowStockCount(Object[][] lowStockItems) {
+        int index = tabbedPane.indexOfTab("Inventory");
+        if (index >= 0 && lowStockItems.length > 0 && pendingTabs.containsKey(tabbedPane.getComponentAt(index))) {
+            tabbedPane.setTitleAt(index, "Inventory (" + lowStockItems.length + " low)");
+        }
     }
 
     /**
      * Load reservations for the next 30 days
      */
     private void loadReservations() {
-        // Clear table
-        reservationsTableModel.setRowCount(0);
-
-        // Get current date and date 30 days from now
-        Calendar calendar = Calendar.getInstance();
-        Date startDate = new Date(calendar.getTimeInMillis());
-
-        calendar.add(Calendar.DAY_OF_MONTH, 30);
-        Date endDate = new Date(calendar.getTimeInMillis());
-
-        // Get reservation data
-        Object[][] data = reservationConnector.getReservationsTableData(startDate, endDate);
-
-        // Add data to table model
-        for (Object[] row : data) {
-            reservationsTableModel.addRow(row);
-        }
+        // Rows are fetched a page at a time as the table scrolls to them;
+        // the first page may already have been read during startup
+        reservationsTableModel.setRowSource(StartupOrchestrator.getInstance().firstBlockFrom(
+                StartupOrchestrator.UPCOMING_RESERVATIONS, reservationConnector.getUpcomingReservationsRowSource()));
     }
 
     /**
      * Add a new reservation
      */
     private void addReservation() {
-        // Check if room is available
-        if (!reservationConnector.isRoomAvailable(checkInField, checkOutField, roomTypeComboBox)) {
+        // Read the form on the EDT; the database work runs in the background
+        String guestName = guestNameField.getText();
+        String email = emailField.getText();
+        String phone = phoneField.getText();
+        String checkIn = checkInField.getText();
+        String checkOut = checkOutField.getText();
+        RoomType roomType = (RoomType) roomTypeComboBox.getSelectedItem();
+        String guests = guestsField.getText();
+        String specialRequests = specialRequestsArea.getText();
+
+        addReservationButton.setEnabled(false);
+        taskRunner.submit(null, "Creating reservation", () -> {
+            // Check if room is available
+            if (!reservationConnector.isRoomAvailable(checkIn, checkOut, roomType)) {
+                return null;
+            }
+            return reservationConnector.createReservation(guestName, email, phone,
+                    checkIn, checkOut, roomType, guests, specialRequests);
+        }, success -> {
+            addReservationButton.setEnabled(true);
+            showReservationCreated(success);
+        });
+    }
+
+    /**
+     * Report the outcome of addReservation
+     *
+     * @param success True if created, false on error, null if no room was available
+     */
+    private void showReservationCreated(Boolean success) {
+        if (success == null) {
             JOptionPane.showMessageDialog(this,
                     "No rooms of the selected type are available for the specified dates.",
                     "Room Not Available", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        // Create reservation
-        boolean success = reservationConnector.createReservation(
-                guestNameField, emailField, phoneField, checkInField,
-                checkOutField, roomTypeComboBox, guestsField, specialRequestsArea
-        );
-
         if (success) {
             JOptionPane.showMessageDialog(this,
                     "Reservation created successfully!",
@@ -354,9 +472,6 @@ public class HotelManagementGUI extends JFrame {
             phoneField.setText("");
             guestsField.setText("1");
             specialRequestsArea.setText("");
-
-            // Reload reservations
-            loadReservations();
         } else {
             JOptionPane.showMessageDialog(this,
                     "Error creating reservation. Please check your inputs.",
@@ -364,90 +479,111 @@ public class HotelManagementGUI extends JFrame {
         }
     }
 
+    /**
+     * Tell the user the selected row's block is still being fetched
+     */
+    private void showRowLoading() {
+        JOptionPane.showMessageDialog(this,
+                "The selected reservation is still loading. Please try again in a moment.",
+                "Loading", JOptionPane.INFORMATION_MESSAGE);
+    }
+
     /**
      * View reservation details
      */
     private void viewReservationDetails() {
         int selectedRow = reservationsTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int reservationId = (int) reservationsTable.getValueAt(selectedRow, 0);
-            Reservation reservation = reservationConnector.getReservation(reservationId);
+            Object key = reservationsTable.getValueAt(selectedRow, 0);
+            if (key == null) {
+                showRowLoading();
+                return;
+            }
+            int reservationId = (int) key;
+            taskRunner.submit("reservationDetails", "Loading reservation",
+                    () -> reservationConnector.getReservation(reservationId),
+                    this::showReservationDetails);
+        } else {
+            JOptionPane.showMessageDialog(this,
+                    "Please select a reservation to view.",
+                    "No Selection", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
 
-            if (reservation != null) {
-                // Create detail dialog
-                JDialog detailDialog = new JDialog(this, "Reservation Details", true);
-                detailDialog.setLayout(new BorderLayout());
+    /**
+     * Show a dialog with the details of a reservation
+     */
+    private void showReservationDetails(Reservation reservation) {
+        if (reservation != null) {
+            // Create detail dialog
+            JDialog detailDialog = new JDialog(this, "Reservation Details", true);
+            detailDialog.setLayout(new BorderLayout());
 
-                // Create panel for details
-                JPanel detailPanel = new JPanel(new GridLayout(0, 2, 10, 5));
-                detailPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            // Create panel for details
+            JPanel detailPanel = new JPanel(new GridLayout(0, 2, 10, 5));
+            detailPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-                // Add reservation details
-                detailPanel.add(new JLabel("Reservation ID:"));
-                detailPanel.add(new JLabel(String.valueOf(reservation.getReservationId())));
+            // Add reservation details
+            detailPanel.add(new JLabel("Reservation ID:"));
+            detailPanel.add(new JLabel(String.valueOf(reservation.getReservationId())));
 
-                detailPanel.add(new JLabel("Guest Name:"));
-                detailPanel.add(new JLabel(reservation.getFullName()));
+            detailPanel.add(new JLabel("Guest Name:"));
+            detailPanel.add(new JLabel(reservation.getFullName()));
 
-                detailPanel.add(new JLabel("Email:"));
-                detailPanel.add(new JLabel(reservation.getEmail()));
+            detailPanel.add(new JLabel("Email:"));
+            detailPanel.add(new JLabel(reservation.getEmail()));
 
-                detailPanel.add(new JLabel("Phone:"));
-                detailPanel.add(new JLabel(reservation.getPhone()));
+            detailPanel.add(new JLabel("Phone:"));
+            detailPanel.add(new JLabel(reservation.getPhone()));
 
-                detailPanel.add(new JLabel("Check-In Date:"));
-                detailPanel.add(new JLabel(reservation.getCheckInDate().toString()));
+            detailPanel.add(new JLabel("Check-In Date:"));
+            detailPanel.add(new JLabel(reservation.getCheckInDate().toString()));
 
-                detailPanel.add(new JLabel("Check-Out Date:"));
-                detailPanel.add(new JLabel(reservation.getCheckOutDate().toString()));
+            detailPanel.add(new JLabel("Check-Out Date:"));
+            detailPanel.add(new JLabel(reservation.getCheckOutDate().toString()));
 
-                detailPanel.add(new JLabel("Status:"));
-                detailPanel.add(new JLabel(reservation.getStatus()));
+            detailPanel.add(new JLabel("Status:"));
+            detailPanel.add(new JLabel(reservation.getStatus()));
 
-                detailPanel.add(new JLabel("Number of Guests:"));
-                detailPanel.add(new JLabel(String.valueOf(reservation.getTotalGuests())));
+            detailPanel.add(new JLabel("Number of Guests:"));
+            detailPanel.add(new JLabel(String.valueOf(reservation.getTotalGuests())));
 
-                detailPanel.add(new JLabel("Room:"));
-                detailPanel.add(new JLabel(reservation.getRoomNumber()));
+            detailPanel.add(new JLabel("Room:"));
+            detailPanel.add(new JLabel(reservation.getRoomNumber()));
 
-                detailPanel.add(new JLabel("Room Type:"));
-                detailPanel.add(new JLabel(reservation.getRoomTypeName()));
+            detailPanel.add(new JLabel("Room Type:"));
+            detailPanel.add(new JLabel(reservation.getRoomTypeName()));
 
-                detailPanel.add(new JLabel("Rate per Night:"));
-                detailPanel.add(new JLabel("$" + reservation.getRatePerNight()));
+            detailPanel.add(new JLabel("Rate per Night:"));
+            detailPanel.add(new JLabel("$" + reservation.getRatePerNight()));
 
-                detailPanel.add(new JLabel("Total Nights:"));
-                detailPanel.add(new JLabel(String.valueOf(reservation.getNumberOfNights())));
+            detailPanel.add(new JLabel("Total Nights:"));
+            detailPanel.add(new JLabel(String.valueOf(reservation.getNumberOfNights())));
 
-                detailPanel.add(new JLabel("Total Cost:"));
-                detailPanel.add(new JLabel("$" + reservation.getTotalRoomCost()));
+            detailPanel.add(new JLabel("Total Cost:"));
+            detailPanel.add(new JLabel("$" + reservation.getTotalRoomCost()));
 
-                detailPanel.add(new JLabel("Special Requests:"));
-                JTextArea requestsArea = new JTextArea(reservation.getSpecialRequests());
-                requestsArea.setEditable(false);
-                requestsArea.setLineWrap(true);
-                requestsArea.setWrapStyleWord(true);
-                JScrollPane scrollPane = new JScrollPane(requestsArea);
-                scrollPane.setPreferredSize(new Dimension(200, 80));
-                detailPanel.add(scrollPane);
+            detailPanel.add(new JLabel("Special Requests:"));
+            JTextArea requestsArea = new JTextArea(reservation.getSpecialRequests());
+            requestsArea.setEditable(false);
+            requestsArea.setLineWrap(true);
+            requestsArea.setWrapStyleWord(true);
+            JScrollPane scrollPane = new JScrollPane(requestsArea);
+            scrollPane.setPreferredSize(new Dimension(200, 80));
+            detailPanel.add(scrollPane);
 
-                // Add close button
-                JButton closeButton = new JButton("Close");
-                closeButton.addActionListener(e -> detailDialog.dispose());
+            // Add close button
+            JButton closeButton = new JButton("Close");
+            closeButton.addActionListener(e -> detailDialog.dispose());
 
-                // Add components to dialog
-                detailDialog.add(detailPanel, BorderLayout.CENTER);
-                detailDialog.add(closeButton, BorderLayout.SOUTH);
+            // Add components to dialog
+            detailDialog.add(detailPanel, BorderLayout.CENTER);
+            detailDialog.add(closeButton, BorderLayout.SOUTH);
 
-                // Set dialog size and show
-                detailDialog.pack();
-                detailDialog.setLocationRelativeTo(this);
-                detailDialog.setVisible(true);
-            }
-        } else {
-            JOptionPane.showMessageDialog(this,
-                    "Please select a reservation to view.",
-                    "No Selection", JOptionPane.INFORMATION_MESSAGE);
+            // Set dialog size and show
+            detailDialog.pack();
+            detailDialog.setLocationRelativeTo(this);
+            detailDialog.setVisible(true);
         }
     }
 
@@ -457,7 +593,12 @@ public class HotelManagementGUI extends JFrame {
     private void checkInReservation() {
         int selectedRow = reservationsTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int reservationId = (int) reservationsTable.getValueAt(selectedRow, 0);
+            Object key = reservationsTable.getValueAt(selectedRow, 0);
+            if (key == null) {
+                showRowLoading();
+                return;
+            }
+            int reservationId = (int) key;
             String currentStatus = (String) reservationsTable.getValueAt(selectedRow, 6);
 
             if (!"Confirmed".equals(currentStatus)) {
@@ -467,20 +608,19 @@ public class HotelManagementGUI extends JFrame {
                 return;
             }
 
-            boolean success = reservationConnector.updateReservationStatus(reservationId, "Checked-in");
-
-            if (success) {
-                JOptionPane.showMessageDialog(this,
-                        "Guest checked in successfully!",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-
-                // Reload reservations
-                loadReservations();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error checking in guest.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            taskRunner.submit(null, "Updating reservation",
+                    () -> reservationConnector.updateReservationStatus(reservationId, "Checked-in"),
+                    success -> {
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Guest checked in successfully!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error checking in guest.",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         } else {
             JOptionPane.showMessageDialog(this,
                     "Please select a reservation to check in.",
@@ -494,7 +634,12 @@ public class HotelManagementGUI extends JFrame {
     private void checkOutReservation() {
         int selectedRow = reservationsTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int reservationId = (int) reservationsTable.getValueAt(selectedRow, 0);
+            Object key = reservationsTable.getValueAt(selectedRow, 0);
+            if (key == null) {
+                showRowLoading();
+                return;
+            }
+            int reservationId = (int) key;
             String currentStatus = (String) reservationsTable.getValueAt(selectedRow, 6);
 
             if (!"Checked-in".equals(currentStatus)) {
@@ -504,20 +649,19 @@ public class HotelManagementGUI extends JFrame {
                 return;
             }
 
-            boolean success = reservationConnector.updateReservationStatus(reservationId, "Checked-out");
-
-            if (success) {
-                JOptionPane.showMessageDialog(this,
-                        "Guest checked out successfully!",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-
-                // Reload reservations
-                loadReservations();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Error checking out guest.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            taskRunner.submit(null, "Updating reservation",
+                    () -> reservationConnector.updateReservationStatus(reservationId, "Checked-out"),
+                    success -> {
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Guest checked out successfully!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error checking out guest.",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         } else {
             JOptionPane.showMessageDialog(this,
                     "Please select a reservation to check out.",
@@ -531,7 +675,12 @@ public class HotelManagementGUI extends JFrame {
     private void cancelReservation() {
         int selectedRow = reservationsTable.getSelectedRow();
         if (selectedRow >= 0) {
-            int reservationId = (int) reservationsTable.getValueAt(selectedRow, 0);
+            Object key = reservationsTable.getValueAt(selectedRow, 0);
+            if (key == null) {
+                showRowLoading();
+                return;
+            }
+            int reservationId = (int) key;
             String currentStatus = (String) reservationsTable.getValueAt(selectedRow, 6);
 
             if ("Checked-in".equals(currentStatus) || "Checked-out".equals(currentStatus)) {
@@ -546,20 +695,19 @@ public class HotelManagementGUI extends JFrame {
                     "Confirm Cancellation", JOptionPane.YES_NO_OPTION);
 
             if (choice == JOptionPane.YES_OPTION) {
-                boolean success = reservationConnector.cancelReservation(reservationId);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(this,
-                            "Reservation cancelled successfully!",
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-
-                    // Reload reservations
-                    loadReservations();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Error cancelling reservation.",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                taskRunner.submit(null, "Cancelling reservation",
+                        () -> reservationConnector.cancelReservation(reservationId),
+                        success -> {
+                            if (success) {
+                                JOptionPane.showMessageDialog(this,
+                                        "Reservation cancelled successfully!",
+                                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                JOptionPane.showMessageDialog(this,
+                                        "Error cancelling reservation.",
+                                        "Error", JOptionPane.ERROR_MESSAGE);
+                            }
+                        });
             }
         } else {
             JOptionPane.showMessageDialog(this,
@@ -568,6 +716,63 @@ public class HotelManagementGUI extends JFrame {
         }
     }
 
+    /**
+     * Import a booking dump from a channel manager
+     */
+    private void importReservations() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Booking dumps (CSV, JSON lines)", "csv", "json", "jsonl", "ndjson"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        if (ReservationImporter.getCheckpointFile(file).exists()) {
+            JOptionPane.showMessageDialog(this,
+                    "An earlier import of this file did not finish; it will resume where it stopped.",
+                    "Resuming Import", JOptionPane.INFORMATION_MESSAGE);
+        }
+
+        importReservationsButton.setEnabled(false);
+        taskRunner.submit(null, "Importing reservations",
+                () -> reservationConnector.importReservations(file, progress ->
+                        SwingUtilities.invokeLater(() -> statusLabel.setText(String.format(Locale.ROOT,
+                                "Importing reservations... %d rows, %.0f rows/s",
+                                progress.getRowsRead(), progress.getRowsPerSecond())))),
+                summary -> {
+                    importReservationsButton.setEnabled(true);
+                    showImportSummary(summary);
+                });
+    }
+
+    private void showImportSummary(ReservationImporter.Summary summary) {
+        if (summary == null) {
+            JOptionPane.showMessageDialog(this,
+                    "The file could not be read. Check that it is a CSV file with a header row or JSON lines.",
+                    "Import Failed", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append(String.format(Locale.ROOT, "%d rows read, %d reservations imported (%.0f rows/s)%n",
+                summary.getRowsRead(), summary.getImported(), summary.getRowsPerSecond()));
+        message.append(summary.getRejected()).append(" rows rejected, ")
+                .append(summary.getFailed()).append(" could not be booked\n");
+        if (summary.getAlreadyImported() > 0) {
+            message.append(summary.getAlreadyImported()).append(" were already imported before the restart\n");
+        }
+        if (!summary.isComplete()) {
+            message.append("\n").append(summary.getStopReason()).append('\n');
+        }
+
+        JTextArea details = new JTextArea(String.join("\n", summary.getErrors()), 10, 60);
+        details.setEditable(false);
+        Object content = summary.getErrors().isEmpty() ? message.toString()
+                : new Object[] {message.toString(), new JScrollPane(details)};
+        JOptionPane.showMessageDialog(this, content, "Import Finished",
+                summary.isComplete() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+
     /**
      * Main method to launch the application
      */
@@ -579,12 +784,7 @@ public class HotelManagementGUI extends JFrame {
             e.printStackTrace();
         }
 
-        // Create and display the GUI
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                new HotelManagementGUI().setVisible(true);
-            }
-        });
+        // Show the window at once and preload the first screens in the background
+        StartupOrchestrator.getInstance().start();
     }
 }
\ No newline at end of file
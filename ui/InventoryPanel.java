@@ -1,7 +1,8 @@
 package ui;
 
+import logic.ChangeBus;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,18 +10,23 @@ import java.awt.event.ActionListener;
 public class InventoryPanel extends JPanel {
     private InventoryUIConnector inventoryConnector;
     private JTable inventoryTable;
-    private DefaultTableModel inventoryTableModel;
+    private LazyTableModel inventoryTableModel;
     private JTextField quantityField;
     private JComboBox<String> transactionTypeComboBox;
     private JTextField notesField;
     private JButton updateStockButton;
     private JButton refreshButton;
     private JButton lowStockButton;
+    private boolean showingLowStock;
 
     public InventoryPanel() {
         inventoryConnector = new InventoryUIConnector();
         initComponents();
         loadData();
+        // Changed items are updated in place in either view; an item that has
+        // just run low is added by reloading the low stock view
+        new TableSync(ChangeBus.INVENTORY_ITEMS, inventoryTableModel, 0,
+                inventoryConnector::getInventoryTableRows, this::reloadCurrentView);
     }
 
     private void initComponents() {
@@ -28,14 +34,11 @@ public class InventoryPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Create table model and table
-        inventoryTableModel = new DefaultTableModel();
-        for (String columnName : inventoryConnector.getInventoryTableColumns()) {
-            inventoryTableModel.addColumn(columnName);
-        }
+        inventoryTableModel = new LazyTableModel(inventoryConnector.getInventoryTableColumns(),
+                RowSource.snapshot(inventoryConnector::getInventoryTableData));
 
         inventoryTable = new JTable(inventoryTableModel);
         inventoryTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        inventoryTable.setAutoCreateRowSorter(true);
 
         JScrollPane scrollPane = new JScrollPane(inventoryTable);
         add(scrollPane, BorderLayout.CENTER);
@@ -95,28 +98,22 @@ public class InventoryPanel extends JPanel {
     }
 
     private void loadData() {
-        // Clear table
-        inventoryTableModel.setRowCount(0);
-
-        // Get inventory data
-        Object[][] data = inventoryConnector.getInventoryTableData();
-
-        // Add data to table model
-        for (Object[] row : data) {
-            inventoryTableModel.addRow(row);
-        }
+        // Reload inventory data with a single table event
+        showingLowStock = false;
+        inventoryTableModel.setRowSource(RowSource.snapshot(inventoryConnector::getInventoryTableData));
     }
 
     private void loadLowStockItems() {
-        // Clear table
-        inventoryTableModel.setRowCount(0);
-
-        // Get low stock items
-        Object[][] data = inventoryConnector.getLowStockItems();
+        // Show only low stock items
+        showingLowStock = true;
+        inventoryTableModel.setRowSource(RowSource.snapshot(inventoryConnector::getLowStockItems));
+    }
 
-        // Add data to table model
-        for (Object[] row : data) {
-            inventoryTableModel.addRow(row);
+    private void reloadCurrentView() {
+        if (showingLowStock) {
+            loadLowStockItems();
+        } else {
+            loadData();
         }
     }
 
@@ -124,24 +121,34 @@ public class InventoryPanel extends JPanel {
         int selectedRow = inventoryTable.getSelectedRow();
         if (selectedRow >= 0) {
             try {
-                selectedRow = inventoryTable.convertRowIndexToModel(selectedRow);
-                int itemId = (int) inventoryTableModel.getValueAt(selectedRow, 0);
+                Object key = inventoryTableModel.getValueAt(selectedRow, 0);
+                if (key == null) {
+                    // Its block is still being fetched
+                    JOptionPane.showMessageDialog(this,
+                            "The selected item is still loading. Please try again in a moment.",
+                            "Loading", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                int itemId = (int) key;
                 int quantity = Integer.parseInt(quantityField.getText());
                 String transactionType = (String) transactionTypeComboBox.getSelectedItem();
                 String notes = notesField.getText();
 
-                if (inventoryConnector.updateInventory(itemId, quantity, transactionType, notes)) {
-                    JOptionPane.showMessageDialog(this,
-                            "Inventory updated successfully!",
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadData();
-                    quantityField.setText("");
-                    notesField.setText("");
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Error updating inventory.",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                BackgroundTaskRunner.getInstance().submit(null, "Updating inventory",
+                        () -> inventoryConnector.updateInventory(itemId, quantity, transactionType, notes),
+                        success -> {
+                            if (success) {
+                                JOptionPane.showMessageDialog(this,
+                                        "Inventory updated successfully!",
+                                        "Success", JOptionPane.INFORMATION_MESSAGE);
+                                quantityField.setText("");
+                                notesField.setText("");
+                            } else {
+                                JOptionPane.showMessageDialog(this,
+                                        "Error updating inventory.",
+                                        "Error", JOptionPane.ERROR_MESSAGE);
+                            }
+                        });
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this,
                         "Please enter a valid quantity.",
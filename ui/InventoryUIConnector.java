@@ -1,18 +1,52 @@
 package ui;
 
 import database.DatabaseConnection;
+import database.RowMapper;
+import logic.ChangeBus;
+import logic.ReferenceDataCache;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class InventoryUIConnector {
     private static final Logger LOGGER = Logger.getLogger(InventoryUIConnector.class.getName());
-    private final Connection connection;
+    private static final OperationMetrics GET_INVENTORY_TABLE_DATA =
+            MetricsRegistry.getInstance().operation("InventoryUIConnector.getInventoryTableData");
+    private static final OperationMetrics GET_INVENTORY_TABLE_ROWS =
+            MetricsRegistry.getInstance().operation("InventoryUIConnector.getInventoryTableRows");
+    private static final OperationMetrics GET_LOW_STOCK_ITEMS =
+            MetricsRegistry.getInstance().operation("InventoryUIConnector.getLowStockItems");
+    private static final OperationMetrics UPDATE_INVENTORY =
+            MetricsRegistry.getInstance().operation("InventoryUIConnector.updateInventory");
+    private static final OperationMetrics GET_CATEGORIES =
+            MetricsRegistry.getInstance().operation("InventoryUIConnector.getCategories");
+    private static final RowMapper.TableColumns INVENTORY_COLUMNS = RowMapper.tableColumns()
+            .cell("item_id", "i.item_id", ResultSet::getInt)
+            .cell("name", "i.name", ResultSet::getString)
+            .cell("category", "ic.name AS category", ResultSet::getString)
+            .cell("current_quantity", "i.current_quantity", ResultSet::getInt)
+            .cell("min_quantity", "i.min_quantity", ResultSet::getInt)
+            .cell("unit", "i.unit", ResultSet::getString)
+            .cell("cost_per_unit", "i.cost_per_unit", ResultSet::getDouble)
+            .cell("supplier", "i.supplier", ResultSet::getString)
+            .cell("last_restocked", "i.last_restocked", ResultSet::getTimestamp);
+    private static final RowMapper<Object[]> INVENTORY_TABLE_ROW = INVENTORY_COLUMNS.all();
+    // sp_get_low_stock_items returns the same columns but last_restocked
+    private static final String[] LOW_STOCK_COLUMNS = {
+            "item_id", "name", "category", "current_quantity", "min_quantity", "unit", "cost_per_unit", "supplier"
+    };
+    private static final String INVENTORY_TABLE_SELECT = "SELECT " + INVENTORY_TABLE_ROW.selectList() + " " +
+            "FROM inventory_items i " +
+            "JOIN inventory_categories ic ON i.category_id = ic.category_id ";
+    private final DatabaseConnection dbConnection;
 
     public InventoryUIConnector() {
-        connection = DatabaseConnection.getInstance().getConnection();
+        dbConnection = DatabaseConnection.getInstance();
     }
 
     public String[] getInventoryTableColumns() {
@@ -22,93 +56,82 @@ public class InventoryUIConnector {
     }
 
     public Object[][] getInventoryTableData() {
-        List<Object[]> data = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
+        String sql = INVENTORY_TABLE_SELECT + "ORDER BY i.name";
 
+        long start = System.nanoTime();
         try {
-            String sql = "SELECT i.item_id, i.name, ic.name AS category, i.current_quantity, " +
-                    "i.min_quantity, i.unit, i.cost_per_unit, i.supplier, i.last_restocked " +
-                    "FROM inventory_items i " +
-                    "JOIN inventory_categories ic ON i.category_id = ic.category_id " +
-                    "ORDER BY i.name";
-
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("item_id"),
-                        rs.getString("name"),
-                        rs.getString("category"),
-                        rs.getInt("current_quantity"),
-                        rs.getInt("min_quantity"),
-                        rs.getString("unit"),
-                        rs.getDouble("cost_per_unit"),
-                        rs.getString("supplier"),
-                        rs.getTimestamp("last_restocked")
-                };
-                data.add(row);
-            }
+            return GET_INVENTORY_TABLE_DATA.recordTable(start, dbConnection.executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    return INVENTORY_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                }
+            }));
         } catch (SQLException e) {
+            GET_INVENTORY_TABLE_DATA.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving inventory data", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new Object[0][0];
         }
-
-        return data.toArray(new Object[0][0]);
     }
 
-    public Object[][] getLowStockItems() {
-        List<Object[]> data = new ArrayList<>();
-        CallableStatement cstmt = null;
-        ResultSet rs = null;
+    /**
+     * Read the rows of a few items, to update the inventory table after they changed.
+     *
+     * @param itemIds IDs of the items
+     * @return Rows for the items that still exist; null on error
+     */
+    public Object[][] getInventoryTableRows(Collection<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new Object[0][0];
+        }
+        String sql = INVENTORY_TABLE_SELECT + "WHERE i.item_id IN (" + DatabaseConnection.placeholders(itemIds.size()) + ")";
 
+        long start = System.nanoTime();
         try {
-            cstmt = connection.prepareCall("{CALL sp_get_low_stock_items()}");
-            boolean hasResults = cstmt.execute();
-
-            if (hasResults) {
-                rs = cstmt.getResultSet();
+            return GET_INVENTORY_TABLE_ROWS.recordTable(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (int itemId : itemIds) {
+                        pstmt.setInt(index++, itemId);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return INVENTORY_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_INVENTORY_TABLE_ROWS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error retrieving changed inventory items", e);
+            return null;
+        }
+    }
 
-                while (rs.next()) {
-                    Object[] row = {
-                            rs.getInt("item_id"),
-                            rs.getString("name"),
-                            rs.getString("category"),
-                            rs.getInt("current_quantity"),
-                            rs.getInt("min_quantity"),
-                            rs.getString("unit"),
-                            rs.getDouble("cost_per_unit"),
-                            rs.getString("supplier")
-                    };
-                    data.add(row);
+    public Object[][] getLowStockItems() {
+        long start = System.nanoTime();
+        try {
+            return GET_LOW_STOCK_ITEMS.recordTable(start, dbConnection.executeRead(conn -> {
+                List<Object[]> data = new ArrayList<>();
+                try (CallableStatement cstmt = conn.prepareCall("{CALL sp_get_low_stock_items()}")) {
+                    boolean hasResults = cstmt.execute();
+
+                    if (hasResults) {
+                        try (ResultSet rs = cstmt.getResultSet()) {
+                            data.addAll(INVENTORY_COLUMNS.bind(rs, LOW_STOCK_COLUMNS).mapAll(rs));
+                        }
+                    }
                 }
-            }
+                return data.toArray(new Object[0][0]);
+            }));
         } catch (SQLException e) {
+            GET_LOW_STOCK_ITEMS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving low stock items", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (cstmt != null) cstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new Object[0][0];
         }
-
-        return data.toArray(new Object[0][0]);
     }
 
     public boolean updateInventory(int itemId, int quantity, String transactionType, String notes) {
-        CallableStatement cstmt = null;
-
-        try {
-            cstmt = connection.prepareCall("{CALL sp_update_inventory(?, ?, ?, ?, ?, ?, ?)}");
+        long start = System.nanoTime();
+        try (Connection conn = dbConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall("{CALL sp_update_inventory(?, ?, ?, ?, ?, ?, ?)}")) {
             cstmt.setInt(1, itemId);
             cstmt.setInt(2, quantity);
             cstmt.setString(3, transactionType);
@@ -118,43 +141,17 @@ public class InventoryUIConnector {
             cstmt.setInt(7, 1); // Default admin user
 
             cstmt.execute();
-            return true;
+            ChangeBus.getInstance().publish(ChangeBus.INVENTORY_ITEMS, itemId);
+            return UPDATE_INVENTORY.record(start, true);
         } catch (SQLException e) {
+            UPDATE_INVENTORY.recordError(start);
             LOGGER.log(Level.SEVERE, "Error updating inventory", e);
             return false;
-        } finally {
-            try {
-                if (cstmt != null) cstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
     }
 
     public List<String> getCategories() {
-        List<String> categories = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            String sql = "SELECT name FROM inventory_categories ORDER BY name";
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                categories.add(rs.getString("name"));
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving categories", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
-        }
-
-        return categories;
+        long start = System.nanoTime();
+        return GET_CATEGORIES.recordRows(start, ReferenceDataCache.getInstance().getInventoryCategories());
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only table model that pulls rows from a RowSource in fixed-size blocks
+ * as the table asks for them, so only the blocks around the viewport are held.
+ * Counting and fetching run on the BackgroundTaskRunner; until a block arrives
+ * its cells read as empty, and each arriving block fires one rows-updated event.
+ * A refresh re-counts the source, drops the cached blocks and fires one
+ * table-changed event, while updateRows replaces individual changed rows
+ * without one. All methods must be called on the EDT.
+ */
+public class LazyTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    static final int DEFAULT_BLOCK_SIZE = 100;
+    private static final int DEFAULT_MAX_BLOCKS = 20;
+
+    private final String[] columnNames;
+    private final int blockSize;
+    private final int maxBlocks;
+    private final BackgroundTaskRunner taskRunner;
+    private RowSource rowSource;
+    private int rowCount;
+
+    // Bumped on every refresh so blocks fetched for an older refresh are dropped
+    private int generation;
+    private final Set<Integer> pendingBlocks = new HashSet<>();
+
+    // Access-ordered, so the least recently viewed block is evicted first
+    private final LinkedHashMap<Integer, Object[][]> blocks;
+
+    public LazyTableModel(String[] columnNames, RowSource rowSource) {
+        this(columnNames, rowSource, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+    }
+
+    public LazyTableModel(String[] columnNames, RowSource rowSource, int blockSize, int maxBlocks) {
+        this.columnNames = columnNames;
+        this.rowSource = rowSource;
+        this.blockSize = blockSize;
+        this.maxBlocks = maxBlocks;
+        this.taskRunner = BackgroundTaskRunner.getInstance();
+        this.blocks = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+                return size() > LazyTableModel.this.maxBlocks;
+            }
+        };
+    }
+
+    /**
+     * Re-count the source in the background, then discard cached rows.
+     * The current rows stay visible until the new count arrives.
+     * A refresh still counting is superseded by a newer one.
+     */
+    public void refresh() {
+        RowSource source = rowSource;
+        taskRunner.submit(this, "Loading rows", source::count, count -> {
+            generation++;
+            pendingBlocks.clear();
+            blocks.clear();
+            rowCount = count;
+            fireTableDataChanged();
+        });
+    }
+
+    /**
+     * Switch to a different source (e.g. another filter) and refresh.
+     *
+     * @param rowSource The new row source
+     */
+    public void setRowSource(RowSource rowSource) {
+        this.rowSource = rowSource;
+        refresh();
+    }
+
+    /**
+     * Replace changed rows in place and fire one rows-updated event for each
+     * row that is cached. Rows are matched by a key column against the cached
+     * blocks, which hold at most maxBlocks * blockSize rows. The row source is
+     * told about every row as well, so a block fetched again is not stale.
+     *
+     * @param changedRows The changed rows, each complete
+     * @param keyColumn   Column that identifies a row
+     * @return False if the source did not know a row, e.g. it is new; refresh() to show it
+     */
+    public boolean updateRows(Object[][] changedRows, int keyColumn) {
+        boolean allKnown = true;
+        for (Object[] changed : changedRows) {
+            Object key = changed[keyColumn];
+            search:
+            for (Map.Entry<Integer, Object[][]> entry : blocks.entrySet()) {
+                Object[][] block = entry.getValue();
+                for (int i = 0; i < block.length; i++) {
+                    if (block[i] != null && Objects.equals(block[i][keyColumn], key)) {
+                        block[i] = changed;
+                        int row = entry.getKey() * blockSize + i;
+                        fireTableRowsUpdated(row, row);
+                        break search;
+                    }
+                }
+            }
+            allKnown &= rowSource.update(changed, keyColumn);
+        }
+        return allKnown;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Object[] row = getRow(rowIndex);
+        return row != null && columnIndex < row.length ? row[columnIndex] : null;
+    }
+
+    /**
+     * Get one row, starting a background fetch of its block if it is not cached.
+     *
+     * @param rowIndex The model row index
+     * @return The row, or null while its block is loading
+     */
+    public Object[] getRow(int rowIndex) {
+        int blockIndex = rowIndex / blockSize;
+        Object[][] block = blocks.get(blockIndex);
+        if (block == null) {
+            fetchBlock(blockIndex);
+            return null;
+        }
+        int offset = rowIndex - blockIndex * blockSize;
+        return offset < block.length ? block[offset] : null;
+    }
+
+    private void fetchBlock(int blockIndex) {
+        if (!pendingBlocks.add(blockIndex)) {
+            return;
+        }
+
+        RowSource source = rowSource;
+        int fetchGeneration = generation;
+        int firstRow = blockIndex * blockSize;
+        taskRunner.submit(null, "Loading rows", () -> source.fetch(firstRow, blockSize), rows -> {
+            if (fetchGeneration != generation) {
+                return;
+            }
+            pendingBlocks.remove(blockIndex);
+            blocks.put(blockIndex, rows);
+
+            int lastRow = Math.min(firstRow + blockSize, rowCount) - 1;
+            if (lastRow >= firstRow) {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        }, error -> {
+            // Fetched again the next time one of its rows is painted
+            if (fetchGeneration == generation) {
+                pendingBlocks.remove(blockIndex);
+            }
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package ui;
+
+import logic.Report;
+import logic.ReportingEngine;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.sql.Date;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Month-end reports over a date range: occupancy with ADR and RevPAR per
+ * night, revenue by room type and inventory usage, one sub-tab each.
+ * Reports are computed by ReportingEngine in the background and cached there.
+ */
+public class ReportingPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private JTextField startDateField;
+    private JTextField endDateField;
+    private JButton showButton;
+    private JButton refreshButton;
+    private JLabel computedLabel;
+    private final Map<Report.Kind, JLabel> summaryLabels = new EnumMap<>(Report.Kind.class);
+    private final Map<Report.Kind, DefaultTableModel> tableModels = new EnumMap<>(Report.Kind.class);
+
+    public ReportingPanel() {
+        initComponents();
+        loadData();
+    }
+
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Default to the current month
+        LocalDate today = LocalDate.now();
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(new JLabel("From (yyyy-mm-dd):"));
+        startDateField = new JTextField(today.withDayOfMonth(1).toString(), 10);
+        controlPanel.add(startDateField);
+
+        controlPanel.add(new JLabel("To:"));
+        endDateField = new JTextField(today.withDayOfMonth(today.lengthOfMonth()).toString(), 10);
+        controlPanel.add(endDateField);
+
+        showButton = new JButton("Show");
+        showButton.addActionListener(e -> loadData());
+        controlPanel.add(showButton);
+
+        // Recompute from the database rather than the cache
+        refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> {
+            ReportingEngine.getInstance().invalidate();
+            loadData();
+        });
+        controlPanel.add(refreshButton);
+
+        computedLabel = new JLabel();
+        controlPanel.add(computedLabel);
+
+        add(controlPanel, BorderLayout.NORTH);
+
+        JTabbedPane reportTabs = new JTabbedPane();
+        for (Report.Kind kind : Report.Kind.values()) {
+            reportTabs.addTab(kind.getTitle(), createReportTab(kind));
+        }
+        add(reportTabs, BorderLayout.CENTER);
+    }
+
+    private JPanel createReportTab(Report.Kind kind) {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+
+        JLabel summaryLabel = new JLabel(" ");
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        summaryLabels.put(kind, summaryLabel);
+        panel.add(summaryLabel, BorderLayout.NORTH);
+
+        DefaultTableModel tableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tableModels.put(kind, tableModel);
+
+        JTable table = new JTable(tableModel);
+        table.setDefaultRenderer(Object.class, new ReportCellRenderer());
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void loadData() {
+        Date startDate;
+        Date endDate;
+        try {
+            startDate = Date.valueOf(startDateField.getText().trim());
+            endDate = Date.valueOf(endDateField.getText().trim());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Please enter dates in the format yyyy-mm-dd.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (endDate.before(startDate)) {
+            JOptionPane.showMessageDialog(this, "The end date must not be before the start date.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // A newer request supersedes one still loading
+        BackgroundTaskRunner.getInstance().submit(this, "Computing reports",
+                () -> ReportingEngine.getInstance().getReports(startDate, endDate),
+                this::showReports);
+    }
+
+    private void showReports(Map<Report.Kind, Report> reports) {
+        if (reports == null) {
+            JOptionPane.showMessageDialog(this, "Error computing reports. See the log for details.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        long computedAt = Long.MAX_VALUE;
+        for (Map.Entry<Report.Kind, Report> entry : reports.entrySet()) {
+            Report report = entry.getValue();
+            tableModels.get(entry.getKey()).setDataVector(report.getRows().toArray(new Object[0][]),
+                    report.getColumns());
+            summaryLabels.get(entry.getKey()).setText(formatSummary(report.getSummary()));
+            computedAt = Math.min(computedAt, report.getComputedAtMillis());
+        }
+        computedLabel.setText(computedAt == Long.MAX_VALUE ? ""
+                : "Computed " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(computedAt)));
+    }
+
+    private static String formatSummary(Map<String, Object> summary) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Object> entry : summary.entrySet()) {
+            if (text.length() > 0) {
+                text.append("     ");
+            }
+            text.append(entry.getKey()).append(": ").append(format(entry.getValue()));
+        }
+        return text.toString();
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double) {
+            return String.format("%,.2f", (Double) value);
+        }
+        if (value instanceof Long || value instanceof Integer) {
+            return String.format("%,d", value);
+        }
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Right-aligns numbers and shows amounts and percentages to two places.
+     */
+    private static class ReportCellRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void setValue(Object value) {
+            setHorizontalAlignment(value instanceof Number ? RIGHT : LEFT);
+            setText(format(value));
+        }
+    }
+}
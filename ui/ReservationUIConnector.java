@@ -1,26 +1,63 @@
 package ui;
 
-import database.DatabaseConnection;
+import logic.AvailabilityMatrix;
 import logic.Reservation;
+import logic.ReservationImporter;
 import logic.ReservationManager;
+import logic.RoomType;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
 import java.sql.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ReservationUIConnector {
     private static final Logger LOGGER = Logger.getLogger(ReservationUIConnector.class.getName());
-    private final Connection connection;
-    private final ReservationManager reservationManager;
+    private static final OperationMetrics CREATE_RESERVATION =
+            MetricsRegistry.getInstance().operation("ReservationUIConnector.createReservation");
+    private static final OperationMetrics IS_ROOM_AVAILABLE =
+            MetricsRegistry.getInstance().operation("ReservationUIConnector.isRoomAvailable");
+    private static final OperationMetrics GET_AVAILABILITY_MATRIX =
+            MetricsRegistry.getInstance().operation("ReservationUIConnector.getAvailabilityMatrix");
+    private ReservationManager reservationManager;
 
-    public ReservationUIConnector() {
-        connection = DatabaseConnection.getInstance().getConnection();
-        reservationManager = new ReservationManager();
+    /**
+     * The manager is created on first use. Creating it is cheap: the
+     * availability index it books against is loaded by StartupOrchestrator's
+     * preload pool, not here.
+     */
+    private synchronized ReservationManager manager() {
+        if (reservationManager == null) {
+            reservationManager = new ReservationManager();
+        }
+        return reservationManager;
+    }
+
+    /**
+     * Import a channel-manager booking dump, resuming an unfinished import of the same file.
+     * Runs for as long as the file takes; call it off the EDT.
+     *
+     * @param file     CSV or JSON-lines file
+     * @param listener Told about progress after each chunk, on the importing thread
+     * @return The import totals, or null if the file could not be read
+     */
+    public ReservationImporter.Summary importReservations(File file, ReservationImporter.ProgressListener listener) {
+        try {
+            return new ReservationImporter(manager()).importFile(file, listener);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Error importing reservations from " + file, e);
+            return null;
+        }
     }
 
     public String[] getReservationsTableColumns() {
@@ -29,9 +66,40 @@ public class ReservationUIConnector {
         };
     }
 
-    public Object[][] getReservationsTableData(Date startDate, Date endDate) {
-        List<Reservation> reservations = reservationManager.getReservationsByDateRange(startDate, endDate);
+    /**
+     * Reservations in a date range as a paged row source.
+     * Only the pages the table scrolls to are read from the database.
+     *
+     * @param startDate Start date for the search
+     * @param endDate   End date for the search
+     * @return The row source for the reservations table
+     */
+    public RowSource getReservationsRowSource(Date startDate, Date endDate) {
+        return new RowSource() {
+            @Override
+            public int count() {
+                return Math.max(0, manager().countReservationsByDateRange(startDate, endDate));
+            }
 
+            @Override
+            public Object[][] fetch(int offset, int limit) {
+                return toTableRows(manager().getReservationsPage(startDate, endDate, offset, limit));
+            }
+        };
+    }
+
+    /**
+     * Read the rows of a few reservations, to update the reservations table after they changed.
+     *
+     * @param reservationIds IDs of the reservations
+     * @return Rows for the reservations that still exist; null on error
+     */
+    public Object[][] getReservationsTableRows(Collection<Integer> reservationIds) {
+        List<Reservation> reservations = manager().getReservationsByIds(reservationIds);
+        return reservations == null ? null : toTableRows(reservations);
+    }
+
+    private static Object[][] toTableRows(List<Reservation> reservations) {
         Object[][] data = new Object[reservations.size()][8];
         for (int i = 0; i < reservations.size(); i++) {
             Reservation res = reservations.get(i);
@@ -44,42 +112,61 @@ public class ReservationUIConnector {
             data[i][6] = res.getStatus();
             data[i][7] = res.getRoomNumber();
         }
-
         return data;
     }
 
+    /**
+     * Reservations from today through the next 30 days, as shown when the application opens.
+     *
+     * @return The row source for the reservations table
+     */
+    public RowSource getUpcomingReservationsRowSource() {
+        Calendar calendar = Calendar.getInstance();
+        Date startDate = new Date(calendar.getTimeInMillis());
+
+        calendar.add(Calendar.DAY_OF_MONTH, 30);
+        Date endDate = new Date(calendar.getTimeInMillis());
+
+        return getReservationsRowSource(startDate, endDate);
+    }
+
     public boolean createReservation(JTextField guestNameField, JTextField emailField,
                                      JTextField phoneField, JTextField checkInField,
                                      JTextField checkOutField, JComboBox roomTypeComboBox,
                                      JTextField guestsField, JTextArea specialRequestsArea) {
+        return createReservation(guestNameField.getText(), emailField.getText(), phoneField.getText(),
+                checkInField.getText(), checkOutField.getText(),
+                (RoomType) roomTypeComboBox.getSelectedItem(),
+                guestsField.getText(), specialRequestsArea.getText());
+    }
+
+    /**
+     * Create a reservation from form values already read on the EDT,
+     * so it can run on a background thread.
+     */
+    public boolean createReservation(String fullName, String email, String phone,
+                                     String checkInText, String checkOutText,
+                                     RoomType selectedRoomType,
+                                     String guestsText, String specialRequests) {
+        long start = System.nanoTime();
         try {
             // Parse guest name into first and last name
-            String fullName = guestNameField.getText();
             String[] nameParts = fullName.split(" ", 2);
             String firstName = nameParts[0];
             String lastName = nameParts.length > 1 ? nameParts[1] : "";
 
-            // Get email and phone
-            String email = emailField.getText();
-            String phone = phoneField.getText();
-
             // Parse dates
             SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            java.util.Date checkInUtil = dateFormat.parse(checkInField.getText());
-            java.util.Date checkOutUtil = dateFormat.parse(checkOutField.getText());
+            java.util.Date checkInUtil = dateFormat.parse(checkInText);
+            java.util.Date checkOutUtil = dateFormat.parse(checkOutText);
             Date checkInDate = new Date(checkInUtil.getTime());
             Date checkOutDate = new Date(checkOutUtil.getTime());
 
             // Get room type ID from selected item
-            ReservationManager.RoomType selectedRoomType =
-                    (ReservationManager.RoomType) roomTypeComboBox.getSelectedItem();
             int roomTypeId = selectedRoomType.getId();
 
             // Get number of guests
-            int totalGuests = Integer.parseInt(guestsField.getText());
-
-            // Get special requests
-            String specialRequests = specialRequestsArea.getText();
+            int totalGuests = Integer.parseInt(guestsText);
 
             // Create reservation object
             Reservation reservation = new Reservation(
@@ -89,67 +176,107 @@ public class ReservationUIConnector {
             reservation.setSpecialRequests(specialRequests);
 
             // Create reservation in database
-            return reservationManager.createReservation(reservation);
+            return CREATE_RESERVATION.record(start, manager().createReservation(reservation));
 
         } catch (ParseException e) {
+            CREATE_RESERVATION.recordError(start);
             LOGGER.log(Level.SEVERE, "Error parsing date", e);
             return false;
         } catch (NumberFormatException e) {
+            CREATE_RESERVATION.recordError(start);
             LOGGER.log(Level.SEVERE, "Error parsing number of guests", e);
             return false;
         } catch (Exception e) {
+            CREATE_RESERVATION.recordError(start);
             LOGGER.log(Level.SEVERE, "Error creating reservation", e);
             return false;
         }
     }
 
     public boolean isRoomAvailable(JTextField checkInField, JTextField checkOutField, JComboBox roomTypeComboBox) {
+        return isRoomAvailable(checkInField.getText(), checkOutField.getText(),
+                (RoomType) roomTypeComboBox.getSelectedItem());
+    }
+
+    /**
+     * Check availability from form values already read on the EDT,
+     * so it can run on a background thread.
+     */
+    public boolean isRoomAvailable(String checkInText, String checkOutText,
+                                   RoomType selectedRoomType) {
+        long start = System.nanoTime();
         try {
             // Parse dates
             SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            java.util.Date checkInUtil = dateFormat.parse(checkInField.getText());
-            java.util.Date checkOutUtil = dateFormat.parse(checkOutField.getText());
+            java.util.Date checkInUtil = dateFormat.parse(checkInText);
+            java.util.Date checkOutUtil = dateFormat.parse(checkOutText);
             Date checkInDate = new Date(checkInUtil.getTime());
             Date checkOutDate = new Date(checkOutUtil.getTime());
 
             // Get room type ID from selected item
-            ReservationManager.RoomType selectedRoomType =
-                    (ReservationManager.RoomType) roomTypeComboBox.getSelectedItem();
             int roomTypeId = selectedRoomType.getId();
 
-            // Check availability
-            List<ReservationManager.Room> availableRooms =
-                    reservationManager.getAvailableRooms(checkInDate, checkOutDate, roomTypeId);
-
-            return !availableRooms.isEmpty();
+            // Check availability against the in-memory index
+            boolean available = manager().isRoomTypeAvailable(checkInDate, checkOutDate, roomTypeId);
+            IS_ROOM_AVAILABLE.record(start, available ? 1 : 0);
+            return available;
 
         } catch (ParseException e) {
+            IS_ROOM_AVAILABLE.recordError(start);
             LOGGER.log(Level.SEVERE, "Error parsing date", e);
             return false;
         } catch (Exception e) {
+            IS_ROOM_AVAILABLE.recordError(start);
             LOGGER.log(Level.SEVERE, "Error checking room availability", e);
             return false;
         }
     }
 
-    public void populateRoomTypeComboBox(JComboBox<ReservationManager.RoomType> roomTypeComboBox) {
+    public List<RoomType> getRoomTypes() {
+        return manager().getAllRoomTypes();
+    }
+
+    public void populateRoomTypeComboBox(JComboBox<RoomType> roomTypeComboBox) {
+        populateRoomTypeComboBox(roomTypeComboBox, getRoomTypes());
+    }
+
+    public void populateRoomTypeComboBox(JComboBox<RoomType> roomTypeComboBox,
+                                         List<RoomType> roomTypes) {
+        // Keep the selection across reference data refreshes, which bring new instances
+        RoomType selected = (RoomType) roomTypeComboBox.getSelectedItem();
         roomTypeComboBox.removeAllItems();
 
-        List<ReservationManager.RoomType> roomTypes = reservationManager.getAllRoomTypes();
-        for (ReservationManager.RoomType roomType : roomTypes) {
+        for (RoomType roomType : roomTypes) {
             roomTypeComboBox.addItem(roomType);
+            if (selected != null && roomType.getId() == selected.getId()) {
+                roomTypeComboBox.setSelectedItem(roomType);
+            }
+        }
+    }
+
+    public AvailabilityMatrix getAvailabilityMatrix(String startDateText, int days) {
+        long start = System.nanoTime();
+        try {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+            java.util.Date startUtil = dateFormat.parse(startDateText);
+            return GET_AVAILABILITY_MATRIX.recordRow(start,
+                    manager().getAvailabilityMatrix(new Date(startUtil.getTime()), days));
+        } catch (ParseException e) {
+            GET_AVAILABILITY_MATRIX.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error parsing date", e);
+            return null;
         }
     }
 
     public boolean updateReservationStatus(int reservationId, String newStatus) {
-        return reservationManager.updateReservationStatus(reservationId, newStatus);
+        return manager().updateReservationStatus(reservationId, newStatus);
     }
 
     public boolean cancelReservation(int reservationId) {
-        return reservationManager.cancelReservation(reservationId);
+        return manager().cancelReservation(reservationId);
     }
 
     public Reservation getReservation(int reservationId) {
-        return reservationManager.getReservationById(reservationId);
+        return manager().getReservationById(reservationId);
     }
 }
\ No newline at end of file
@@ -1,7 +1,8 @@
 package ui;
 
+import logic.ChangeBus;
+
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,7 +10,7 @@ import java.awt.event.ActionListener;
 public class RoomPanel extends JPanel {
     private RoomUIConnector roomConnector;
     private JTable roomsTable;
-    private DefaultTableModel roomsTableModel;
+    private LazyTableModel roomsTableModel;
     private JComboBox<String> statusComboBox;
     private JButton updateStatusButton;
     private JButton refreshButton;
@@ -18,6 +19,8 @@ public class RoomPanel extends JPanel {
         roomConnector = new RoomUIConnector();
         initComponents();
         loadData();
+        // Rooms changed here or on another terminal are updated in place, keyed by room number
+        new TableSync(ChangeBus.ROOMS, roomsTableModel, 0, roomConnector::getRoomsTableRows, this::loadData);
     }
 
     private void initComponents() {
@@ -25,14 +28,12 @@ public class RoomPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Create table model and table
-        roomsTableModel = new DefaultTableModel();
-        for (String columnName : roomConnector.getRoomsTableColumns()) {
-            roomsTableModel.addColumn(columnName);
-        }
+        roomsTableModel = new LazyTableModel(roomConnector.getRoomsTableColumns(),
+                RowSource.snapshot(() -> StartupOrchestrator.getInstance().take(
+                        StartupOrchestrator.ROOM_BOARD, roomConnector::getRoomsTableData)));
 
         roomsTable = new JTable(roomsTableModel);
         roomsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        roomsTable.setAutoCreateRowSorter(true);
 
         JScrollPane scrollPane = new JScrollPane(roomsTable);
         add(scrollPane, BorderLayout.CENTER);
@@ -66,35 +67,37 @@ public class RoomPanel extends JPanel {
     }
 
     private void loadData() {
-        // Clear table
-        roomsTableModel.setRowCount(0);
-
-        // Get room data
-        Object[][] data = roomConnector.getRoomsTableData();
-
-        // Add data to table model
-        for (Object[] row : data) {
-            roomsTableModel.addRow(row);
-        }
+        // Reload room data with a single table event
+        roomsTableModel.refresh();
     }
 
     private void updateRoomStatus() {
         int selectedRow = roomsTable.getSelectedRow();
         if (selectedRow >= 0) {
-            selectedRow = roomsTable.convertRowIndexToModel(selectedRow);
             String roomNumber = (String) roomsTableModel.getValueAt(selectedRow, 0);
-            String newStatus = (String) statusComboBox.getSelectedItem();
-
-            if (roomConnector.updateRoomStatus(roomNumber, newStatus)) {
-                JOptionPane.showMessageDialog(this,
-                        "Room status updated successfully!",
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadData();
-            } else {
+            if (roomNumber == null) {
+                // Its block is still being fetched
                 JOptionPane.showMessageDialog(this,
-                        "Error updating room status.",
-                        "Error", JOptionPane.ERROR_MESSAGE);
+                        "The selected room is still loading. Please try again in a moment.",
+                        "Loading", JOptionPane.INFORMATION_MESSAGE);
+                return;
             }
+            String newStatus = (String) statusComboBox.getSelectedItem();
+
+            BackgroundTaskRunner.getInstance().submit(null, "Updating room status",
+                    () -> roomConnector.updateRoomStatus(roomNumber, newStatus),
+                    success -> {
+                        // On success the row is updated through the change bus
+                        if (success) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Room status updated successfully!",
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Error updating room status.",
+                                    "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         } else {
             JOptionPane.showMessageDialog(this,
                     "Please select a room to update.",
@@ -1,18 +1,40 @@
 package ui;
 
 import database.DatabaseConnection;
+import database.RowMapper;
+import logic.AvailabilityIndex;
+import logic.ChangeBus;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class RoomUIConnector {
     private static final Logger LOGGER = Logger.getLogger(RoomUIConnector.class.getName());
-    private final Connection connection;
+    private static final OperationMetrics GET_ROOMS_TABLE_DATA =
+            MetricsRegistry.getInstance().operation("RoomUIConnector.getRoomsTableData");
+    private static final OperationMetrics GET_ROOMS_TABLE_ROWS =
+            MetricsRegistry.getInstance().operation("RoomUIConnector.getRoomsTableRows");
+    private static final OperationMetrics UPDATE_ROOM_STATUS =
+            MetricsRegistry.getInstance().operation("RoomUIConnector.updateRoomStatus");
+    private static final RowMapper<Object[]> ROOMS_TABLE_ROW = RowMapper.tableColumns()
+            .cell("room_number", "r.room_number", ResultSet::getString)
+            .cell("room_type", "rt.name AS room_type", ResultSet::getString)
+            .cell("status", "r.status", ResultSet::getString)
+            .cell("floor", "r.floor", ResultSet::getInt)
+            .cell("base_price", "rt.base_price", ResultSet::getDouble)
+            .cell("capacity", "rt.capacity", ResultSet::getInt)
+            .cell("last_cleaned", "r.last_cleaned", ResultSet::getDate)
+            .all();
+    private static final String ROOMS_TABLE_SELECT = "SELECT " + ROOMS_TABLE_ROW.selectList() + " " +
+            "FROM rooms r " +
+            "JOIN room_types rt ON r.type_id = rt.type_id ";
+    private final DatabaseConnection dbConnection;
 
     public RoomUIConnector() {
-        connection = DatabaseConnection.getInstance().getConnection();
+        dbConnection = DatabaseConnection.getInstance();
     }
 
     public String[] getRoomsTableColumns() {
@@ -22,98 +44,95 @@ public class RoomUIConnector {
     }
 
     public Object[][] getRoomsTableData() {
-        List<Object[]> data = new ArrayList<>();
-        Statement stmt = null;
-        ResultSet rs = null;
+        String sql = ROOMS_TABLE_SELECT + "ORDER BY r.room_number";
 
+        long start = System.nanoTime();
         try {
-            String sql = "SELECT r.room_number, rt.name AS room_type, r.status, r.floor, " +
-                    "rt.base_price, rt.capacity, r.last_cleaned " +
-                    "FROM rooms r " +
-                    "JOIN room_types rt ON r.type_id = rt.type_id " +
-                    "ORDER BY r.room_number";
-
-            stmt = connection.createStatement();
-            rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getString("room_number"),
-                        rs.getString("room_type"),
-                        rs.getString("status"),
-                        rs.getInt("floor"),
-                        rs.getDouble("base_price"),
-                        rs.getInt("capacity"),
-                        rs.getDate("last_cleaned")
-                };
-                data.add(row);
-            }
+            return GET_ROOMS_TABLE_DATA.recordTable(start, dbConnection.executeRead(conn -> {
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    return ROOMS_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                }
+            }));
         } catch (SQLException e) {
+            GET_ROOMS_TABLE_DATA.recordError(start);
             LOGGER.log(Level.SEVERE, "Error retrieving room data", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (stmt != null) stmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
+            return new Object[0][0];
         }
-
-        return data.toArray(new Object[0][0]);
     }
 
-    public boolean updateRoomStatus(String roomNumber, String status) {
-        PreparedStatement pstmt = null;
+    /**
+     * Read the rows of a few rooms, to update the rooms table after they changed.
+     *
+     * @param roomIds IDs of the rooms
+     * @return Rows for the rooms that still exist, keyed by room number in column 0; null on error
+     */
+    public Object[][] getRoomsTableRows(Collection<Integer> roomIds) {
+        if (roomIds.isEmpty()) {
+            return new Object[0][0];
+        }
+        String sql = ROOMS_TABLE_SELECT + "WHERE r.room_id IN ("
+                + DatabaseConnection.placeholders(roomIds.size()) + ")";
 
+        long start = System.nanoTime();
         try {
+            return GET_ROOMS_TABLE_ROWS.recordTable(start, dbConnection.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (int roomId : roomIds) {
+                        pstmt.setInt(index++, roomId);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return ROOMS_TABLE_ROW.mapAll(rs).toArray(new Object[0][0]);
+                    }
+                }
+            }));
+        } catch (SQLException e) {
+            GET_ROOMS_TABLE_ROWS.recordError(start);
+            LOGGER.log(Level.SEVERE, "Error retrieving changed rooms", e);
+            return null;
+        }
+    }
+
+    public boolean updateRoomStatus(String roomNumber, String status) {
+        long start = System.nanoTime();
+        try (Connection conn = dbConnection.getConnection()) {
             // First get room ID
-            int roomId = getRoomId(roomNumber);
+            int roomId = getRoomId(conn, roomNumber);
             if (roomId == -1) {
-                return false;
+                return UPDATE_ROOM_STATUS.record(start, false);
             }
 
-            CallableStatement cstmt = connection.prepareCall("{CALL sp_update_room_status(?, ?)}");
-            cstmt.setInt(1, roomId);
-            cstmt.setString(2, status);
+            try (CallableStatement cstmt = conn.prepareCall("{CALL sp_update_room_status(?, ?)}")) {
+                cstmt.setInt(1, roomId);
+                cstmt.setString(2, status);
 
-            cstmt.execute();
-            cstmt.close();
+                cstmt.execute();
+            }
+            AvailabilityIndex.getInstance().setRoomStatus(roomId, status);
+            ChangeBus.getInstance().publish(ChangeBus.ROOMS, roomId);
 
-            return true;
+            return UPDATE_ROOM_STATUS.record(start, true);
         } catch (SQLException e) {
+            UPDATE_ROOM_STATUS.recordError(start);
             LOGGER.log(Level.SEVERE, "Error updating room status", e);
             return false;
-        } finally {
-            try {
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing statement", e);
-            }
         }
     }
 
-    private int getRoomId(String roomNumber) {
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+    private int getRoomId(Connection conn, String roomNumber) {
+        String sql = "SELECT room_id FROM rooms WHERE room_number = ?";
 
-        try {
-            String sql = "SELECT room_id FROM rooms WHERE room_number = ?";
-            pstmt = connection.prepareStatement(sql);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, roomNumber);
-            rs = pstmt.executeQuery();
 
-            if (rs.next()) {
-                return rs.getInt("room_id");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("room_id");
+                }
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error getting room ID", e);
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (pstmt != null) pstmt.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources", e);
-            }
         }
 
         return -1;
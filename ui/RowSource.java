@@ -0,0 +1,83 @@
+package ui;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Supplies table rows to a LazyTableModel a block at a time.
+ */
+public interface RowSource {
+
+    /**
+     * Count the rows. Called on a background thread once each time the
+     * model is refreshed, before any rows are fetched for that refresh.
+     *
+     * @return Number of rows, or 0 if they could not be counted
+     */
+    int count();
+
+    /**
+     * Fetch a block of rows. Called on a background thread.
+     *
+     * @param offset Index of the first row
+     * @param limit  Maximum number of rows to return
+     * @return The rows; fewer than limit at the end of the data, empty on error
+     */
+    Object[][] fetch(int offset, int limit);
+
+    /**
+     * Tell the source that a row changed, so a source that keeps rows between
+     * fetches can replace its copy. Sources that read the database on every
+     * fetch see the change anyway and keep this default. Called on the EDT.
+     *
+     * @param row       The changed row
+     * @param keyColumn Column that identifies the row
+     * @return False if the source has no row with that key, e.g. it is new
+     */
+    default boolean update(Object[] row, int keyColumn) {
+        return true;
+    }
+
+    /**
+     * A source for small tables that are cheap to load whole: count() loads a
+     * fresh snapshot and fetch() slices it.
+     *
+     * @param loader Loads all rows
+     * @return The row source
+     */
+    static RowSource snapshot(Supplier<Object[][]> loader) {
+        return new RowSource() {
+            // Loaded on one background thread, sliced on another
+            private volatile Object[][] rows = new Object[0][];
+
+            @Override
+            public int count() {
+                rows = loader.get();
+                return rows.length;
+            }
+
+            @Override
+            public Object[][] fetch(int offset, int limit) {
+                Object[][] snapshot = rows;
+                int end = Math.min(snapshot.length, offset + limit);
+                return offset < end ? Arrays.copyOfRange(snapshot, offset, end) : new Object[0][];
+            }
+
+            @Override
+            public boolean update(Object[] row, int keyColumn) {
+                // Copied, as a fetch may be slicing the current snapshot
+                Object[][] snapshot = rows;
+                for (int i = 0; i < snapshot.length; i++) {
+                    if (Objects.equals(snapshot[i][keyColumn], row[keyColumn])) {
+                        Object[][] updated = snapshot.clone();
+                        updated[i] = row;
+                        rows = updated;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,258 @@
+package ui;
+
+import logic.AvailabilityIndex;
+import logic.ChangeBus;
+import logic.ReferenceDataCache;
+import metrics.MetricsRegistry;
+import metrics.OperationMetrics;
+
+import javax.swing.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts the application without making the user wait for the database.
+ *
+ * The main window is shown straight away, before any query runs, while the
+ * data its first screens need is loaded in parallel on a small preload pool:
+ * the reference data, the availability index, the opening page of upcoming
+ * reservations, the room board and the low-stock items. Panels take a
+ * preloaded result the first time they load and query as usual after that;
+ * a result nobody took within a minute is dropped as stale. How long each
+ * step took, and when the window appeared, is logged.
+ */
+public final class StartupOrchestrator {
+    private static final Logger LOGGER = Logger.getLogger(StartupOrchestrator.class.getName());
+    private static StartupOrchestrator instance;
+
+    public static final String ROOM_TYPES = "roomTypes";
+    public static final String AVAILABILITY_INDEX = "availabilityIndex";
+    public static final String UPCOMING_RESERVATIONS = "upcomingReservations";
+    public static final String ROOM_BOARD = "roomBoard";
+    public static final String LOW_STOCK_ITEMS = "lowStockItems";
+
+    // Each preload holds a pooled connection while it runs
+    private static final int PRELOAD_THREADS = 4;
+    private static final long MAX_PRELOAD_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<String, CompletableFuture<Preloaded>> preloads = new ConcurrentHashMap<>();
+    private boolean started;
+
+    /**
+     * A preload result and when it was loaded.
+     */
+    private static final class Preloaded {
+        final Object value;
+        final long loadedAt;
+
+        Preloaded(Object value) {
+            this.value = value;
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Row count and first block of a paged row source, read ahead of the table.
+     */
+    private static final class FirstBlock {
+        final int count;
+        final Object[][] rows;
+        final int limit;
+
+        FirstBlock(int count, Object[][] rows, int limit) {
+            this.count = count;
+            this.rows = rows;
+            this.limit = limit;
+        }
+    }
+
+    private StartupOrchestrator() {
+    }
+
+    /**
+     * Get the singleton instance of the startup orchestrator.
+     *
+     * @return The StartupOrchestrator instance
+     */
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new StartupOrchestrator();
+        }
+        return instance;
+    }
+
+    /**
+     * Start the preloads and show the main window. Call once, from main.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        LOGGER.info("Starting, " + uptimeMillis() + " ms after JVM launch");
+
+        // Before any preload reads, so polling delivers what other terminals change meanwhile
+        ChangeBus.getInstance().markStart();
+        startPreloads();
+
+        SwingUtilities.invokeLater(() -> {
+            long start = System.nanoTime();
+            HotelManagementGUI frame = new HotelManagementGUI();
+            frame.setVisible(true);
+            LOGGER.info("Main window shown in " + millisSince(start) + " ms, "
+                    + uptimeMillis() + " ms after JVM launch");
+        });
+    }
+
+    /**
+     * Take a preloaded result, or load it now if there is none.
+     * A result is handed out once; later calls load fresh data. Waits for a
+     * preload still running, so call it off the EDT.
+     *
+     * @param name   Name of the preload, e.g. ROOM_BOARD
+     * @param loader Loads the data if it was not preloaded, failed or is stale
+     * @param <T>    The result type
+     * @return The preloaded or freshly loaded result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T take(String name, Supplier<T> loader) {
+        Preloaded preloaded = takePreloaded(name);
+        return preloaded != null ? (T) preloaded.value : loader.get();
+    }
+
+    /**
+     * Wrap a paged row source so its first count and first block come from a
+     * preload of the same rows, e.g. UPCOMING_RESERVATIONS, when it is still fresh.
+     *
+     * @param name   Name of the preload
+     * @param source The source used for everything else
+     * @return The row source for the table model
+     */
+    public RowSource firstBlockFrom(String name, RowSource source) {
+        return new RowSource() {
+            // Set by count() and used by the fetch that follows it, both on background threads
+            private volatile FirstBlock firstBlock;
+            private volatile boolean taken;
+
+            @Override
+            public int count() {
+                if (!taken) {
+                    taken = true;
+                    Preloaded preloaded = takePreloaded(name);
+                    if (preloaded != null) {
+                        firstBlock = (FirstBlock) preloaded.value;
+                        return firstBlock.count;
+                    }
+                }
+                firstBlock = null;
+                return source.count();
+            }
+
+            @Override
+            public Object[][] fetch(int offset, int limit) {
+                FirstBlock block = firstBlock;
+                if (block != null && offset == 0 && limit == block.limit) {
+                    firstBlock = null;
+                    return block.rows;
+                }
+                return source.fetch(offset, limit);
+            }
+        };
+    }
+
+    private void startPreloads() {
+        long start = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(PRELOAD_THREADS, task -> {
+            Thread thread = new Thread(task, "startup-preload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<Preloaded>> all = new ArrayList<>();
+        all.add(preload(pool, ROOM_TYPES, () -> ReferenceDataCache.getInstance().getRoomTypes()));
+        // Only warmed: the first reservation work would otherwise wait for it
+        all.add(run(pool, AVAILABILITY_INDEX, AvailabilityIndex::getInstance));
+        all.add(preload(pool, UPCOMING_RESERVATIONS,
+                () -> readFirstBlock(new ReservationUIConnector().getUpcomingReservationsRowSource())));
+        all.add(preload(pool, ROOM_BOARD, () -> new RoomUIConnector().getRoomsTableData()));
+        all.add(preload(pool, LOW_STOCK_ITEMS, () -> new InventoryUIConnector().getLowStockItems()));
+
+        CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            pool.shutdown();
+            ChangeBus.getInstance().startPolling();
+            LOGGER.info("Startup preloads finished in " + millisSince(start) + " ms, "
+                    + uptimeMillis() + " ms after JVM launch");
+        });
+    }
+
+    private CompletableFuture<Preloaded> preload(ExecutorService pool, String name, Callable<?> work) {
+        CompletableFuture<Preloaded> future = run(pool, name, work);
+        preloads.put(name, future);
+        return future;
+    }
+
+    /**
+     * @return The result, completed with null if the work failed
+     */
+    private static CompletableFuture<Preloaded> run(ExecutorService pool, String name, Callable<?> work) {
+        OperationMetrics metrics = MetricsRegistry.getInstance().operation("StartupOrchestrator.preload." + name);
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                Preloaded preloaded = new Preloaded(work.call());
+                metrics.record(start, 1);
+                LOGGER.info("Preloaded " + name + " in " + millisSince(start) + " ms");
+                return preloaded;
+            } catch (Exception e) {
+                metrics.recordError(start);
+                LOGGER.log(Level.WARNING, "Preloading " + name + " failed; it will be loaded on first use", e);
+                return null;
+            }
+        }, pool);
+    }
+
+    /**
+     * Read a source the way LazyTableModel does when it first shows it.
+     */
+    private static FirstBlock readFirstBlock(RowSource source) {
+        int count = source.count();
+        int limit = LazyTableModel.DEFAULT_BLOCK_SIZE;
+        return new FirstBlock(count, count > 0 ? source.fetch(0, limit) : new Object[0][], limit);
+    }
+
+    /**
+     * @return The named preload's result, or null if there is none, it failed or it is stale
+     */
+    private Preloaded takePreloaded(String name) {
+        CompletableFuture<Preloaded> future = preloads.remove(name);
+        if (future == null) {
+            return null;
+        }
+        Preloaded preloaded = future.join();
+        if (preloaded == null || System.currentTimeMillis() - preloaded.loadedAt > MAX_PRELOAD_AGE_MILLIS) {
+            return null;
+        }
+        return preloaded;
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
@@ -0,0 +1,115 @@
+package ui;
+
+import logic.ChangeBus;
+
+import javax.swing.*;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps a LazyTableModel current with the changes announced on the ChangeBus
+ * for one table, so panels no longer reload everything after each action.
+ *
+ * Updated rows are read again by ID and replaced in place, so the work done
+ * follows the number of changes rather than the size of the table. Changes
+ * that arrive while rows are being read are batched into the next read.
+ * New rows, removed rows and very large batches (an import, say) reload the
+ * table instead, since they move other rows. A row whose sort key changed
+ * stays where it is until the next reload.
+ */
+public class TableSync {
+    // Above this many rows at once a reload is cheaper than reading them by ID
+    private static final int MAX_ROWS_PER_UPDATE = 500;
+
+    private final LazyTableModel model;
+    private final int keyColumn;
+    private final RowFetcher fetcher;
+    private final Runnable reload;
+
+    // Only used on the EDT
+    private final Set<Integer> changedIds = new LinkedHashSet<>();
+    private boolean reloadPending;
+    private boolean updating;
+
+    /**
+     * Reads the current rows for a set of IDs.
+     */
+    public interface RowFetcher {
+        /**
+         * Called on a background thread.
+         *
+         * @param ids IDs of the changed rows
+         * @return Rows for the IDs that still exist, keyed like the table; null on error
+         */
+        Object[][] fetch(Collection<Integer> ids);
+    }
+
+    /**
+     * Start following a table's changes.
+     *
+     * @param table     ChangeBus table name, e.g. ChangeBus.BILLING
+     * @param model     The model to update
+     * @param keyColumn Model column holding the row's ID, or another unique key the fetcher returns
+     * @param fetcher   Reads changed rows by ID
+     * @param reload    Reloads the whole table, e.g. the panel's loadData
+     */
+    public TableSync(String table, LazyTableModel model, int keyColumn, RowFetcher fetcher, Runnable reload) {
+        this.model = model;
+        this.keyColumn = keyColumn;
+        this.fetcher = fetcher;
+        this.reload = reload;
+        ChangeBus.getInstance().addListener(table,
+                (changedTable, rowIds, inserted) -> SwingUtilities.invokeLater(() -> changed(rowIds, inserted)));
+    }
+
+    private void changed(Set<Integer> rowIds, boolean inserted) {
+        if (inserted) {
+            reloadPending = true;
+        } else {
+            changedIds.addAll(rowIds);
+        }
+        if (!updating) {
+            update();
+        }
+    }
+
+    private void update() {
+        if (reloadPending || changedIds.size() > MAX_ROWS_PER_UPDATE) {
+            // The reload reads every changed row too
+            reloadPending = false;
+            changedIds.clear();
+            reload.run();
+            return;
+        }
+        if (changedIds.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> ids = new LinkedHashSet<>(changedIds);
+        changedIds.clear();
+        updating = true;
+
+        BackgroundTaskRunner.getInstance().submit(null, "Updating rows", () -> fetcher.fetch(ids), rows -> {
+            if (rows == null) {
+                fetchFailed(ids);
+                return;
+            }
+            updating = false;
+            if (rows.length < ids.size() || !model.updateRows(rows, keyColumn)) {
+                // A row was removed, or is not one the source has yet
+                reloadPending = true;
+            }
+            update();
+        }, error -> fetchFailed(ids));
+    }
+
+    /**
+     * Keep the rows of a failed fetch to read again with the next change,
+     * rather than retrying straight away against a database that is failing.
+     */
+    private void fetchFailed(Set<Integer> ids) {
+        updating = false;
+        changedIds.addAll(ids);
+    }
+}